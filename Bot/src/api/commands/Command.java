@@ -84,6 +84,11 @@ public final class Command implements HasName, Comparable<Command> {
      * Defaults to the command name with the .ftl file extension.
      */
     private String templateFile;
+    /**
+     * Whether the command only reads from the database. Read only commands are handled in read only transactions, which are
+     * cheaper since nothing has to be checked for changes when they end. Defaults to false.
+     */
+    private boolean readOnly;
 
     public Command setSyntax(@Nullable final String syntax) {
         this.syntax = syntax;
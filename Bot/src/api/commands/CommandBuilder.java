@@ -33,6 +33,7 @@ public class CommandBuilder {
     private AccessLevel requiredAccessLevel = AccessLevel.USER;
     private boolean accessLevelDowngradable = true;
     private String templateFile;
+    private boolean readOnly;
 
     private CommandBuilder(final String name) {
         this.name = name;
@@ -131,12 +132,24 @@ public class CommandBuilder {
         return this;
     }
 
+    /**
+     * Declares that the command only reads from the database, so that it can be handled in a read only transaction. The
+     * command fails if it tries to write anything anyway.
+     *
+     * @return this CommandBuilder, to allow chained method calls
+     */
+    public CommandBuilder readOnly() {
+        this.readOnly = true;
+        return this;
+    }
+
     /**
      * Builds the command
      *
      * @return a new Command configured by the parameters of this build
      */
     public Command build() {
-        return new Command(name, syntax, helpText, commandType, requiredAccessLevel, requiredAccessLevel, accessLevelDowngradable, templateFile);
+        return new Command(name, syntax, helpText, commandType, requiredAccessLevel, requiredAccessLevel, accessLevelDowngradable, templateFile,
+                readOnly);
     }
 }
@@ -143,6 +143,13 @@ public class CommandResponse {
         return new HashMap<>(storage);
     }
 
+    /**
+     * @return a copy of this response, which can be modified without affecting this one
+     */
+    public CommandResponse copy() {
+        return isError() ? new CommandResponse(errorMessage) : new CommandResponse(asMap());
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(1000);
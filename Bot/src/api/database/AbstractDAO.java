@@ -35,12 +35,17 @@ import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.criterion.CriteriaSpecification;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.transform.AliasToBeanConstructorResultTransformer;
 
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.reflect.Constructor;
 import java.util.Collection;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -114,6 +119,74 @@ public abstract class AbstractDAO<E> {
         }
     }
 
+    /**
+     * Same as {@link #find(Object...)}, but with the specified fetch profile enabled, so that the associations it covers are
+     * loaded in the same query instead of one at a time when they're first accessed
+     *
+     * @param fetchProfile the name of the fetch profile
+     * @param criterion    the criterion
+     * @return the matching items
+     */
+    @Transactional
+    protected List<E> findWithFetchProfile(final String fetchProfile, @Nullable final Object... criterion) {
+        Session session = getSession();
+        if (session.isFetchProfileEnabled(fetchProfile)) return find(criterion);
+
+        session.enableFetchProfile(fetchProfile);
+        try {
+            return find(criterion);
+        } finally {
+            session.disableFetchProfile(fetchProfile);
+        }
+    }
+
+    @Transactional
+    @Nullable
+    protected E getWithFetchProfile(final String fetchProfile, @Nullable final Object... criterion) {
+        List<E> list = findWithFetchProfile(fetchProfile, criterion);
+        return list == null || list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Same as {@link #find(Object...)}, but only lists one page of the matching items, so that listings don't have to load
+     * everything to show a few rows
+     *
+     * @param first     the index of the first item to list
+     * @param max       the max amount of items to list
+     * @param order     the order of the items, or null for no particular order. The id is always used to break ties, so
+     *                  that the pages are stable
+     * @param criterion the criterion
+     * @return the matching items on the page
+     */
+    @Transactional
+    protected List<E> findPage(final int first, final int max, @Nullable final Order order, @Nullable final Object... criterion) {
+        checkArgument(first >= 0 && max > 0, "Invalid page: " + first + ", " + max);
+        try {
+            Criteria criteria = getSession().createCriteria(clazz).setFirstResult(first).setMaxResults(max);
+            criteria = DBUtil.resolveAndAddCriterion(criteria, criterion);
+            if (order != null) criteria.addOrder(order);
+            criteria.addOrder(Order.asc("id"));
+            return listAndCast(criteria);
+        } catch (Exception e) {
+            throw new DBException(e);
+        }
+    }
+
+    /**
+     * @param criterion the criterion
+     * @return the amount of items matching the criterion
+     */
+    @Transactional
+    protected int count(@Nullable final Object... criterion) {
+        try {
+            Criteria criteria = getSession().createCriteria(clazz).setProjection(Projections.rowCount());
+            criteria = DBUtil.resolveAndAddCriterion(criteria, criterion);
+            return ((Number) criteria.uniqueResult()).intValue();
+        } catch (Exception e) {
+            throw new DBException(e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected List<E> listAndCast(final Criteria criteria) {
         try {
@@ -132,6 +205,25 @@ public abstract class AbstractDAO<E> {
         }
     }
 
+    /**
+     * Lists the results of a criteria with a projection as immutable rows instead of entities. The row type needs exactly one
+     * public constructor, which takes the projected values in the same order as they're in the projection.
+     * <p/>
+     * Rows aren't managed by the session, so nothing is kept in the persistence context or checked for changes on flush,
+     * which makes them a better fit than entities for listings that only show a few columns.
+     *
+     * @param rowClass the type of row
+     * @param criteria the criteria, with a projection set
+     * @param <T>      the type of row
+     * @return the rows
+     */
+    protected static <T> List<T> listRows(final Class<T> rowClass, final Criteria criteria) {
+        Constructor<?>[] constructors = rowClass.getConstructors();
+        checkArgument(constructors.length == 1, "Row types need exactly one public constructor: " + rowClass.getName());
+        criteria.setResultTransformer(new AliasToBeanConstructorResultTransformer(constructors[0]));
+        return listAndCast(rowClass, criteria);
+    }
+
     @Transactional
     public E save(final E object) {
         try {
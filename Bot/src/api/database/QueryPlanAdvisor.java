@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database;
+
+import api.tools.common.CleanupUtil;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A debugging aid that captures the SQL that's sent to the database, grouped by the DAO method that caused it to be sent,
+ * and reports the queries that end up scanning entire tables.
+ * <p/>
+ * The advisor is registered as the hibernate interceptor when the Core.Database.ExplainQueries property is enabled. Each
+ * distinct select is then run through EXPLAIN once, on a separate connection, and every table that is scanned in spite of
+ * the query having a where clause is logged as a warning. The parameters are bound as nulls when explaining, which H2
+ * plans the same way as any other value, while MySQL may decide that the where clause can't match anything and skip the
+ * plan altogether, so on MySQL this may miss a few scans.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+public class QueryPlanAdvisor extends EmptyInterceptor {
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\*\\s*(?:\\w+\\.)?(\\w+)\\.tableScan\\s*\\*/");
+    private static final String H2_DIRECT_LOOKUP = "/* direct lookup */";
+    private static final Pattern WHERE_CLAUSE = Pattern.compile("\\swhere\\s", Pattern.CASE_INSENSITIVE);
+    private static final String UNKNOWN_CALLER = "unknown";
+
+    private final SetMultimap<String, String> capturedQueries = LinkedHashMultimap.create();
+    private transient volatile ConnectionProvider connectionProvider;
+
+    /**
+     * Makes the advisor explain the queries it captures from now on, using connections from the specified provider
+     *
+     * @param connectionProvider the connection provider
+     */
+    public void explainWith(final ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * @return the captured queries, grouped by the DAO method that sent them
+     */
+    public SetMultimap<String, String> getCapturedQueries() {
+        synchronized (capturedQueries) {
+            return ImmutableSetMultimap.copyOf(capturedQueries);
+        }
+    }
+
+    @Override
+    public String onPrepareStatement(final String sql) {
+        if (!sql.regionMatches(true, 0, "select", 0, 6)) return sql;
+
+        String caller = findCallingDAOMethod();
+        boolean isNew;
+        synchronized (capturedQueries) {
+            isNew = capturedQueries.put(caller, sql);
+        }
+
+        ConnectionProvider provider = connectionProvider;
+        if (isNew && provider != null && WHERE_CLAUSE.matcher(sql).find()) {
+            Connection connection = null;
+            try {
+                connection = provider.getConnection();
+                for (String table : findTableScans(connection, sql)) {
+                    log.warn("Full scan of table " + table + " in " + caller + ": " + sql);
+                }
+            } catch (SQLException e) {
+                log.debug("Could not explain query: " + sql, e);
+            } finally {
+                closeConnection(provider, connection);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Runs the specified query through EXPLAIN and lists the tables that the database would scan in their entirety
+     *
+     * @param connection the connection to use
+     * @param sql        the query
+     * @return the names of the scanned tables. Supports the plans of H2 and MySQL
+     * @throws SQLException .
+     */
+    public static List<String> findTableScans(final Connection connection, final String sql) throws SQLException {
+        List<String> tableScans = new ArrayList<>();
+        ResultSet resultSet = null;
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameterCount = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameterCount; ++i) {
+                statement.setNull(i, Types.NULL);
+            }
+            resultSet = statement.executeQuery();
+            boolean isMySQLPlan = hasColumn(resultSet.getMetaData(), "type");
+            while (resultSet.next()) {
+                if (isMySQLPlan) {
+                    if ("ALL".equalsIgnoreCase(resultSet.getString("type"))) tableScans.add(resultSet.getString("table"));
+                } else {
+                    String plan = resultSet.getString(1);
+                    //Aggregates like min and max of an indexed column are read straight from the index
+                    if (plan.contains(H2_DIRECT_LOOKUP)) continue;
+                    Matcher matcher = H2_TABLE_SCAN.matcher(plan);
+                    while (matcher.find()) {
+                        tableScans.add(matcher.group(1).toLowerCase());
+                    }
+                }
+            }
+        } finally {
+            CleanupUtil.closeSilently(resultSet);
+        }
+        return tableScans;
+    }
+
+    private static boolean hasColumn(final ResultSetMetaData metaData, final String column) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); ++i) {
+            if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) return true;
+        }
+        return false;
+    }
+
+    private static String findCallingDAOMethod() {
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            int enhancerIndex = className.indexOf("$$");
+            if (enhancerIndex != -1) className = className.substring(0, enhancerIndex);
+            if (className.endsWith("DAO") && !className.equals(AbstractDAO.class.getName()))
+                return className.substring(className.lastIndexOf('.') + 1) + '.' + element.getMethodName();
+        }
+        return UNKNOWN_CALLER;
+    }
+
+    private static void closeConnection(final ConnectionProvider provider, final Connection connection) {
+        if (connection == null) return;
+        try {
+            provider.closeConnection(connection);
+        } catch (SQLException e) {
+            log.debug("Could not close connection", e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database;
+
+import api.database.daos.BotUserDAO;
+import api.database.models.BotUser;
+import api.database.models.UserStatistic;
+import api.database.transactions.SimpleTransactionTask;
+import api.events.DelayedEventPoster;
+import api.events.bot.StartupEvent;
+import api.events.bot.UserRemovedEvent;
+import api.tools.collections.Leaderboard;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Provider;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.HibernateException;
+import spi.events.EventListener;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static api.database.transactions.Transactions.inTransaction;
+import static api.tools.text.StringUtil.lowerCase;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps an in memory leaderboard per user statistic type, so the hall of fame and ranks don't have to be recalculated
+ * from every user's statistics each time they're asked for.
+ * <p/>
+ * The leaderboards are built from the database at startup and then kept up to date through BotUserDAO, which reports
+ * statistics changes once the transaction they were made in has been committed.
+ */
+@Log4j
+@Singleton
+@ParametersAreNonnullByDefault
+public final class UserStatisticsLeaderboards implements EventListener {
+    private final ConcurrentMap<String, Leaderboard<String>> leaderboards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> typeNames = new ConcurrentHashMap<>();
+    private final Provider<BotUserDAO> botUserDAOProvider;
+
+    @Inject
+    public UserStatisticsLeaderboards(final Provider<BotUserDAO> botUserDAOProvider) {
+        this.botUserDAOProvider = botUserDAOProvider;
+    }
+
+    @Subscribe
+    public void onStartup(final StartupEvent startupEvent) {
+        try {
+            inTransaction(new SimpleTransactionTask() {
+                @Override
+                public void run(final DelayedEventPoster delayedEventBus) {
+                    rebuild(botUserDAOProvider.get().getAllUsers());
+                }
+            });
+        } catch (HibernateException e) {
+            log.error("Could not load user statistics leaderboards", e);
+        }
+    }
+
+    @Subscribe
+    public void onUserRemoved(final UserRemovedEvent event) {
+        for (Leaderboard<String> leaderboard : leaderboards.values()) {
+            leaderboard.remove(event.getMainNick());
+        }
+    }
+
+    /**
+     * Moves a user's entries over to a new main nick
+     *
+     * @param previousMainNick the main nick the entries are registered under
+     * @param mainNick         the new main nick
+     */
+    public void userRenamed(final String previousMainNick, final String mainNick) {
+        for (Leaderboard<String> leaderboard : leaderboards.values()) {
+            Integer score = leaderboard.getScore(previousMainNick);
+            if (score == null) continue;
+            leaderboard.remove(previousMainNick);
+            leaderboard.set(mainNick, score);
+        }
+    }
+
+    /**
+     * Throws away the current leaderboards and builds new ones from the specified users' statistics
+     *
+     * @param users the users
+     */
+    public synchronized void rebuild(final Collection<BotUser> users) {
+        clear();
+        for (BotUser user : users) {
+            for (UserStatistic statistic : user.getStats()) {
+                statisticChanged(user.getMainNick(), statistic.getType(), statistic.getAmount());
+            }
+        }
+    }
+
+    /**
+     * Registers the new value of a statistic
+     *
+     * @param mainNick the main nick of the user the statistic belongs to
+     * @param type     the statistic type
+     * @param amount   the new amount
+     */
+    public void statisticChanged(final String mainNick, final String type, final int amount) {
+        String key = lowerCase(checkNotNull(type));
+        Leaderboard<String> leaderboard = leaderboards.get(key);
+        if (leaderboard == null) {
+            typeNames.putIfAbsent(key, type);
+            leaderboards.putIfAbsent(key, new Leaderboard<String>());
+            leaderboard = leaderboards.get(key);
+        }
+        leaderboard.set(checkNotNull(mainNick), amount);
+    }
+
+    /**
+     * Removes all statistics from the leaderboards
+     */
+    public synchronized void clear() {
+        leaderboards.clear();
+        typeNames.clear();
+    }
+
+    /**
+     * @return the names of all the statistic types that have leaderboards, sorted alphabetically
+     */
+    public SortedSet<String> getTypes() {
+        return new TreeSet<>(typeNames.values());
+    }
+
+    /**
+     * @param type   the statistic type (not case sensitive)
+     * @param amount the max amount of entries to return
+     * @return the top users for the specified statistic type, highest first. Empty if there's no such type
+     */
+    public List<Leaderboard.Entry<String>> getTop(final String type, final int amount) {
+        Leaderboard<String> leaderboard = leaderboards.get(lowerCase(type));
+        return leaderboard == null ? Collections.<Leaderboard.Entry<String>>emptyList() : leaderboard.getTop(amount);
+    }
+
+    /**
+     * @param type     the statistic type (not case sensitive)
+     * @param mainNick the main nick of the user
+     * @return the user's rank for the specified statistic type, where 1 is the top, or -1 if the user has no such statistic
+     */
+    public int getRank(final String type, final String mainNick) {
+        Leaderboard<String> leaderboard = leaderboards.get(lowerCase(type));
+        return leaderboard == null ? -1 : leaderboard.getRank(mainNick);
+    }
+}
@@ -32,8 +32,12 @@ import api.database.models.Alias;
 import api.database.transactions.Transactional;
 import com.google.inject.Provider;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.inject.Inject;
 import java.util.List;
@@ -50,6 +54,32 @@ public class AliasDAO extends AbstractDAO<Alias> {
         return find();
     }
 
+    /**
+     * Lists one page of aliases, for listings that show a few aliases at a time
+     *
+     * @param first        the index of the first alias to list
+     * @param max          the max amount of aliases to list
+     * @param sortProperty the property to sort by, or null to list them in the order they were added
+     * @param ascending    whether to sort ascending
+     * @param aliasFilter  only list aliases that contain this (NOT case sensitive), or null to list all
+     * @return the aliases on the page
+     */
+    @Transactional
+    public List<Alias> getAliases(final int first, final int max, @Nullable final String sortProperty, final boolean ascending,
+                                  @Nullable final String aliasFilter) {
+        Order order = sortProperty == null ? null : ascending ? Order.asc(sortProperty) : Order.desc(sortProperty);
+        return findPage(first, max, order, getAliasFilter(aliasFilter));
+    }
+
+    /**
+     * @param aliasFilter only count aliases that contain this (NOT case sensitive), or null to count all
+     * @return the amount of aliases
+     */
+    @Transactional
+    public int countAliases(@Nullable final String aliasFilter) {
+        return count(getAliasFilter(aliasFilter));
+    }
+
     @Transactional
     public Alias getAlias(final String alias) {
         return get(Restrictions.like("alias", alias));
@@ -59,4 +89,9 @@ public class AliasDAO extends AbstractDAO<Alias> {
     public Alias getAlias(final long id) {
         return get(Restrictions.idEq(id));
     }
+
+    @Nullable
+    private static Criterion getAliasFilter(@Nullable final String aliasFilter) {
+        return aliasFilter == null || aliasFilter.isEmpty() ? null : Restrictions.ilike("alias", aliasFilter, MatchMode.ANYWHERE);
+    }
 }
@@ -28,12 +28,18 @@
 package api.database.daos;
 
 import api.database.AbstractDAO;
+import api.database.UserStatisticsLeaderboards;
 import api.database.models.BotUser;
 import api.database.models.Nickname;
+import api.database.models.UserStatistic;
+import api.database.transactions.TransactionManager;
 import api.database.transactions.Transactional;
 import api.settings.PropertiesCollection;
 import com.google.inject.Provider;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.mindrot.jbcrypt.BCrypt;
 
@@ -51,14 +57,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class BotUserDAO extends AbstractDAO<BotUser> {
     private final NicknameDAO nicknameDAO;
     private final PropertiesCollection properties;
+    private final UserStatisticsLeaderboards leaderboards;
 
     @Inject
     public BotUserDAO(final Provider<Session> sessionProvider,
                       final NicknameDAO nicknameDAO,
-                      final PropertiesCollection properties) {
+                      final PropertiesCollection properties,
+                      final UserStatisticsLeaderboards leaderboards) {
         super(BotUser.class, sessionProvider);
         this.nicknameDAO = nicknameDAO;
         this.properties = properties;
+        this.leaderboards = leaderboards;
     }
 
     @Transactional
@@ -93,6 +102,37 @@ public class BotUserDAO extends AbstractDAO<BotUser> {
         return find();
     }
 
+    /**
+     * Lists one page of users, for listings that show a few users at a time
+     *
+     * @param first        the index of the first user to list
+     * @param max          the max amount of users to list
+     * @param sortProperty the property to sort by, or null to list them in the order they were added
+     * @param ascending    whether to sort ascending
+     * @param nickFilter   only list users with main nicks that contain this (NOT case sensitive), or null to list all
+     * @return the users on the page
+     */
+    @Transactional
+    public List<BotUser> getUsers(final int first, final int max, @Nullable final String sortProperty, final boolean ascending,
+                                  @Nullable final String nickFilter) {
+        Order order = sortProperty == null ? null : ascending ? Order.asc(sortProperty) : Order.desc(sortProperty);
+        return findPage(first, max, order, getNickFilter(nickFilter));
+    }
+
+    /**
+     * @param nickFilter only count users with main nicks that contain this (NOT case sensitive), or null to count all
+     * @return the amount of users
+     */
+    @Transactional
+    public int countUsers(@Nullable final String nickFilter) {
+        return count(getNickFilter(nickFilter));
+    }
+
+    @Nullable
+    private static Criterion getNickFilter(@Nullable final String nickFilter) {
+        return nickFilter == null || nickFilter.isEmpty() ? null : Restrictions.ilike("mainNick", nickFilter, MatchMode.ANYWHERE);
+    }
+
     /**
      * @return a Collection of all admin users
      */
@@ -146,4 +186,41 @@ public class BotUserDAO extends AbstractDAO<BotUser> {
         if (user == null) return null;
         return user.getDateInUsersLocalTime(checkNotNull(date));
     }
+
+    /**
+     * Increments the specified stat for the user. The leaderboards are updated once the transaction has been committed.
+     *
+     * @param user     the user
+     * @param statType the type of stat (NOT case sensitive)
+     * @param incr     the amount to add
+     */
+    @Transactional
+    public void incrementStat(final BotUser user, final String statType, final int incr) {
+        UserStatistic statistic = user.incrementStat(checkNotNull(statType), incr);
+        final String mainNick = user.getMainNick();
+        final String type = statistic.getType();
+        final int amount = statistic.getAmount();
+        TransactionManager.addAfterCommitAction(new Runnable() {
+            @Override
+            public void run() {
+                leaderboards.statisticChanged(mainNick, type, amount);
+            }
+        });
+    }
+
+    /**
+     * Removes all stats for all users. The leaderboards are cleared once the transaction has been committed.
+     */
+    @Transactional
+    public void clearAllStats() {
+        for (BotUser user : getAllUsers()) {
+            user.getStats().clear();
+        }
+        TransactionManager.addAfterCommitAction(new Runnable() {
+            @Override
+            public void run() {
+                leaderboards.clear();
+            }
+        });
+    }
 }
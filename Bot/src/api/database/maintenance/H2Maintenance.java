@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.maintenance;
+
+import api.database.transactions.TransactionManager;
+import com.mchange.v2.c3p0.PooledDataSource;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Maintenance operations for the embedded H2 database. Backups and integrity checks run alongside everything else, while
+ * compaction needs the database to be closed for a moment, so transactions are paused while it's done.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+public class H2Maintenance {
+    private static final String BACKUP_SUFFIX = ".zip";
+
+    private final ConnectionProvider connectionProvider;
+    private final Path databaseFile;
+    private final Path backupDirectory;
+    private final String backupPrefix;
+
+    /**
+     * @param connectionProvider the provider of connections to the database
+     * @param databaseFile       the database file, used to check its size
+     * @param backupDirectory    the directory to put backups in
+     * @param backupPrefix       the prefix of the backup file names, which is used to know which files are backups
+     */
+    public H2Maintenance(final ConnectionProvider connectionProvider, final Path databaseFile, final Path backupDirectory,
+                         final String backupPrefix) {
+        this.connectionProvider = connectionProvider;
+        this.databaseFile = databaseFile;
+        this.backupDirectory = backupDirectory;
+        this.backupPrefix = backupPrefix;
+    }
+
+    /**
+     * Backs up the database to a new zip file and removes the oldest backups. The database is in use while the backup is
+     * taken, but the backup is still consistent since H2 includes the transaction log.
+     *
+     * @param backupsToKeep the max amount of backups to keep, including the new one
+     * @return the new backup file
+     * @throws SQLException if the backup fails
+     * @throws IOException  if the backup directory can't be created or old backups can't be removed
+     */
+    public Path backup(final int backupsToKeep) throws SQLException, IOException {
+        checkArgument(backupsToKeep > 0, "At least the new backup must be kept");
+        Files.createDirectories(backupDirectory);
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        Path backupFile = backupDirectory.resolve(backupPrefix + timestamp + BACKUP_SUFFIX);
+        execute("BACKUP TO '" + backupFile.toAbsolutePath().toString().replace("'", "''") + '\'');
+
+        List<Path> backups = getBackups();
+        for (Path oldBackup : backups.subList(0, Math.max(0, backups.size() - backupsToKeep))) {
+            Files.delete(oldBackup);
+        }
+        return backupFile;
+    }
+
+    /**
+     * @return the backups, oldest first
+     * @throws IOException if the backup directory can't be read
+     */
+    public List<Path> getBackups() throws IOException {
+        List<Path> backups = new ArrayList<>();
+        if (!Files.isDirectory(backupDirectory)) return backups;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(backupDirectory, backupPrefix + '*' + BACKUP_SUFFIX)) {
+            for (Path backup : stream) {
+                backups.add(backup);
+            }
+        }
+        //The timestamp format sorts in chronological order
+        Collections.sort(backups);
+        return backups;
+    }
+
+    /**
+     * Reads through every row of every table, so that damaged pages show up as errors, and compares the amount of rows found
+     * with the row count the database keeps track of.
+     *
+     * @return a description of each problem that was found, or an empty list if there were none
+     * @throws SQLException if the tables can't be listed
+     */
+    public List<String> checkIntegrity() throws SQLException {
+        List<String> problems = new ArrayList<>();
+        Connection connection = connectionProvider.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : getTables(statement)) {
+                try {
+                    String problem = checkTable(statement, table);
+                    //The counts can differ if rows are added at the same time, so a mismatch has to show up twice to count
+                    if (problem != null) problem = checkTable(statement, table);
+                    if (problem != null) problems.add(problem);
+                } catch (SQLException e) {
+                    H2Maintenance.log.warn("Could not read all of table " + table, e);
+                    problems.add(table + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            release(connection);
+        }
+        return problems;
+    }
+
+    private static List<String> getTables(final Statement statement) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (ResultSet resultSet = statement
+                .executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'TABLE'")) {
+            while (resultSet.next()) {
+                tables.add(resultSet.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    private static String checkTable(final Statement statement, final String table) throws SQLException {
+        String quotedTable = '"' + table.replace("\"", "\"\"") + '"';
+        //A plain count is answered from the stored row count, while the condition forces every row to be read
+        try (ResultSet resultSet = statement
+                .executeQuery("SELECT COUNT(*), (SELECT COUNT(*) FROM " + quotedTable + ") FROM " + quotedTable + " WHERE ROWNUM() >= 0")) {
+            resultSet.next();
+            long rowsRead = resultSet.getLong(1);
+            long rowCount = resultSet.getLong(2);
+            return rowsRead == rowCount ? null : table + ": read " + rowsRead + " rows, but the row count is " + rowCount;
+        }
+    }
+
+    /**
+     * Closes the database, which makes H2 compact the file (for at most the MAX_COMPACT_TIME set in the connection url), and
+     * then opens it again. Transactions are paused while this is done, and the connection pool is reset afterwards since
+     * all the connections it held were closed along with the database.
+     *
+     * @param maxWait  the max time to wait for the transactions in progress to finish
+     * @param timeUnit the unit of maxWait
+     * @return true if the database was compacted, false if the transactions in progress didn't finish in time
+     * @throws SQLException         if the database can't be closed or opened again
+     * @throws InterruptedException if the thread is interrupted while waiting for transactions to finish
+     */
+    public boolean compact(final long maxWait, final TimeUnit timeUnit) throws SQLException, InterruptedException {
+        if (!TransactionManager.pauseTransactions(maxWait, timeUnit)) return false;
+        try {
+            Connection connection = connectionProvider.getConnection();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            } catch (SQLException e) {
+                connectionProvider.closeConnection(connection);
+                throw e;
+            }
+            //Closing the database closed the connection as well, so returning it to the pool may fail
+            closeSilently(connection);
+            resetConnectionPool();
+            execute("SELECT 1");
+            return true;
+        } finally {
+            TransactionManager.resumeTransactions();
+        }
+    }
+
+    private void closeSilently(final Connection connection) {
+        try {
+            connectionProvider.closeConnection(connection);
+        } catch (SQLException ignore) {
+        }
+    }
+
+    private void resetConnectionPool() throws SQLException {
+        if (!connectionProvider.isUnwrappableAs(DataSource.class)) return;
+        DataSource dataSource = connectionProvider.unwrap(DataSource.class);
+        if (dataSource instanceof PooledDataSource) ((PooledDataSource) dataSource).softResetAllUsers();
+    }
+
+    /**
+     * @return the size of the database file in bytes, or -1 if it can't be read
+     */
+    public long getDatabaseFileSize() {
+        try {
+            return Files.size(databaseFile);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void execute(final String sql) throws SQLException {
+        Connection connection = connectionProvider.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            release(connection);
+        }
+    }
+
+    private void release(final Connection connection) throws SQLException {
+        try {
+            if (!connection.getAutoCommit()) connection.rollback();
+        } finally {
+            connectionProvider.closeConnection(connection);
+        }
+    }
+}
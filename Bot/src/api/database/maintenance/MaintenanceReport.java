@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.maintenance;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The outcome of a maintenance run. Sizes are in bytes and -1 when unknown, times are in millis.
+ */
+@Getter
+public class MaintenanceReport {
+    private final Date started = new Date();
+    @Nullable
+    private String backupFile;
+    private long backupMillis;
+    private final List<String> integrityProblems = new ArrayList<>();
+    private long integrityCheckMillis;
+    private boolean compacted;
+    private long compactionMillis;
+    private long sizeBefore = -1;
+    private long sizeAfter = -1;
+    private final List<String> errors = new ArrayList<>();
+
+    MaintenanceReport() {
+    }
+
+    void setBackup(final String backupFile, final long backupMillis) {
+        this.backupFile = backupFile;
+        this.backupMillis = backupMillis;
+    }
+
+    void setIntegrityCheck(final List<String> integrityProblems, final long integrityCheckMillis) {
+        this.integrityProblems.addAll(integrityProblems);
+        this.integrityCheckMillis = integrityCheckMillis;
+    }
+
+    void setCompaction(final boolean compacted, final long compactionMillis, final long sizeBefore, final long sizeAfter) {
+        this.compacted = compacted;
+        this.compactionMillis = compactionMillis;
+        this.sizeBefore = sizeBefore;
+        this.sizeAfter = sizeAfter;
+    }
+
+    void addError(final String error) {
+        errors.add(error);
+    }
+
+    public List<String> getIntegrityProblems() {
+        return Collections.unmodifiableList(integrityProblems);
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Backup: ").append(backupFile == null ? "failed" : backupFile + " (" + backupMillis + " ms)");
+        builder.append(", integrity check: ").append(integrityProblems.isEmpty() ? "ok" : integrityProblems.size() + " problem(s)")
+               .append(" (").append(integrityCheckMillis).append(" ms)");
+        builder.append(", compaction: ");
+        if (compacted) builder.append(sizeBefore).append(" -> ").append(sizeAfter).append(" bytes (").append(compactionMillis)
+                              .append(" ms)");
+        else builder.append("skipped");
+        if (!errors.isEmpty()) builder.append(", errors: ").append(errors);
+        return builder.toString();
+    }
+}
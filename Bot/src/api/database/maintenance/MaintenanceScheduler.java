@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.maintenance;
+
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.base.Stopwatch;
+import com.google.inject.Provider;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static api.settings.PropertiesConfig.*;
+
+/**
+ * Runs maintenance on the embedded database once a day, at an hour when the bot is expected to be quiet. The database is
+ * first backed up and checked, and then compacted if both of those went well.
+ */
+@Log4j
+@Singleton
+@ParametersAreNonnullByDefault
+public class MaintenanceScheduler {
+    private static final long MAX_TRANSACTION_WAIT_SECONDS = 10;
+
+    private final PropertiesCollection properties;
+    private final Provider<SessionFactory> sessionFactoryProvider;
+    private final ThreadingManager threadingManager;
+    private volatile MaintenanceReport lastReport;
+
+    @Inject
+    public MaintenanceScheduler(final PropertiesCollection properties, final Provider<SessionFactory> sessionFactoryProvider,
+                                final ThreadingManager threadingManager) {
+        this.properties = properties;
+        this.sessionFactoryProvider = sessionFactoryProvider;
+        this.threadingManager = threadingManager;
+    }
+
+    /**
+     * @return true if the embedded database is used and maintenance hasn't been turned off
+     */
+    public boolean isEnabled() {
+        return "embedded".equalsIgnoreCase(properties.get(DB_HOST)) && properties.getBoolean(DB_MAINTENANCE_ENABLED);
+    }
+
+    /**
+     * @return the hour of the day the maintenance runs
+     */
+    public int getMaintenanceHour() {
+        return properties.getInteger(DB_MAINTENANCE_HOUR);
+    }
+
+    /**
+     * Schedules the maintenance to run every day at the configured hour, unless it's not enabled
+     */
+    public void scheduleMaintenance() {
+        if (!isEnabled()) return;
+        long delay = millisUntilHour(getMaintenanceHour(), Calendar.getInstance());
+        threadingManager.scheduleRecurring(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runMaintenance();
+                } catch (final RuntimeException e) {
+                    //Letting it through would cancel all future runs
+                    MaintenanceScheduler.log.error("Database maintenance failed", e);
+                }
+            }
+        }, delay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        MaintenanceScheduler.log.info("Database maintenance scheduled to run in " + TimeUnit.MILLISECONDS.toMinutes(delay) + " minutes");
+    }
+
+    static long millisUntilHour(final int hour, final Calendar now) {
+        Calendar next = (Calendar) now.clone();
+        next.set(Calendar.HOUR_OF_DAY, hour);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        if (!next.after(now)) next.add(Calendar.DAY_OF_MONTH, 1);
+        return next.getTimeInMillis() - now.getTimeInMillis();
+    }
+
+    /**
+     * Runs the maintenance right away
+     *
+     * @return the report of how it went
+     */
+    public synchronized MaintenanceReport runMaintenance() {
+        H2Maintenance maintenance = createMaintenance();
+        MaintenanceReport report = new MaintenanceReport();
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            Path backup = maintenance.backup(properties.getInteger(DB_MAINTENANCE_BACKUPS_TO_KEEP));
+            report.setBackup(backup.getFileName().toString(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (SQLException | IOException e) {
+            MaintenanceScheduler.log.error("Could not back up the database", e);
+            report.addError("Backup failed: " + e.getMessage());
+        }
+
+        stopwatch.reset().start();
+        try {
+            List<String> problems = maintenance.checkIntegrity();
+            report.setIntegrityCheck(problems, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            for (String problem : problems) {
+                MaintenanceScheduler.log.error("Database integrity problem: " + problem);
+            }
+        } catch (SQLException e) {
+            MaintenanceScheduler.log.error("Could not check the integrity of the database", e);
+            report.addError("Integrity check failed: " + e.getMessage());
+        }
+
+        if (report.getBackupFile() != null && report.getIntegrityProblems().isEmpty() && report.getErrors().isEmpty()) {
+            compact(maintenance, report);
+        } else report.addError("Compaction skipped, since there's no fresh backup of a healthy database");
+
+        MaintenanceScheduler.log.info("Database maintenance done. " + report);
+        lastReport = report;
+        return report;
+    }
+
+    private static void compact(final H2Maintenance maintenance, final MaintenanceReport report) {
+        long sizeBefore = maintenance.getDatabaseFileSize();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            boolean compacted = maintenance.compact(MAX_TRANSACTION_WAIT_SECONDS, TimeUnit.SECONDS);
+            report.setCompaction(compacted, stopwatch.elapsed(TimeUnit.MILLISECONDS), sizeBefore, maintenance.getDatabaseFileSize());
+            if (!compacted) report.addError("Compaction skipped, since the bot was too busy");
+        } catch (SQLException e) {
+            MaintenanceScheduler.log.error("Could not compact the database", e);
+            report.addError("Compaction failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.addError("Compaction interrupted");
+        }
+    }
+
+    private H2Maintenance createMaintenance() {
+        SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) sessionFactoryProvider.get();
+        ConnectionProvider connectionProvider = sessionFactory.getServiceRegistry().getService(ConnectionProvider.class);
+        String dbName = properties.get(DB_NAME);
+        return new H2Maintenance(connectionProvider, Paths.get("data", dbName + ".h2.db"), Paths.get("data", "backups"), dbName + '-');
+    }
+
+    /**
+     * @return the report from the last time the maintenance ran, or null if it hasn't run yet
+     */
+    @Nullable
+    public MaintenanceReport getLastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.migration;
+
+import com.google.common.base.Joiner;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.PrimaryKey;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.*;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Copies all the data from one database to another, for example when moving from the embedded database to MySQL.
+ * <p/>
+ * The tables are copied one at a time, in an order where referenced tables come before the ones that reference them, and the
+ * rows are streamed from the source and inserted in batches, so memory use doesn't depend on the size of the database. Each
+ * batch is committed on its own, which means an interrupted migration can simply be started again: tables with a numeric
+ * primary key continue after the highest key that was copied, and other tables are copied again if they're incomplete. For the
+ * same reason, running it again after more data has been added to the source copies the new rows.
+ * <p/>
+ * Rows are copied with their ids as is, so the target has to be empty (apart from an earlier run of the migration). The schema
+ * is created in the target if it doesn't have any of the tables yet, using the dialect of the configuration.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+public class DatabaseMigration {
+    /**
+     * Not mapped by Hibernate, but managed separately by the database managers
+     */
+    private static final String VERSIONS_TABLE = "versions";
+    private static final String CREATE_VERSIONS_TABLE = "CREATE TABLE IF NOT EXISTS " + VERSIONS_TABLE +
+            "(artifact VARCHAR(30) NOT NULL, db_version BIGINT NOT NULL DEFAULT 1, CONSTRAINT pk_versions PRIMARY KEY (artifact))";
+
+    private final Configuration configuration;
+    private final int batchSize;
+    private final List<TableInfo> tables;
+
+    /**
+     * @param configuration the configuration with all the mapped classes, with the dialect of the target database set
+     * @param batchSize     how many rows to insert and commit at a time
+     */
+    public DatabaseMigration(final Configuration configuration, final int batchSize) {
+        checkArgument(batchSize > 0, "The batch size must be positive");
+        this.configuration = configuration;
+        this.batchSize = batchSize;
+        configuration.buildMappings();
+        this.tables = orderByDependencies(configuration);
+    }
+
+    /**
+     * @return the names of the tables in the order they're copied
+     */
+    public List<String> getTablesInMigrationOrder() {
+        List<String> names = new ArrayList<>();
+        for (TableInfo table : tables) {
+            names.add(table.name);
+        }
+        return names;
+    }
+
+    private static List<TableInfo> orderByDependencies(final Configuration configuration) {
+        Map<Table, TableInfo> unordered = new LinkedHashMap<>();
+        for (Iterator<Table> iter = configuration.getTableMappings(); iter.hasNext(); ) {
+            Table table = iter.next();
+            if (table.isPhysicalTable()) unordered.put(table, TableInfo.from(table));
+        }
+
+        List<TableInfo> ordered = new ArrayList<>();
+        ordered.add(new TableInfo(VERSIONS_TABLE, Arrays.asList("artifact", "db_version"), Collections.singletonList("artifact")));
+        Set<Table> added = new HashSet<>();
+        while (!unordered.isEmpty()) {
+            Table next = null;
+            for (Table table : unordered.keySet()) {
+                if (referencesOnly(table, added)) {
+                    next = table;
+                    break;
+                }
+            }
+            //Only happens with circular references, which the disabled constraint checks take care of anyway
+            if (next == null) next = unordered.keySet().iterator().next();
+            ordered.add(unordered.remove(next));
+            added.add(next);
+        }
+        return ordered;
+    }
+
+    private static boolean referencesOnly(final Table table, final Set<Table> tables) {
+        for (Iterator<?> iter = table.getForeignKeyIterator(); iter.hasNext(); ) {
+            Table referenced = ((ForeignKey) iter.next()).getReferencedTable();
+            if (referenced != table && !tables.contains(referenced)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies everything from the source to the target, and then compares the row counts of every table
+     *
+     * @param source the connection to the database to copy from
+     * @param target the connection to the database to copy to
+     * @return a report of the row counts
+     * @throws SQLException if something goes wrong, in which case whatever was committed so far stays in the target
+     */
+    public MigrationReport migrate(final Connection source, final Connection target) throws SQLException {
+        return migrate(source, target, new ProgressListener() {
+            @Override
+            public void onProgress(final String table, final int tablesCopied, final int totalTables) {
+            }
+        });
+    }
+
+    /**
+     * Copies everything from the source to the target, and then compares the row counts of every table
+     *
+     * @param source           the connection to the database to copy from
+     * @param target           the connection to the database to copy to
+     * @param progressListener gets told about each table before it's copied
+     * @return a report of the row counts
+     * @throws SQLException if something goes wrong, in which case whatever was committed so far stays in the target
+     */
+    public MigrationReport migrate(final Connection source, final Connection target, final ProgressListener progressListener)
+            throws SQLException {
+        source.setAutoCommit(false);
+        target.setAutoCommit(false);
+
+        createSchemaIfMissing(target);
+        setConstraintChecks(target, false);
+        try {
+            for (int i = 0; i < tables.size(); ++i) {
+                TableInfo table = tables.get(i);
+                progressListener.onProgress(table.name, i, tables.size());
+                long copied = copyTable(table, source, target);
+                DatabaseMigration.log.info("Copied " + copied + " rows to " + table.name);
+            }
+        } finally {
+            setConstraintChecks(target, true);
+            source.rollback();
+        }
+
+        MigrationReport report = new MigrationReport();
+        for (TableInfo table : tables) {
+            report.add(table.name, count(source, table.name), count(target, table.name));
+        }
+        source.rollback();
+        target.commit();
+        return report;
+    }
+
+    private void createSchemaIfMissing(final Connection target) throws SQLException {
+        try (Statement statement = target.createStatement()) {
+            statement.execute(CREATE_VERSIONS_TABLE);
+        }
+        if (!tableExists(target, tables.get(tables.size() - 1).name)) {
+            DatabaseMigration.log.info("Creating the schema in the target database");
+            new SchemaExport(configuration, target).execute(false, true, false, true);
+        }
+        target.commit();
+    }
+
+    private static boolean tableExists(final Connection connection, final String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1 FROM " + table + " WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            return false;
+        }
+    }
+
+    private static void setConstraintChecks(final Connection connection, final boolean enabled) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        String sql;
+        if ("MySQL".equalsIgnoreCase(product)) sql = "SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0);
+        else if ("H2".equalsIgnoreCase(product)) sql = "SET REFERENTIAL_INTEGRITY " + enabled;
+        else return;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+        connection.commit();
+    }
+
+    private long copyTable(final TableInfo table, final Connection source, final Connection target) throws SQLException {
+        Object lastCopiedKey = null;
+        boolean resumeByKey = table.primaryKey.size() == 1 && hasNumericPrimaryKey(table, source);
+        if (resumeByKey) {
+            lastCopiedKey = max(target, table);
+        } else {
+            long targetCount = count(target, table.name);
+            if (targetCount > 0 && targetCount == count(source, table.name)) return 0;
+            //No way to tell which rows are missing, so start over
+            try (Statement statement = target.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + table.name);
+            }
+        }
+
+        String columns = Joiner.on(", ").join(table.columns);
+        String select = "SELECT " + columns + " FROM " + table.name;
+        if (resumeByKey) select += (lastCopiedKey == null ? "" : " WHERE " + table.primaryKey.get(0) + " > ?") + " ORDER BY " +
+                table.primaryKey.get(0);
+        String insert = "INSERT INTO " + table.name + " (" + columns + ") VALUES (" +
+                Joiner.on(", ").join(Collections.nCopies(table.columns.size(), "?")) + ')';
+
+        long copied = 0;
+        try (PreparedStatement selectStatement = source.prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement insertStatement = target.prepareStatement(insert)) {
+            //The MySQL driver only streams results with this specific fetch size, and otherwise reads them all into memory
+            selectStatement.setFetchSize(isMySQL(source) ? Integer.MIN_VALUE : batchSize);
+            if (lastCopiedKey != null) selectStatement.setObject(1, lastCopiedKey);
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                int pending = 0;
+                while (resultSet.next()) {
+                    for (int i = 1; i <= table.columns.size(); ++i) {
+                        insertStatement.setObject(i, resultSet.getObject(i));
+                    }
+                    insertStatement.addBatch();
+                    if (++pending == batchSize) {
+                        insertStatement.executeBatch();
+                        target.commit();
+                        copied += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insertStatement.executeBatch();
+                    target.commit();
+                    copied += pending;
+                }
+            }
+        }
+        return copied;
+    }
+
+    private static boolean hasNumericPrimaryKey(final TableInfo table, final Connection source) throws SQLException {
+        try (Statement statement = source.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + table.primaryKey.get(0) + " FROM " + table.name + " WHERE 1 = 0")) {
+            switch (resultSet.getMetaData().getColumnType(1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static boolean isMySQL(final Connection connection) throws SQLException {
+        return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static Object max(final Connection connection, final TableInfo table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(" + table.primaryKey.get(0) + ") FROM " + table.name)) {
+            resultSet.next();
+            return resultSet.getObject(1);
+        }
+    }
+
+    private static long count(final Connection connection, final String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Receives the progress of a migration
+     */
+    public interface ProgressListener {
+        /**
+         * @param table        the table that's about to be copied
+         * @param tablesCopied the amount of tables copied so far
+         * @param totalTables  the amount of tables to copy
+         */
+        void onProgress(String table, int tablesCopied, int totalTables);
+    }
+
+    private static class TableInfo {
+        private final String name;
+        private final List<String> columns;
+        private final List<String> primaryKey;
+
+        private TableInfo(final String name, final List<String> columns, final List<String> primaryKey) {
+            this.name = name;
+            this.columns = columns;
+            this.primaryKey = primaryKey;
+        }
+
+        private static TableInfo from(final Table table) {
+            List<String> columns = new ArrayList<>();
+            for (Iterator<?> iter = table.getColumnIterator(); iter.hasNext(); ) {
+                columns.add(((Column) iter.next()).getName());
+            }
+            List<String> primaryKey = new ArrayList<>();
+            PrimaryKey key = table.getPrimaryKey();
+            if (key != null) {
+                for (Object column : key.getColumns()) {
+                    primaryKey.add(((Column) column).getName());
+                }
+            }
+            return new TableInfo(table.getName(), columns, primaryKey);
+        }
+    }
+}
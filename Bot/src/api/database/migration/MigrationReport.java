@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.migration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The row counts of each table after a migration, in the source and target databases
+ */
+public class MigrationReport {
+    private final Map<String, long[]> counts = new LinkedHashMap<>();
+
+    void add(final String table, final long sourceCount, final long targetCount) {
+        counts.put(table, new long[]{sourceCount, targetCount});
+    }
+
+    /**
+     * @return the names of all the tables, in the order they were migrated
+     */
+    public List<String> getTables() {
+        return new ArrayList<>(counts.keySet());
+    }
+
+    public long getSourceCount(final String table) {
+        return counts.get(table)[0];
+    }
+
+    public long getTargetCount(final String table) {
+        return counts.get(table)[1];
+    }
+
+    /**
+     * @return the tables where the row counts differ
+     */
+    public List<String> getMismatchedTables() {
+        List<String> mismatched = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            if (entry.getValue()[0] != entry.getValue()[1]) mismatched.add(entry.getKey());
+        }
+        return Collections.unmodifiableList(mismatched);
+    }
+
+    /**
+     * @return true if every table has the same amount of rows in the target as in the source
+     */
+    public boolean isVerified() {
+        return getMismatchedTables().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(entry.getKey()).append(": ").append(entry.getValue()[0]).append(" -> ").append(entry.getValue()[1]);
+        }
+        return builder.toString();
+    }
+}
@@ -211,14 +211,24 @@ public final class BotUser implements Comparable<BotUser>, HasNumericId {
         return false;
     }
 
-    public void incrementStat(final String statType, final int incr) {
+    /**
+     * Increments the specified stat, adding it if the user doesn't have it yet. Use BotUserDAO.incrementStat to also keep the
+     * leaderboards up to date.
+     *
+     * @param statType the type of stat (NOT case sensitive)
+     * @param incr     the amount to add
+     * @return the incremented stat
+     */
+    public UserStatistic incrementStat(final String statType, final int incr) {
         for (UserStatistic statistic : getStats()) {
             if (statType.equalsIgnoreCase(statistic.getType())) {
                 statistic.setAmount(statistic.getAmount() + incr);
-                return;
+                return statistic;
             }
         }
-        getStats().add(new UserStatistic(this, statType, incr));
+        UserStatistic statistic = new UserStatistic(this, statType, incr);
+        getStats().add(statistic);
+        return statistic;
     }
 
     @Override
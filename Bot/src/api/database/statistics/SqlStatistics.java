@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.statistics;
+
+import lombok.extern.log4j.Log4j;
+import org.apache.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects statistics about the SQL statements sent to the database, grouped by tag. The current thread is tagged with the
+ * command or web service method it's working on, and everything done in its transactions is counted for that tag.
+ * <p/>
+ * Statements that take longer than the slow statement threshold are logged to the "SlowQueries" logger, and transactions
+ * that send more statements than the budget are warned about, since that's usually a sign of lazy loading in a loop.
+ */
+@Log4j
+public final class SqlStatistics {
+    public static final String UNTAGGED = "(untagged)";
+
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("SlowQueries");
+    private static final ThreadLocal<String> TAG = new ThreadLocal<>();
+    private static final ThreadLocal<Transaction> CURRENT_TRANSACTION = new ThreadLocal<>();
+    private static final ConcurrentMap<String, TagStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private static volatile long slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(250);
+    private static volatile int statementBudget = 40;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * @param slowStatementMillis statements that take at least this long are logged as slow
+     * @param statementBudget     the max amount of statements a transaction is expected to send
+     */
+    public static void configure(final int slowStatementMillis, final int statementBudget) {
+        SqlStatistics.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(slowStatementMillis);
+        SqlStatistics.statementBudget = statementBudget;
+    }
+
+    /**
+     * Tags the current thread, so that transactions started from now on are counted for that tag
+     *
+     * @param tag the tag, or null to remove it
+     * @return the previous tag, which should be restored when done
+     */
+    @Nullable
+    public static String tag(@Nullable final String tag) {
+        String previous = TAG.get();
+        if (tag == null) TAG.remove();
+        else TAG.set(tag);
+        return previous;
+    }
+
+    /**
+     * Marks the start of a transaction on the current thread
+     *
+     * @param defaultTag the tag to use if the thread isn't tagged
+     */
+    public static void transactionStarted(@Nullable final String defaultTag) {
+        String tag = TAG.get();
+        if (tag == null) tag = defaultTag == null ? UNTAGGED : defaultTag;
+        CURRENT_TRANSACTION.set(new Transaction(tag));
+    }
+
+    /**
+     * Marks the end of the transaction on the current thread, and warns if it sent more statements than the budget allows
+     */
+    public static void transactionEnded() {
+        Transaction transaction = CURRENT_TRANSACTION.get();
+        if (transaction == null) return;
+        CURRENT_TRANSACTION.remove();
+        boolean overBudget = transaction.statements > statementBudget;
+        getStatistics(transaction.tag).addTransaction(transaction.statements, overBudget);
+        if (overBudget) SqlStatistics.log.warn(transaction.tag + " sent " + transaction.statements +
+                " SQL statements in one transaction, which is more than the budget of " + statementBudget);
+    }
+
+    /**
+     * Records a statement sent on the current thread
+     *
+     * @param sql   the sql, if known
+     * @param nanos how long it took
+     */
+    public static void statementExecuted(@Nullable final String sql, final long nanos) {
+        Transaction transaction = CURRENT_TRANSACTION.get();
+        String tag = transaction == null ? UNTAGGED : transaction.tag;
+        if (transaction != null) ++transaction.statements;
+        boolean slow = nanos >= slowStatementNanos;
+        getStatistics(tag).addStatement(nanos, slow);
+        if (slow) SLOW_QUERY_LOG.warn(TimeUnit.NANOSECONDS.toMillis(nanos) + " ms [" + tag + "] " + sql);
+    }
+
+    /**
+     * Records time spent waiting to get a connection from the pool on the current thread
+     *
+     * @param nanos how long it took
+     */
+    public static void connectionAcquired(final long nanos) {
+        Transaction transaction = CURRENT_TRANSACTION.get();
+        getStatistics(transaction == null ? UNTAGGED : transaction.tag).addConnectionWait(nanos);
+    }
+
+    private static TagStatistics getStatistics(final String tag) {
+        TagStatistics statistics = STATISTICS.get(tag);
+        if (statistics == null) {
+            TagStatistics created = new TagStatistics(tag);
+            statistics = STATISTICS.putIfAbsent(tag, created);
+            if (statistics == null) statistics = created;
+        }
+        return statistics;
+    }
+
+    /**
+     * @return a copy of the statistics for every tag, with the ones that spent the most time on SQL first
+     */
+    public static List<TagStatistics> getStatistics() {
+        List<TagStatistics> out = new ArrayList<>();
+        for (TagStatistics statistics : STATISTICS.values()) {
+            out.add(statistics.copy());
+        }
+        Collections.sort(out, new Comparator<TagStatistics>() {
+            @Override
+            public int compare(final TagStatistics o1, final TagStatistics o2) {
+                return Long.compare(o2.getStatementMillis(), o1.getStatementMillis());
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Clears all the collected statistics
+     */
+    public static void reset() {
+        STATISTICS.clear();
+    }
+
+    private static class Transaction {
+        private final String tag;
+        private long statements;
+
+        private Transaction(final String tag) {
+            this.tag = tag;
+        }
+    }
+}
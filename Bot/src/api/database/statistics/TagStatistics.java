@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.statistics;
+
+/**
+ * SQL statistics for everything that was done under one tag, which is usually a command or a web service method
+ */
+public final class TagStatistics {
+    private final String tag;
+    private long transactions;
+    private long statements;
+    private long maxStatementsPerTransaction;
+    private long statementNanos;
+    private long maxStatementNanos;
+    private long connectionWaitNanos;
+    private long slowStatements;
+    private long budgetOverruns;
+
+    TagStatistics(final String tag) {
+        this.tag = tag;
+    }
+
+    private TagStatistics(final TagStatistics other) {
+        this.tag = other.tag;
+        this.transactions = other.transactions;
+        this.statements = other.statements;
+        this.maxStatementsPerTransaction = other.maxStatementsPerTransaction;
+        this.statementNanos = other.statementNanos;
+        this.maxStatementNanos = other.maxStatementNanos;
+        this.connectionWaitNanos = other.connectionWaitNanos;
+        this.slowStatements = other.slowStatements;
+        this.budgetOverruns = other.budgetOverruns;
+    }
+
+    synchronized void addStatement(final long nanos, final boolean slow) {
+        ++statements;
+        statementNanos += nanos;
+        maxStatementNanos = Math.max(maxStatementNanos, nanos);
+        if (slow) ++slowStatements;
+    }
+
+    synchronized void addConnectionWait(final long nanos) {
+        connectionWaitNanos += nanos;
+    }
+
+    synchronized void addTransaction(final long statementsInTransaction, final boolean overBudget) {
+        ++transactions;
+        maxStatementsPerTransaction = Math.max(maxStatementsPerTransaction, statementsInTransaction);
+        if (overBudget) ++budgetOverruns;
+    }
+
+    synchronized TagStatistics copy() {
+        return new TagStatistics(this);
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public double getAverageStatementsPerTransaction() {
+        return transactions == 0 ? 0 : (double) statements / transactions;
+    }
+
+    public long getMaxStatementsPerTransaction() {
+        return maxStatementsPerTransaction;
+    }
+
+    public long getStatementMillis() {
+        return statementNanos / 1_000_000;
+    }
+
+    public long getMaxStatementMillis() {
+        return maxStatementNanos / 1_000_000;
+    }
+
+    public long getConnectionWaitMillis() {
+        return connectionWaitNanos / 1_000_000;
+    }
+
+    public long getSlowStatements() {
+        return slowStatements;
+    }
+
+    public long getBudgetOverruns() {
+        return budgetOverruns;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.transactions;
+
+import api.events.bot.EntitiesChangedEvent;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.eventbus.EventBus;
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps track of which entities are inserted, updated and deleted in each transaction, and posts an {@link EntitiesChangedEvent}
+ * with them once the transaction has been committed. Nothing is posted for transactions that are rolled back.
+ * <p/>
+ * Changes to collections are reported as updates of the entity owning the collection.
+ */
+public final class EntityChangeTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+    private static final ThreadLocal<PendingChanges> PENDING_CHANGES = new ThreadLocal<>();
+
+    private final EventBus eventBus;
+
+    private EntityChangeTracker(final EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Registers a tracker with the specified session factory
+     *
+     * @param sessionFactory the session factory
+     * @param eventBus       the event bus to post the changes on
+     */
+    public static void install(final SessionFactory sessionFactory, final EventBus eventBus) {
+        EntityChangeTracker tracker = new EntityChangeTracker(eventBus);
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+                                                                                      .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, tracker);
+        registry.appendListeners(EventType.POST_UPDATE, tracker);
+        registry.appendListeners(EventType.POST_DELETE, tracker);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, tracker);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, tracker);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, tracker);
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        getPendingChanges(event.getSession()).add(event.getPersister().getMappedClass(), event.getId(), true);
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        getPendingChanges(event.getSession()).add(event.getPersister().getMappedClass(), event.getId(), false);
+    }
+
+    @Override
+    public void onPostDelete(final PostDeleteEvent event) {
+        getPendingChanges(event.getSession()).add(event.getPersister().getMappedClass(), event.getId(), true);
+    }
+
+    @Override
+    public void onPostRecreateCollection(final PostCollectionRecreateEvent event) {
+        addOwner(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(final PostCollectionUpdateEvent event) {
+        addOwner(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(final PostCollectionRemoveEvent event) {
+        addOwner(event);
+    }
+
+    private void addOwner(final AbstractCollectionEvent event) {
+        Serializable ownerId = event.getAffectedOwnerIdOrNull();
+        if (ownerId == null) return;
+        Class<?> ownerType = event.getSession().getFactory().getEntityPersister(event.getAffectedOwnerEntityName()).getMappedClass();
+        getPendingChanges(event.getSession()).add(ownerType, ownerId, false);
+    }
+
+    private PendingChanges getPendingChanges(final EventSource session) {
+        PendingChanges pendingChanges = PENDING_CHANGES.get();
+        if (pendingChanges == null || pendingChanges.session != session) {
+            pendingChanges = new PendingChanges(session);
+            PENDING_CHANGES.set(pendingChanges);
+            session.getActionQueue().registerProcess(pendingChanges);
+        }
+        return pendingChanges;
+    }
+
+    private class PendingChanges implements AfterTransactionCompletionProcess {
+        private final EventSource session;
+        private final SetMultimap<Class<?>, Object> changed = HashMultimap.create();
+        private final Set<Class<?>> insertedOrDeleted = new HashSet<>();
+
+        private PendingChanges(final EventSource session) {
+            this.session = session;
+        }
+
+        private void add(final Class<?> type, final Serializable id, final boolean insertOrDelete) {
+            changed.put(type, id);
+            if (insertOrDelete) insertedOrDeleted.add(type);
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(final boolean success, final SessionImplementor session) {
+            if (PENDING_CHANGES.get() == this) PENDING_CHANGES.remove();
+            if (success) eventBus.post(new EntitiesChangedEvent(changed, insertedOrDeleted));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.database.transactions;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Rejects inserts, updates and deletes in sessions that are in read only mode, which is what {@link TransactionManager} uses for
+ * read only transactions. Most writes are never sent in those sessions since they aren't flushed, but inserts of entities with
+ * generated ids are sent right away.
+ * <p/>
+ * Hibernate doesn't keep the loaded state of read only entities, so changes to them are dropped silently. Since keeping that state
+ * is the work read only mode exists to avoid, the guard only does it when asked to, which is meant for development and tests. It
+ * then keeps a copy of the state of every entity loaded in a read only session, so that the changes can be detected before the
+ * transaction ends.
+ */
+public final class ReadOnlyTransactionGuard implements PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+        PostLoadEventListener {
+    private static final ReadOnlyTransactionGuard INSTANCE = new ReadOnlyTransactionGuard();
+    private static final ThreadLocal<Map<Object, Object[]>> LOADED_STATES = new ThreadLocal<Map<Object, Object[]>>() {
+        @Override
+        protected Map<Object, Object[]> initialValue() {
+            return new IdentityHashMap<>();
+        }
+    };
+
+    private ReadOnlyTransactionGuard() {
+    }
+
+    /**
+     * Registers the guard with the specified session factory
+     *
+     * @param sessionFactory      the session factory
+     * @param detectEntityChanges whether to keep the loaded state of read only entities to detect changes to them
+     */
+    public static void install(final SessionFactory sessionFactory, final boolean detectEntityChanges) {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+                                                                                      .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, INSTANCE);
+        registry.appendListeners(EventType.PRE_UPDATE, INSTANCE);
+        registry.appendListeners(EventType.PRE_DELETE, INSTANCE);
+        if (detectEntityChanges) registry.appendListeners(EventType.POST_LOAD, INSTANCE);
+    }
+
+    /**
+     * Checks that none of the entities loaded in the specified read only session on the current thread have been changed. Does
+     * nothing unless the guard was installed to detect entity changes
+     *
+     * @param session the session
+     * @throws ReadOnlyTransactionException if an entity has been changed since it was loaded
+     */
+    static void checkUnchanged(final Session session) {
+        SessionImplementor sessionImplementor = (SessionImplementor) session;
+        for (Map.Entry<Object, Object[]> entry : LOADED_STATES.get().entrySet()) {
+            Object entity = entry.getKey();
+            if (!session.contains(entity)) continue;
+            EntityPersister persister = sessionImplementor.getEntityPersister(null, entity);
+            Type[] types = persister.getPropertyTypes();
+            Object[] loadedState = entry.getValue();
+            Object[] currentState = persister.getPropertyValues(entity);
+            for (int i = 0; i < types.length; ++i) {
+                if (types[i].isDirty(loadedState[i], currentState[i], sessionImplementor))
+                    throw new ReadOnlyTransactionException("Attempted to update " + persister.getEntityName() + '.' +
+                                                           persister.getPropertyNames()[i] + " in a read only transaction");
+            }
+        }
+    }
+
+    /**
+     * Forgets the entities that were loaded in read only sessions on the current thread
+     */
+    static void forgetLoadedStates() {
+        LOADED_STATES.get().clear();
+    }
+
+    @Override
+    public void onPostLoad(final PostLoadEvent event) {
+        if (!event.getSession().isDefaultReadOnly()) return;
+        EntityPersister persister = event.getPersister();
+        Type[] types = persister.getPropertyTypes();
+        Object[] loadedState = persister.getPropertyValues(event.getEntity());
+        for (int i = 0; i < types.length; ++i) {
+            loadedState[i] = types[i].deepCopy(loadedState[i], event.getSession().getFactory());
+        }
+        LOADED_STATES.get().put(event.getEntity(), loadedState);
+    }
+
+    @Override
+    public boolean onPreInsert(final PreInsertEvent event) {
+        checkWritable(event, "insert");
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(final PreUpdateEvent event) {
+        checkWritable(event, "update");
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(final PreDeleteEvent event) {
+        checkWritable(event, "delete");
+        return false;
+    }
+
+    private static void checkWritable(final AbstractPreDatabaseOperationEvent event, final String operation) {
+        if (event.getSession().isDefaultReadOnly())
+            throw new ReadOnlyTransactionException("Attempted to " + operation + ' ' + event.getPersister().getEntityName() +
+                                                   " in a read only transaction");
+    }
+}
@@ -27,14 +27,22 @@
 
 package api.database.transactions;
 
+import api.database.statistics.SqlStatistics;
+import api.metrics.MetricsRegistry;
 import api.tools.database.DBUtil;
 import lombok.extern.log4j.Log4j;
 import org.hibernate.FlushMode;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
 
 import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -56,45 +64,151 @@ public class TransactionManager {
             return new ArrayList<>();
         }
     };
+    /**
+     * Every transaction holds the read lock while it's live, so that database maintenance can hold off new transactions and
+     * wait for the current ones to finish. It's fair so that waiting maintenance isn't starved by a steady stream of commands.
+     */
+    private static final ReentrantReadWriteLock TRANSACTION_GATE = new ReentrantReadWriteLock(true);
     private final Session session;
+    private final MetricsRegistry metricsRegistry;
     private boolean started;
+    private long startNanos;
     private boolean encounteredException;
     private boolean onlyFlushOnCommit;
+    private boolean readOnly;
+    private String tag;
 
     @Inject
-    TransactionManager(final Session session) {
+    TransactionManager(final Session session, final MetricsRegistry metricsRegistry) {
         this.session = checkNotNull(session);
+        this.metricsRegistry = checkNotNull(metricsRegistry);
     }
 
     public void setOnlyFlushOnCommit(final boolean onlyFlushOnCommit) {
         this.onlyFlushOnCommit = onlyFlushOnCommit;
     }
 
+    /**
+     * Sets whether the transaction only reads from the database. Read only transactions are never flushed, the entities
+     * loaded in them aren't snapshotted for dirty checking and the JDBC connection is marked as read only. Any attempt to
+     * write in a read only transaction causes a {@link ReadOnlyTransactionException} and a rollback.
+     *
+     * @param readOnly whether the transaction is read only
+     */
+    public void setReadOnly(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Sets the tag that the SQL statistics of the transaction are counted for, unless the thread is already tagged
+     *
+     * @param tag the tag
+     * @see SqlStatistics#tag(String)
+     */
+    public void setTag(final String tag) {
+        this.tag = tag;
+    }
+
     public static void addAfterCommitAction(final Runnable action) {
         AFTER_COMMIT_ACTIONS.get().add(action);
     }
 
+    /**
+     * Waits for the transactions in progress to finish and keeps new ones from starting until resumeTransactions() is called.
+     * New transactions are held off while waiting as well, so the timeout also bounds how long they may be delayed if the
+     * transactions in progress don't finish in time.
+     *
+     * @param timeout  the max time to wait
+     * @param timeUnit the unit of the timeout
+     * @return true if transactions were paused, false if the timeout passed first (in which case nothing is paused)
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public static boolean pauseTransactions(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        return TRANSACTION_GATE.writeLock().tryLock(timeout, timeUnit);
+    }
+
+    /**
+     * Lets transactions start again after a successful call to pauseTransactions(), from the same thread
+     */
+    public static void resumeTransactions() {
+        TRANSACTION_GATE.writeLock().unlock();
+    }
+
     /**
      * Begins a transaction if one isn't already in progress for the current thread
      */
     public void beginTransaction() {
         if (!HAS_LIVE_TRANSACTION.get()) {
-            session.beginTransaction();
-            if (onlyFlushOnCommit) session.setFlushMode(FlushMode.COMMIT);
+            TRANSACTION_GATE.readLock().lock();
+            try {
+                session.beginTransaction();
+                if (readOnly) beginReadOnly();
+                else if (onlyFlushOnCommit) session.setFlushMode(FlushMode.COMMIT);
+            } catch (final RuntimeException e) {
+                TRANSACTION_GATE.readLock().unlock();
+                throw e;
+            }
             HAS_LIVE_TRANSACTION.set(true);
             started = true;
+            startNanos = System.nanoTime();
+            SqlStatistics.transactionStarted(tag);
         }
     }
 
+    private void beginReadOnly() {
+        ReadOnlyTransactionGuard.forgetLoadedStates();
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+        setConnectionReadOnly(true);
+    }
+
     /**
      * Ends the current transaction, given that one is active and was started by this manager. Rollbacks if the commit fails or
      * if setEncounteredException was called with 'true'
+     *
+     * @throws ReadOnlyTransactionException if this is a read only transaction and there are changes that would have been
+     *                                      written to the database
      */
     public void endTransaction() {
         if (started && HAS_LIVE_TRANSACTION.get()) {
             HAS_LIVE_TRANSACTION.set(false);
-            if (encounteredException) rollback();
-            else commit();
+            try {
+                if (readOnly) {
+                    setConnectionReadOnly(false);
+                    try {
+                        if (!encounteredException) checkNoChanges();
+                    } catch (final ReadOnlyTransactionException e) {
+                        rollback();
+                        throw e;
+                    } finally {
+                        ReadOnlyTransactionGuard.forgetLoadedStates();
+                    }
+                }
+                if (encounteredException) rollback();
+                else commit();
+            } finally {
+                TRANSACTION_GATE.readLock().unlock();
+                SqlStatistics.transactionEnded();
+                metricsRegistry.histogram("database.transactions.duration").recordMicrosSince(startNanos);
+            }
+        }
+    }
+
+    private void checkNoChanges() {
+        ReadOnlyTransactionGuard.checkUnchanged(session);
+        if (session.isDirty()) throw new ReadOnlyTransactionException("There are unsaved changes at the end of a read only transaction");
+    }
+
+    private void setConnectionReadOnly(final boolean connectionReadOnly) {
+        try {
+            session.doWork(new Work() {
+                @Override
+                public void execute(final Connection connection) throws SQLException {
+                    connection.setReadOnly(connectionReadOnly);
+                }
+            });
+        } catch (HibernateException e) {
+            TransactionManager.log.warn("Could not change the read only mode of the connection", e);
         }
     }
 
@@ -105,6 +219,7 @@ public class TransactionManager {
     private void commit() {
         try {
             session.getTransaction().commit();
+            metricsRegistry.counter("database.commits").increment();
             DBUtil.closeSilently(session);
             runAfterCommitActions();
         } catch (final Exception e) {
@@ -125,6 +240,7 @@ public class TransactionManager {
     }
 
     private void rollback() {
+        metricsRegistry.counter("database.rollbacks").increment();
         try {
             DBUtil.rollback(session);
         } finally {
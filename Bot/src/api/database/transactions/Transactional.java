@@ -40,4 +40,11 @@ public @interface Transactional {
      * @return true if the session should only be flushed on commit
      */
     boolean flushOnlyOnCommit() default false;
+
+    /**
+     * @return true if the method only reads from the database, in which case the transaction is run in read only mode. Has no
+     * effect if the method joins a transaction that's already in progress.
+     * @see TransactionManager#setReadOnly(boolean)
+     */
+    boolean readOnly() default false;
 }
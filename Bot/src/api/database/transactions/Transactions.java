@@ -61,6 +61,23 @@ public class Transactions {
     public static void inTransaction(final SimpleTransactionTask task, final boolean onlyFlushOnCommit) {
         TransactionManager transactionManager = transactionManagerProvider.get();
         transactionManager.setOnlyFlushOnCommit(onlyFlushOnCommit);
+        run(task, transactionManager);
+    }
+
+    /**
+     * Runs the specified task inside a read only database transaction
+     *
+     * @param task the task to execute in the transaction
+     * @throws RuntimeException any runtime exceptions the task throws
+     * @see TransactionManager#setReadOnly(boolean)
+     */
+    public static void inReadOnlyTransaction(final SimpleTransactionTask task) {
+        TransactionManager transactionManager = transactionManagerProvider.get();
+        transactionManager.setReadOnly(true);
+        run(task, transactionManager);
+    }
+
+    private static void run(final SimpleTransactionTask task, final TransactionManager transactionManager) {
         transactionManager.beginTransaction();
         DelayedEventPoster delayedEventBus = delayedEventPosterProvider.get();
         try {
@@ -98,6 +115,25 @@ public class Transactions {
     public static <E> E inTransaction(final CallableTransactionTask<E> task, final boolean onlyFlushOnCommit) throws Exception {
         TransactionManager transactionManager = transactionManagerProvider.get();
         transactionManager.setOnlyFlushOnCommit(onlyFlushOnCommit);
+        return call(task, transactionManager);
+    }
+
+    /**
+     * Runs the specified task inside a read only database transaction, and then returns the result
+     *
+     * @param task the task to execute in the transaction
+     * @param <E>  the return type
+     * @return the result of the task
+     * @throws Exception whatever exception the task throws is propagated
+     * @see TransactionManager#setReadOnly(boolean)
+     */
+    public static <E> E inReadOnlyTransaction(final CallableTransactionTask<E> task) throws Exception {
+        TransactionManager transactionManager = transactionManagerProvider.get();
+        transactionManager.setReadOnly(true);
+        return call(task, transactionManager);
+    }
+
+    private static <E> E call(final CallableTransactionTask<E> task, final TransactionManager transactionManager) throws Exception {
         transactionManager.beginTransaction();
         DelayedEventPoster delayedEventPoster = delayedEventPosterProvider.get();
         E result;
@@ -28,8 +28,11 @@
 package api.events;
 
 import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
 import lombok.extern.log4j.Log4j;
+import spi.runtime.RequiresShutdown;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.inject.Inject;
 import java.io.IOException;
@@ -37,25 +40,44 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
+import static api.settings.PropertiesConfig.FILE_WATCHER_QUIET_PERIOD;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.file.StandardWatchEventKinds.*;
 
 /**
  * A class that manages changes in the file system. Listeners may register to this class to be notified when any changes occur.
+ * <p/>
+ * Saving a file usually causes a burst of events, so the events are held back until the file has been left alone for a
+ * quiet period, and all the events for it are merged into one. The changes to a directory are announced once every changed
+ * file in it has been quiet, so that files that are saved together reach the observers in one call. A file that keeps
+ * changing can only hold back the others for so long though.
  */
 @Log4j
 @ParametersAreNonnullByDefault
-public final class FileSystemWatcher {
+public final class FileSystemWatcher implements RequiresShutdown {
     private final ThreadingManager threadingManager;
+    private final long quietPeriodNanos;
 
     private final WatchService watcher;
-    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final ConcurrentMap<WatchKey, Path> keys = new ConcurrentHashMap<>();
     private final ConcurrentMap<Path, Collection<DirectoryChangeEventObserver>> observers = new ConcurrentHashMap<>();
 
     @Inject
-    public FileSystemWatcher(final ThreadingManager threadingManager) {
+    public FileSystemWatcher(final ThreadingManager threadingManager, final PropertiesCollection properties) {
+        this(threadingManager, properties.getInteger(FILE_WATCHER_QUIET_PERIOD));
+    }
+
+    /**
+     * @param threadingManager  the threading manager
+     * @param quietPeriodMillis how long a file has to be left alone before the observers are told about the changes to it
+     */
+    public FileSystemWatcher(final ThreadingManager threadingManager, final long quietPeriodMillis) {
+        checkArgument(quietPeriodMillis >= 0, "The quiet period can't be negative");
         this.threadingManager = checkNotNull(threadingManager);
+        this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriodMillis);
         try {
             watcher = FileSystems.getDefault().newWatchService();
         } catch (final IOException e) {
@@ -88,6 +110,124 @@ public final class FileSystemWatcher {
         }
     }
 
+    @Override
+    public Runnable getShutdownRunner() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    FileSystemWatcher.log.error("Could not close the file observing service", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Merges two consecutive events for the same file into one
+     *
+     * @param previous the earlier event, or null if there wasn't one
+     * @param next     the later event
+     * @return the merged event, or null if the events cancel each other out (the file was created and then removed again)
+     */
+    @Nullable
+    static WatchEvent.Kind<?> coalesce(@Nullable final WatchEvent.Kind<?> previous, final WatchEvent.Kind<?> next) {
+        if (previous == null) return next;
+        if (next.equals(ENTRY_DELETE)) return previous.equals(ENTRY_CREATE) ? null : ENTRY_DELETE;
+        if (previous.equals(ENTRY_CREATE)) return ENTRY_CREATE;
+        //A file that was removed and then created again, or modified more than once, has simply been modified
+        return ENTRY_MODIFY;
+    }
+
+    /**
+     * The changes that haven't been announced yet
+     */
+    static final class PendingChanges {
+        /**
+         * How many quiet periods a quiet file may be held back by other files in the same directory that keep changing
+         */
+        private static final int MAX_DELAY_IN_QUIET_PERIODS = 10;
+
+        private final long quietPeriodNanos;
+        private final Map<Path, Map<Path, Change>> changesPerDir = new HashMap<>();
+
+        PendingChanges(final long quietPeriodNanos) {
+            this.quietPeriodNanos = quietPeriodNanos;
+        }
+
+        void add(final Path dir, final Path file, final WatchEvent.Kind<?> kind, final long nanoTime) {
+            Map<Path, Change> changes = changesPerDir.get(dir);
+            if (changes == null) {
+                changes = new HashMap<>();
+                changesPerDir.put(dir, changes);
+            }
+            Change change = changes.get(file);
+            WatchEvent.Kind<?> merged = coalesce(change == null ? null : change.kind, kind);
+            if (merged == null) changes.remove(file);
+            else changes.put(file, new Change(merged, nanoTime));
+            if (changes.isEmpty()) changesPerDir.remove(dir);
+        }
+
+        /**
+         * @return the amount of nanos until the changes to the next directory are ready, or -1 if there are no pending changes
+         */
+        long nanosUntilNextReady(final long nanoTime) {
+            long next = -1;
+            for (Map<Path, Change> changes : changesPerDir.values()) {
+                long remaining = Math.max(0, getReadyNanoTime(changes) - nanoTime);
+                if (next == -1 || remaining < next) next = remaining;
+            }
+            return next;
+        }
+
+        /**
+         * Removes and returns the changes to the files that have been quiet long enough, in the directories where every
+         * changed file is quiet, or where a quiet file has been held back for too long
+         *
+         * @return the ready changes, grouped by directory
+         */
+        Map<Path, Map<Path, WatchEvent.Kind<?>>> takeReady(final long nanoTime) {
+            Map<Path, Map<Path, WatchEvent.Kind<?>>> out = new HashMap<>();
+            for (Iterator<Map.Entry<Path, Map<Path, Change>>> dirIter = changesPerDir.entrySet().iterator(); dirIter.hasNext(); ) {
+                Map.Entry<Path, Map<Path, Change>> dirEntry = dirIter.next();
+                if (getReadyNanoTime(dirEntry.getValue()) - nanoTime > 0) continue;
+
+                Map<Path, WatchEvent.Kind<?>> ready = new HashMap<>();
+                for (Iterator<Map.Entry<Path, Change>> iter = dirEntry.getValue().entrySet().iterator(); iter.hasNext(); ) {
+                    Map.Entry<Path, Change> entry = iter.next();
+                    if (nanoTime - entry.getValue().lastEventNanoTime >= quietPeriodNanos) {
+                        ready.put(entry.getKey(), entry.getValue().kind);
+                        iter.remove();
+                    }
+                }
+                if (!ready.isEmpty()) out.put(dirEntry.getKey(), ready);
+                if (dirEntry.getValue().isEmpty()) dirIter.remove();
+            }
+            return out;
+        }
+
+        private long getReadyNanoTime(final Map<Path, Change> changes) {
+            long earliest = Long.MAX_VALUE;
+            long latest = Long.MIN_VALUE;
+            for (Change change : changes.values()) {
+                earliest = Math.min(earliest, change.lastEventNanoTime);
+                latest = Math.max(latest, change.lastEventNanoTime);
+            }
+            return Math.min(latest + quietPeriodNanos, earliest + MAX_DELAY_IN_QUIET_PERIODS * quietPeriodNanos);
+        }
+    }
+
+    private static final class Change {
+        private final WatchEvent.Kind<?> kind;
+        private final long lastEventNanoTime;
+
+        private Change(final WatchEvent.Kind<?> kind, final long lastEventNanoTime) {
+            this.kind = kind;
+            this.lastEventNanoTime = lastEventNanoTime;
+        }
+    }
+
     @ParametersAreNonnullByDefault
     private static final class FileSystemEventListener implements Runnable {
         private final FileSystemWatcher manager;
@@ -98,44 +238,54 @@ public final class FileSystemWatcher {
 
         @Override
         public void run() {
+            PendingChanges pendingChanges = new PendingChanges(manager.quietPeriodNanos);
             while (true) {
                 WatchKey key;
                 try {
-                    key = manager.watcher.take();
-                } catch (InterruptedException x) {
+                    long wait = pendingChanges.nanosUntilNextReady(System.nanoTime());
+                    key = wait == -1 ? manager.watcher.take() : manager.watcher.poll(wait, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException | ClosedWatchServiceException x) {
                     return;
                 }
 
-                Path path = manager.keys.get(key);
-                if (path == null) {
-                    continue;
+                if (key != null) {
+                    Path path = manager.keys.get(key);
+                    List<WatchEvent<?>> events = key.pollEvents();
+                    if (path != null) addEvents(pendingChanges, path, events);
+                    key.reset();
                 }
 
-                Collection<DirectoryChangeEventObserver> dirObs = manager.observers.get(path);
-
-                List<WatchEvent<?>> events = key.pollEvents();
-                if (dirObs != null && !dirObs.isEmpty()) {
-                    alertDirectoryObservers(path, events, dirObs);
+                for (Map.Entry<Path, Map<Path, WatchEvent.Kind<?>>> entry : pendingChanges.takeReady(System.nanoTime()).entrySet()) {
+                    Collection<DirectoryChangeEventObserver> dirObs = manager.observers.get(entry.getKey());
+                    if (dirObs != null && !dirObs.isEmpty()) alertDirectoryObservers(entry.getValue(), dirObs);
                 }
-
-                key.reset();
             }
         }
 
-        private static void alertDirectoryObservers(final Path dir, final List<WatchEvent<?>> events,
-                                                    final Collection<DirectoryChangeEventObserver> observers) {
-            Map<Path, WatchEvent.Kind<?>> map = new HashMap<>();
+        private static void addEvents(final PendingChanges pendingChanges, final Path dir, final List<WatchEvent<?>> events) {
+            long now = System.nanoTime();
             for (WatchEvent<?> event : events) {
                 WatchEvent.Kind<?> kind = event.kind();
 
                 if (!kind.equals(OVERFLOW)) {
                     Path name = (Path) event.context();
-                    Path child = dir.resolve(name);
-                    map.put(child, kind);
+                    pendingChanges.add(dir, dir.resolve(name), kind, now);
                 }
             }
-            for (DirectoryChangeEventObserver observer : observers) {
-                observer.handleUpdatedDirectory(map);
+        }
+
+        private static void alertDirectoryObservers(final Map<Path, WatchEvent.Kind<?>> changes,
+                                                    final Collection<DirectoryChangeEventObserver> observers) {
+            List<DirectoryChangeEventObserver> copy;
+            synchronized (observers) {
+                copy = new ArrayList<>(observers);
+            }
+            for (DirectoryChangeEventObserver observer : copy) {
+                try {
+                    observer.handleUpdatedDirectory(Collections.unmodifiableMap(changes));
+                } catch (RuntimeException e) {
+                    FileSystemWatcher.log.error("Directory observer failed to handle changes", e);
+                }
             }
         }
     }
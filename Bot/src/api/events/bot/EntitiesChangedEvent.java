@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.events.bot;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+
+import java.util.Set;
+
+/**
+ * An event sent after a transaction that inserted, updated or deleted entities has been committed. Changes made with bulk
+ * HQL/SQL statements aren't included, since Hibernate doesn't know which entities they affect.
+ */
+public class EntitiesChangedEvent {
+    private final SetMultimap<Class<?>, Object> changed;
+    private final Set<Class<?>> insertedOrDeleted;
+
+    /**
+     * @param changed           the ids of the changed entities, per entity type
+     * @param insertedOrDeleted the entity types that had entities inserted or deleted, and not just updated
+     */
+    public EntitiesChangedEvent(final SetMultimap<Class<?>, Object> changed, final Set<Class<?>> insertedOrDeleted) {
+        this.changed = ImmutableSetMultimap.copyOf(changed);
+        this.insertedOrDeleted = insertedOrDeleted;
+    }
+
+    /**
+     * @return the types of the changed entities
+     */
+    public Set<Class<?>> getChangedTypes() {
+        return changed.keySet();
+    }
+
+    /**
+     * @param type the entity type
+     * @return the ids of the changed entities of the specified type
+     */
+    public Set<Object> getChangedIds(final Class<?> type) {
+        return changed.get(type);
+    }
+
+    /**
+     * @param type the entity type
+     * @return true if entities of the specified type were inserted or deleted, which means any query for that type may have a
+     *         different result
+     */
+    public boolean isInsertedOrDeleted(final Class<?> type) {
+        return insertedOrDeleted.contains(type);
+    }
+}
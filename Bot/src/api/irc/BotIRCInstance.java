@@ -30,6 +30,9 @@ package api.irc;
 import api.database.models.BotInstanceSettings;
 import api.database.models.Channel;
 import api.events.irc.*;
+import api.metrics.Counter;
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
 import api.runtime.ThreadingManager;
 import api.settings.PropertiesCollection;
 import api.tools.common.CleanupUtil;
@@ -86,6 +89,9 @@ public final class BotIRCInstance implements RequiresShutdown {
     private final ServerErrorCommunication serverErrorCommunication;
     private final DelayHandler delayHandler;
     private final ReconnectScheduler reconnectScheduler;
+    private final Counter linesReceived;
+    private final Counter linesSent;
+    private final Histogram lineHandlingDuration;
 
     private boolean doNotAttemptReconnect;
 
@@ -106,7 +112,8 @@ public final class BotIRCInstance implements RequiresShutdown {
                           final ThreadingManager threadingManager,
                           final PropertiesCollection properties,
                           final DelayHandler delayHandler,
-                          final ReconnectScheduler reconnectScheduler) {
+                          final ReconnectScheduler reconnectScheduler,
+                          final MetricsRegistry metricsRegistry) {
         this.delayHandler = checkNotNull(delayHandler);
         this.reconnectScheduler = checkNotNull(reconnectScheduler);
         this.serverErrorCommunication = checkNotNull(serverErrorCommunication);
@@ -116,6 +123,9 @@ public final class BotIRCInstance implements RequiresShutdown {
         this.outputQueue = checkNotNull(outputQueue);
         this.threadingManager = checkNotNull(threadingManager);
         this.properties = checkNotNull(properties);
+        this.linesReceived = metricsRegistry.counter("irc.lines.received");
+        this.linesSent = metricsRegistry.counter("irc.lines.sent");
+        this.lineHandlingDuration = metricsRegistry.histogram("irc.lines.handling.duration");
     }
 
     public void setSettings(final BotInstanceSettings settings) {
@@ -189,7 +199,7 @@ public final class BotIRCInstance implements RequiresShutdown {
             writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8));
 
             inputThread = new InputThread(this, reader, eventBus);
-            outputThread = new OutputThread(getNick(), writer, properties.getInteger(IRC_MAX_LENGTH), delayHandler);
+            outputThread = new OutputThread(getNick(), writer, properties.getInteger(IRC_MAX_LENGTH), delayHandler, linesSent);
 
             if (isNotNullOrEmpty(serverPassword)) {
                 sendAndLogCommand(IrcCommands.PassCommand.format(serverPassword));
@@ -308,6 +318,16 @@ public final class BotIRCInstance implements RequiresShutdown {
      * @throws IOException if the bot needs to respond to the message (for example server ping) but it fails
      */
     public void handleLine(final String line) throws IOException {
+        linesReceived.increment();
+        long start = System.nanoTime();
+        try {
+            parseAndHandle(line);
+        } finally {
+            lineHandlingDuration.recordMicrosSince(start);
+        }
+    }
+
+    private void parseAndHandle(final String line) throws IOException {
         Matcher matcher = PING_PATTERN.matcher(checkNotNull(line));
         if (matcher.matches()) {
             logger.info(line);
@@ -38,6 +38,8 @@ import api.events.irc.*;
 import api.irc.entities.IRCChannel;
 import api.irc.entities.IRCUser;
 import api.irc.entities.IRCUserOpType;
+import api.irc.snapshot.RuntimeSnapshot;
+import api.irc.snapshot.RuntimeSnapshotManager;
 import api.runtime.ThreadingManager;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -64,6 +66,7 @@ public final class IRCEntityManager implements EventListener {
     private final Map<String, IRCUser> userMap = new HashMap<>();
     private final Map<String, IRCChannel> channelMap = new HashMap<>();
     private final ConcurrentMap<IRCUser, UserAuthenticationRequestSource> statusRequestSource = new ConcurrentHashMap<>();
+    private final ConcurrentMap<IRCUser, String> restoredAuthentications = new ConcurrentHashMap<>();
     private final ReadWriteLock mapsLock = new ReentrantReadWriteLock(true);
 
     private final Provider<BotUserDAO> botUserDAOProvider;
@@ -71,18 +74,21 @@ public final class IRCEntityManager implements EventListener {
     private final Authenticator authenticator;
     private final ThreadingManager threadingManager;
     private final EventBus eventBus;
+    private final RuntimeSnapshotManager runtimeSnapshotManager;
 
     @Inject
     public IRCEntityManager(final Authenticator authenticator,
                             final Provider<ChannelDAO> channelDAOProvider,
                             final Provider<BotUserDAO> botUserDAOProvider,
                             final ThreadingManager threadingManager,
-                            final EventBus eventBus) {
+                            final EventBus eventBus,
+                            final RuntimeSnapshotManager runtimeSnapshotManager) {
         this.authenticator = checkNotNull(authenticator);
         this.channelDAOProvider = checkNotNull(channelDAOProvider);
         this.botUserDAOProvider = checkNotNull(botUserDAOProvider);
         this.threadingManager = checkNotNull(threadingManager);
         this.eventBus = checkNotNull(eventBus);
+        this.runtimeSnapshotManager = checkNotNull(runtimeSnapshotManager);
     }
 
     @Subscribe
@@ -269,7 +275,10 @@ public final class IRCEntityManager implements EventListener {
                         }
                         IRCChannel ircChannel = channelMap.get(lowerCase(event.getChannel()));
                         ircChannel.addUser(user, entry.getValue());
-                        if (!user.isAuthenticated()) toAuth.add(user.getCurrentNick());
+                        if (!user.isAuthenticated()) {
+                            markRestoredAuthentication(user, event.getChannel());
+                            toAuth.add(user.getCurrentNick());
+                        }
                     }
 
                     for (String nick : toAuth) {
@@ -280,11 +289,22 @@ public final class IRCEntityManager implements EventListener {
                 } finally {
                     mapsLock.writeLock().unlock();
                 }
+                runtimeSnapshotManager.requeueMessages();
             }
         };
         threadingManager.execute(runnable);
     }
 
+    /**
+     * Remembers who the user was authenticated as before the bot was restarted, if the user is listed with the same nick in the
+     * same channel as then. The user is still checked with the server like everyone else, but if that check confirms the same
+     * user the login isn't announced again
+     */
+    private void markRestoredAuthentication(final IRCUser user, final String channel) {
+        RuntimeSnapshot.AuthenticatedUser restored = runtimeSnapshotManager.claimAuthentication(user.getCurrentNick(), channel);
+        if (restored != null) restoredAuthentications.put(user, restored.getMainNick());
+    }
+
     @Subscribe
     public void onModeChange(final ModeEvent event) {
         if (event.getReceiver().isMainInstanceIn(event.getChannel())) {
@@ -337,8 +357,9 @@ public final class IRCEntityManager implements EventListener {
                 mapsLock.readLock().lock();
                 try {
                     IRCUser ircUser = userMap.get(lowerCase(event.getCurrentNick()));
+                    String restoredMainNick = restoredAuthentications.remove(ircUser);
                     boolean authenticated = ircUser.authenticate(user.getMainNick(), user.isAdmin());
-                    if (authenticated) {
+                    if (authenticated && !user.getMainNick().equals(restoredMainNick)) {
                         UserAuthenticationRequestSource requestSource = statusRequestSource.get(ircUser);
                         if (requestSource == null) requestSource = UserAuthenticationRequestSource.MANUAL_REQUEST;
                         eventBus.post(new UserLoginEvent(user.getId(), ircUser, requestSource, event.getReceiver()));
@@ -402,6 +423,7 @@ public final class IRCEntityManager implements EventListener {
             if (isGone) {
                 userMap.remove(lowerCaseNick);
                 statusRequestSource.remove(ircUser);
+                restoredAuthentications.remove(ircUser);
             }
         } finally {
             mapsLock.readLock().unlock();
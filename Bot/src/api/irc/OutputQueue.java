@@ -29,13 +29,13 @@ package api.irc;
 
 import api.irc.communication.IRCOutput;
 import api.irc.entities.IRCEntity;
+import api.metrics.Gauge;
+import api.metrics.MetricsRegistry;
 import internal.irc.WaitingQueuesManager;
 
 import javax.annotation.ParametersAreNonnullByDefault;
-import java.util.HashSet;
-import java.util.Observable;
-import java.util.Observer;
-import java.util.Set;
+import javax.inject.Inject;
+import java.util.*;
 import java.util.concurrent.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -50,6 +50,16 @@ public final class OutputQueue implements Observer {
     private final WaitingQueuesManager waitingQueuesManager = new WaitingQueuesManager();
     private final Set<IRCEntity> blockedEntities = new HashSet<>();
 
+    @Inject
+    public OutputQueue(final MetricsRegistry metricsRegistry) {
+        metricsRegistry.registerGauge("irc.output.queued", new Gauge() {
+            @Override
+            public long getValue() {
+                return size();
+            }
+        });
+    }
+
     /**
      * Puts the specified output in the queue
      *
@@ -70,6 +80,34 @@ public final class OutputQueue implements Observer {
         return mainQueue.poll(wait, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * @return the amount of outputs that are waiting to be sent, not counting those that bot instances have already taken
+     */
+    public int size() {
+        int size = mainQueue.size();
+        for (BlockingQueue<IRCOutput> queue : handlerSpecificQueues.values()) {
+            size += queue.size();
+        }
+        synchronized (blockedEntities) {
+            return size + waitingQueuesManager.size();
+        }
+    }
+
+    /**
+     * @return a copy of all the outputs that are waiting to be sent, in the order they'd be sent if there was only one bot instance
+     */
+    public List<IRCOutput> getQueuedOutputs() {
+        List<IRCOutput> outputs = new ArrayList<>(mainQueue);
+        for (BlockingQueue<IRCOutput> queue : handlerSpecificQueues.values()) {
+            outputs.addAll(queue);
+        }
+        synchronized (blockedEntities) {
+            outputs.addAll(waitingQueuesManager.getAll());
+        }
+        Collections.sort(outputs);
+        return outputs;
+    }
+
     /**
      * Clears the queue, removing all enqueued items
      */
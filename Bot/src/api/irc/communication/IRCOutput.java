@@ -83,7 +83,18 @@ public final class IRCOutput extends Observable implements Comparable<IRCOutput>
      * @param output the message to add
      */
     public void addOutput(final IRCMessage output) {
-        outputs.add(checkNotNull(output));
+        synchronized (outputs) {
+            outputs.add(checkNotNull(output));
+        }
+    }
+
+    /**
+     * @return the messages that haven't been sent yet
+     */
+    public List<IRCMessage> getMessages() {
+        synchronized (outputs) {
+            return new ArrayList<>(outputs);
+        }
     }
 
     /**
@@ -104,9 +115,14 @@ public final class IRCOutput extends Observable implements Comparable<IRCOutput>
      * @return removes and returns the first message (in raw form) in this output. Returns null if there are no messages left
      */
     public String poll() {
-        if (outputs.isEmpty()) return null;
-        String output = outputs.removeFirst().getIrcCommand();
-        if (outputs.isEmpty()) {
+        String output;
+        boolean isEmptied;
+        synchronized (outputs) {
+            if (outputs.isEmpty()) return null;
+            output = outputs.removeFirst().getIrcCommand();
+            isEmptied = outputs.isEmpty();
+        }
+        if (isEmptied) {
             notifyObservers();
         }
         return output;
@@ -119,19 +135,21 @@ public final class IRCOutput extends Observable implements Comparable<IRCOutput>
      * @param maxLength the max length of the messages
      */
     public void conformToMaxLength(final int maxLength) {
-        List<IRCMessage> conformed = new ArrayList<>();
-        for (IRCMessage output : outputs) {
-            if (output.getRawMessage().length() <= maxLength) conformed.add(output);
-            else {
-                List<String> slices = slice(output.getRawMessage(), maxLength - 1);
-                for (String slice : slices) {
-                    conformed.add(new IRCMessage(output.getType(), output.getTarget(), output.getPriority(), slice,
-                            output.isHandlingReceiverUsed()));
+        synchronized (outputs) {
+            List<IRCMessage> conformed = new ArrayList<>();
+            for (IRCMessage output : outputs) {
+                if (output.getRawMessage().length() <= maxLength) conformed.add(output);
+                else {
+                    List<String> slices = slice(output.getRawMessage(), maxLength - 1);
+                    for (String slice : slices) {
+                        conformed.add(new IRCMessage(output.getType(), output.getTarget(), output.getPriority(), slice,
+                                output.isHandlingReceiverUsed()));
+                    }
                 }
             }
+            outputs.clear();
+            outputs.addAll(conformed);
         }
-        outputs.clear();
-        outputs.addAll(conformed);
     }
 
     @Override
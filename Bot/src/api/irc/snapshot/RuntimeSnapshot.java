@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.irc.snapshot;
+
+import api.irc.communication.IRCMessageType;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.*;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The parts of the bot's runtime state that are worth keeping over a restart: which users were authenticated, which channels
+ * they were seen in and the messages that were still waiting to be sent.
+ * <p/>
+ * Stored in a compact binary format. The format starts with a magic number and a version, and anything that doesn't match
+ * is refused rather than guessed at.
+ */
+@ParametersAreNonnullByDefault
+public final class RuntimeSnapshot {
+    private static final int MAGIC = 0x4C425253;
+    private static final int FORMAT_VERSION = 1;
+
+    private final long takenAt;
+    private final List<AuthenticatedUser> users;
+    private final List<PendingMessage> messages;
+
+    public RuntimeSnapshot(final long takenAt, final Collection<AuthenticatedUser> users, final Collection<PendingMessage> messages) {
+        this.takenAt = takenAt;
+        this.users = Collections.unmodifiableList(new ArrayList<>(users));
+        this.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+    }
+
+    /**
+     * @return when the snapshot was taken, in millis since the epoch
+     */
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public List<AuthenticatedUser> getUsers() {
+        return users;
+    }
+
+    /**
+     * @return the messages that hadn't been sent, in the order they were queued
+     */
+    public List<PendingMessage> getMessages() {
+        return messages;
+    }
+
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(takenAt);
+
+        out.writeInt(users.size());
+        for (AuthenticatedUser user : users) {
+            out.writeUTF(user.nick);
+            out.writeUTF(user.mainNick);
+            out.writeBoolean(user.admin);
+            out.writeInt(user.channels.size());
+            for (String channel : user.channels) {
+                out.writeUTF(channel);
+            }
+        }
+
+        out.writeInt(messages.size());
+        for (PendingMessage message : messages) {
+            out.writeByte(message.type.ordinal());
+            out.writeUTF(message.target);
+            out.writeInt(message.priority);
+            out.writeUTF(message.message);
+        }
+        out.flush();
+    }
+
+    /**
+     * @param inputStream the stream to read from
+     * @return the snapshot
+     * @throws IOException if the stream couldn't be read, or doesn't contain a snapshot in a supported format
+     */
+    public static RuntimeSnapshot readFrom(final InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) throw new IOException("Not a runtime snapshot");
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported runtime snapshot version: " + version);
+        long takenAt = in.readLong();
+
+        int userCount = readCount(in);
+        List<AuthenticatedUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; ++i) {
+            String nick = in.readUTF();
+            String mainNick = in.readUTF();
+            boolean admin = in.readBoolean();
+            int channelCount = readCount(in);
+            Set<String> channels = new HashSet<>(channelCount * 2);
+            for (int j = 0; j < channelCount; ++j) {
+                channels.add(in.readUTF());
+            }
+            users.add(new AuthenticatedUser(nick, mainNick, admin, channels));
+        }
+
+        int messageCount = readCount(in);
+        List<PendingMessage> messages = new ArrayList<>(messageCount);
+        IRCMessageType[] types = IRCMessageType.values();
+        for (int i = 0; i < messageCount; ++i) {
+            int type = in.readUnsignedByte();
+            if (type >= types.length) throw new IOException("Unknown message type: " + type);
+            String target = in.readUTF();
+            int priority = in.readInt();
+            messages.add(new PendingMessage(types[type], target, priority, in.readUTF()));
+        }
+        return new RuntimeSnapshot(takenAt, users, messages);
+    }
+
+    private static int readCount(final DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Corrupt runtime snapshot");
+        return count;
+    }
+
+    /**
+     * A user that was authenticated when the snapshot was taken
+     */
+    public static final class AuthenticatedUser {
+        private final String nick;
+        private final String mainNick;
+        private final boolean admin;
+        private final Set<String> channels;
+
+        /**
+         * @param nick     the nick the user was using
+         * @param mainNick the main nick the user was authenticated as
+         * @param admin    whether the user is an admin
+         * @param channels the channels the user was seen in, in lower case
+         */
+        public AuthenticatedUser(final String nick, final String mainNick, final boolean admin, final Set<String> channels) {
+            this.nick = checkNotNull(nick);
+            this.mainNick = checkNotNull(mainNick);
+            this.admin = admin;
+            this.channels = Collections.unmodifiableSet(new HashSet<>(channels));
+        }
+
+        public String getNick() {
+            return nick;
+        }
+
+        public String getMainNick() {
+            return mainNick;
+        }
+
+        public boolean isAdmin() {
+            return admin;
+        }
+
+        public Set<String> getChannels() {
+            return channels;
+        }
+    }
+
+    /**
+     * A message that was queued but not sent when the snapshot was taken
+     */
+    public static final class PendingMessage {
+        private final IRCMessageType type;
+        private final String target;
+        private final int priority;
+        private final String message;
+
+        public PendingMessage(final IRCMessageType type, final String target, final int priority, final String message) {
+            this.type = checkNotNull(type);
+            this.target = checkNotNull(target);
+            this.priority = priority;
+            this.message = checkNotNull(message);
+        }
+
+        public IRCMessageType getType() {
+            return type;
+        }
+
+        /**
+         * @return the name of the channel or the nick of the user the message was for
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.irc.snapshot;
+
+import api.irc.IRCEntityManager;
+import api.irc.OutputQueue;
+import api.irc.communication.IRCMessage;
+import api.irc.communication.IRCMessageFactory;
+import api.irc.communication.IRCOutput;
+import api.irc.entities.IRCChannel;
+import api.irc.entities.IRCEntity;
+import api.irc.entities.IRCUser;
+import api.irc.snapshot.RuntimeSnapshot.AuthenticatedUser;
+import api.irc.snapshot.RuntimeSnapshot.PendingMessage;
+import api.metrics.Counter;
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
+import api.settings.PropertiesCollection;
+import lombok.extern.log4j.Log4j;
+import spi.runtime.RequiresShutdown;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static api.settings.PropertiesConfig.RUNTIME_SNAPSHOT_MAX_AGE;
+import static api.tools.text.StringUtil.lowerCase;
+
+/**
+ * Keeps the runtime state over a restart, so that users' logins aren't announced again and queued messages aren't lost.
+ * <p/>
+ * A snapshot is saved when the bot shuts down gracefully, and loaded during the next startup if it isn't too old. Nothing is
+ * applied straight away though, since the world may have moved on while the bot was gone. Users are still checked with NickServ
+ * like usual, but when the server lists the same nick in one of the same channels after reconnecting and the check confirms the
+ * same user, the login is treated as a continuation. Queued messages are only sent once their target is known again. Whatever
+ * hasn't been confirmed within the max age after loading is dropped.
+ */
+@Log4j
+@Singleton
+@ParametersAreNonnullByDefault
+public class RuntimeSnapshotManager implements RequiresShutdown {
+    private static final Path SNAPSHOT_FILE = Paths.get("data", "runtime.snapshot");
+
+    private final Path file;
+    private final long maxAgeMillis;
+    private final Provider<IRCEntityManager> ircEntityManagerProvider;
+    private final Provider<OutputQueue> outputQueueProvider;
+    private final Provider<IRCMessageFactory> messageFactoryProvider;
+    private final Histogram loadDuration;
+    private final Counter usersRestored;
+    private final Counter messagesRestored;
+
+    private final ConcurrentMap<String, AuthenticatedUser> pendingUsers = new ConcurrentHashMap<>();
+    private final List<PendingMessage> pendingMessages = new LinkedList<>();
+    private volatile long pendingUntil;
+    private volatile boolean saved;
+
+    @Inject
+    public RuntimeSnapshotManager(final PropertiesCollection properties,
+                                  final Provider<IRCEntityManager> ircEntityManagerProvider,
+                                  final Provider<OutputQueue> outputQueueProvider,
+                                  final Provider<IRCMessageFactory> messageFactoryProvider,
+                                  final MetricsRegistry metricsRegistry) {
+        this(SNAPSHOT_FILE, TimeUnit.SECONDS.toMillis(properties.getInteger(RUNTIME_SNAPSHOT_MAX_AGE)), ircEntityManagerProvider,
+                outputQueueProvider, messageFactoryProvider, metricsRegistry);
+    }
+
+    RuntimeSnapshotManager(final Path file,
+                           final long maxAgeMillis,
+                           final Provider<IRCEntityManager> ircEntityManagerProvider,
+                           final Provider<OutputQueue> outputQueueProvider,
+                           final Provider<IRCMessageFactory> messageFactoryProvider,
+                           final MetricsRegistry metricsRegistry) {
+        this.file = file;
+        this.maxAgeMillis = maxAgeMillis;
+        this.ircEntityManagerProvider = ircEntityManagerProvider;
+        this.outputQueueProvider = outputQueueProvider;
+        this.messageFactoryProvider = messageFactoryProvider;
+        this.loadDuration = metricsRegistry.histogram("snapshot.load.duration");
+        this.usersRestored = metricsRegistry.counter("snapshot.users.restored");
+        this.messagesRestored = metricsRegistry.counter("snapshot.messages.restored");
+    }
+
+    public boolean isEnabled() {
+        return maxAgeMillis > 0;
+    }
+
+    /**
+     * Saves the current state, unless it's already been saved. Should be called before the bot instances disconnect, since
+     * that clears the state
+     */
+    public synchronized void save() {
+        if (!isEnabled() || saved) return;
+        saved = true;
+        long start = System.nanoTime();
+        try {
+            RuntimeSnapshot snapshot = takeSnapshot();
+            //Also keeps a snapshot that hasn't been loaded yet from being overwritten before the bot has connected
+            if (snapshot.getUsers().isEmpty() && snapshot.getMessages().isEmpty()) return;
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                snapshot.writeTo(out);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            RuntimeSnapshotManager.log.info("Saved a runtime snapshot of " + snapshot.getUsers().size() + " authenticated users and " +
+                    snapshot.getMessages().size() + " queued messages in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            RuntimeSnapshotManager.log.error("Could not save the runtime snapshot", e);
+        }
+    }
+
+    private RuntimeSnapshot takeSnapshot() {
+        Map<IRCUser, Set<String>> userChannels = new HashMap<>();
+        for (IRCChannel channel : ircEntityManagerProvider.get().getChannels()) {
+            for (IRCUser user : channel.getUsers()) {
+                if (!user.isAuthenticated()) continue;
+                Set<String> channels = userChannels.get(user);
+                if (channels == null) {
+                    channels = new HashSet<>();
+                    userChannels.put(user, channels);
+                }
+                channels.add(lowerCase(channel.getName()));
+            }
+        }
+        List<AuthenticatedUser> users = new ArrayList<>(userChannels.size());
+        for (Map.Entry<IRCUser, Set<String>> entry : userChannels.entrySet()) {
+            IRCUser user = entry.getKey();
+            String mainNick = user.getMainNick();
+            //May have been deauthenticated since
+            if (mainNick != null) users.add(new AuthenticatedUser(user.getCurrentNick(), mainNick, user.isAdmin(), entry.getValue()));
+        }
+
+        List<PendingMessage> messages = new ArrayList<>();
+        for (IRCOutput output : outputQueueProvider.get().getQueuedOutputs()) {
+            for (IRCMessage message : output.getMessages()) {
+                //Raw commands, like joins, are repeated by the bot anyway when it reconnects
+                if (message.getType() == null || message.getTarget() == null) continue;
+                messages.add(new PendingMessage(message.getType(), message.getTarget().getName(), message.getPriority(),
+                        message.getRawMessage()));
+            }
+        }
+        return new RuntimeSnapshot(System.currentTimeMillis(), users, messages);
+    }
+
+    /**
+     * Loads the snapshot saved at the last shutdown, if there is one and it's fresh enough. The snapshot file is removed
+     * either way, so that it's never used twice
+     */
+    public void load() {
+        if (!isEnabled()) return;
+        long start = System.nanoTime();
+        RuntimeSnapshot snapshot;
+        try (InputStream in = Files.newInputStream(file)) {
+            snapshot = RuntimeSnapshot.readFrom(in);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            RuntimeSnapshotManager.log.warn("Could not read the runtime snapshot, starting from scratch", e);
+            deleteSnapshotFile();
+            return;
+        }
+        deleteSnapshotFile();
+
+        long age = System.currentTimeMillis() - snapshot.getTakenAt();
+        if (age > maxAgeMillis || age < 0) {
+            RuntimeSnapshotManager.log.info("The runtime snapshot is " + TimeUnit.MILLISECONDS.toSeconds(age) + " seconds old, ignoring it");
+            return;
+        }
+
+        for (AuthenticatedUser user : snapshot.getUsers()) {
+            pendingUsers.put(lowerCase(user.getNick()), user);
+        }
+        synchronized (pendingMessages) {
+            pendingMessages.addAll(snapshot.getMessages());
+        }
+        pendingUntil = System.currentTimeMillis() + maxAgeMillis;
+        loadDuration.recordMicrosSince(start);
+        RuntimeSnapshotManager.log.info("Loaded a runtime snapshot of " + snapshot.getUsers().size() + " authenticated users and " +
+                snapshot.getMessages().size() + " queued messages in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private void deleteSnapshotFile() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            RuntimeSnapshotManager.log.warn("Could not remove the runtime snapshot file", e);
+        }
+    }
+
+    /**
+     * Checks whether the user with the specified nick was authenticated before the restart, and was in the specified channel.
+     * A user can only be claimed once.
+     *
+     * @param nick    the nick the server listed
+     * @param channel the channel it was listed in
+     * @return the user's authentication from before the restart, or null if there isn't one that matches
+     */
+    @Nullable
+    public AuthenticatedUser claimAuthentication(final String nick, final String channel) {
+        if (pendingUsers.isEmpty() || hasExpired()) return null;
+        String lowerCaseNick = lowerCase(nick);
+        AuthenticatedUser user = pendingUsers.get(lowerCaseNick);
+        if (user == null || !user.getChannels().contains(lowerCase(channel)) || !pendingUsers.remove(lowerCaseNick, user)) return null;
+        usersRestored.increment();
+        return user;
+    }
+
+    /**
+     * Queues the messages from before the restart whose targets are known again, meaning the channels the bot is in and
+     * the users that are online
+     */
+    public void requeueMessages() {
+        if (hasExpired()) return;
+        IRCEntityManager ircEntityManager = ircEntityManagerProvider.get();
+        List<IRCOutput> outputs = new ArrayList<>();
+        synchronized (pendingMessages) {
+            for (Iterator<PendingMessage> iter = pendingMessages.iterator(); iter.hasNext(); ) {
+                PendingMessage message = iter.next();
+                IRCEntity target = ircEntityManager.getChannel(message.getTarget());
+                if (target == null) target = ircEntityManager.getUser(message.getTarget());
+                if (target == null) continue;
+                iter.remove();
+                outputs.add(new IRCOutput(messageFactoryProvider.get().newIRCMessage(message.getType(), target, message.getPriority(), false,
+                        message.getMessage())));
+            }
+        }
+        OutputQueue outputQueue = outputQueueProvider.get();
+        for (IRCOutput output : outputs) {
+            outputQueue.enqueueOutput(output);
+        }
+        messagesRestored.add(outputs.size());
+    }
+
+    private boolean hasExpired() {
+        if (System.currentTimeMillis() <= pendingUntil) return false;
+        if (!pendingUsers.isEmpty()) {
+            RuntimeSnapshotManager.log.info(pendingUsers.size() + " users from the runtime snapshot were not seen again, they have to authenticate");
+            pendingUsers.clear();
+        }
+        synchronized (pendingMessages) {
+            if (!pendingMessages.isEmpty()) {
+                RuntimeSnapshotManager.log.info("Dropped " + pendingMessages.size() + " messages from the runtime snapshot, their targets were not seen again");
+                pendingMessages.clear();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Runnable getShutdownRunner() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                save();
+            }
+        };
+    }
+}
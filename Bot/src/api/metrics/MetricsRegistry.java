@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.metrics;
+
+import lombok.extern.log4j.Log4j;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Singleton;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps the bot wide metrics, so they can be shown in the status page or fetched by monitoring tools.
+ * <p/>
+ * Metrics are created the first time they're asked for, and the same instance is returned for the same name after that, so
+ * callers should look them up once and keep them around. Names are dot separated, starting with the part of the bot they
+ * belong to. Durations are recorded in microseconds.
+ */
+@Singleton
+@Log4j
+@ParametersAreNonnullByDefault
+public class MetricsRegistry {
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        registerGauge("jvm.memory.usedMB", new Gauge() {
+            @Override
+            public long getValue() {
+                Runtime runtime = Runtime.getRuntime();
+                return (runtime.totalMemory() - runtime.freeMemory()) / MEGABYTE;
+            }
+        });
+        registerGauge("jvm.threads", new Gauge() {
+            @Override
+            public long getValue() {
+                return ManagementFactory.getThreadMXBean().getThreadCount();
+            }
+        });
+    }
+
+    public Counter counter(final String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(checkNotNull(name), newCounter);
+            if (counter == null) counter = newCounter;
+        }
+        return counter;
+    }
+
+    public Histogram histogram(final String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram newHistogram = new Histogram();
+            histogram = histograms.putIfAbsent(checkNotNull(name), newHistogram);
+            if (histogram == null) histogram = newHistogram;
+        }
+        return histogram;
+    }
+
+    /**
+     * Registers a gauge, replacing any earlier one with the same name
+     *
+     * @param name  the name
+     * @param gauge the gauge
+     */
+    public void registerGauge(final String name, final Gauge gauge) {
+        gauges.put(checkNotNull(name), checkNotNull(gauge));
+    }
+
+    /**
+     * @return the counts of all the counters, by name
+     */
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            out.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return out;
+    }
+
+    /**
+     * @return the current values of all the gauges, by name. Gauges that fail are left out
+     */
+    public SortedMap<String, Long> getGauges() {
+        SortedMap<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            try {
+                out.put(entry.getKey(), entry.getValue().getValue());
+            } catch (RuntimeException e) {
+                MetricsRegistry.log.warn("Could not read gauge " + entry.getKey(), e);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return snapshots of all the histograms, by name
+     */
+    public SortedMap<String, Histogram.Snapshot> getHistograms() {
+        SortedMap<String, Histogram.Snapshot> out = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            out.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return out;
+    }
+
+    /**
+     * Sets all counters and histograms back to zero. Gauges aren't affected.
+     */
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
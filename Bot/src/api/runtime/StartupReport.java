@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.runtime;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * How long each phase of the startup took, compared to how long it was expected to take
+ */
+@ParametersAreNonnullByDefault
+public final class StartupReport {
+    /**
+     * Checking the database and, if needed, updating it. Always done first, on its own
+     */
+    public static final String DATABASE = "database";
+    /**
+     * Creating all the bot's services. Always done right after the database check, on its own
+     */
+    public static final String INJECTOR = "injector";
+    public static final String FILE_WATCHERS = "file-watchers";
+    public static final String WEB_SERVER = "web-server";
+    public static final String WEB_SERVICES = "web-services";
+    public static final String MAINTENANCE = "maintenance";
+    public static final String BOT_INSTANCES = "bot-instances";
+    /**
+     * Loading the runtime state saved when the bot was last shut down. Done before connecting to IRC
+     */
+    public static final String RUNTIME_SNAPSHOT = "runtime-snapshot";
+    /**
+     * The prefix of the phases connecting each bot instance to IRC, which is followed by the nick of the instance
+     */
+    public static final String IRC_CONNECT_PREFIX = "irc-connect:";
+
+    private final long totalMillis;
+    private final List<PhaseTiming> phases;
+
+    public StartupReport(final long totalMillis, final List<PhaseTiming> phases) {
+        this.totalMillis = totalMillis;
+        List<PhaseTiming> sorted = new ArrayList<>(phases);
+        Collections.sort(sorted, new Comparator<PhaseTiming>() {
+            @Override
+            public int compare(final PhaseTiming o1, final PhaseTiming o2) {
+                boolean skipped1 = o1.getStatus() == PhaseStatus.SKIPPED;
+                boolean skipped2 = o2.getStatus() == PhaseStatus.SKIPPED;
+                if (skipped1 != skipped2) return skipped1 ? 1 : -1;
+                return Long.compare(o1.getStartedAtMillis(), o2.getStartedAtMillis());
+            }
+        });
+        this.phases = Collections.unmodifiableList(sorted);
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * @return the phases in the order they were started. Skipped phases are last
+     */
+    public List<PhaseTiming> getPhases() {
+        return phases;
+    }
+
+    public List<PhaseTiming> getPhasesOverBudget() {
+        List<PhaseTiming> out = new ArrayList<>();
+        for (PhaseTiming phase : phases) {
+            if (phase.isOverBudget()) out.add(phase);
+        }
+        return out;
+    }
+
+    @Nullable
+    public PhaseTiming getSlowestPhase() {
+        PhaseTiming slowest = null;
+        for (PhaseTiming phase : phases) {
+            if (slowest == null || phase.getDurationMillis() > slowest.getDurationMillis()) slowest = phase;
+        }
+        return slowest;
+    }
+
+    /**
+     * @return a one line summary of the report
+     */
+    public String getSummary() {
+        StringBuilder builder = new StringBuilder("Took ").append(totalMillis).append(" ms");
+        PhaseTiming slowest = getSlowestPhase();
+        if (slowest != null) builder.append(", slowest phase: ").append(slowest.getName()).append(" (").append(slowest.getDurationMillis())
+                .append(" ms)");
+        int overBudget = getPhasesOverBudget().size();
+        if (overBudget > 0) builder.append(", ").append(overBudget).append(" over budget");
+        int unsuccessful = 0;
+        for (PhaseTiming phase : phases) {
+            if (phase.getStatus() != PhaseStatus.DONE) ++unsuccessful;
+        }
+        if (unsuccessful > 0) builder.append(", ").append(unsuccessful).append(" failed or skipped");
+        return builder.toString();
+    }
+
+    /**
+     * @return the full report as a table, one phase per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Startup timings (").append(getSummary()).append(')');
+        builder.append(String.format("%n  %-30s %10s %10s %10s  %s", "Phase", "Start", "Duration", "Budget", "Status"));
+        for (PhaseTiming phase : phases) {
+            builder.append(String.format("%n  %-30s %10s %10s %10s  %s", phase.getName(),
+                    phase.getStatus() == PhaseStatus.SKIPPED ? "-" : "+" + phase.getStartedAtMillis() + " ms",
+                    phase.getDurationMillis() + " ms", phase.getBudgetMillis() + " ms", phase.getDescription()));
+        }
+        return builder.toString();
+    }
+
+    public enum PhaseStatus {
+        DONE, FAILED, SKIPPED
+    }
+
+    public static final class PhaseTiming {
+        private final String name;
+        private final long startedAtMillis;
+        private final long durationMillis;
+        private final long budgetMillis;
+        private final PhaseStatus status;
+        private final String problem;
+
+        /**
+         * @param name            the name of the phase
+         * @param startedAtMillis when the phase started, counted from the start of the startup
+         * @param durationMillis  how long it took
+         * @param budgetMillis    how long it was expected to take at most
+         * @param status          how it went
+         * @param problem         why it failed or was skipped, if it did
+         */
+        public PhaseTiming(final String name, final long startedAtMillis, final long durationMillis, final long budgetMillis,
+                           final PhaseStatus status, @Nullable final String problem) {
+            this.name = name;
+            this.startedAtMillis = startedAtMillis;
+            this.durationMillis = durationMillis;
+            this.budgetMillis = budgetMillis;
+            this.status = status;
+            this.problem = problem;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartedAtMillis() {
+            return startedAtMillis;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        public PhaseStatus getStatus() {
+            return status;
+        }
+
+        @Nullable
+        public String getProblem() {
+            return problem;
+        }
+
+        public boolean isOverBudget() {
+            return status != PhaseStatus.SKIPPED && durationMillis > budgetMillis;
+        }
+
+        private String getDescription() {
+            if (status != PhaseStatus.DONE) return status + (problem == null ? "" : ": " + problem);
+            return isOverBudget() ? "OVER BUDGET" : "OK";
+        }
+    }
+}
@@ -44,7 +44,18 @@ public class PropertiesConfig implements PropertiesSpecification {
     public static final String DB_NAME = "Core.Database.Name";
     public static final String DB_USERNAME = "Core.Database.User";
     public static final String DB_PASSWORD = "Core.Database.Password";
+    public static final String DB_EXPLAIN_QUERIES = "Core.Database.ExplainQueries";
+    public static final String DB_SLOW_QUERY_MILLIS = "Core.Database.SlowQueryMillis";
+    public static final String DB_STATEMENT_BUDGET = "Core.Database.StatementBudget";
+    public static final String DB_SCHEMA_VALIDATION = "Core.Database.SchemaValidation";
+    public static final String DB_CHECK_READ_ONLY_CHANGES = "Core.Database.CheckReadOnlyChanges";
+    public static final String DB_MAINTENANCE_ENABLED = "Core.Database.Maintenance.Enabled";
+    public static final String DB_MAINTENANCE_HOUR = "Core.Database.Maintenance.Hour";
+    public static final String DB_MAINTENANCE_BACKUPS_TO_KEEP = "Core.Database.Maintenance.BackupsToKeep";
+    public static final String DB_MAINTENANCE_COMPACT_MILLIS = "Core.Database.Maintenance.CompactMillis";
     public static final String WEB_SERVER_PORT = "Core.WebServer.Port";
+    public static final String FILE_WATCHER_QUIET_PERIOD = "Core.FileWatcher.QuietPeriodMillis";
+    public static final String RUNTIME_SNAPSHOT_MAX_AGE = "Core.RuntimeSnapshot.MaxAgeSeconds";
     public static final String EMAIL_HOST = "Core.Email.Host";
     public static final String EMAIL_PORT = "Core.Email.Port";
     public static final String EMAIL_TLS = "Core.Email.UseTLS";
@@ -77,6 +88,15 @@ public class PropertiesConfig implements PropertiesSpecification {
         defaults.put(SETUP_ALLOWED_IPS, "127.0.0.1, 192.168.*.*");
         defaults.put(ALLOW_USER_REGISTRATION, "false");
         defaults.put(DEFAULT_PASSWORD_ACCESS_ENABLED, "false");
+        defaults.put(DB_EXPLAIN_QUERIES, "false");
+        defaults.put(DB_SLOW_QUERY_MILLIS, "250");
+        defaults.put(DB_STATEMENT_BUDGET, "40");
+        defaults.put(DB_SCHEMA_VALIDATION, "changed");
+        defaults.put(DB_CHECK_READ_ONLY_CHANGES, "false");
+        defaults.put(DB_MAINTENANCE_ENABLED, "true");
+        defaults.put(DB_MAINTENANCE_HOUR, "5");
+        defaults.put(DB_MAINTENANCE_BACKUPS_TO_KEEP, "7");
+        defaults.put(DB_MAINTENANCE_COMPACT_MILLIS, "2000");
         defaults.put(IRC_AUTH_REQUEST, "STATUS $MULTI_USERS:16$");
         defaults.put(IRC_AUTH_RESPONSE, "STATUS $CURRENT_NICK$ $STATUS_NUMBER$");
         defaults.put(IRC_CS_INVITE_REQUEST, "INVITE $CHANNEL$");
@@ -84,6 +104,8 @@ public class PropertiesConfig implements PropertiesSpecification {
         defaults.put(COMMANDS_PREFIX, "!");
         defaults.put(LOGIN_COMMAND, "");
         defaults.put(WEB_SERVER_PORT, "49998");
+        defaults.put(FILE_WATCHER_QUIET_PERIOD, "500");
+        defaults.put(RUNTIME_SNAPSHOT_MAX_AGE, "120");
         defaults.put(AUTO_CONNECT_STARTUP, "true");
         defaults.put(AUTO_CONNECT_DISCONNECT, "true");
         defaults.put(AUTO_CONNECT_ATTEMPTS, "500");
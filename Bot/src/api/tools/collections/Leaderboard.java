@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.tools.collections;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A sorted score board, ordered by score (highest first) and then by key. Updating a score, looking up the top entries and
+ * finding the rank of a key are all O(log n) (plus the size of the result for top lists).
+ * <p/>
+ * The board is backed by a treap where every node keeps track of the size of its subtree, which is what makes rank lookups cheap.
+ * This class is thread safe.
+ *
+ * @param <K> the type of the keys
+ */
+@ParametersAreNonnullByDefault
+public final class Leaderboard<K extends Comparable<? super K>> {
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final Random random = new Random();
+    private Node<K> root;
+
+    /**
+     * Sets the score for the specified key, adding it to the board if it isn't already on it
+     *
+     * @param key   the key
+     * @param score the new score
+     */
+    public synchronized void set(final K key, final int score) {
+        checkNotNull(key);
+        Node<K> existing = nodes.get(key);
+        if (existing != null) {
+            if (existing.score == score) return;
+            root = remove(root, existing);
+        }
+        Node<K> node = new Node<>(key, score, random.nextInt());
+        root = insert(root, node);
+        nodes.put(key, node);
+    }
+
+    /**
+     * Adds to the score of the specified key, adding it to the board with the increment as score if it isn't already on it
+     *
+     * @param key       the key
+     * @param increment the amount to add
+     * @return the new score
+     */
+    public synchronized int increment(final K key, final int increment) {
+        Node<K> existing = nodes.get(checkNotNull(key));
+        int score = existing == null ? increment : existing.score + increment;
+        set(key, score);
+        return score;
+    }
+
+    /**
+     * @param key the key to remove from the board
+     * @return true if the key was on the board
+     */
+    public synchronized boolean remove(final K key) {
+        Node<K> existing = nodes.remove(checkNotNull(key));
+        if (existing == null) return false;
+        root = remove(root, existing);
+        return true;
+    }
+
+    /**
+     * @param key the key
+     * @return the score for the specified key, or null if it isn't on the board
+     */
+    @Nullable
+    public synchronized Integer getScore(final K key) {
+        Node<K> node = nodes.get(checkNotNull(key));
+        return node == null ? null : node.score;
+    }
+
+    /**
+     * @param key the key
+     * @return the rank of the specified key, where 1 is the top of the board, or -1 if the key isn't on the board
+     */
+    public synchronized int getRank(final K key) {
+        Node<K> node = nodes.get(checkNotNull(key));
+        if (node == null) return -1;
+
+        int rank = 1;
+        Node<K> current = root;
+        while (current != null) {
+            int comp = compare(node, current);
+            if (comp < 0) current = current.left;
+            else {
+                rank += size(current.left);
+                if (comp == 0) return rank;
+                ++rank;
+                current = current.right;
+            }
+        }
+        throw new IllegalStateException("Leaderboard index is out of sync for key: " + key);
+    }
+
+    /**
+     * @param amount the max amount of entries to return
+     * @return the top entries of the board, highest score first
+     */
+    public synchronized List<Entry<K>> getTop(final int amount) {
+        checkArgument(amount >= 0, "Amount may not be negative");
+        List<Entry<K>> out = new ArrayList<>(Math.min(amount, nodes.size()));
+        collect(root, amount, out);
+        return out;
+    }
+
+    /**
+     * @return all the entries of the board, highest score first
+     */
+    public synchronized List<Entry<K>> getAll() {
+        return getTop(nodes.size());
+    }
+
+    /**
+     * @return the amount of keys on the board
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return true if the board has no entries
+     */
+    public synchronized boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Removes all entries from the board
+     */
+    public synchronized void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    private static <K extends Comparable<? super K>> void collect(@Nullable final Node<K> node, final int amount,
+                                                                  final List<Entry<K>> out) {
+        if (node == null || out.size() >= amount) return;
+        collect(node.left, amount, out);
+        if (out.size() < amount) out.add(new Entry<>(node.key, node.score));
+        collect(node.right, amount, out);
+    }
+
+    private static <K extends Comparable<? super K>> int compare(final Node<K> first, final Node<K> second) {
+        int scoreComp = Integer.compare(second.score, first.score);
+        return scoreComp == 0 ? first.key.compareTo(second.key) : scoreComp;
+    }
+
+    private static int size(@Nullable final Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K extends Comparable<? super K>> Node<K> insert(@Nullable final Node<K> current, final Node<K> node) {
+        if (current == null) return node;
+        if (compare(node, current) < 0) {
+            current.left = insert(current.left, node);
+            if (current.left.priority > current.priority) return rotateRight(current);
+        } else {
+            current.right = insert(current.right, node);
+            if (current.right.priority > current.priority) return rotateLeft(current);
+        }
+        current.updateSize();
+        return current;
+    }
+
+    @Nullable
+    private static <K extends Comparable<? super K>> Node<K> remove(@Nullable final Node<K> current, final Node<K> node) {
+        if (current == null) return null;
+        int comp = compare(node, current);
+        if (comp < 0) current.left = remove(current.left, node);
+        else if (comp > 0) current.right = remove(current.right, node);
+        else return merge(current.left, current.right);
+        current.updateSize();
+        return current;
+    }
+
+    @Nullable
+    private static <K extends Comparable<? super K>> Node<K> merge(@Nullable final Node<K> left, @Nullable final Node<K> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.updateSize();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.updateSize();
+        return right;
+    }
+
+    private static <K extends Comparable<? super K>> Node<K> rotateRight(final Node<K> node) {
+        Node<K> newRoot = node.left;
+        node.left = newRoot.right;
+        newRoot.right = node;
+        node.updateSize();
+        newRoot.updateSize();
+        return newRoot;
+    }
+
+    private static <K extends Comparable<? super K>> Node<K> rotateLeft(final Node<K> node) {
+        Node<K> newRoot = node.right;
+        node.right = newRoot.left;
+        newRoot.left = node;
+        node.updateSize();
+        newRoot.updateSize();
+        return newRoot;
+    }
+
+    private static final class Node<K> {
+        private final K key;
+        private final int score;
+        private final int priority;
+        private Node<K> left;
+        private Node<K> right;
+        private int size = 1;
+
+        private Node(final K key, final int score, final int priority) {
+            this.key = key;
+            this.score = score;
+            this.priority = priority;
+        }
+
+        private void updateSize() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+
+    /**
+     * An immutable entry on a Leaderboard
+     *
+     * @param <K> the type of the key
+     */
+    public static final class Entry<K> {
+        private final K key;
+        private final int score;
+
+        private Entry(final K key, final int score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+}
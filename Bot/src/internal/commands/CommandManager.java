@@ -30,6 +30,7 @@ package internal.commands;
 import api.commands.*;
 import api.database.models.AccessLevel;
 import api.database.models.ChannelType;
+import api.database.statistics.SqlStatistics;
 import api.database.transactions.CallableTransactionTask;
 import api.events.DelayedEventPoster;
 import api.events.bot.CommandCalledEvent;
@@ -43,6 +44,9 @@ import api.irc.communication.IRCOutput;
 import api.irc.entities.IRCChannel;
 import api.irc.entities.IRCEntity;
 import api.irc.entities.IRCUser;
+import api.metrics.Counter;
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
 import api.runtime.IRCContext;
 import api.runtime.ThreadingManager;
 import api.settings.PropertiesConfig;
@@ -64,6 +68,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 
+import static api.database.transactions.Transactions.inReadOnlyTransaction;
 import static api.database.transactions.Transactions.inTransaction;
 import static api.tools.text.StringUtil.lowerCase;
 
@@ -80,6 +85,9 @@ final class CommandManager implements EventListener {
     private final FilterParser filterParser;
     private final IRCMessageFactory ircMessageFactory;
     private final String commandPrefix;
+    private final Counter commandsCalled;
+    private final Counter commandsFailed;
+    private final Histogram commandDuration;
 
     private final ConcurrentMap<String, Boolean> lockedChannelsMap = new ConcurrentHashMap<>();
 
@@ -91,6 +99,7 @@ final class CommandManager implements EventListener {
                    final TemplateManager templateManager,
                    final FilterParser filterParser,
                    final IRCMessageFactory ircMessageFactory,
+                   final MetricsRegistry metricsRegistry,
                    @Named(PropertiesConfig.COMMANDS_PREFIX) final String commandPrefix) {
         this.ircAccess = ircAccess;
         this.commandCache = commandCache;
@@ -99,6 +108,9 @@ final class CommandManager implements EventListener {
         this.filterParser = filterParser;
         this.ircMessageFactory = ircMessageFactory;
         this.commandPrefix = commandPrefix;
+        this.commandsCalled = metricsRegistry.counter("commands.called");
+        this.commandsFailed = metricsRegistry.counter("commands.failed");
+        this.commandDuration = metricsRegistry.histogram("commands.duration");
     }
 
     @Subscribe
@@ -108,8 +120,10 @@ final class CommandManager implements EventListener {
         threadingManager.execute(new Runnable() {
             @Override
             public void run() {
+                long start = System.nanoTime();
+                String previousTag = SqlStatistics.tag(commandPrefix + command.getName());
                 try {
-                    Collection<IRCOutput> result = inTransaction(new CallableTransactionTask<Collection<IRCOutput>>() {
+                    CallableTransactionTask<Collection<IRCOutput>> task = new CallableTransactionTask<Collection<IRCOutput>>() {
                         @Override
                         public Collection<IRCOutput> call(final DelayedEventPoster delayedEventPoster) throws Exception {
                             IRCChannel channel = context.getChannel();
@@ -121,7 +135,8 @@ final class CommandManager implements EventListener {
                             }
                             return null;
                         }
-                    });
+                    };
+                    Collection<IRCOutput> result = command.isReadOnly() ? inReadOnlyTransaction(task) : inTransaction(task);
                     if (result != null && !result.isEmpty()) {
                         for (IRCOutput output : result) {
                             if (output.getHandler() == null && context.getInputType() == IRCMessageType.PRIVATE_MESSAGE)
@@ -130,7 +145,12 @@ final class CommandManager implements EventListener {
                         }
                     }
                 } catch (Exception e) {
+                    commandsFailed.increment();
                     CommandManager.log.error("Command could not be handled: " + command.getName(), e);
+                } finally {
+                    SqlStatistics.tag(previousTag);
+                    commandsCalled.increment();
+                    commandDuration.recordMicrosSince(start);
                 }
             }
         });
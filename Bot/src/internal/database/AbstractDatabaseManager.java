@@ -33,37 +33,49 @@ import api.database.DatabaseState;
 import api.database.updates.DatabaseUpdateAction;
 import api.database.updates.DatabaseUpdater;
 import api.tools.common.CleanupUtil;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hashing;
 import lombok.extern.log4j.Log4j;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.jdbc.ReturningWork;
 import org.hibernate.jdbc.Work;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Table;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
 import org.hibernate.tool.hbm2ddl.SchemaUpdate;
 import org.hibernate.tool.hbm2ddl.SchemaValidator;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 import static com.google.common.base.Objects.firstNonNull;
 
 @ParametersAreNonnullByDefault
 @Log4j
 abstract class AbstractDatabaseManager implements DatabaseManager {
+    /**
+     * The row in the versions table holding the fingerprint of the mappings the schema was last validated against
+     */
+    private static final String SCHEMA_FINGERPRINT_ARTIFACT = "schema-fingerprint";
+
     private final Configuration configuration;
     private final Set<DatabaseUpdater> updaters;
+    private final SchemaValidation schemaValidation;
     private final Map<String, Integer> latestArtifactVersions = new HashMap<>();
 
-    protected AbstractDatabaseManager(final Configuration configuration, final Set<DatabaseUpdater> updaters) {
+    protected AbstractDatabaseManager(final Configuration configuration, final Set<DatabaseUpdater> updaters,
+                                      final SchemaValidation schemaValidation) {
         this.configuration = configuration;
         this.updaters = updaters;
+        this.schemaValidation = schemaValidation;
         for (DatabaseUpdater updater : updaters) {//assumed to be ordered by version already
             latestArtifactVersions.put(updater.forArtifact(), updater.updatesToVersion());
         }
@@ -96,8 +108,7 @@ abstract class AbstractDatabaseManager implements DatabaseManager {
                             }
                         }
 
-                        SchemaValidator validator = new SchemaValidator(configuration);
-                        validator.validate();
+                        validateSchema(connection);
                         return DatabaseState.CONNECTED_FULLY;
                     } catch (final Exception e) {
                         log.error("", e);
@@ -113,6 +124,89 @@ abstract class AbstractDatabaseManager implements DatabaseManager {
         }
     }
 
+    private void validateSchema(final Connection connection) {
+        if (schemaValidation == SchemaValidation.NEVER) return;
+
+        Long fingerprint = null;
+        if (schemaValidation == SchemaValidation.CHANGED) {
+            try {
+                fingerprint = calculateSchemaFingerprint();
+            } catch (RuntimeException e) {
+                AbstractDatabaseManager.log.warn("Could not fingerprint the mappings, validating the schema", e);
+            }
+            if (fingerprint != null && fingerprint.equals(getSchemaFingerprint(connection))) {
+                AbstractDatabaseManager.log.info("The mappings haven't changed since the schema was last validated, skipping validation");
+                return;
+            }
+        }
+
+        SchemaValidator validator = new SchemaValidator(configuration);
+        validator.validate();
+
+        if (fingerprint != null) setSchemaFingerprint(fingerprint, connection);
+    }
+
+    /**
+     * @return a hash of the tables and columns that are mapped, and the versions the artifacts are at. Anything that may
+     *         change what the schema has to look like should change the hash
+     */
+    private long calculateSchemaFingerprint() {
+        List<String> parts = new ArrayList<>();
+        for (Iterator<Table> tables = configuration.getTableMappings(); tables.hasNext(); ) {
+            Table table = tables.next();
+            StringBuilder builder = new StringBuilder(table.getName()).append('(');
+            for (Iterator<?> columns = table.getColumnIterator(); columns.hasNext(); ) {
+                Column column = (Column) columns.next();
+                builder.append(column.getName()).append(':').append(column.getLength()).append(':').append(column.isNullable())
+                        .append(':').append(column.getValue().getType().getName()).append(',');
+            }
+            parts.add(builder.append(')').toString());
+        }
+        for (Map.Entry<String, Integer> artifactVersion : latestArtifactVersions.entrySet()) {
+            parts.add(artifactVersion.getKey() + '=' + artifactVersion.getValue());
+        }
+        Collections.sort(parts);
+        return Hashing.murmur3_128().hashString(Joiner.on(';').join(parts), Charsets.UTF_8).asLong();
+    }
+
+    @Nullable
+    private static Long getSchemaFingerprint(final Connection connection) {
+        ResultSet resultSet = null;
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT db_version FROM versions WHERE artifact = ?")) {
+            preparedStatement.setString(1, SCHEMA_FINGERPRINT_ARTIFACT);
+            resultSet = preparedStatement.executeQuery();
+            if (resultSet.next()) return resultSet.getLong("db_version");
+        } catch (final SQLException e) {
+            AbstractDatabaseManager.log.error("", e);
+        } finally {
+            CleanupUtil.closeSilently(resultSet);
+        }
+        return null;
+    }
+
+    private static void setSchemaFingerprint(final long fingerprint, final Connection connection) {
+        forgetSchemaFingerprint(connection);
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO versions (artifact, db_version) VALUES (?, ?)")) {
+            statement.setString(1, SCHEMA_FINGERPRINT_ARTIFACT);
+            statement.setLong(2, fingerprint);
+            statement.execute();
+        } catch (SQLException e) {
+            AbstractDatabaseManager.log.error("Could not save the schema fingerprint, the schema will be validated again on the next startup", e);
+        }
+    }
+
+    /**
+     * Makes sure the schema is validated on the next startup, which is needed whenever it's been changed
+     */
+    private static void forgetSchemaFingerprint(final Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM versions WHERE artifact = ?")) {
+            statement.setString(1, SCHEMA_FINGERPRINT_ARTIFACT);
+            statement.execute();
+        } catch (SQLException e) {
+            AbstractDatabaseManager.log.error("", e);
+        }
+    }
+
     private static boolean databaseIsEmpty(final Connection connection) {
         try (PreparedStatement preparedStatement = connection.prepareStatement("SHOW TABLES");
              ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -173,6 +267,7 @@ abstract class AbstractDatabaseManager implements DatabaseManager {
                 @Override
                 public void execute(final Connection connection) throws SQLException {
                     ensureVersionsTableExists(connection, null);
+                    forgetSchemaFingerprint(connection);
                 }
             });
             session.getTransaction().commit();
@@ -213,6 +308,7 @@ abstract class AbstractDatabaseManager implements DatabaseManager {
                         for (Map.Entry<String, Integer> entry : latestArtifactVersions.entrySet()) {
                             updateDBVersion(entry.getKey(), entry.getValue(), connection);
                         }
+                        forgetSchemaFingerprint(connection);
                     } catch (Exception e) {
                         throw new RuntimeException("Failed to run database updates", e);
                     }
@@ -31,6 +31,7 @@ import api.database.DatabaseManager;
 import api.database.H2;
 import api.database.HibernateMapped;
 import api.database.MySQL;
+import api.database.UserStatisticsLeaderboards;
 import api.database.models.*;
 import api.database.transactions.TransactionManager;
 import api.database.transactions.Transactional;
@@ -44,6 +45,7 @@ import internal.database.updates.DatabaseUpdateModule;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import spi.events.EventListener;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -63,6 +65,9 @@ public class DatabaseModule extends AbstractModule {
                 new TransactionInterceptor(getProvider(TransactionManager.class)));
         requestStaticInjection(Transactions.class);
 
+        bind(UserStatisticsLeaderboards.class).in(Singleton.class);
+        Multibinder.newSetBinder(binder(), EventListener.class).addBinding().to(UserStatisticsLeaderboards.class);
+
         Multibinder<HibernateMapped> binder = Multibinder.newSetBinder(binder(), HibernateMapped.class);
         binder.addBinding().toInstance(new HibernateMapped(Alias.class));
         binder.addBinding().toInstance(new HibernateMapped(BotInstanceSettings.class));
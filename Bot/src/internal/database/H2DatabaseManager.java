@@ -28,16 +28,21 @@
 package internal.database;
 
 import api.database.H2;
+import api.database.QueryPlanAdvisor;
+import api.database.statistics.SqlStatistics;
+import api.database.transactions.EntityChangeTracker;
+import api.database.transactions.ReadOnlyTransactionGuard;
 import api.database.updates.DatabaseUpdater;
 import api.settings.PropertiesCollection;
 import com.google.common.base.Charsets;
+import com.google.common.eventbus.EventBus;
 import org.h2.Driver;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.dialect.H2Dialect;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.service.ServiceRegistryBuilder;
-import org.hibernate.service.jdbc.connections.internal.C3P0ConnectionProvider;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
 
 import javax.inject.Inject;
 import java.util.Set;
@@ -51,8 +56,9 @@ final class H2DatabaseManager extends AbstractDatabaseManager {
     private final SessionFactory sessionFactory;
 
     @Inject
-    H2DatabaseManager(final Configuration configuration, final PropertiesCollection properties, final Set<DatabaseUpdater> updaters) {
-        super(configuration, updaters);
+    H2DatabaseManager(final Configuration configuration, final PropertiesCollection properties, final Set<DatabaseUpdater> updaters,
+                      final EventBus eventBus) {
+        super(configuration, updaters, SchemaValidation.fromProperty(properties.get(DB_SCHEMA_VALIDATION)));
 
         String dbName = properties.get(DB_NAME);
         String dbUsername = properties.get(DB_USERNAME);
@@ -65,8 +71,8 @@ final class H2DatabaseManager extends AbstractDatabaseManager {
         }
         configuration.setProperty("hibernate.current_session_context_class", "thread");
         configuration.setProperty("hibernate.flushMode", "COMMIT");
-        configuration.setProperty("hibernate.jdbc_batch_size", String.valueOf(15));
-        configuration.setProperty("hibernate.connection.provider_class", C3P0ConnectionProvider.class.getName());
+        configuration.setProperty("hibernate.jdbc.batch_size", String.valueOf(15));
+        configuration.setProperty("hibernate.connection.provider_class", InstrumentedConnectionProvider.class.getName());
         configuration.setProperty("hibernate.c3p0.timeout", String.valueOf(60));
         configuration.setProperty("hibernate.connection.username", dbUsername);
         configuration.setProperty("hibernate.connection.password", dbPassword);
@@ -75,10 +81,23 @@ final class H2DatabaseManager extends AbstractDatabaseManager {
         configuration.setProperty("hibernate.connection.charSet", Charsets.UTF_8.name());
         configuration.setProperty("hibernate.dialect", H2Dialect.class.getName());
         configuration.setProperty("hibernate.connection.driver_class", Driver.class.getName());
-        configuration.setProperty("hibernate.connection.url", "jdbc:h2:data/" + dbName + ";MVCC=TRUE");
+        //The max compact time bounds the compaction done whenever the database is closed, including by the scheduled maintenance
+        configuration.setProperty("hibernate.connection.url",
+                "jdbc:h2:data/" + dbName + ";MVCC=TRUE;MAX_COMPACT_TIME=" + properties.getInteger(DB_MAINTENANCE_COMPACT_MILLIS));
+
+        SqlStatistics.configure(properties.getInteger(DB_SLOW_QUERY_MILLIS), properties.getInteger(DB_STATEMENT_BUDGET));
+
+        QueryPlanAdvisor queryPlanAdvisor = null;
+        if (properties.getBoolean(DB_EXPLAIN_QUERIES)) {
+            queryPlanAdvisor = new QueryPlanAdvisor();
+            configuration.setInterceptor(queryPlanAdvisor);
+        }
 
         ServiceRegistry serviceRegistry = new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry();
         sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+        ReadOnlyTransactionGuard.install(sessionFactory, properties.getBoolean(DB_CHECK_READ_ONLY_CHANGES));
+        EntityChangeTracker.install(sessionFactory, eventBus);
+        if (queryPlanAdvisor != null) queryPlanAdvisor.explainWith(serviceRegistry.getService(ConnectionProvider.class));
     }
 
     @Override
@@ -28,15 +28,20 @@
 package internal.database;
 
 import api.database.MySQL;
+import api.database.QueryPlanAdvisor;
+import api.database.statistics.SqlStatistics;
+import api.database.transactions.EntityChangeTracker;
+import api.database.transactions.ReadOnlyTransactionGuard;
 import api.database.updates.DatabaseUpdater;
 import api.settings.PropertiesCollection;
 import com.google.common.base.Charsets;
+import com.google.common.eventbus.EventBus;
 import com.mysql.jdbc.Driver;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.service.ServiceRegistryBuilder;
-import org.hibernate.service.jdbc.connections.internal.C3P0ConnectionProvider;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
 
 import javax.inject.Inject;
 import java.util.Set;
@@ -50,8 +55,9 @@ final class MySQLDatabaseManager extends AbstractDatabaseManager {
     private final SessionFactory sessionFactory;
 
     @Inject
-    MySQLDatabaseManager(final Configuration configuration, final PropertiesCollection properties, final Set<DatabaseUpdater> updaters) {
-        super(configuration, updaters);
+    MySQLDatabaseManager(final Configuration configuration, final PropertiesCollection properties, final Set<DatabaseUpdater> updaters,
+                         final EventBus eventBus) {
+        super(configuration, updaters, SchemaValidation.fromProperty(properties.get(DB_SCHEMA_VALIDATION)));
 
         String dbHost = properties.get(DB_HOST);
         String dbName = properties.get(DB_NAME);
@@ -66,8 +72,8 @@ final class MySQLDatabaseManager extends AbstractDatabaseManager {
 
         configuration.setProperty("hibernate.current_session_context_class", "thread");
         configuration.setProperty("hibernate.flushMode", "COMMIT");
-        configuration.setProperty("hibernate.jdbc_batch_size", String.valueOf(15));
-        configuration.setProperty("hibernate.connection.provider_class", C3P0ConnectionProvider.class.getName());
+        configuration.setProperty("hibernate.jdbc.batch_size", String.valueOf(15));
+        configuration.setProperty("hibernate.connection.provider_class", InstrumentedConnectionProvider.class.getName());
         configuration.setProperty("hibernate.c3p0.timeout", String.valueOf(60));
         configuration.setProperty("hibernate.connection.username", dbUsername);
         configuration.setProperty("hibernate.connection.password", dbPassword);
@@ -76,10 +82,25 @@ final class MySQLDatabaseManager extends AbstractDatabaseManager {
         configuration.setProperty("hibernate.connection.charSet", Charsets.UTF_8.name());
         configuration.setProperty("hibernate.dialect", Mysql5CustomDialect.class.getName());
         configuration.setProperty("hibernate.connection.driver_class", Driver.class.getName());
-        configuration.setProperty("hibernate.connection.url", "jdbc:mysql://" + dbHost + '/' + dbName + "?createDatabaseIfNotExist=true&transformedBitIsBoolean=true");
+        configuration.setProperty("hibernate.connection.url", createUrl(dbHost, dbName));
+
+        SqlStatistics.configure(properties.getInteger(DB_SLOW_QUERY_MILLIS), properties.getInteger(DB_STATEMENT_BUDGET));
+
+        QueryPlanAdvisor queryPlanAdvisor = null;
+        if (properties.getBoolean(DB_EXPLAIN_QUERIES)) {
+            queryPlanAdvisor = new QueryPlanAdvisor();
+            configuration.setInterceptor(queryPlanAdvisor);
+        }
 
         ServiceRegistry serviceRegistry = new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry();
         sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+        ReadOnlyTransactionGuard.install(sessionFactory, properties.getBoolean(DB_CHECK_READ_ONLY_CHANGES));
+        EntityChangeTracker.install(sessionFactory, eventBus);
+        if (queryPlanAdvisor != null) queryPlanAdvisor.explainWith(serviceRegistry.getService(ConnectionProvider.class));
+    }
+
+    static String createUrl(final String dbHost, final String dbName) {
+        return "jdbc:mysql://" + dbHost + '/' + dbName + "?createDatabaseIfNotExist=true&transformedBitIsBoolean=true";
     }
 
     @Override
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package internal.database;
+
+import api.database.migration.DatabaseMigration;
+import api.database.migration.MigrationReport;
+import com.google.common.base.Charsets;
+import com.mysql.jdbc.Driver;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Copies everything in the database the bot is currently using to a MySQL database, so that the bot can be switched over to it.
+ * The bot keeps using the current database meanwhile, so it's best done when it's quiet. Running it again copies anything
+ * that was added since the last run, or finishes a run that was interrupted.
+ */
+@Log4j
+@Singleton
+public class MySQLMigrator {
+    private static final int BATCH_SIZE = 500;
+
+    private final Provider<Configuration> configurationProvider;
+    private final Provider<SessionFactory> sessionFactoryProvider;
+
+    @Inject
+    public MySQLMigrator(final Provider<Configuration> configurationProvider, final Provider<SessionFactory> sessionFactoryProvider) {
+        this.configurationProvider = configurationProvider;
+        this.sessionFactoryProvider = sessionFactoryProvider;
+    }
+
+    /**
+     * @param host             the MySQL host
+     * @param name             the name of the database, which is created if it doesn't exist
+     * @param username         the username
+     * @param password         the password
+     * @param progressListener gets told about each table before it's copied
+     * @return the row counts of the tables in both databases
+     * @throws SQLException if the migration fails, in which case it may be started again to continue where it stopped
+     */
+    public synchronized MigrationReport migrate(final String host, final String name, final String username, final String password,
+                                                final DatabaseMigration.ProgressListener progressListener) throws SQLException {
+        try {
+            Class.forName(Driver.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Couldn't find database drivers");
+        }
+        Configuration configuration = configurationProvider.get();
+        configuration.setProperty("hibernate.dialect", Mysql5CustomDialect.class.getName());
+        DatabaseMigration migration = new DatabaseMigration(configuration, BATCH_SIZE);
+
+        Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("user", username);
+        connectionProperties.setProperty("password", password);
+        connectionProperties.setProperty("useUnicode", "true");
+        connectionProperties.setProperty("characterEncoding", Charsets.UTF_8.name());
+
+        ConnectionProvider connectionProvider = ((SessionFactoryImplementor) sessionFactoryProvider.get()).getServiceRegistry()
+                                                                                                        .getService(ConnectionProvider.class);
+        Connection source = connectionProvider.getConnection();
+        try (Connection target = DriverManager.getConnection(MySQLDatabaseManager.createUrl(host, name), connectionProperties)) {
+            MigrationReport report = migration.migrate(source, target, progressListener);
+            MySQLMigrator.log.info("Migration to MySQL done. " + report);
+            return report;
+        } finally {
+            connectionProvider.closeConnection(source);
+        }
+    }
+}
@@ -48,6 +48,8 @@ final class TransactionInterceptor implements MethodInterceptor {
         Transactional transactional = invocation.getMethod().getAnnotation(Transactional.class);
         TransactionManager transactionManager = transactionManagerProvider.get();
         transactionManager.setOnlyFlushOnCommit(transactional.flushOnlyOnCommit());
+        transactionManager.setReadOnly(transactional.readOnly());
+        transactionManager.setTag(invocation.getMethod().getDeclaringClass().getSimpleName() + '.' + invocation.getMethod().getName());
         transactionManager.beginTransaction();
         try {
             return invocation.proceed();
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package internal.events;
+
+import api.metrics.Counter;
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
+import com.google.common.eventbus.EventBus;
+
+import javax.inject.Inject;
+
+/**
+ * An event bus that counts the posted events and measures how long it takes to deliver them. Events posted from a listener
+ * are delivered once the outer post is done with its listeners, so their time is part of the outer post.
+ */
+public final class InstrumentedEventBus extends EventBus {
+    private final Counter eventsPosted;
+    private final Histogram deliveryDuration;
+
+    @Inject
+    public InstrumentedEventBus(final MetricsRegistry metricsRegistry) {
+        this.eventsPosted = metricsRegistry.counter("events.posted");
+        this.deliveryDuration = metricsRegistry.histogram("events.delivery.duration");
+    }
+
+    @Override
+    public void post(final Object event) {
+        long start = System.nanoTime();
+        try {
+            super.post(event);
+        } finally {
+            eventsPosted.increment();
+            deliveryDuration.recordMicrosSince(start);
+        }
+    }
+}
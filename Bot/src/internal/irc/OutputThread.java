@@ -30,6 +30,7 @@ package internal.irc;
 import api.irc.BotIRCInstance;
 import api.irc.OutputQueue;
 import api.irc.communication.IRCOutput;
+import api.metrics.Counter;
 import api.runtime.ThreadingManager;
 import internal.irc.delays.DelayHandler;
 
@@ -45,13 +46,16 @@ public final class OutputThread extends Thread {
     private final BlockingQueue<IRCOutput> outputs;
     private final int maxLineLength;
     private final DelayHandler delayHandler;
+    private final Counter linesSent;
 
     private final AtomicBoolean die = new AtomicBoolean();
     private Future<?> instanceSpecific;
     private Future<?> main;
 
-    public OutputThread(final String botNick, final BufferedWriter writer, final int maxLineLength, final DelayHandler delayHandler) {
+    public OutputThread(final String botNick, final BufferedWriter writer, final int maxLineLength, final DelayHandler delayHandler,
+                        final Counter linesSent) {
         this.writer = writer;
+        this.linesSent = linesSent;
         this.maxLineLength = maxLineLength;
         this.delayHandler = delayHandler;
         setName(botNick + "-OutputThread");
@@ -109,6 +113,7 @@ public final class OutputThread extends Thread {
             writer.write(line + "\r\n");
             writer.flush();
         }
+        linesSent.increment();
     }
 
     private static class MainQueueMonitor implements Runnable {
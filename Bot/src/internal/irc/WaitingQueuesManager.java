@@ -31,10 +31,7 @@ import api.irc.communication.IRCOutput;
 import api.irc.entities.IRCEntity;
 
 import javax.annotation.ParametersAreNonnullByDefault;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.*;
 
 @ParametersAreNonnullByDefault
 public final class WaitingQueuesManager {
@@ -60,6 +57,22 @@ public final class WaitingQueuesManager {
         if (!waitingQueues.containsKey(entity)) waitingQueues.put(entity, new PriorityQueue<IRCOutput>());
     }
 
+    public int size() {
+        int size = 0;
+        for (Collection<IRCOutput> queue : waitingQueues.values()) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public List<IRCOutput> getAll() {
+        List<IRCOutput> all = new ArrayList<>();
+        for (Collection<IRCOutput> queue : waitingQueues.values()) {
+            all.addAll(queue);
+        }
+        return all;
+    }
+
     public void clearQueues() {
         for (Collection<IRCOutput> queue : waitingQueues.values()) {
             queue.clear();
@@ -30,6 +30,7 @@ package internal.main;
 import api.database.models.BotInstanceSettings;
 import api.irc.BotIRCInstance;
 import api.irc.OutputQueue;
+import api.metrics.MetricsRegistry;
 import api.runtime.ThreadingManager;
 import api.settings.PropertiesCollection;
 import com.google.common.eventbus.EventBus;
@@ -55,6 +56,7 @@ public class BotIRCInstanceFactory {
     private final OutputQueue outputQueue;
     private final DelayHandler delayHandler;
     private final ReconnectScheduler reconnectScheduler;
+    private final MetricsRegistry metricsRegistry;
 
     @Inject
     public BotIRCInstanceFactory(final Injector injector) {
@@ -66,6 +68,7 @@ public class BotIRCInstanceFactory {
         this.serverCommandCommunication = injector.getInstance(ServerCommandCommunication.class);
         this.eventBus = injector.getInstance(EventBus.class);
         this.outputQueue = injector.getInstance(OutputQueue.class);
+        this.metricsRegistry = injector.getInstance(MetricsRegistry.class);
         DelayStrategy delayStrategy = DelayStrategy.fromNameOrId(propertiesCollection.get(IRC_DELAY_STRATEGY));
         this.delayHandler = injector.getInstance(delayStrategy.getClazz());
     }
@@ -73,7 +76,7 @@ public class BotIRCInstanceFactory {
     public BotIRCInstance create(final BotInstanceSettings settings) {
         BotIRCInstance instance = new BotIRCInstance(serverErrorCommunication, serverCodedCommunication, serverCommandCommunication,
                 eventBus, outputQueue, threadingManager, propertiesCollection, delayHandler,
-                reconnectScheduler);
+                reconnectScheduler, metricsRegistry);
         instance.setSettings(settings);
         eventBus.register(instance);
         return instance;
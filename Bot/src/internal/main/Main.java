@@ -29,6 +29,7 @@ package internal.main;
 
 import api.database.DatabaseManager;
 import api.database.DatabaseState;
+import api.database.maintenance.MaintenanceScheduler;
 import api.database.daos.BotInstanceSettingsDAO;
 import api.database.models.BotInstanceSettings;
 import api.events.DirectoryChangeEventObserver;
@@ -36,7 +37,9 @@ import api.events.FileSystemWatcher;
 import api.events.bot.StartupEvent;
 import api.irc.BotIRCInstance;
 import api.irc.OutputQueue;
+import api.irc.snapshot.RuntimeSnapshotManager;
 import api.runtime.ServiceLocator;
+import api.runtime.StartupReport;
 import api.runtime.ThreadingManager;
 import api.settings.BasicSetup;
 import api.settings.PluginServiceLoader;
@@ -44,22 +47,26 @@ import api.settings.PropertiesCollection;
 import api.settings.PropertiesConfig;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.*;
+import com.google.inject.multibindings.Multibinder;
+import internal.events.InstrumentedEventBus;
 import internal.web.JettyServer;
 import lombok.extern.log4j.Log4j;
 import spi.events.EventListener;
 import spi.runtime.RequiresShutdown;
+import spi.runtime.StartupTask;
 import spi.web.WebService;
 
+import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.net.URI;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static api.settings.PropertiesConfig.AUTO_CONNECT_STARTUP;
 import static api.settings.PropertiesConfig.TRAY_TOOL_TIP;
@@ -72,15 +79,22 @@ public final class Main {
     public static final String INSTALLATION_MODE = "lucidbot.installationMode";
     public static final long STARTUP_TIME = System.currentTimeMillis();
 
+    private static final long DATABASE_BUDGET_MILLIS = 5000;
+    private static final long INJECTOR_BUDGET_MILLIS = 5000;
+    private static final long IRC_CONNECT_BUDGET_MILLIS = 30_000;
+
     private final Set<BotIRCInstance> botIRCInstances = new HashSet<>();
     private Injector injector;
     private BotTrayControl trayControl;
-    private volatile boolean isFirstConnect = true;
+    private boolean isFirstConnect = true;
+    private volatile StartupReport startupReport;
 
     Main() {
     }
 
     private void start() {
+        long startNanos = System.nanoTime();
+        StartupSequence startupSequence = new StartupSequence(startNanos);
         trayControl = new BotTrayControl(this);
 
         injector = Guice.createInjector(new StartupModule(), new BasicsModule());
@@ -111,33 +125,111 @@ public final class Main {
                 break;
         }
         if (databaseState == DatabaseState.CONNECTED_FULLY) {
+            startupSequence.recordPhase(StartupReport.DATABASE, DATABASE_BUDGET_MILLIS, startNanos);
+            long injectorStart = System.nanoTime();
             cleanupTempInjector(injector);
             injector = Guice.createInjector(new StartupModule(), new BasicsModule(), new MainModule(this));
-            //Register file monitoring
-            FileSystemWatcher fileSystemWatcher = injector.getInstance(FileSystemWatcher.class);
-            Set<DirectoryChangeEventObserver> dirObservers = injector
-                    .getInstance(Key.get(new TypeLiteral<Set<DirectoryChangeEventObserver>>() {
-                    }));
-            for (DirectoryChangeEventObserver dirObserver : dirObservers) {
-                fileSystemWatcher.registerForDirectoryMonitoring(dirObserver);
-            }
-            //Start web server
-            JettyServer jettyServer = injector.getInstance(JettyServer.class);
-            ThreadingManager threadingManager = injector.getInstance(ThreadingManager.class);
-            threadingManager.submitInfiniteTask(jettyServer);
-            Set<WebService> webServices = injector.getInstance(Key.get(new TypeLiteral<Set<WebService>>() {
-            }));
-            for (WebService webService : webServices) {
-                if (webService.isEnabled()) webService.start();
-            }
-            addBrowseOptionToTray();
+            startupSequence.recordPhase(StartupReport.INJECTOR, INJECTOR_BUDGET_MILLIS, injectorStart);
 
-            loadBotInstances();
-            //Connect to IRC if we're supposed to do that on startup
+            addBrowseOptionToTray();
             PropertiesCollection propertiesCollection = injector.getInstance(PropertiesCollection.class);
             trayControl.setToolTip(propertiesCollection.get(TRAY_TOOL_TIP));
-            if (propertiesCollection.getBoolean(AUTO_CONNECT_STARTUP)) {
-                connectBots();
+
+            addStartupPhases(startupSequence, propertiesCollection.getBoolean(AUTO_CONNECT_STARTUP));
+            try {
+                startupReport = startupSequence.run();
+            } catch (InterruptedException e) {
+                Main.log.warn("Interrupted while starting up");
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Main.log.info(startupReport);
+            for (StartupReport.PhaseTiming phase : startupReport.getPhasesOverBudget()) {
+                Main.log.warn("Startup phase " + phase.getName() + " took " + phase.getDurationMillis() + " ms, but was expected to take at most " +
+                        phase.getBudgetMillis() + " ms");
+            }
+        }
+    }
+
+    /**
+     * Adds the built in phases and the plugins' tasks to the sequence. Everything here runs after the database has been checked and
+     * the injector created, and the phases that don't depend on each other run concurrently.
+     */
+    private void addStartupPhases(final StartupSequence startupSequence, final boolean connectToIrc) {
+        startupSequence.add(StartupSequence.task(StartupReport.FILE_WATCHERS, 1000, new Runnable() {
+            @Override
+            public void run() {
+                FileSystemWatcher fileSystemWatcher = injector.getInstance(FileSystemWatcher.class);
+                Set<DirectoryChangeEventObserver> dirObservers = injector
+                        .getInstance(Key.get(new TypeLiteral<Set<DirectoryChangeEventObserver>>() {
+                        }));
+                for (DirectoryChangeEventObserver dirObserver : dirObservers) {
+                    fileSystemWatcher.registerForDirectoryMonitoring(dirObserver);
+                }
+            }
+        }));
+        startupSequence.add(StartupSequence.task(StartupReport.WEB_SERVER, 5000, new Runnable() {
+            @Override
+            public void run() {
+                //Only returns once the server has started, or failed to, in which case it has already logged why
+                JettyServer jettyServer = injector.getInstance(JettyServer.class);
+                jettyServer.run();
+                if (!jettyServer.isStarted()) throw new IllegalStateException("The web server could not be started");
+            }
+        }));
+        startupSequence.add(StartupSequence.task(StartupReport.WEB_SERVICES, 2000, new Runnable() {
+            @Override
+            public void run() {
+                Set<WebService> webServices = injector.getInstance(Key.get(new TypeLiteral<Set<WebService>>() {
+                }));
+                for (WebService webService : webServices) {
+                    if (webService.isEnabled()) webService.start();
+                }
+            }
+        }, StartupReport.WEB_SERVER));
+        startupSequence.add(StartupSequence.task(StartupReport.MAINTENANCE, 500, new Runnable() {
+            @Override
+            public void run() {
+                injector.getInstance(MaintenanceScheduler.class).scheduleMaintenance();
+            }
+        }));
+        startupSequence.add(StartupSequence.task(StartupReport.RUNTIME_SNAPSHOT, 1000, new Runnable() {
+            @Override
+            public void run() {
+                injector.getInstance(RuntimeSnapshotManager.class).load();
+            }
+        }));
+        startupSequence.add(StartupSequence.task(StartupReport.BOT_INSTANCES, 1000, new Runnable() {
+            @Override
+            public void run() {
+                loadBotInstances();
+            }
+        }));
+        if (connectToIrc) {
+            //One phase per instance so that they connect concurrently. The instances themselves are created by the bot-instances phase
+            for (final BotInstanceSettings settings : injector.getInstance(BotInstanceSettingsDAO.class).getAll()) {
+                startupSequence.add(StartupSequence.task(StartupReport.IRC_CONNECT_PREFIX + settings.getNick(), IRC_CONNECT_BUDGET_MILLIS,
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                BotIRCInstance instance = getBotIRCInstance(settings.getNick());
+                                if (instance == null) throw new IllegalStateException("The bot instance was not loaded");
+                                try {
+                                    connectBot(instance);
+                                } catch (IOException e) {
+                                    throw new IllegalStateException("Could not connect", e);
+                                }
+                            }
+                        }, StartupReport.BOT_INSTANCES, StartupReport.RUNTIME_SNAPSHOT));
+            }
+        }
+        Set<StartupTask> startupTasks = injector.getInstance(Key.get(new TypeLiteral<Set<StartupTask>>() {
+        }));
+        for (StartupTask startupTask : startupTasks) {
+            try {
+                startupSequence.add(startupTask);
+            } catch (IllegalArgumentException e) {
+                Main.log.error("Could not add startup task", e);
             }
         }
     }
@@ -218,27 +310,58 @@ public final class Main {
         }
     }
 
-    public void botConnected() {
+    public synchronized void botConnected() {
         if (isFirstConnect) {
             registerListeners();
             isFirstConnect = false;
         }
     }
 
+    /**
+     * Connects all the bot instances to IRC at the same time, and waits for them to finish connecting
+     */
     public void connectBots() {
         if (isNotEmpty(botIRCInstances)) {
             disconnectBots();
+            ThreadingManager threadingManager = injector.getInstance(ThreadingManager.class);
+            List<Future<?>> connects = new ArrayList<>(botIRCInstances.size());
+            for (final BotIRCInstance instance : botIRCInstances) {
+                connects.add(threadingManager.submitInfiniteTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            connectBot(instance);
+                        } catch (Exception e) {
+                            Main.log.error("Could not connect " + instance.getNick(), e);
+                        }
+                    }
+                }));
+            }
             try {
-                for (BotIRCInstance instance : botIRCInstances) {
-                    instance.connect();
-                    botConnected();
+                for (Future<?> connect : connects) {
+                    connect.get();
                 }
-            } catch (Exception e) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
                 log.error("Could not connect", e);
             }
         }
     }
 
+    private void connectBot(final BotIRCInstance instance) throws IOException {
+        instance.connect();
+        botConnected();
+    }
+
+    @Nullable
+    private BotIRCInstance getBotIRCInstance(final String nick) {
+        for (BotIRCInstance instance : getBotIRCInstances()) {
+            if (instance.getNick().equals(nick)) return instance;
+        }
+        return null;
+    }
+
     public void disconnectBots() {
         if (isNotEmpty(botIRCInstances)) {
             for (BotIRCInstance instance : botIRCInstances) {
@@ -254,7 +377,17 @@ public final class Main {
         return Collections.unmodifiableSet(botIRCInstances);
     }
 
+    /**
+     * @return how long the last startup took, or null if it hasn't finished yet or the bot started in installation mode
+     */
+    @Nullable
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
     public void exit() {
+        //Has to be done while the bots are still connected
+        injector.getInstance(RuntimeSnapshotManager.class).save();
         disconnectBots();
         try {
             Thread.sleep(1000);
@@ -277,8 +410,9 @@ public final class Main {
         @Override
         protected void configure() {
             bind(Main.class).toInstance(main);
-            bind(EventBus.class).toInstance(new EventBus());
+            bind(EventBus.class).to(InstrumentedEventBus.class).in(Singleton.class);
             requestStaticInjection(ServiceLocator.class);
+            Multibinder.newSetBinder(binder(), StartupTask.class);
 
             //Install plugin modules
             PluginServiceLoader<AbstractModule> pluginModulesLoader = PluginServiceLoader
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package internal.main;
+
+import api.runtime.StartupReport;
+import api.runtime.StartupReport.PhaseStatus;
+import api.runtime.StartupReport.PhaseTiming;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j;
+import spi.runtime.StartupTask;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs the phases of the startup as a dependency graph. Every phase is started as soon as all the phases it depends on are done,
+ * so the ones that don't depend on each other run concurrently. Phases depending on one that failed, or on one that doesn't
+ * exist, are skipped.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+final class StartupSequence {
+    private final long startNanos;
+    private final Map<String, StartupTask> tasks = new LinkedHashMap<>();
+    private final Map<String, PhaseTiming> finished = new LinkedHashMap<>();
+
+    /**
+     * @param startNanos when the startup began, as given by {@link System#nanoTime()}
+     */
+    StartupSequence(final long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Adds a task to be run by {@link #run()}
+     *
+     * @param task the task
+     */
+    void add(final StartupTask task) {
+        checkArgument(!tasks.containsKey(task.getName()) && !finished.containsKey(task.getName()),
+                "There's already a startup phase called " + task.getName());
+        tasks.put(task.getName(), task);
+    }
+
+    /**
+     * Records a phase that was run outside of the sequence, ending now, so that the tasks may depend on it and it shows up in the report
+     *
+     * @param name         the name of the phase
+     * @param budgetMillis how long it was expected to take at most
+     * @param phaseStart   when it started, as given by {@link System#nanoTime()}
+     */
+    void recordPhase(final String name, final long budgetMillis, final long phaseStart) {
+        long now = System.nanoTime();
+        finished.put(name, new PhaseTiming(name, toMillis(phaseStart - startNanos), toMillis(now - phaseStart), budgetMillis,
+                PhaseStatus.DONE, null));
+    }
+
+    /**
+     * Runs all the tasks that have been added, and waits for them to finish
+     *
+     * @return the report for all the phases, including the recorded ones
+     * @throws InterruptedException if interrupted while waiting for the tasks. The tasks that are running at that point keep running
+     */
+    StartupReport run() throws InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("Startup-%d").setDaemon(true).build());
+        CompletionService<PhaseTiming> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            Map<String, StartupTask> waiting = new LinkedHashMap<>(tasks);
+            int running = 0;
+            while (true) {
+                running += startReadyTasks(waiting, completionService);
+                if (running == 0) break;
+                PhaseTiming timing = getUnchecked(completionService.take());
+                finished.put(timing.getName(), timing);
+                --running;
+            }
+            for (StartupTask task : waiting.values()) {
+                finished.put(task.getName(), skipped(task, "waits for itself through its dependencies"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return new StartupReport(toMillis(System.nanoTime() - startNanos), new ArrayList<>(finished.values()));
+    }
+
+    private int startReadyTasks(final Map<String, StartupTask> waiting, final CompletionService<PhaseTiming> completionService) {
+        int started = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<StartupTask> iter = waiting.values().iterator(); iter.hasNext(); ) {
+                final StartupTask task = iter.next();
+                String blockedBy = null;
+                boolean ready = true;
+                for (String dependency : task.getDependencies()) {
+                    PhaseTiming dependencyTiming = finished.get(dependency);
+                    if (dependencyTiming == null) {
+                        ready = false;
+                        if (!tasks.containsKey(dependency)) blockedBy = "depends on " + dependency + ", which doesn't exist";
+                    } else if (dependencyTiming.getStatus() != PhaseStatus.DONE) {
+                        ready = false;
+                        blockedBy = "depends on " + dependency + ", which was " + dependencyTiming.getStatus().name().toLowerCase();
+                    }
+                    if (blockedBy != null) break;
+                }
+                if (blockedBy != null) {
+                    iter.remove();
+                    finished.put(task.getName(), skipped(task, blockedBy));
+                    StartupSequence.log.warn("Skipped startup phase " + task.getName() + ", since it " + blockedBy);
+                    //Tasks depending on this one may already have been checked
+                    changed = true;
+                } else if (ready) {
+                    iter.remove();
+                    completionService.submit(new Callable<PhaseTiming>() {
+                        @Override
+                        public PhaseTiming call() {
+                            return runTask(task);
+                        }
+                    });
+                    ++started;
+                }
+            }
+        }
+        return started;
+    }
+
+    private PhaseTiming runTask(final StartupTask task) {
+        long taskStart = System.nanoTime();
+        PhaseStatus status = PhaseStatus.DONE;
+        String problem = null;
+        try {
+            task.run();
+        } catch (Exception e) {
+            StartupSequence.log.error("Startup phase " + task.getName() + " failed", e);
+            status = PhaseStatus.FAILED;
+            problem = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        }
+        return new PhaseTiming(task.getName(), toMillis(taskStart - startNanos), toMillis(System.nanoTime() - taskStart),
+                task.getBudgetMillis(), status, problem);
+    }
+
+    private static PhaseTiming skipped(final StartupTask task, final String reason) {
+        return new PhaseTiming(task.getName(), 0, 0, task.getBudgetMillis(), PhaseStatus.SKIPPED, reason);
+    }
+
+    private static PhaseTiming getUnchecked(final Future<PhaseTiming> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            //runTask catches everything the tasks throw, so this would have to be an Error
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Creates a simple task
+     *
+     * @param name         the name of the task
+     * @param budgetMillis how long it's expected to take at most
+     * @param runnable     what to do
+     * @param dependencies the phases it depends on
+     * @return the task
+     */
+    static StartupTask task(final String name, final long budgetMillis, final Runnable runnable, final String... dependencies) {
+        final Set<String> dependencySet = new HashSet<>(Arrays.asList(dependencies));
+        return new StartupTask() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Set<String> getDependencies() {
+                return dependencySet;
+            }
+
+            @Override
+            public long getBudgetMillis() {
+                return budgetMillis;
+            }
+
+            @Override
+            public void run() {
+                runnable.run();
+            }
+        };
+    }
+}
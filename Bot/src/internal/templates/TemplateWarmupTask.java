@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package internal.templates;
+
+import api.templates.TemplateManager;
+import api.tools.files.FileMatcher;
+import api.tools.files.FileUtil;
+import freemarker.template.Configuration;
+import lombok.extern.log4j.Log4j;
+import spi.runtime.StartupTask;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Parses all the templates at startup, so that the first command using each of them doesn't have to wait for it
+ */
+@Log4j
+final class TemplateWarmupTask implements StartupTask {
+    private static final Path TEMPLATES_DIR = Paths.get("templates");
+
+    private final Configuration configuration;
+
+    @Inject
+    TemplateWarmupTask(final Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public String getName() {
+        return "templates";
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public long getBudgetMillis() {
+        return 3000;
+    }
+
+    @Override
+    public void run() throws IOException {
+        FileUtil.BotFileVisitor visitor = FileUtil.visitDirectory(TEMPLATES_DIR, true,
+                FileMatcher.getFileEndingMatcher(TemplateManager.TEMPLATE_FILE_EXTENSION));
+        int failures = 0;
+        for (Path file : visitor.getFiles()) {
+            String templateName = TEMPLATES_DIR.relativize(file).toString().replace('\\', '/');
+            try {
+                configuration.getTemplate(templateName);
+            } catch (IOException e) {
+                //Most likely a syntax error, which the command using the template will report too
+                TemplateWarmupTask.log.warn("Could not parse template " + templateName + ": " + e.getMessage());
+                ++failures;
+            }
+        }
+        if (failures > 0) TemplateWarmupTask.log.warn(failures + " templates could not be parsed");
+    }
+}
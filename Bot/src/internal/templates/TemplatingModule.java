@@ -31,11 +31,13 @@ import api.templates.TemplateManager;
 import api.tools.text.StringUtil;
 import api.tools.time.DateFactory;
 import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
 import freemarker.ext.beans.BeansWrapper;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateHashModel;
 import freemarker.template.TemplateModelException;
 import lombok.extern.log4j.Log4j;
+import spi.runtime.StartupTask;
 
 import javax.inject.Singleton;
 import java.io.File;
@@ -48,6 +50,7 @@ public class TemplatingModule extends AbstractModule {
     protected void configure() {
         bind(Configuration.class).toInstance(configureTemplateConfiguration());
         bind(TemplateManager.class).to(TemplateManagerImpl.class).in(Singleton.class);
+        Multibinder.newSetBinder(binder(), StartupTask.class).addBinding().to(TemplateWarmupTask.class);
     }
 
     private Configuration configureTemplateConfiguration() {
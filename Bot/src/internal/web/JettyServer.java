@@ -135,6 +135,13 @@ public final class JettyServer implements Runnable, RequiresShutdown {
         }
     }
 
+    /**
+     * @return true if the server has started, which it hasn't if starting it failed
+     */
+    public boolean isStarted() {
+        return server.isStarted();
+    }
+
     @Override
     public Runnable getShutdownRunner() {
         return new Runnable() {
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package spi.runtime;
+
+import java.util.Set;
+
+/**
+ * Something that's done while the bot starts up, like warming up a cache. Startup tasks run concurrently with each other and
+ * with the built in startup phases, so they must not rely on anything but the phases they name as dependencies.
+ * <p/>
+ * The built in phases are named in {@link api.runtime.StartupReport}.
+ */
+public interface StartupTask {
+    /**
+     * @return a unique name for the task, which is what other tasks use to depend on it
+     */
+    String getName();
+
+    /**
+     * @return the names of the tasks and phases that have to finish successfully before this task is started
+     */
+    Set<String> getDependencies();
+
+    /**
+     * @return the amount of millis this task is expected to take at most. Tasks that take longer are pointed out in the
+     *         startup report
+     */
+    long getBudgetMillis();
+
+    /**
+     * Runs the task
+     *
+     * @throws Exception if it fails, which means the tasks depending on it are skipped
+     */
+    void run() throws Exception;
+}
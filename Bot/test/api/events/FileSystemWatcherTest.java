@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.events;
+
+import api.runtime.ThreadingManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static org.testng.Assert.*;
+
+@Test
+public class FileSystemWatcherTest {
+    private static final long QUIET_PERIOD_MILLIS = 300;
+
+    private Path directory;
+    private ThreadingManager threadingManager;
+    private FileSystemWatcher watcher;
+    private RecordingObserver observer;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("watched").toRealPath();
+        threadingManager = new ThreadingManager(1);
+        watcher = new FileSystemWatcher(threadingManager, QUIET_PERIOD_MILLIS);
+        watcher.init();
+        observer = new RecordingObserver(directory);
+        watcher.registerForDirectoryMonitoring(observer);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        watcher.getShutdownRunner().run();
+        threadingManager.getShutdownRunner().run();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    public void testBurstOfWritesIsOneBatch() throws Exception {
+        Path script = directory.resolve("script.js");
+        for (int i = 0; i < 10; ++i) {
+            Files.write(script, ("var version = " + i + ';').getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(20);
+        }
+
+        List<Map<Path, WatchEvent.Kind<?>>> batches = observer.awaitBatches();
+        assertEquals(batches.size(), 1, "Expected one batch but got " + batches);
+        assertEquals(batches.get(0).size(), 1);
+        assertEquals(batches.get(0).get(script), ENTRY_CREATE);
+    }
+
+    public void testFilesChangedTogetherAreOneBatch() throws Exception {
+        Path first = Files.write(directory.resolve("first.js"), new byte[]{1});
+        Path second = Files.write(directory.resolve("second.js"), new byte[]{1});
+        observer.awaitBatches();
+        observer.batches.clear();
+
+        Files.write(first, new byte[]{2});
+        Files.write(second, new byte[]{2});
+        Files.write(first, new byte[]{3});
+
+        List<Map<Path, WatchEvent.Kind<?>>> batches = observer.awaitBatches();
+        assertEquals(batches.size(), 1, "Expected one batch but got " + batches);
+        assertEquals(batches.get(0).get(first), ENTRY_MODIFY);
+        assertEquals(batches.get(0).get(second), ENTRY_MODIFY);
+    }
+
+    public void testFileCreatedAndRemovedIsNotAnnounced() throws Exception {
+        Path temp = Files.write(directory.resolve("temp.js~"), new byte[]{1});
+        Files.delete(temp);
+
+        Thread.sleep(QUIET_PERIOD_MILLIS * 4);
+        assertTrue(observer.batches.isEmpty(), "Expected no batches but got " + observer.batches);
+    }
+
+    public void testCoalesce() {
+        assertEquals(FileSystemWatcher.coalesce(null, ENTRY_MODIFY), ENTRY_MODIFY);
+        assertEquals(FileSystemWatcher.coalesce(ENTRY_CREATE, ENTRY_MODIFY), ENTRY_CREATE);
+        assertEquals(FileSystemWatcher.coalesce(ENTRY_MODIFY, ENTRY_MODIFY), ENTRY_MODIFY);
+        assertEquals(FileSystemWatcher.coalesce(ENTRY_MODIFY, ENTRY_DELETE), ENTRY_DELETE);
+        assertEquals(FileSystemWatcher.coalesce(ENTRY_DELETE, ENTRY_CREATE), ENTRY_MODIFY);
+        assertNull(FileSystemWatcher.coalesce(ENTRY_CREATE, ENTRY_DELETE));
+    }
+
+    public void testPendingChangesWaitForQuietPeriod() {
+        FileSystemWatcher.PendingChanges pendingChanges = new FileSystemWatcher.PendingChanges(100);
+        Path file = directory.resolve("file");
+        assertEquals(pendingChanges.nanosUntilNextReady(0), -1);
+
+        pendingChanges.add(directory, file, ENTRY_MODIFY, 0);
+        pendingChanges.add(directory, file, ENTRY_MODIFY, 50);
+        assertEquals(pendingChanges.nanosUntilNextReady(60), 90);
+        assertTrue(pendingChanges.takeReady(140).isEmpty());
+
+        Map<Path, Map<Path, WatchEvent.Kind<?>>> ready = pendingChanges.takeReady(150);
+        assertEquals(ready.get(directory).get(file), ENTRY_MODIFY);
+        assertEquals(pendingChanges.nanosUntilNextReady(150), -1);
+    }
+
+    public void testBusyFileHoldsBackOthersForALimitedTime() {
+        FileSystemWatcher.PendingChanges pendingChanges = new FileSystemWatcher.PendingChanges(100);
+        Path quiet = directory.resolve("quiet");
+        Path busy = directory.resolve("busy");
+        pendingChanges.add(directory, quiet, ENTRY_MODIFY, 0);
+        for (long time = 0; time <= 990; time += 10) {
+            pendingChanges.add(directory, busy, ENTRY_MODIFY, time);
+            assertTrue(pendingChanges.takeReady(time).isEmpty());
+        }
+
+        Map<Path, Map<Path, WatchEvent.Kind<?>>> ready = pendingChanges.takeReady(1000);
+        assertEquals(ready.get(directory).keySet(), Collections.singleton(quiet));
+        assertEquals(pendingChanges.nanosUntilNextReady(1000), 90);
+    }
+
+    private static class RecordingObserver implements DirectoryChangeEventObserver {
+        private final Path directory;
+        private final List<Map<Path, WatchEvent.Kind<?>>> batches = new CopyOnWriteArrayList<>();
+
+        private RecordingObserver(final Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void handleUpdatedDirectory(final Map<Path, WatchEvent.Kind<?>> files) {
+            batches.add(files);
+        }
+
+        @Override
+        public Path getDirectoryOfInterest() {
+            return directory;
+        }
+
+        /**
+         * Waits for the first batch, and then for long enough that any further batches for the same changes would have arrived
+         */
+        private List<Map<Path, WatchEvent.Kind<?>>> awaitBatches() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (batches.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertFalse(batches.isEmpty(), "No changes were announced");
+            Thread.sleep(QUIET_PERIOD_MILLIS * 3);
+            return batches;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.irc.snapshot;
+
+import api.irc.IRCEntityManager;
+import api.irc.OutputQueue;
+import api.irc.communication.IRCMessageFactory;
+import api.irc.communication.IRCMessageType;
+import api.irc.snapshot.RuntimeSnapshot.AuthenticatedUser;
+import api.irc.snapshot.RuntimeSnapshot.PendingMessage;
+import api.metrics.MetricsRegistry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.inject.Provider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test
+public class RuntimeSnapshotTest {
+    private static final int USERS = 20_000;
+    private static final int MESSAGES = 50_000;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws IOException {
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    public void testLargeSnapshotRoundTrips() throws IOException {
+        RuntimeSnapshot snapshot = createSnapshot(System.currentTimeMillis(), USERS, MESSAGES);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        long start = System.nanoTime();
+        RuntimeSnapshot restored = RuntimeSnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        long readMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(restored.getTakenAt(), snapshot.getTakenAt());
+        assertEquals(restored.getUsers().size(), USERS);
+        for (int i = 0; i < USERS; ++i) {
+            AuthenticatedUser expected = snapshot.getUsers().get(i);
+            AuthenticatedUser actual = restored.getUsers().get(i);
+            assertEquals(actual.getNick(), expected.getNick());
+            assertEquals(actual.getMainNick(), expected.getMainNick());
+            assertEquals(actual.isAdmin(), expected.isAdmin());
+            assertEquals(actual.getChannels(), expected.getChannels());
+        }
+        assertEquals(restored.getMessages().size(), MESSAGES);
+        for (int i = 0; i < MESSAGES; ++i) {
+            PendingMessage expected = snapshot.getMessages().get(i);
+            PendingMessage actual = restored.getMessages().get(i);
+            assertEquals(actual.getType(), expected.getType());
+            assertEquals(actual.getTarget(), expected.getTarget());
+            assertEquals(actual.getPriority(), expected.getPriority());
+            assertEquals(actual.getMessage(), expected.getMessage());
+        }
+        //Generous, it's usually a fraction of this
+        assertTrue(readMillis < 2000, "Reading the snapshot took " + readMillis + " ms");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOtherFilesAreRefused() throws IOException {
+        RuntimeSnapshot.readFrom(new ByteArrayInputStream("Not a snapshot at all".getBytes()));
+    }
+
+    public void testAuthenticationIsOnlyRestoredInTheSameChannelOnce() throws IOException {
+        Path file = directory.resolve("runtime.snapshot");
+        write(createSnapshot(System.currentTimeMillis(), 10, 0), file);
+        RuntimeSnapshotManager manager = createManager(file);
+
+        manager.load();
+
+        assertFalse(Files.exists(file), "The snapshot should only be used once");
+        assertNull(manager.claimAuthentication("User3", "#elsewhere"));
+        AuthenticatedUser user = manager.claimAuthentication("user3", "#Channel3");
+        assertNotNull(user);
+        assertEquals(user.getMainNick(), "Main3");
+        assertNull(manager.claimAuthentication("User3", "#channel3"));
+        assertNull(manager.claimAuthentication("Stranger", "#channel3"));
+    }
+
+    public void testOldSnapshotIsIgnored() throws IOException {
+        Path file = directory.resolve("runtime.snapshot");
+        write(createSnapshot(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10), 10, 0), file);
+        RuntimeSnapshotManager manager = createManager(file);
+
+        manager.load();
+
+        assertFalse(Files.exists(file));
+        assertNull(manager.claimAuthentication("User3", "#channel3"));
+    }
+
+    private static RuntimeSnapshot createSnapshot(final long takenAt, final int userCount, final int messageCount) {
+        Random random = new Random(42);
+        List<AuthenticatedUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; ++i) {
+            Set<String> channels = new HashSet<>();
+            channels.add("#channel" + i % 50);
+            for (int j = random.nextInt(4); j > 0; --j) {
+                channels.add("#channel" + random.nextInt(50));
+            }
+            users.add(new AuthenticatedUser("User" + i, "Main" + i, i % 10 == 0, channels));
+        }
+        List<PendingMessage> messages = new ArrayList<>(messageCount);
+        IRCMessageType[] types = IRCMessageType.values();
+        for (int i = 0; i < messageCount; ++i) {
+            messages.add(new PendingMessage(types[i % types.length], i % 2 == 0 ? "#channel" + i % 50 : "User" + i, 1 + random.nextInt(100),
+                    "Message number " + i + " with some unicode åäö and \u0002formatting\u0002"));
+        }
+        return new RuntimeSnapshot(takenAt, users, messages);
+    }
+
+    private static void write(final RuntimeSnapshot snapshot, final Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            snapshot.writeTo(out);
+        }
+    }
+
+    private static RuntimeSnapshotManager createManager(final Path file) {
+        return new RuntimeSnapshotManager(file, TimeUnit.MINUTES.toMillis(2), new Provider<IRCEntityManager>() {
+            @Override
+            public IRCEntityManager get() {
+                throw new UnsupportedOperationException();
+            }
+        }, new Provider<OutputQueue>() {
+            @Override
+            public OutputQueue get() {
+                throw new UnsupportedOperationException();
+            }
+        }, new Provider<IRCMessageFactory>() {
+            @Override
+            public IRCMessageFactory get() {
+                throw new UnsupportedOperationException();
+            }
+        }, new MetricsRegistry());
+    }
+}
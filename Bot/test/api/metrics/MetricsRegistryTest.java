@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package api.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test
+public class MetricsRegistryTest {
+    public void testMetricsAreCreatedOnceAndListedByName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("b.counter").increment();
+        registry.counter("b.counter").add(2);
+        registry.counter("a.counter").increment();
+        registry.registerGauge("queue", new Gauge() {
+            @Override
+            public long getValue() {
+                return 7;
+            }
+        });
+
+        assertSame(registry.counter("b.counter"), registry.counter("b.counter"));
+        assertSame(registry.histogram("h"), registry.histogram("h"));
+        assertEquals(registry.getCounters().keySet().toArray(), new String[]{"a.counter", "b.counter"});
+        assertEquals(registry.getCounters().get("b.counter").longValue(), 3);
+        assertEquals(registry.getGauges().get("queue").longValue(), 7);
+        assertTrue(registry.getGauges().containsKey("jvm.memory.usedMB"));
+    }
+
+    public void testBucketsHoldTheirValuesWithinThreePercent() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            assertBucketHolds(value);
+        }
+        for (long value = Long.MAX_VALUE; value > 0; value /= 3) {
+            assertBucketHolds(value);
+        }
+    }
+
+    private static void assertBucketHolds(final long value) {
+        int index = Histogram.bucketIndex(value);
+        long highest = Histogram.highestValueInBucket(index);
+        assertTrue(highest >= value, value + " is above its bucket " + highest);
+        assertTrue(highest - value <= value / 32, value + " is too far from its bucket " + highest);
+        if (index > 0) assertTrue(Histogram.highestValueInBucket(index - 1) < value, value + " also fits the bucket before");
+    }
+
+    public void testPercentiles() {
+        Histogram histogram = new MetricsRegistry().histogram("h");
+        for (int i = 1; i <= 100_000; ++i) {
+            histogram.record(i);
+        }
+
+        Histogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(snapshot.getCount(), 100_000);
+        assertEquals(snapshot.getMax(), 100_000);
+        assertEquals(snapshot.getMean(), 50_000.5, 0.001);
+        assertEquals(snapshot.getValueAtPercentile(50), 50_000, 50_000 / 32);
+        assertEquals(snapshot.getValueAtPercentile(99), 99_000, 99_000 / 32);
+        assertEquals(snapshot.getValueAtPercentile(100), 100_000);
+        assertEquals(new MetricsRegistry().histogram("empty").getSnapshot().getValueAtPercentile(99), 0);
+    }
+
+    public void testResetKeepsTheMetrics() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("c");
+        Histogram histogram = registry.histogram("h");
+        counter.increment();
+        histogram.record(1000);
+
+        registry.reset();
+
+        assertEquals(counter.getCount(), 0);
+        assertEquals(histogram.getSnapshot().getCount(), 0);
+        assertEquals(histogram.getSnapshot().getMax(), 0);
+        counter.increment();
+        assertEquals(registry.getCounters().get("c").longValue(), 1);
+    }
+
+    public void testRecordingTakesLessThanAMicrosecond() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("c");
+        Histogram histogram = registry.histogram("h");
+        int events = 2_000_000;
+        //Warm up, so that the recording code is compiled before it's timed
+        record(counter, histogram, events);
+
+        long start = System.nanoTime();
+        record(counter, histogram, events);
+        long nanosPerEvent = (System.nanoTime() - start) / events;
+
+        assertEquals(counter.getCount(), 2L * events);
+        assertTrue(nanosPerEvent < TimeUnit.MICROSECONDS.toNanos(1), "Recording took " + nanosPerEvent + " ns per event");
+    }
+
+    private static void record(final Counter counter, final Histogram histogram, final int events) {
+        for (int i = 0; i < events; ++i) {
+            counter.increment();
+            histogram.record(i & 0xFFFFF);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.maintenance;
+
+import api.database.maintenance.H2Maintenance;
+import api.database.transactions.TransactionManager;
+import org.h2.Driver;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.hibernate.service.internal.StandardServiceRegistryImpl;
+import org.hibernate.service.jdbc.connections.internal.C3P0ConnectionProvider;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.testng.Assert.*;
+
+@Test
+public class H2MaintenanceTest {
+    private Path directory;
+    private String url;
+    private ServiceRegistry serviceRegistry;
+    private ConnectionProvider connectionProvider;
+    private H2Maintenance maintenance;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("h2maintenance");
+        url = "jdbc:h2:" + directory.resolve("test") + ";MVCC=TRUE;MAX_COMPACT_TIME=5000;TRACE_LEVEL_FILE=0";
+        serviceRegistry = new ServiceRegistryBuilder()
+                .applySetting("hibernate.connection.provider_class", C3P0ConnectionProvider.class.getName())
+                .applySetting("hibernate.connection.driver_class", Driver.class.getName())
+                .applySetting("hibernate.connection.url", url)
+                .applySetting("hibernate.connection.username", "sa")
+                .applySetting("hibernate.connection.password", "")
+                .buildServiceRegistry();
+        connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+        maintenance = new H2Maintenance(connectionProvider, directory.resolve("test.h2.db"), directory.resolve("backups"), "test-");
+        execute("CREATE TABLE news(id BIGINT AUTO_INCREMENT PRIMARY KEY, item VARCHAR(1000))",
+                "INSERT INTO news(item) SELECT SPACE(900) FROM SYSTEM_RANGE(1, 20000)");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        ((StandardServiceRegistryImpl) serviceRegistry).destroy();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        deleteRecursively(directory);
+    }
+
+    public void testBackupsAreRotated() throws Exception {
+        Path first = maintenance.backup(2);
+        Thread.sleep(5);
+        Path second = maintenance.backup(2);
+        Thread.sleep(5);
+        Path third = maintenance.backup(2);
+
+        List<Path> backups = maintenance.getBackups();
+        assertEquals(backups.size(), 2);
+        assertFalse(Files.exists(first));
+        assertEquals(backups.get(0), second);
+        assertEquals(backups.get(1), third);
+        assertTrue(Files.size(third) > 0);
+    }
+
+    public void testIntegrityCheckFindsNoProblemsInHealthyDatabase() throws Exception {
+        assertTrue(maintenance.checkIntegrity().isEmpty());
+    }
+
+    public void testCompactionShrinksFileAndReopensDatabase() throws Exception {
+        execute("DELETE FROM news WHERE id > 100", "CHECKPOINT SYNC");
+        long sizeBefore = maintenance.getDatabaseFileSize();
+
+        assertTrue(maintenance.compact(5, TimeUnit.SECONDS));
+
+        assertTrue(maintenance.getDatabaseFileSize() < sizeBefore,
+                "Expected the file to shrink from " + sizeBefore + " but it's " + maintenance.getDatabaseFileSize());
+        //Pooled connections must work again after the database was closed
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(countNews(), 100);
+        }
+    }
+
+    public void testCompactionGivesUpIfTransactionsCantBePaused() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            //Someone else holding the gate looks the same as transactions that don't finish in time
+            Future<Boolean> paused = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    boolean paused = TransactionManager.pauseTransactions(1, TimeUnit.SECONDS);
+                    release.await();
+                    if (paused) TransactionManager.resumeTransactions();
+                    return paused;
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(maintenance.compact(100, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(paused.get());
+            assertEquals(countNews(), 20000);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private long countNews() throws SQLException {
+        Connection connection = connectionProvider.getConnection();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM news")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            connectionProvider.closeConnection(connection);
+        }
+    }
+
+    private void execute(final String... sqls) throws SQLException {
+        Connection connection = connectionProvider.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+            if (!connection.getAutoCommit()) connection.commit();
+        } finally {
+            connectionProvider.closeConnection(connection);
+        }
+    }
+
+    private static void deleteRecursively(final Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
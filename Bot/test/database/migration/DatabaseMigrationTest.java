@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.migration;
+
+import api.database.migration.DatabaseMigration;
+import api.database.migration.MigrationReport;
+import api.database.models.*;
+import com.google.common.collect.Lists;
+import org.h2.Driver;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.*;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+@Test
+public class DatabaseMigrationTest {
+    private static final String SOURCE_URL = "jdbc:h2:mem:migration_source;DB_CLOSE_DELAY=-1";
+    private static final String TARGET_URL = "jdbc:h2:mem:migration_target;DB_CLOSE_DELAY=-1";
+    private static final int USERS = 120;
+
+    private SessionFactory sourceSessionFactory;
+    private Connection source;
+    private Connection target;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        Configuration configuration = createConfiguration();
+        configuration.setProperty("hibernate.connection.driver_class", Driver.class.getName());
+        configuration.setProperty("hibernate.connection.url", SOURCE_URL);
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create");
+        sourceSessionFactory = configuration
+                .buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+        source = DriverManager.getConnection(SOURCE_URL);
+        target = DriverManager.getConnection(TARGET_URL);
+        execute(source, "CREATE TABLE versions(artifact VARCHAR(30) NOT NULL, db_version BIGINT NOT NULL DEFAULT 1, " +
+                "CONSTRAINT pk_versions PRIMARY KEY (artifact))", "INSERT INTO versions VALUES ('Bot', 12)");
+        addUsers(0, USERS);
+
+        Session session = sourceSessionFactory.openSession();
+        session.beginTransaction();
+        List<Channel> channels = Lists.newArrayList(new Channel("#main", ChannelType.PUBLIC), new Channel("#admin", ChannelType.ADMIN));
+        for (Channel channel : channels) {
+            session.save(channel);
+        }
+        session.save(new BotInstanceSettings("Bot", "secret", channels));
+        session.getTransaction().commit();
+        session.close();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        execute(source, "DROP ALL OBJECTS");
+        execute(target, "DROP ALL OBJECTS");
+        source.close();
+        target.close();
+        sourceSessionFactory.close();
+    }
+
+    private static Configuration createConfiguration() {
+        Configuration configuration = new Configuration();
+        for (Class<?> mapped : new Class<?>[]{Alias.class, BotInstanceSettings.class, BotInstanceSettingsChannel.class, BotUser.class,
+                Channel.class, CommandDefinition.class, ContactInformation.class, Nickname.class, UserStatistic.class}) {
+            configuration.addAnnotatedClass(mapped);
+        }
+        configuration.setProperty("hibernate.dialect", H2Dialect.class.getName());
+        return configuration;
+    }
+
+    private void addUsers(final int from, final int to) {
+        Session session = sourceSessionFactory.openSession();
+        session.beginTransaction();
+        for (int i = from; i < to; ++i) {
+            BotUser user = new BotUser("User" + i, false, false);
+            user.getNickList().add(new Nickname("Alt" + i, user));
+            user.incrementStat("Hits", i);
+            session.save(user);
+        }
+        session.getTransaction().commit();
+        session.close();
+    }
+
+    public void testReferencedTablesComeFirst() {
+        List<String> tables = new DatabaseMigration(createConfiguration(), 10).getTablesInMigrationOrder();
+
+        assertTrue(tables.indexOf("bot_user") < tables.indexOf("nickname"));
+        assertTrue(tables.indexOf("bot_user") < tables.indexOf("user_statistic"));
+        assertTrue(tables.indexOf("bot_instance_settings") < tables.indexOf("botinstancesettings_channel"));
+        assertTrue(tables.indexOf("channel") < tables.indexOf("botinstancesettings_channel"));
+    }
+
+    public void testMigrateCopiesEverything() throws Exception {
+        MigrationReport report = new DatabaseMigration(createConfiguration(), 7).migrate(source, target);
+
+        assertTrue(report.isVerified(), report.toString());
+        assertEquals(report.getTargetCount("bot_user"), USERS);
+        assertEquals(report.getTargetCount("nickname"), USERS * 2);
+        assertEquals(report.getTargetCount("botinstancesettings_channel"), 2);
+        assertEquals(report.getTargetCount("versions"), 1);
+        assertEquals(query(target, "SELECT main_nick FROM bot_user WHERE id = " + query(source,
+                "SELECT id FROM bot_user WHERE main_nick = 'User42'")), "User42");
+
+        //The identity columns have to continue after the copied ids
+        execute(target, "INSERT INTO bot_user(main_nick, is_admin, is_owner, timezone, dst) VALUES ('New', FALSE, FALSE, '0', 0)");
+        assertEquals(query(target, "SELECT COUNT(*) FROM bot_user"), (long) USERS + 1);
+    }
+
+    public void testMigrateResumesAfterInterruption() throws Exception {
+        DatabaseMigration migration = new DatabaseMigration(createConfiguration(), 7);
+        migration.migrate(source, target);
+        //Looks like it stopped half way through the nicknames, before the channels of the bot instance
+        execute(target, "DELETE FROM user_statistic", "DELETE FROM botinstancesettings_channel",
+                "DELETE FROM nickname WHERE id > (SELECT MIN(id) + 50 FROM nickname)");
+        addUsers(USERS, USERS + 10);
+
+        MigrationReport report = migration.migrate(source, target);
+
+        assertTrue(report.isVerified(), report.toString());
+        assertEquals(report.getTargetCount("bot_user"), USERS + 10);
+        assertEquals(report.getTargetCount("nickname"), (USERS + 10) * 2);
+        assertEquals(report.getTargetCount("botinstancesettings_channel"), 2);
+    }
+
+    private static Object query(final Connection connection, final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getObject(1);
+        }
+    }
+
+    private static void execute(final Connection connection, final String... sqls) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+        if (!connection.getAutoCommit()) connection.commit();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.statistics;
+
+import api.database.statistics.SqlStatistics;
+import api.database.statistics.TagStatistics;
+import internal.database.InstrumentedConnectionProvider;
+import org.h2.Driver;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.hibernate.service.internal.StandardServiceRegistryImpl;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.testng.Assert.*;
+
+@Test
+public class SqlStatisticsTest {
+    private ServiceRegistry serviceRegistry;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeMethod
+    public void setUp() {
+        serviceRegistry = new ServiceRegistryBuilder()
+                .applySetting("hibernate.connection.provider_class", InstrumentedConnectionProvider.class.getName())
+                .applySetting("hibernate.connection.driver_class", Driver.class.getName())
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:sqlstatistics;DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.connection.username", "sa")
+                .applySetting("hibernate.connection.password", "")
+                .buildServiceRegistry();
+        connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+        SqlStatistics.reset();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        SqlStatistics.configure(250, 40);
+        SqlStatistics.reset();
+        ((StandardServiceRegistryImpl) serviceRegistry).destroy();
+    }
+
+    public void testStatementsAreCountedForTheThreadTag() throws SQLException {
+        String previous = SqlStatistics.tag("!kd");
+        try {
+            runTransaction("Default", 3);
+        } finally {
+            SqlStatistics.tag(previous);
+        }
+
+        TagStatistics statistics = find("!kd");
+        assertNotNull(statistics);
+        assertEquals(statistics.getTransactions(), 1);
+        assertEquals(statistics.getStatements(), 3);
+        assertEquals(statistics.getMaxStatementsPerTransaction(), 3);
+        assertEquals(statistics.getBudgetOverruns(), 0);
+        assertNull(find("Default"));
+    }
+
+    public void testDefaultTagIsUsedForUntaggedThreads() throws SQLException {
+        runTransaction("KingdomResource.getKingdom", 1);
+
+        TagStatistics statistics = find("KingdomResource.getKingdom");
+        assertNotNull(statistics);
+        assertEquals(statistics.getStatements(), 1);
+    }
+
+    public void testBudgetOverrunsAndSlowStatementsAreCounted() throws SQLException {
+        SqlStatistics.configure(0, 2);
+        runTransaction("Chatty", 3);
+        runTransaction("Chatty", 2);
+
+        TagStatistics statistics = find("Chatty");
+        assertNotNull(statistics);
+        assertEquals(statistics.getTransactions(), 2);
+        assertEquals(statistics.getStatements(), 5);
+        assertEquals(statistics.getBudgetOverruns(), 1);
+        assertEquals(statistics.getSlowStatements(), 5);
+    }
+
+    private void runTransaction(final String defaultTag, final int statements) throws SQLException {
+        SqlStatistics.transactionStarted(defaultTag);
+        Connection connection = connectionProvider.getConnection();
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+            }
+            for (int i = 1; i < statements; ++i) {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+                    statement.setInt(1, i);
+                    statement.executeQuery().close();
+                }
+            }
+        } finally {
+            connectionProvider.closeConnection(connection);
+            SqlStatistics.transactionEnded();
+        }
+    }
+
+    private static TagStatistics find(final String tag) {
+        for (TagStatistics statistics : SqlStatistics.getStatistics()) {
+            if (statistics.getTag().equals(tag)) return statistics;
+        }
+        return null;
+    }
+}
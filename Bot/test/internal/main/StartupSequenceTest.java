@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package internal.main;
+
+import api.runtime.StartupReport;
+import api.runtime.StartupReport.PhaseStatus;
+import api.runtime.StartupReport.PhaseTiming;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test
+public class StartupSequenceTest {
+    public void testIndependentPhasesRunConcurrently() throws Exception {
+        //Each phase waits for the other one to start, which only works if they run at the same time
+        final CountDownLatch started = new CountDownLatch(2);
+        Runnable waitForTheOther = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    if (!started.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Ran one at a time");
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        StartupSequence sequence = new StartupSequence(System.nanoTime());
+        sequence.add(StartupSequence.task("first", 1000, waitForTheOther));
+        sequence.add(StartupSequence.task("second", 1000, waitForTheOther));
+
+        Map<String, PhaseTiming> phases = byName(sequence.run());
+
+        assertEquals(phases.get("first").getStatus(), PhaseStatus.DONE);
+        assertEquals(phases.get("second").getStatus(), PhaseStatus.DONE);
+    }
+
+    public void testPhasesWaitForTheirDependencies() throws Exception {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        StartupSequence sequence = new StartupSequence(System.nanoTime());
+        sequence.recordPhase("recorded", 1000, System.nanoTime());
+        sequence.add(StartupSequence.task("last", 1000, record(order, "last", 0), "middle", "recorded"));
+        sequence.add(StartupSequence.task("middle", 1000, record(order, "middle", 0), "first"));
+        sequence.add(StartupSequence.task("first", 1000, record(order, "first", 50)));
+
+        StartupReport report = sequence.run();
+
+        assertEquals(order, Arrays.asList("first", "middle", "last"));
+        assertEquals(report.getPhases().size(), 4);
+        for (PhaseTiming phase : report.getPhases()) {
+            assertEquals(phase.getStatus(), PhaseStatus.DONE);
+        }
+        Map<String, PhaseTiming> phases = byName(report);
+        assertTrue(phases.get("middle").getStartedAtMillis() >= phases.get("first").getStartedAtMillis() + 50);
+    }
+
+    public void testFailureSkipsDependentPhasesOnly() throws Exception {
+        StartupSequence sequence = new StartupSequence(System.nanoTime());
+        sequence.add(StartupSequence.task("broken", 1000, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("broken on purpose");
+            }
+        }));
+        sequence.add(StartupSequence.task("dependent", 1000, record(new ArrayList<String>(), "dependent", 0), "broken"));
+        sequence.add(StartupSequence.task("transitive", 1000, record(new ArrayList<String>(), "transitive", 0), "dependent"));
+        sequence.add(StartupSequence.task("independent", 1000, record(new ArrayList<String>(), "independent", 0)));
+        sequence.add(StartupSequence.task("missing", 1000, record(new ArrayList<String>(), "missing", 0), "nonexistent"));
+        sequence.add(StartupSequence.task("cycle1", 1000, record(new ArrayList<String>(), "cycle1", 0), "cycle2"));
+        sequence.add(StartupSequence.task("cycle2", 1000, record(new ArrayList<String>(), "cycle2", 0), "cycle1"));
+
+        Map<String, PhaseTiming> phases = byName(sequence.run());
+
+        assertEquals(phases.get("broken").getStatus(), PhaseStatus.FAILED);
+        assertEquals(phases.get("broken").getProblem(), "broken on purpose");
+        assertEquals(phases.get("dependent").getStatus(), PhaseStatus.SKIPPED);
+        assertEquals(phases.get("transitive").getStatus(), PhaseStatus.SKIPPED);
+        assertEquals(phases.get("independent").getStatus(), PhaseStatus.DONE);
+        assertEquals(phases.get("missing").getStatus(), PhaseStatus.SKIPPED);
+        assertEquals(phases.get("cycle1").getStatus(), PhaseStatus.SKIPPED);
+        assertEquals(phases.get("cycle2").getStatus(), PhaseStatus.SKIPPED);
+    }
+
+    public void testSlowPhasesAreReportedAsOverBudget() throws Exception {
+        StartupSequence sequence = new StartupSequence(System.nanoTime());
+        sequence.add(StartupSequence.task("slow", 10, record(new ArrayList<String>(), "slow", 50)));
+        sequence.add(StartupSequence.task("fast", 10000, record(new ArrayList<String>(), "fast", 0)));
+
+        StartupReport report = sequence.run();
+
+        assertEquals(report.getPhasesOverBudget().size(), 1);
+        assertEquals(report.getPhasesOverBudget().get(0).getName(), "slow");
+        assertEquals(report.getSlowestPhase().getName(), "slow");
+        assertTrue(report.toString().contains("OVER BUDGET"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateNamesAreRejected() {
+        StartupSequence sequence = new StartupSequence(System.nanoTime());
+        sequence.add(StartupSequence.task("phase", 1000, record(new ArrayList<String>(), "phase", 0)));
+        sequence.add(StartupSequence.task("phase", 1000, record(new ArrayList<String>(), "phase", 0)));
+    }
+
+    private static Runnable record(final List<String> order, final String name, final long sleepMillis) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                order.add(name);
+            }
+        };
+    }
+
+    private static Map<String, PhaseTiming> byName(final StartupReport report) {
+        Map<String, PhaseTiming> out = new HashMap<>();
+        for (PhaseTiming phase : report.getPhases()) {
+            out.put(phase.getName(), phase);
+        }
+        return out;
+    }
+}
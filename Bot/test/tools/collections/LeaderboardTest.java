@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.collections;
+
+import api.database.UserStatisticsLeaderboards;
+import api.database.models.BotUser;
+import api.database.models.UserStatistic;
+import api.tools.collections.Leaderboard;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+@Test
+public class LeaderboardTest {
+    public void testMatchesFullRecomputation() {
+        Random random = new Random(1234);
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        Map<String, Integer> scores = new HashMap<>();
+
+        for (int i = 0; i < 5000; ++i) {
+            String key = "user" + random.nextInt(300);
+            int op = random.nextInt(10);
+            if (op == 0) {
+                Assert.assertEquals(leaderboard.remove(key), scores.remove(key) != null);
+            } else if (op < 4) {
+                int score = random.nextInt(200) - 20;
+                leaderboard.set(key, score);
+                scores.put(key, score);
+            } else {
+                int increment = random.nextInt(10);
+                Integer current = scores.get(key);
+                scores.put(key, (current == null ? 0 : current) + increment);
+                Assert.assertEquals(leaderboard.increment(key, increment), (int) scores.get(key));
+            }
+
+            if (i % 250 == 0) assertSameAsRecomputed(leaderboard, scores);
+        }
+        assertSameAsRecomputed(leaderboard, scores);
+    }
+
+    public void testTopAndRank() {
+        Leaderboard<String> leaderboard = new Leaderboard<>();
+        leaderboard.set("b", 5);
+        leaderboard.set("a", 5);
+        leaderboard.set("c", 10);
+        leaderboard.set("d", 1);
+
+        List<Leaderboard.Entry<String>> top = leaderboard.getTop(2);
+        Assert.assertEquals(top.size(), 2);
+        Assert.assertEquals(top.get(0).getKey(), "c");
+        Assert.assertEquals(top.get(1).getKey(), "a");
+        Assert.assertEquals(leaderboard.getRank("b"), 3);
+        Assert.assertEquals(leaderboard.getRank("d"), 4);
+        Assert.assertEquals(leaderboard.getRank("e"), -1);
+        Assert.assertNull(leaderboard.getScore("e"));
+        Assert.assertEquals(leaderboard.getTop(10).size(), 4);
+
+        leaderboard.clear();
+        Assert.assertTrue(leaderboard.isEmpty());
+        Assert.assertTrue(leaderboard.getTop(3).isEmpty());
+    }
+
+    public void testUserStatisticsLeaderboards() {
+        Random random = new Random(4321);
+        String[] types = {"SoT", "Survey", "Rob the Granaries damage"};
+        List<BotUser> users = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            BotUser user = new BotUser("nick" + i, false, false);
+            for (String type : types) {
+                if (random.nextBoolean()) user.incrementStat(type, random.nextInt(100));
+            }
+            users.add(user);
+        }
+
+        UserStatisticsLeaderboards leaderboards = new UserStatisticsLeaderboards(null);
+        leaderboards.rebuild(users);
+
+        for (int i = 0; i < 500; ++i) {
+            BotUser user = users.get(random.nextInt(users.size()));
+            UserStatistic statistic = user.incrementStat(types[random.nextInt(types.length)], random.nextInt(20));
+            leaderboards.statisticChanged(user.getMainNick(), statistic.getType(), statistic.getAmount());
+        }
+
+        for (String type : types) {
+            List<Map.Entry<String, Integer>> expected = new ArrayList<>();
+            for (BotUser user : users) {
+                for (UserStatistic statistic : user.getStats()) {
+                    if (statistic.getType().equals(type))
+                        expected.add(new AbstractMap.SimpleEntry<>(user.getMainNick(), statistic.getAmount()));
+                }
+            }
+            Collections.sort(expected, new ScoreComparator());
+
+            List<Leaderboard.Entry<String>> actual = leaderboards.getTop(type.toUpperCase(), expected.size() + 10);
+            Assert.assertEquals(actual.size(), expected.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                Assert.assertEquals(actual.get(i).getKey(), expected.get(i).getKey());
+                Assert.assertEquals(actual.get(i).getScore(), (int) expected.get(i).getValue());
+                Assert.assertEquals(leaderboards.getRank(type, expected.get(i).getKey()), i + 1);
+            }
+        }
+        Assert.assertEquals(leaderboards.getTypes(), new TreeSet<>(Arrays.asList(types)));
+    }
+
+    private static void assertSameAsRecomputed(final Leaderboard<String> leaderboard, final Map<String, Integer> scores) {
+        List<Map.Entry<String, Integer>> expected = new ArrayList<>(scores.entrySet());
+        Collections.sort(expected, new ScoreComparator());
+
+        List<Leaderboard.Entry<String>> actual = leaderboard.getAll();
+        Assert.assertEquals(actual.size(), expected.size());
+        Assert.assertEquals(leaderboard.size(), expected.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assert.assertEquals(actual.get(i).getKey(), expected.get(i).getKey());
+            Assert.assertEquals(actual.get(i).getScore(), (int) expected.get(i).getValue());
+            Assert.assertEquals(leaderboard.getRank(expected.get(i).getKey()), i + 1);
+        }
+    }
+
+    private static class ScoreComparator implements Comparator<Map.Entry<String, Integer>> {
+        @Override
+        public int compare(final Map.Entry<String, Integer> o1, final Map.Entry<String, Integer> o2) {
+            int scoreComp = Integer.compare(o2.getValue(), o1.getValue());
+            return scoreComp == 0 ? o1.getKey().compareTo(o2.getKey()) : scoreComp;
+        }
+    }
+}
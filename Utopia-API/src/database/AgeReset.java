@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import lombok.extern.log4j.Log4j;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Removes everything that's specific to an age, meaning the kingdoms and provinces along with everything that belongs to them
+ * (intel, armies, aid, spells, ops, attacks, targets etc.), and the user statistics.
+ * <p/>
+ * The tables are emptied one at a time with plain delete statements, in an order where the tables that reference others are
+ * emptied before the ones they reference, so nothing is loaded into memory and the database never has to cascade anything.
+ * The rows are deleted a chunk at a time, and each chunk is committed on its own, which keeps the locks short enough for the
+ * bot to keep running meanwhile. Since every chunk leaves the database in a consistent state, an interrupted reset can simply
+ * be started again to remove what's left.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+public class AgeReset {
+    private static final List<Step> STEPS = ImmutableList.of(
+            new TableStep("army"),
+            new TableStep("som"),
+            new TableStep("sos_entry"),
+            new TableStep("sos"),
+            new TableStep("sot"),
+            new TableStep("survey_entry"),
+            new TableStep("survey"),
+            new TableStep("aid"),
+            new TableStep("duration_spell"),
+            new TableStep("instant_spell"),
+            new TableStep("duration_op"),
+            new TableStep("instant_op"),
+            new TableStep("attack"),
+            new TableStep("check_in"),
+            new TableStep("user_spellop_target"),
+            new TableStep("target_hitter"),
+            new TargetStep(),
+            new TableStep("province"),
+            new TableStep("kingdom"),
+            new TableStep("user_statistic"));
+
+    private final int chunkSize;
+
+    /**
+     * @param chunkSize how many rows to delete and commit at a time
+     */
+    public AgeReset(final int chunkSize) {
+        checkArgument(chunkSize > 0, "The chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the names of the tables in the order they're emptied
+     */
+    public static List<String> getTablesInDeleteOrder() {
+        List<String> tables = new ArrayList<>();
+        for (Step step : STEPS) {
+            tables.add(step.table);
+        }
+        return tables;
+    }
+
+    /**
+     * Removes all the age specific data
+     *
+     * @param connection       the connection to use, which is committed after every chunk
+     * @param progressListener gets told about the progress after every chunk
+     * @return the amount of rows that were removed, not counting the bindings of the targets
+     * @throws SQLException if something goes wrong, in which case whatever was committed so far stays removed
+     */
+    public long reset(final Connection connection, final ProgressListener progressListener) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            long total = 0;
+            for (Step step : STEPS) {
+                total += count(connection, step.table);
+            }
+            connection.commit();
+
+            long removed = 0;
+            progressListener.onProgress(STEPS.get(0).table, removed, total);
+            for (Step step : STEPS) {
+                int removedInChunk;
+                do {
+                    removedInChunk = step.deleteChunk(connection, chunkSize);
+                    connection.commit();
+                    removed += removedInChunk;
+                    progressListener.onProgress(step.table, removed, total);
+                } while (removedInChunk > 0);
+                AgeReset.log.debug("Emptied " + step.table);
+            }
+            AgeReset.log.info("Removed " + removed + " rows of age specific data");
+            return removed;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static long count(final Connection connection, final String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Receives the progress of a reset
+     */
+    public interface ProgressListener {
+        /**
+         * @param table   the table that's currently being emptied
+         * @param removed the amount of rows removed so far
+         * @param total   the amount of rows there were to remove when the reset started. Rows added meanwhile are removed too,
+         *                so removed may end up higher than this
+         */
+        void onProgress(String table, long removed, long total);
+    }
+
+    private abstract static class Step {
+        protected final String table;
+
+        protected Step(final String table) {
+            this.table = table;
+        }
+
+        protected abstract int deleteChunk(Connection connection, int chunkSize) throws SQLException;
+    }
+
+    private static class TableStep extends Step {
+        private TableStep(final String table) {
+            super(table);
+        }
+
+        @Override
+        protected int deleteChunk(final Connection connection, final int chunkSize) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " LIMIT ?")) {
+                statement.setInt(1, chunkSize);
+                return statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Targets own their bindings, so the bindings are removed along with them
+     */
+    private static class TargetStep extends Step {
+        private static final List<String> BINDINGS_TABLES = ImmutableList.of("botuser_binding", "race_binding", "personality_binding");
+
+        private TargetStep() {
+            super("target");
+        }
+
+        @Override
+        protected int deleteChunk(final Connection connection, final int chunkSize) throws SQLException {
+            List<Long> targetIds = new ArrayList<>();
+            List<Long> bindingsIds = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT id, bindings_id FROM target LIMIT ?")) {
+                statement.setInt(1, chunkSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        targetIds.add(resultSet.getLong(1));
+                        long bindingsId = resultSet.getLong(2);
+                        if (!resultSet.wasNull()) bindingsIds.add(bindingsId);
+                    }
+                }
+            }
+            if (targetIds.isEmpty()) return 0;
+
+            int removed = deleteByIds(connection, "target", "id", targetIds);
+            if (!bindingsIds.isEmpty()) {
+                for (String bindingsTable : BINDINGS_TABLES) {
+                    deleteByIds(connection, bindingsTable, "bindings_id", bindingsIds);
+                }
+                deleteByIds(connection, "bindings", "id", bindingsIds);
+            }
+            return removed;
+        }
+
+        private static int deleteByIds(final Connection connection, final String table, final String column, final List<Long> ids)
+                throws SQLException {
+            String placeholders = Joiner.on(", ").join(Collections.nCopies(ids.size(), "?"));
+            try (PreparedStatement statement = connection
+                    .prepareStatement("DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders + ')')) {
+                for (int i = 0; i < ids.size(); ++i) {
+                    statement.setLong(i + 1, ids.get(i));
+                }
+                return statement.executeUpdate();
+            }
+        }
+    }
+}
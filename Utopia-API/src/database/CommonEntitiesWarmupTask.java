@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import spi.runtime.StartupTask;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Fills the {@link CommonEntitiesAccess} cache at startup, instead of when the first command or listener happens to need it
+ */
+public final class CommonEntitiesWarmupTask implements StartupTask {
+    private final Provider<CommonEntitiesAccess> commonEntitiesAccessProvider;
+
+    @Inject
+    public CommonEntitiesWarmupTask(final Provider<CommonEntitiesAccess> commonEntitiesAccessProvider) {
+        this.commonEntitiesAccessProvider = commonEntitiesAccessProvider;
+    }
+
+    @Override
+    public String getName() {
+        return "common-entities-cache";
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public long getBudgetMillis() {
+        return 3000;
+    }
+
+    @Override
+    public void run() {
+        //The cache is filled when it's created
+        commonEntitiesAccessProvider.get();
+    }
+}
@@ -28,14 +28,25 @@
 package database.daos;
 
 import api.database.AbstractDAO;
+import api.database.DBException;
 import api.database.transactions.Transactional;
 import com.google.inject.Provider;
 import database.models.ForumPost;
+import database.models.ForumThread;
+import org.hibernate.Criteria;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 @ParametersAreNonnullByDefault
 public class ForumPostDAO extends AbstractDAO<ForumPost> {
@@ -48,4 +59,58 @@ public class ForumPostDAO extends AbstractDAO<ForumPost> {
     public ForumPost getForumPost(long id) {
         return get(Restrictions.idEq(id));
     }
+
+    /**
+     * Returns a page of posts from the specified thread, in the order they were posted. The page starts right after the
+     * specified post, so the cost of reading a page doesn't depend on how far into the thread it is.
+     *
+     * @param thread the thread
+     * @param after  the last post of the previous page, or null to start from the first post of the thread
+     * @param limit  the max amount of posts to return
+     * @return the posts
+     */
+    @Transactional
+    public List<ForumPost> getPosts(final ForumThread thread, @Nullable final ForumPost after, final int limit) {
+        checkArgument(limit > 0, "The limit must be positive");
+        Criteria criteria = getSession().createCriteria(ForumPost.class).add(Restrictions.eq("thread", thread));
+        if (after != null) {
+            //The lower bound is kept outside of the or, otherwise the index can't be used
+            criteria.add(Restrictions.ge("posted", after.getPosted()))
+                    .add(Restrictions.or(Restrictions.gt("posted", after.getPosted()), Restrictions.gt("id", after.getId())));
+        }
+        criteria.addOrder(Order.asc("posted")).addOrder(Order.asc("id")).setMaxResults(limit);
+        return listAndCast(criteria);
+    }
+
+    @Override
+    @Transactional
+    public ForumPost save(final ForumPost object) {
+        boolean isNew = object.getId() == null;
+        ForumPost saved = super.save(object);
+        if (isNew) adjustPostCount(saved.getThread(), 1);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void delete(final Collection<ForumPost> objects) {
+        for (ForumPost post : objects) {
+            //Otherwise the post would be saved again by the cascade from the thread
+            List<ForumPost> threadPosts = post.getThread().getPosts();
+            if (Hibernate.isInitialized(threadPosts)) threadPosts.remove(post);
+        }
+        super.delete(objects);
+        for (ForumPost post : objects) {
+            adjustPostCount(post.getThread(), -1);
+        }
+    }
+
+    private void adjustPostCount(final ForumThread thread, final int change) {
+        try {
+            getSession().createQuery("update ForumThread set postCount = postCount + :change where id = :id")
+                    .setInteger("change", change).setLong("id", thread.getId()).executeUpdate();
+        } catch (HibernateException e) {
+            throw new DBException(e);
+        }
+    }
 }
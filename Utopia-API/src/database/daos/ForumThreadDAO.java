@@ -28,9 +28,11 @@
 package database.daos;
 
 import api.database.AbstractDAO;
+import api.database.DBException;
 import api.database.transactions.Transactional;
 import com.google.inject.Provider;
 import database.models.ForumThread;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
 
@@ -66,4 +68,18 @@ public class ForumThreadDAO extends AbstractDAO<ForumThread> {
     public ForumThread getForumThread(long id) {
         return get(Restrictions.idEq(id));
     }
+
+    /**
+     * Counts the posts of every thread again. Only needed when posts have been removed without going through ForumPostDAO,
+     * like when the database removes the posts of a user that's being deleted.
+     */
+    @Transactional
+    public void recountPosts() {
+        try {
+            getSession().createQuery("update ForumThread thread set thread.postCount = " +
+                    "(select count(post.id) from ForumPost post where post.thread.id = thread.id)").executeUpdate();
+        } catch (HibernateException e) {
+            throw new DBException(e);
+        }
+    }
 }
@@ -204,7 +204,7 @@ public class IntelDAO {
         delayedEventPoster.enqueue(intel.newSavedEvent());
         if (!intel.getKingdomLocation().equals(kingdomDAO.getSelfKD().getLocation())) {
             BotUser user = botUserDAO.getUser(userId);
-            user.incrementStat(intel.getIntelTypeName(), 1);
+            botUserDAO.incrementStat(user, intel.getIntelTypeName(), 1);
         }
         return true;
     }
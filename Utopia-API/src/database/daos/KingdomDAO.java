@@ -31,8 +31,13 @@ import api.database.AbstractDAO;
 import api.database.transactions.Transactional;
 import api.settings.PropertiesCollection;
 import com.google.inject.Provider;
+import database.models.FetchPlans;
 import database.models.Kingdom;
+import database.models.KingdomRow;
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import tools.UtopiaPropertiesConfig;
 
@@ -66,6 +71,18 @@ public class KingdomDAO extends AbstractDAO<Kingdom> {
         return getOrCreateKingdom(properties.get(UtopiaPropertiesConfig.INTRA_KD_LOC));
     }
 
+    /**
+     * Unlike {@link #getSelfKD()}, this doesn't create the kingdom if it doesn't exist, so it can be used in read only
+     * transactions
+     *
+     * @param fetchProfile the fetch profile to load the kingdom with, one of the ones in {@link FetchPlans}
+     * @return the own kingdom, or null if it hasn't been added yet
+     */
+    @Transactional
+    public Kingdom getSelfKD(final String fetchProfile) {
+        return getKingdom(properties.get(UtopiaPropertiesConfig.INTRA_KD_LOC), fetchProfile);
+    }
+
     @Transactional
     public Kingdom getKingdom(final long id) {
         return get(Restrictions.idEq(id));
@@ -81,6 +98,16 @@ public class KingdomDAO extends AbstractDAO<Kingdom> {
         return get(Restrictions.eq("location", location));
     }
 
+    /**
+     * @param location     the location of the kingdom
+     * @param fetchProfile the fetch profile to load the kingdom with, one of the ones in {@link FetchPlans}
+     * @return the kingdom, or null if there is none at that location
+     */
+    @Transactional
+    public Kingdom getKingdom(final String location, final String fetchProfile) {
+        return getWithFetchProfile(fetchProfile, Restrictions.eq("location", location));
+    }
+
     @Transactional
     public List<Kingdom> getKingdomsByNameOrComment(final String nameOrComment) {
         return find(Restrictions.or(Restrictions.like("name", '%' + nameOrComment + '%'),
@@ -92,6 +119,32 @@ public class KingdomDAO extends AbstractDAO<Kingdom> {
         return find();
     }
 
+    /**
+     * @return all kingdoms as rows, sorted by location
+     */
+    @Transactional
+    public List<KingdomRow> getAllKingdomRows() {
+        return listRows(KingdomRow.class, createRowCriteria());
+    }
+
+    /**
+     * @param nameOrComment the text to search for in the kingdom names and comments
+     * @return the matching kingdoms as rows, sorted by location
+     */
+    @Transactional
+    public List<KingdomRow> getKingdomRowsByNameOrComment(final String nameOrComment) {
+        return listRows(KingdomRow.class, createRowCriteria().add(
+                Restrictions.or(Restrictions.like("name", '%' + nameOrComment + '%'),
+                        Restrictions.like("kdComment", '%' + nameOrComment + '%'))));
+    }
+
+    private Criteria createRowCriteria() {
+        return getSession().createCriteria(Kingdom.class).setProjection(
+                Projections.projectionList().add(Projections.id()).add(Projections.property("location"))
+                           .add(Projections.property("name")).add(Projections.property("kdComment")))
+                           .addOrder(Order.asc("location"));
+    }
+
     @Transactional
     public int countNapsAddedAfter(final Date date) {
         return find(Restrictions.gt("napAdded", date)).size();
@@ -29,13 +29,16 @@ package database.daos;
 
 import api.database.AbstractDAO;
 import api.database.transactions.Transactional;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Provider;
 import database.models.NewsItem;
+import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
-import org.hibernate.criterion.LogicalExpression;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import tools.news.NewsSummaryAggregates;
 import tools.parsing.NonAttackNewsTypes;
 
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -47,9 +50,14 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 @ParametersAreNonnullByDefault
 public class NewsItemDAO extends AbstractDAO<NewsItem> {
+    private static final int MAX_HASHES_PER_QUERY = 500;
+
+    private final NewsSummaryAggregates summaryAggregates;
+
     @Inject
-    public NewsItemDAO(final Provider<Session> sessionProvider) {
+    public NewsItemDAO(final Provider<Session> sessionProvider, final NewsSummaryAggregates summaryAggregates) {
         super(NewsItem.class, sessionProvider);
+        this.summaryAggregates = summaryAggregates;
     }
 
     @Transactional
@@ -103,20 +111,21 @@ public class NewsItemDAO extends AbstractDAO<NewsItem> {
         List<Criterion> criteria = new ArrayList<>(2);
 
         if (start != null || startId != null) {
-            //Clarification: it either starts on a later date, or it starts on the same date but has a higher id
-            LogicalExpression or = Restrictions.or(Restrictions.gt("realDate", start), Restrictions
-                    .and(Restrictions.eq("realDate", start), Restrictions.gt("id", startId)));
+            //Clarification: it either starts on a later date, or it starts on the same date but has a higher id. The date range
+            //is kept outside of the or so that the real_date index can be used
+            Criterion and = Restrictions.and(Restrictions.ge("realDate", start),
+                    Restrictions.or(Restrictions.gt("realDate", start), Restrictions.gt("id", startId)));
             Criterion greaterThanStart = startId == null ? Restrictions.ge("realDate", start)
-                    : start == null ? Restrictions.gt("id", startId) : or;
+                    : start == null ? Restrictions.gt("id", startId) : and;
             criteria.add(greaterThanStart);
         }
 
         if (end != null || endId != null) {
             //Clarification: it either starts on an earlier date, or it starts on the same date but has a lower id
-            LogicalExpression or = Restrictions.or(Restrictions.lt("realDate", end), Restrictions
-                    .and(Restrictions.eq("realDate", end), Restrictions.lt("id", endId)));
+            Criterion and = Restrictions.and(Restrictions.le("realDate", end),
+                    Restrictions.or(Restrictions.lt("realDate", end), Restrictions.lt("id", endId)));
             Criterion lessThanEnd =
-                    endId == null ? Restrictions.le("realDate", end) : end == null ? Restrictions.lt("id", endId) : or;
+                    endId == null ? Restrictions.le("realDate", end) : end == null ? Restrictions.lt("id", endId) : and;
             criteria.add(lessThanEnd);
         }
         return criteria.isEmpty() ? find() : find(criteria.toArray());
@@ -127,38 +136,54 @@ public class NewsItemDAO extends AbstractDAO<NewsItem> {
         return getNewsBetween(start, null, end, null);
     }
 
+    /**
+     * Saves the news that haven't been saved already. Which ones that is is decided by the content hashes, so this only has to
+     * look up the hashes of the specified news instead of loading the news already saved for the same period.
+     *
+     * @param objects the news to save
+     * @return the news that were actually saved
+     */
     @Transactional
     @Override
     public Collection<NewsItem> save(final Collection<NewsItem> objects) {
         checkArgument(isNotEmpty(objects));
-        List<NewsItem> sorted = new LinkedList<>(objects);
+        List<NewsItem> sorted = new ArrayList<>(objects);
         Collections.sort(sorted);
 
-        NewsItem first = sorted.get(0);
-        NewsItem last = sorted.get(sorted.size() - 1);
-
-        Map<String, Integer> existing = new HashMap<>();
-        for (NewsItem item : getNewsBetween(first.getRealDate(), last.getRealDate())) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        Map<String, NewsItem> hashToItem = new LinkedHashMap<>();
+        for (NewsItem item : sorted) {
             String uniqueKey = item.getUniqueKey();
-            Integer currentAmount = existing.get(uniqueKey);
-            if (currentAmount == null) existing.put(uniqueKey, 1);
-            else existing.put(uniqueKey, currentAmount + 1);
+            Integer occurrence = occurrences.get(uniqueKey);
+            occurrence = occurrence == null ? 1 : occurrence + 1;
+            occurrences.put(uniqueKey, occurrence);
+            item.setContentHash(NewsItem.contentHash(uniqueKey, occurrence));
+            hashToItem.put(item.getContentHash(), item);
         }
 
-        for (Iterator<NewsItem> iter = sorted.iterator(); iter.hasNext(); ) {
-            NewsItem item = iter.next();
-            String key = item.getUniqueKey();
-            Integer alreadyExisting = existing.get(key);
-            if (alreadyExisting != null) {
-                --alreadyExisting;
-                if (alreadyExisting < 1)
-                    existing.remove(key);
-                else existing.put(key, alreadyExisting);
-                iter.remove();
-            }
+        hashToItem.keySet().removeAll(getExistingContentHashes(hashToItem.keySet()));
+
+        Collection<NewsItem> saved = super.save(new ArrayList<>(hashToItem.values()));
+        summaryAggregates.newsSaved(saved);
+        return saved;
+    }
+
+    private Set<String> getExistingContentHashes(final Collection<String> contentHashes) {
+        Set<String> existing = new HashSet<>();
+        for (List<String> hashes : Iterables.partition(contentHashes, MAX_HASHES_PER_QUERY)) {
+            Criteria criteria = getSession().createCriteria(NewsItem.class)
+                    .add(Restrictions.in("contentHash", hashes))
+                    .setProjection(Projections.property("contentHash"));
+            existing.addAll(listAndCast(String.class, criteria));
         }
+        return existing;
+    }
 
-        return super.save(sorted);
+    @Transactional
+    @Override
+    public void delete(final Collection<NewsItem> objects) {
+        super.delete(objects);
+        summaryAggregates.newsDeleted(objects);
     }
 
     @Transactional
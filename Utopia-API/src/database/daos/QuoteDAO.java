@@ -28,30 +28,54 @@
 package database.daos;
 
 import api.database.AbstractDAO;
+import api.database.DBException;
 import api.database.transactions.Transactional;
 import com.google.inject.Provider;
 import database.models.Quote;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.inject.Inject;
 import java.security.SecureRandom;
 import java.util.List;
+import java.util.Random;
 
 @ParametersAreNonnullByDefault
 public class QuoteDAO extends AbstractDAO<Quote> {
+    private static final Random RANDOM = new SecureRandom();
+
     @Inject
     public QuoteDAO(final Provider<Session> sessionProvider) {
         super(Quote.class, sessionProvider);
     }
 
+    /**
+     * Picks a random id between the lowest and highest quote id and returns the first quote from there, so only the primary key
+     * index is used no matter how many quotes there are. Quotes that come right after removed ones are a bit more likely to be
+     * picked as a result.
+     *
+     * @return a random quote, or null if there are no quotes
+     */
     @Transactional
     public Quote getRandomQuote() {
-        List<Quote> quotes = find();
-        if (quotes.isEmpty()) return null;
-        int randomNo = Math.abs(new SecureRandom().nextInt(quotes.size() - 1));
-        return quotes.toArray(new Quote[quotes.size()])[randomNo];
+        try {
+            Object[] idRange = (Object[]) getSession().createCriteria(Quote.class)
+                    .setProjection(Projections.projectionList().add(Projections.min("id")).add(Projections.max("id")))
+                    .uniqueResult();
+            if (idRange == null || idRange[0] == null) return null;
+
+            long minId = (Long) idRange[0];
+            long maxId = (Long) idRange[1];
+            long randomId = minId + (long) (RANDOM.nextDouble() * (maxId - minId + 1));
+            return (Quote) getSession().createCriteria(Quote.class).add(Restrictions.ge("id", randomId)).addOrder(Order.asc("id"))
+                    .setMaxResults(1).uniqueResult();
+        } catch (HibernateException e) {
+            throw new DBException(e);
+        }
     }
 
     @Transactional
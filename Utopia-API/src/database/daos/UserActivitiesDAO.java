@@ -32,7 +32,11 @@ import api.database.models.BotUser;
 import api.database.transactions.Transactional;
 import com.google.inject.Provider;
 import database.models.UserActivities;
+import database.models.UserActivitiesRow;
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -62,4 +66,16 @@ public class UserActivitiesDAO extends AbstractDAO<UserActivities> {
     public List<UserActivities> getAllUserActivities() {
         return find();
     }
+
+    /**
+     * @return the activities of all users as rows, with the most recently active users first
+     */
+    @Transactional
+    public List<UserActivitiesRow> getAllUserActivitiesRows() {
+        Criteria criteria = getSession().createCriteria(UserActivities.class).createAlias("user", "user").setProjection(
+                Projections.projectionList().add(Projections.id()).add(Projections.property("user.id"))
+                           .add(Projections.property("user.mainNick")).add(Projections.property("lastActivity"))
+                           .add(Projections.property("lastSeen"))).addOrder(Order.desc("lastActivity"));
+        return listRows(UserActivitiesRow.class, criteria);
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.export;
+
+import api.database.transactions.Transactional;
+import com.google.inject.Provider;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports data in bulk, like a whole age of news or attacks.
+ * <p/>
+ * The rows are read through a forward only cursor and written out one at a time, so the memory used stays the same no matter
+ * how many rows there are. Only plain values are selected, which means nothing is added to the session while exporting.
+ */
+@Log4j
+@ParametersAreNonnullByDefault
+public class DataExporter {
+    /**
+     * How many rows the JDBC driver is asked to fetch at a time. Not used for MySQL, which needs a special value to stream
+     */
+    static final int FETCH_SIZE = 1000;
+
+    private final Provider<Session> sessionProvider;
+
+    @Inject
+    public DataExporter(final Provider<Session> sessionProvider) {
+        this.sessionProvider = sessionProvider;
+    }
+
+    /**
+     * @param type     what to export
+     * @param format   the format to write it in
+     * @param criteria limits which rows are exported
+     * @param out      where to write it. Not flushed or closed
+     * @return the amount of rows written
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if a date range is specified for a type that can't be limited by date
+     */
+    @Transactional(readOnly = true)
+    public long export(final ExportType type, final ExportFormat format, final ExportCriteria criteria, final Writer out)
+            throws IOException {
+        if (criteria.hasDateRange() && !type.isDated())
+            throw new IllegalArgumentException(type.getFileName() + " can't be limited by date");
+
+        long start = System.nanoTime();
+        ExportFormat.RowWriter rowWriter = format.newRowWriter(out, type.getColumns());
+        long rows = 0;
+        ScrollableResults results = createQuery(type, criteria).scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                rowWriter.writeRow(results.get());
+                ++rows;
+            }
+        } finally {
+            results.close();
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        DataExporter.log.info("Exported " + rows + ' ' + type.getFileName() + " as " + format.getFileExtension() + " in " + millis + " ms");
+        return rows;
+    }
+
+    private Query createQuery(final ExportType type, final ExportCriteria criteria) {
+        List<String> conditions = new ArrayList<>();
+        if (criteria.getFrom() != null) conditions.add(type.getDateProperty() + " >= :from");
+        if (criteria.getTo() != null) conditions.add(type.getDateProperty() + " < :to");
+        if (criteria.getKingdom() != null) {
+            StringBuilder anyOf = new StringBuilder("(");
+            for (String condition : type.getKingdomConditions()) {
+                if (anyOf.length() > 1) anyOf.append(" or ");
+                anyOf.append(condition);
+            }
+            conditions.add(anyOf.append(')').toString());
+        }
+
+        StringBuilder hql = new StringBuilder(type.getSelect()).append(' ').append(type.getFrom());
+        for (int i = 0; i < conditions.size(); ++i) {
+            hql.append(i == 0 ? " where " : " and ").append(conditions.get(i));
+        }
+        hql.append(" order by ").append(type.getOrderBy());
+
+        Session session = sessionProvider.get();
+        //The MySQL driver only streams results with this specific fetch size, and otherwise reads them all into memory
+        int fetchSize = isMySQL(session) ? Integer.MIN_VALUE : FETCH_SIZE;
+        Query query = session.createQuery(hql.toString()).setReadOnly(true).setFetchSize(fetchSize).setCacheMode(CacheMode.IGNORE);
+        if (criteria.getFrom() != null) query.setTimestamp("from", criteria.getFrom());
+        if (criteria.getTo() != null) query.setTimestamp("to", criteria.getTo());
+        if (criteria.getKingdom() != null) query.setString("kingdom", criteria.getKingdom());
+        return query;
+    }
+
+    private static boolean isMySQL(final Session session) {
+        return session.doReturningWork(new ReturningWork<Boolean>() {
+            @Override
+            public Boolean execute(final Connection connection) throws SQLException {
+                return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+            }
+        });
+    }
+}
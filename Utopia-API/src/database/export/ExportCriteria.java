@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.export;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+
+/**
+ * Limits which rows are exported. Everything is optional
+ */
+public final class ExportCriteria {
+    private final Date from;
+    private final Date to;
+    private final String kingdom;
+
+    /**
+     * @param from    only rows from this date or later
+     * @param to      only rows from before this date
+     * @param kingdom only rows for the kingdom with this location, like (1:2)
+     */
+    public ExportCriteria(@Nullable final Date from, @Nullable final Date to, @Nullable final String kingdom) {
+        this.from = from == null ? null : new Date(from.getTime());
+        this.to = to == null ? null : new Date(to.getTime());
+        this.kingdom = kingdom;
+    }
+
+    /**
+     * @return criteria that export everything
+     */
+    public static ExportCriteria all() {
+        return new ExportCriteria(null, null, null);
+    }
+
+    @Nullable
+    public Date getFrom() {
+        return from == null ? null : new Date(from.getTime());
+    }
+
+    @Nullable
+    public Date getTo() {
+        return to == null ? null : new Date(to.getTime());
+    }
+
+    @Nullable
+    public String getKingdom() {
+        return kingdom;
+    }
+
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.export;
+
+import api.tools.time.DateFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The formats data can be exported in. Both are written one row at a time, so nothing has to be kept in memory.
+ */
+@ParametersAreNonnullByDefault
+public enum ExportFormat {
+    /**
+     * Comma separated values with a header row, quoted as in RFC 4180
+     */
+    CSV("csv", "text/csv") {
+        @Override
+        public RowWriter newRowWriter(final Writer out, final List<String> columns) throws IOException {
+            for (int i = 0; i < columns.size(); ++i) {
+                if (i > 0) out.write(',');
+                writeCsvValue(out, columns.get(i));
+            }
+            out.write("\r\n");
+            final DateFormat dateFormat = DateFactory.getISODateTimeWithTimeZoneFormat();
+            return new RowWriter() {
+                @Override
+                public void writeRow(final Object[] row) throws IOException {
+                    for (int i = 0; i < row.length; ++i) {
+                        if (i > 0) out.write(',');
+                        Object value = row[i];
+                        if (value == null) continue;
+                        if (value instanceof Number || value instanceof Boolean) out.write(value.toString());
+                        else writeCsvValue(out, value instanceof Date ? dateFormat.format((Date) value) : value.toString());
+                    }
+                    out.write("\r\n");
+                }
+            };
+        }
+    },
+    /**
+     * Newline delimited JSON, one object per row with the column names as keys
+     */
+    NDJSON("ndjson", "application/x-ndjson") {
+        @Override
+        public RowWriter newRowWriter(final Writer out, final List<String> columns) {
+            final String[] keys = new String[columns.size()];
+            for (int i = 0; i < keys.length; ++i) {
+                StringBuilder key = new StringBuilder(i == 0 ? "{" : ",");
+                appendJsonString(key, columns.get(i));
+                keys[i] = key.append(':').toString();
+            }
+            final DateFormat dateFormat = DateFactory.getISODateTimeWithTimeZoneFormat();
+            final StringBuilder line = new StringBuilder(256);
+            return new RowWriter() {
+                @Override
+                public void writeRow(final Object[] row) throws IOException {
+                    line.setLength(0);
+                    for (int i = 0; i < row.length; ++i) {
+                        line.append(keys[i]);
+                        Object value = row[i];
+                        if (value == null) line.append("null");
+                        else if (value instanceof Number || value instanceof Boolean) line.append(value);
+                        else appendJsonString(line, value instanceof Date ? dateFormat.format((Date) value) : value.toString());
+                    }
+                    out.append(line.append("}\n"));
+                }
+            };
+        }
+    };
+
+    private final String fileExtension;
+    private final String mediaType;
+
+    ExportFormat(final String fileExtension, final String mediaType) {
+        this.fileExtension = fileExtension;
+        this.mediaType = mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Writes whatever comes before the rows, and returns a writer for the rows
+     *
+     * @param out     where to write to
+     * @param columns the names of the columns
+     * @return a writer that writes the rows to out. Not thread safe
+     * @throws IOException if writing fails
+     */
+    public abstract RowWriter newRowWriter(Writer out, List<String> columns) throws IOException;
+
+    /**
+     * @param name the name or file extension of the format. "json" means {@link #NDJSON}
+     * @return the matching format, or null if there is none
+     */
+    @Nullable
+    public static ExportFormat fromName(final String name) {
+        if ("json".equalsIgnoreCase(name)) return NDJSON;
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        return null;
+    }
+
+    private static void writeCsvValue(final Writer out, final String value) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; ++i) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!needsQuotes) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void appendJsonString(final StringBuilder builder, final String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+                    else builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Writes the rows of one export
+     */
+    public interface RowWriter {
+        /**
+         * @param row the values, in the same order as the columns
+         * @throws IOException if writing fails
+         */
+        void writeRow(Object[] row) throws IOException;
+    }
+}
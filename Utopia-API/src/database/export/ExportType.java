@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.export;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The kinds of data that can be exported in bulk. Each one is a projection query, so rows are read as plain values and never
+ * become entities in the session.
+ */
+@ParametersAreNonnullByDefault
+public enum ExportType {
+    NEWS("n.realDate", null,
+            "from NewsItem n",
+            new String[]{"n.source like concat('%', :kingdom, '%')", "n.target like concat('%', :kingdom, '%')"},
+            "id", "n.id", "date", "n.realDate", "utoDate", "n.utoDate", "type", "n.newsType", "source", "n.source", "target", "n.target",
+            "value", "n.itemValue", "message", "n.originalMessage"),
+    ATTACKS("a.timeOfAttack", null,
+            "from Attack a join a.attacker attacker join attacker.kingdom attackerKd join a.target target join target.kingdom targetKd",
+            new String[]{"attackerKd.location = :kingdom", "targetKd.location = :kingdom"},
+            "id", "a.id", "date", "a.timeOfAttack", "attacker", "attacker.name", "attackerKingdom", "attackerKd.location",
+            "target", "target.name", "targetKingdom", "targetKd.location", "type", "a.type", "gain", "a.gain", "kills", "a.kills",
+            "offenseSent", "a.offenseSent", "gotPlagued", "a.gotPlagued", "spreadPlague", "a.spreadPlague"),
+    SOTS("s.lastUpdated", null,
+            "from SoT s join s.province p join p.kingdom k",
+            new String[]{"k.location = :kingdom"},
+            "id", "s.id", "date", "s.lastUpdated", "province", "p.name", "kingdom", "k.location", "land", "p.land",
+            "networth", "p.networth", "peasants", "s.peasants", "soldiers", "s.soldiers", "offSpecs", "s.offSpecs", "defSpecs",
+            "s.defSpecs", "elites", "s.elites", "warHorses", "s.warHorses", "prisoners", "s.prisoners", "modOffense", "s.modOffense",
+            "modDefense", "s.modDefense", "money", "s.money", "food", "s.food", "runes", "s.runes", "buildingEfficiency",
+            "s.buildingEfficiency", "tradeBalance", "s.tradeBalance", "plagued", "s.plagued", "overpopulated", "s.overpopulated",
+            "hitStatus", "s.hitStatus", "accuracy", "s.accuracy", "angelIntel", "s.isAngelIntel", "savedBy", "s.savedBy"),
+    /**
+     * Instant ops aren't timed, so these can't be limited by date
+     */
+    OPS(null, "o.id",
+            "from InstantOp o join o.province p join p.kingdom k join o.type t join o.committer u",
+            new String[]{"k.location = :kingdom"},
+            "id", "o.id", "province", "p.name", "kingdom", "k.location", "op", "t.name", "committer", "u.mainNick", "amount", "o.amount",
+            "damage", "o.damage"),
+    DURATION_OPS("o.expires", null,
+            "from DurationOp o join o.province p join p.kingdom k join o.type t left join o.committer u",
+            new String[]{"k.location = :kingdom"},
+            "id", "o.id", "expires", "o.expires", "province", "p.name", "kingdom", "k.location", "op", "t.name", "committer",
+            "u.mainNick");
+
+    private final String dateProperty;
+    private final String orderBy;
+    private final String from;
+    private final List<String> kingdomConditions;
+    private final List<String> columns;
+    private final String select;
+
+    /**
+     * @param dateProperty      the property the date range applies to and that the rows are ordered by, or null if there is none
+     * @param orderBy           what to order the rows by when there's no date property
+     * @param from              the from clause, including the joins
+     * @param kingdomConditions the conditions (any of which has to match) for limiting the rows to one kingdom
+     * @param columnsAndValues  the name of each column, followed by the property that's its value
+     */
+    ExportType(@Nullable final String dateProperty, @Nullable final String orderBy, final String from, final String[] kingdomConditions,
+               final String... columnsAndValues) {
+        this.dateProperty = dateProperty;
+        this.orderBy = dateProperty == null ? orderBy : dateProperty + ", " + columnsAndValues[1];
+        this.from = from;
+        this.kingdomConditions = Collections.unmodifiableList(Arrays.asList(kingdomConditions));
+        String[] columns = new String[columnsAndValues.length / 2];
+        StringBuilder select = new StringBuilder("select ");
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            columns[i / 2] = columnsAndValues[i];
+            if (i > 0) select.append(", ");
+            select.append(columnsAndValues[i + 1]);
+        }
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        this.select = select.toString();
+    }
+
+    /**
+     * @return the names of the columns, in the order the values are in each row
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public boolean isDated() {
+        return dateProperty != null;
+    }
+
+    /**
+     * @return a name that's suitable for file names and urls, like "duration-ops"
+     */
+    public String getFileName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    /**
+     * @param name the name, as returned by {@link #getFileName()} or as in the enum
+     * @return the matching type, or null if there is none
+     */
+    @Nullable
+    public static ExportType fromName(final String name) {
+        for (ExportType type : values()) {
+            if (type.getFileName().equalsIgnoreCase(name) || type.name().equalsIgnoreCase(name)) return type;
+        }
+        return null;
+    }
+
+    /**
+     * @return the names of all the types, separated with |, for use in regular expressions
+     */
+    public static String getRegexGroup() {
+        StringBuilder builder = new StringBuilder();
+        for (ExportType type : values()) {
+            if (builder.length() > 0) builder.append('|');
+            builder.append(type.getFileName());
+        }
+        return builder.toString();
+    }
+
+    String getSelect() {
+        return select;
+    }
+
+    String getFrom() {
+        return from;
+    }
+
+    @Nullable
+    String getDateProperty() {
+        return dateProperty;
+    }
+
+    String getOrderBy() {
+        return orderBy;
+    }
+
+    List<String> getKingdomConditions() {
+        return kingdomConditions;
+    }
+}
@@ -32,6 +32,7 @@ import api.filters.FilterEnabled;
 import api.tools.text.StringUtil;
 import filtering.filters.ExpiringFilter;
 import lombok.*;
+import org.hibernate.annotations.Index;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -41,6 +42,8 @@ import java.util.Date;
 
 @Entity
 @Table(name = "army", uniqueConstraints = @UniqueConstraint(columnNames = {"province_id", "army_number", "type"}))
+@org.hibernate.annotations.Table(appliesTo = "army",
+        indexes = @Index(name = "ix_army_type_returning_date", columnNames = {"type", "returning_date"}))
 @NoArgsConstructor
 @EqualsAndHashCode(of = {"province", "armyNumber", "type"})
 @Getter
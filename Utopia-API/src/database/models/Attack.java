@@ -31,6 +31,7 @@ import api.common.HasNumericId;
 import api.filters.FilterEnabled;
 import filtering.filters.AgeFilter;
 import lombok.*;
+import org.hibernate.annotations.Index;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -39,6 +40,9 @@ import java.util.Date;
 
 @Entity
 @Table(name = "attack")
+@org.hibernate.annotations.Table(appliesTo = "attack", indexes = {
+        @Index(name = "ix_attack_attacker_time", columnNames = {"attacker_id", "time_of_attack"}),
+        @Index(name = "ix_attack_target_time", columnNames = {"target_id", "time_of_attack"})})
 @NoArgsConstructor
 @EqualsAndHashCode(of = {"attacker", "timeOfAttack"})
 @Getter
@@ -33,6 +33,7 @@ import api.tools.numbers.CalculatorUtil;
 import api.tools.time.DateUtil;
 import api.tools.time.TimeUtil;
 import lombok.*;
+import org.hibernate.annotations.Index;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -64,6 +65,7 @@ public class DurationSpell implements SpellsOrOpsDurationInfo, HasNumericId {
 
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "expires", nullable = false)
+    @Index(name = "ix_duration_spell_expires")
     private Date expires;
 
     @ManyToOne(optional = false, fetch = FetchType.EAGER)
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.models;
+
+/**
+ * The names of the hibernate fetch profiles, one per use case that loads a larger graph of entities than the mappings fetch
+ * by default. The profiles themselves are declared on the entities they start from.
+ * <p/>
+ * Collections that aren't part of a profile are loaded in batches instead, so a command that goes through a whole kingdom
+ * doesn't send one select per province for each of them.
+ */
+public final class FetchPlans {
+    /**
+     * A kingdom with all of its provinces, for summaries of the whole kingdom and for commands that go through the intel of every
+     * province. The intel is left to the batches, since joining more than one collection would return each province once per
+     * row of the other collection
+     */
+    public static final String KINGDOM_OVERVIEW = "kingdom-overview";
+
+    /**
+     * The amount of collections that are loaded at a time when a lazy collection is first accessed. Matches the max size of
+     * a kingdom, so that going through one kingdom only ever takes one select per collection type.
+     */
+    public static final int BATCH_SIZE = 25;
+
+    private FetchPlans() {
+    }
+}
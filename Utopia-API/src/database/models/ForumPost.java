@@ -32,6 +32,7 @@ import api.database.models.BotUser;
 import api.filters.FilterEnabled;
 import filtering.filters.AgeFilter;
 import lombok.*;
+import org.hibernate.annotations.Index;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -40,6 +41,8 @@ import java.util.Date;
 
 @Entity
 @Table(name = "forum_post", uniqueConstraints = @UniqueConstraint(columnNames = {"bot_user_id", "thread_id", "posted"}))
+@org.hibernate.annotations.Table(appliesTo = "forum_post",
+        indexes = @Index(name = "ix_forum_post_thread_posted", columnNames = {"thread_id", "posted", "id"}))
 @NoArgsConstructor
 @EqualsAndHashCode(of = {"user", "thread", "posted"})
 @Getter
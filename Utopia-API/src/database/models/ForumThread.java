@@ -74,6 +74,14 @@ public class ForumThread implements Comparable<ForumThread>, HasNumericId {
     @Column(name = "stickied", nullable = false)
     private boolean stickied;
 
+    /**
+     * The number of posts in the thread. It's kept up to date by ForumPostDAO with an update statement whenever posts are saved
+     * or deleted, so it's never written when the thread itself is updated.
+     */
+    @Column(name = "post_count", updatable = false, nullable = false)
+    @Setter(AccessLevel.NONE)
+    private int postCount;
+
     @OneToMany(mappedBy = "thread", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ForumPost> posts = new ArrayList<>();
 
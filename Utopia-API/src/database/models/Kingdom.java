@@ -37,12 +37,17 @@ import filtering.filters.NetworthFilter;
 import intel.Intel;
 import intel.IntelSourceProvider;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.FetchProfile;
 
 import javax.persistence.*;
 import java.util.*;
 
 @Entity
 @Table(name = "kingdom")
+@FetchProfile(name = FetchPlans.KINGDOM_OVERVIEW, fetchOverrides = {
+        @FetchProfile.FetchOverride(entity = Kingdom.class, association = "provinces", mode = FetchMode.JOIN)})
 @NoArgsConstructor
 @EqualsAndHashCode(of = "location")
 @Getter
@@ -85,6 +90,7 @@ public class Kingdom implements Intel, Comparable<Kingdom>, HasNumericId {
     private Date lastUpdated;
 
     @OneToMany(mappedBy = "kingdom")
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private List<Province> provinces = new ArrayList<>();
 
     @Column(name = "saved_by", nullable = false, length = 200)
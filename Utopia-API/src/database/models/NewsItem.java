@@ -28,16 +28,19 @@
 package database.models;
 
 import api.common.HasNumericId;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Index;
 
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "news_item")
+@Table(name = "news_item", uniqueConstraints = @UniqueConstraint(name = "uk_news_item_content_hash", columnNames = "content_hash"))
 @NoArgsConstructor
 @Getter
 @Setter
@@ -65,6 +68,7 @@ public class NewsItem implements Comparable<NewsItem>, HasNumericId {
 
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "real_date")
+    @Index(name = "ix_news_item_real_date")
     private Date realDate;
 
     @Lob
@@ -81,9 +85,29 @@ public class NewsItem implements Comparable<NewsItem>, HasNumericId {
         this.originalMessage = originalMessage;
     }
 
+    /**
+     * A hash of the unique key and which occurrence of that key this is, since the exact same thing can legitimately happen more
+     * than once in the same tick. Used to find out which news have already been saved without loading them.
+     */
+    @Column(name = "content_hash", updatable = false, nullable = false, length = 40)
+    private String contentHash;
+
     public String getUniqueKey() {
-        return getUtoDate() + ' ' + getSource() + ' ' + getTarget() + ' ' + getItemValue() + ' ' +
-                getNewsType();
+        return uniqueKey(getUtoDate(), getSource(), getTarget(), getItemValue(), getNewsType());
+    }
+
+    public static String uniqueKey(final String utoDate, final String source, final String target, final String itemValue,
+                                   final String newsType) {
+        return utoDate + ' ' + source + ' ' + target + ' ' + itemValue + ' ' + newsType;
+    }
+
+    /**
+     * @param uniqueKey  the unique key of the news item
+     * @param occurrence which occurrence of the unique key the news item is, starting at 1
+     * @return the content hash
+     */
+    public static String contentHash(final String uniqueKey, final int occurrence) {
+        return Hashing.sha1().hashString(uniqueKey + '#' + occurrence, Charsets.UTF_8).toString();
     }
 
     @Override
@@ -40,6 +40,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -121,6 +122,7 @@ public class Province implements Comparable<Province>, HasName, HasNumericId {
     private BotUser provinceOwner;
 
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private List<Aid> aid = new ArrayList<>();
 
     @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "province", optional = true)
@@ -136,18 +138,23 @@ public class Province implements Comparable<Province>, HasName, HasNumericId {
     private Survey survey;
 
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<DurationSpell> durationSpells = new HashSet<>();
 
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<InstantSpell> instantSpells = new HashSet<>();
 
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<DurationOp> durationOps = new HashSet<>();
 
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<InstantOp> instantOps = new HashSet<>();
 
     @OneToMany(mappedBy = "province")
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<Army> armies = new HashSet<>();
 
     public Province(final String name, final Kingdom kingdom) {
@@ -38,6 +38,9 @@ import intel.ProvinceIntel;
 import intel.ProvinceResourceProvider;
 import intel.ProvinceResourceType;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -79,6 +82,9 @@ public class SoM implements ProvinceIntel, Comparable<SoM>, HasNumericId {
     private String savedBy;
 
     @OneToMany(mappedBy = "som", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    //Joining the armies would repeat the provinces of a kingdom once per army when they're fetched with it
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private Set<Army> armies = new HashSet<>();
 
     @Column(name = "armies_out_when_posted", nullable = false)
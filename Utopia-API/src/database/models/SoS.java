@@ -37,6 +37,7 @@ import intel.ProvinceIntel;
 import intel.ProvinceResourceProvider;
 import intel.ProvinceResourceType;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -62,6 +63,7 @@ public class SoS implements ProvinceIntel, Comparable<SoS>, HasNumericId {
     private Province province;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private List<SoSEntry> sciences = new ArrayList<>();
 
     @Column(name = "total_books", nullable = false)
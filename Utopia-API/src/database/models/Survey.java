@@ -39,6 +39,7 @@ import intel.ProvinceIntel;
 import intel.ProvinceResourceProvider;
 import intel.ProvinceResourceType;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import tools.GameMechanicCalculator;
@@ -65,6 +66,7 @@ public class Survey implements ProvinceIntel, Comparable<Survey> {
     private Province province;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private List<SurveyEntry> buildings = new ArrayList<>();
 
     @Temporal(TemporalType.TIMESTAMP)
@@ -35,6 +35,9 @@ import filtering.filters.AgeFilter;
 import filtering.filters.PersonalityFilter;
 import filtering.filters.RaceFilter;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -75,6 +78,9 @@ public class Target implements Comparable<Target>, HasNumericId {
 
     @Getter(AccessLevel.NONE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "pk.target", orphanRemoval = true, fetch = FetchType.EAGER)
+    //Joining the hitters makes hibernate load the target and user of every hitter one at a time
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = FetchPlans.BATCH_SIZE)
     private List<TargetHitter> hitters = new ArrayList<>();
 
     @Temporal(TemporalType.TIMESTAMP)
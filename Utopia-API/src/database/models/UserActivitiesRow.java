@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.models;
+
+import api.common.HasNumericId;
+
+import java.util.Date;
+
+/**
+ * The columns of {@link UserActivities} that are needed to list how long users have been idle. Has the same getters as
+ * UserActivities, so templates can use either.
+ */
+public final class UserActivitiesRow implements HasNumericId {
+    private final Long id;
+    private final User user;
+    private final Date lastActivity;
+    private final Date lastSeen;
+
+    public UserActivitiesRow(final Long id, final Long userId, final String mainNick, final Date lastActivity, final Date lastSeen) {
+        this.id = id;
+        this.user = new User(userId, mainNick);
+        this.lastActivity = lastActivity;
+        this.lastSeen = lastSeen;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Date getLastActivity() {
+        return lastActivity;
+    }
+
+    public Date getLastSeen() {
+        return lastSeen;
+    }
+
+    public static final class User implements HasNumericId {
+        private final Long id;
+        private final String mainNick;
+
+        private User(final Long id, final String mainNick) {
+            this.id = id;
+            this.mainNick = mainNick;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        public String getMainNick() {
+            return mainNick;
+        }
+    }
+}
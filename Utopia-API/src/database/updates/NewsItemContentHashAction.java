@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.updates;
+
+import api.database.updates.DatabaseUpdateAction;
+import database.models.NewsItem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the content hashes of the news items that were saved before the hashes were introduced. Identical news items are
+ * numbered in the order they were saved, the same way NewsItemDAO numbers identical news items in a paste.
+ */
+public class NewsItemContentHashAction implements DatabaseUpdateAction {
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void runDatabaseAction(final Connection connection) throws SQLException {
+        Map<String, Integer> occurrences = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, uto_date, source, target, item_value, news_type FROM news_item ORDER BY real_date, id");
+             PreparedStatement update = connection.prepareStatement("UPDATE news_item SET content_hash = ? WHERE id = ?");
+             ResultSet resultSet = select.executeQuery()) {
+            int batched = 0;
+            while (resultSet.next()) {
+                String uniqueKey = NewsItem.uniqueKey(resultSet.getString("uto_date"), resultSet.getString("source"),
+                        resultSet.getString("target"), resultSet.getString("item_value"), resultSet.getString("news_type"));
+                Integer occurrence = occurrences.get(uniqueKey);
+                occurrence = occurrence == null ? 1 : occurrence + 1;
+                occurrences.put(uniqueKey, occurrence);
+
+                update.setString(1, NewsItem.contentHash(uniqueKey, occurrence));
+                update.setLong(2, resultSet.getLong("id"));
+                update.addBatch();
+                if (++batched % BATCH_SIZE == 0) update.executeBatch();
+            }
+            if (batched % BATCH_SIZE != 0) update.executeBatch();
+        }
+    }
+}
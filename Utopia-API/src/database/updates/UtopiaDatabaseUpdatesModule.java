@@ -53,5 +53,11 @@ public class UtopiaDatabaseUpdatesModule extends AbstractModule {
         binder.addBinding().to(MySQLUpdateV8ToV9.class);
         binder.addBinding().to(H2UpdateV9ToV10.class);
         binder.addBinding().to(MySQLUpdateV9ToV10.class);
+        binder.addBinding().to(H2UpdateV10ToV11.class);
+        binder.addBinding().to(MySQLUpdateV10ToV11.class);
+        binder.addBinding().to(H2UpdateV11ToV12.class);
+        binder.addBinding().to(MySQLUpdateV11ToV12.class);
+        binder.addBinding().to(H2UpdateV12ToV13.class);
+        binder.addBinding().to(MySQLUpdateV12ToV13.class);
     }
 }
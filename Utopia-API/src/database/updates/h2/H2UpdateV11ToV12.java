@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.updates.h2;
+
+import api.database.updates.DatabaseUpdateAction;
+import api.database.updates.SimpleUpdateAction;
+import com.google.common.collect.Lists;
+
+public class H2UpdateV11ToV12 extends ApiH2DatabaseUpdater {
+    @Override
+    public int updatesToVersion() {
+        return 12;
+    }
+
+    @Override
+    public Iterable<? extends DatabaseUpdateAction> getUpdateActions() {
+        return Lists.newArrayList(
+                new SimpleUpdateAction("CREATE INDEX ix_attack_attacker_time ON attack (attacker_id, time_of_attack)"),
+                new SimpleUpdateAction("CREATE INDEX ix_attack_target_time ON attack (target_id, time_of_attack)"),
+                new SimpleUpdateAction("CREATE INDEX ix_news_item_real_date ON news_item (real_date)"),
+                new SimpleUpdateAction("CREATE INDEX ix_army_type_returning_date ON army (type, returning_date)"),
+                new SimpleUpdateAction("CREATE INDEX ix_duration_spell_expires ON duration_spell (expires)"),
+                new SimpleUpdateAction("CREATE INDEX ix_duration_op_expires ON duration_op (expires)")
+        );
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database.updates.mysql;
+
+import api.database.updates.DatabaseUpdateAction;
+import api.database.updates.SimpleUpdateAction;
+import com.google.common.collect.Lists;
+import database.updates.NewsItemContentHashAction;
+
+public class MySQLUpdateV10ToV11 extends ApiMySQLDatabaseUpdater {
+    @Override
+    public int updatesToVersion() {
+        return 11;
+    }
+
+    @Override
+    public Iterable<? extends DatabaseUpdateAction> getUpdateActions() {
+        return Lists.newArrayList(
+                new SimpleUpdateAction("ALTER TABLE news_item ADD content_hash VARCHAR(40)"),
+                new NewsItemContentHashAction(),
+                new SimpleUpdateAction("ALTER TABLE news_item MODIFY content_hash VARCHAR(40) NOT NULL"),
+                new SimpleUpdateAction("ALTER TABLE news_item ADD CONSTRAINT uk_news_item_content_hash UNIQUE (content_hash)")
+        );
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package listeners;
+
+import api.database.DBException;
+import api.database.models.BotUser;
+import api.events.bot.EntitiesChangedEvent;
+import api.runtime.ThreadingManager;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Provider;
+import database.daos.ForumThreadDAO;
+import lombok.extern.log4j.Log4j;
+import spi.events.EventListener;
+
+import javax.inject.Inject;
+
+/**
+ * Keeps the post counts of the forum threads correct when users are removed, since the database removes their posts without
+ * the counts being updated
+ */
+@Log4j
+class ForumPostCountListener implements EventListener {
+    private final Provider<ForumThreadDAO> threadDAOProvider;
+    private final ThreadingManager threadingManager;
+
+    @Inject
+    ForumPostCountListener(final Provider<ForumThreadDAO> threadDAOProvider, final ThreadingManager threadingManager) {
+        this.threadDAOProvider = threadDAOProvider;
+        this.threadingManager = threadingManager;
+    }
+
+    @Subscribe
+    public void onEntitiesChanged(final EntitiesChangedEvent event) {
+        if (!event.isInsertedOrDeleted(BotUser.class)) return;
+
+        threadingManager.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    threadDAOProvider.get().recountPosts();
+                } catch (DBException e) {
+                    ForumPostCountListener.log.error("Could not recount the forum posts", e);
+                }
+            }
+        });
+    }
+}
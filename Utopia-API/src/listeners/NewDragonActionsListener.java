@@ -27,6 +27,7 @@
 
 package listeners;
 
+import api.database.daos.BotUserDAO;
 import api.database.models.BotUser;
 import api.database.transactions.SimpleTransactionTask;
 import api.events.DelayedEventPoster;
@@ -57,13 +58,15 @@ import static api.tools.text.StringUtil.prettifyEnumName;
 @Log4j
 class NewDragonActionsListener implements EventListener {
     private final Provider<DragonProjectDAO> dragonProjectDAOProvider;
+    private final Provider<BotUserDAO> botUserDAOProvider;
     private final IRCAccess ircAccess;
     private final ThreadingManager threadingManager;
 
     @Inject
-    NewDragonActionsListener(final Provider<DragonProjectDAO> dragonProjectDAOProvider, final IRCAccess ircAccess,
-                             final ThreadingManager threadingManager) {
+    NewDragonActionsListener(final Provider<DragonProjectDAO> dragonProjectDAOProvider, final Provider<BotUserDAO> botUserDAOProvider,
+                             final IRCAccess ircAccess, final ThreadingManager threadingManager) {
         this.dragonProjectDAOProvider = dragonProjectDAOProvider;
+        this.botUserDAOProvider = botUserDAOProvider;
         this.ircAccess = ircAccess;
         this.threadingManager = threadingManager;
     }
@@ -125,9 +128,9 @@ class NewDragonActionsListener implements EventListener {
         return "Failed to save dragon actions";
     }
 
-    private static void registerDragonStats(final String statName, final int statValue, final BotUser user) {
+    private void registerDragonStats(final String statName, final int statValue, final BotUser user) {
         try {
-            if (user != null) user.incrementStat(statName, statValue);
+            if (user != null) botUserDAOProvider.get().incrementStat(user, statName, statValue);
         } catch (HibernateException e) {
             NewDragonActionsListener.log.error("", e);
         }
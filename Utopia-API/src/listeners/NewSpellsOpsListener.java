@@ -99,7 +99,8 @@ class NewSpellsOpsListener implements EventListener {
             Pair<InstantOp, DurationOp> savedOpPair = inTransaction(new CallableTransactionTask<Pair<InstantOp, DurationOp>>() {
                 @Override
                 public Pair<InstantOp, DurationOp> call(final DelayedEventPoster delayedEventPoster) {
-                    BotUser user = botUserDAOProvider.get().getUser(event.getUser().getId());
+                    BotUserDAO botUserDAO = botUserDAOProvider.get();
+                    BotUser user = botUserDAO.getUser(event.getUser().getId());
                     ProvinceDAO provinceDAO = provinceDAOProvider.get();
                     Province target = provinceDAO.getProvince(event.getProvinceId());
                     if (target == null) throw new IllegalStateException("Could not find the province");
@@ -108,14 +109,14 @@ class NewSpellsOpsListener implements EventListener {
                     if (opType.getOpCharacter().isInstant()) {
                         InstantOp instantOp = target.registerInstantOp(user, opType, event.getResult());
                         provinceDAO.save(target);
-                        if (event.getResult() > 0) user.incrementStat(opType.getName() + " damage", event.getResult());
-                        user.incrementStat(opType.getName(), 1);
+                        if (event.getResult() > 0) botUserDAO.incrementStat(user, opType.getName() + " damage", event.getResult());
+                        botUserDAO.incrementStat(user, opType.getName(), 1);
                         return new Pair<>(instantOp, null);
                     } else {
                         UtopiaTime currentTime = utopiaTimeFactory.newUtopiaTime(System.currentTimeMillis());
                         UtopiaTime expires = currentTime.increment(event.getResult() + 1);
                         DurationOp durationOp = target.addDurationOp(new DurationOp(user, target, new Date(expires.getTime()), opType));
-                        if (opType.getOpCharacter() != SpellOpCharacter.SELF_SPELLOP) user.incrementStat(opType.getName(), 1);
+                        if (opType.getOpCharacter() != SpellOpCharacter.SELF_SPELLOP) botUserDAO.incrementStat(user, opType.getName(), 1);
                         return new Pair<>(null, durationOp);
                     }
                 }
@@ -149,7 +150,8 @@ class NewSpellsOpsListener implements EventListener {
                     new CallableTransactionTask<Pair<InstantSpell, DurationSpell>>() {
                         @Override
                         public Pair<InstantSpell, DurationSpell> call(final DelayedEventPoster delayedEventPoster) {
-                            BotUser user = botUserDAOProvider.get().getUser(event.getUser().getId());
+                            BotUserDAO botUserDAO = botUserDAOProvider.get();
+                            BotUser user = botUserDAO.getUser(event.getUser().getId());
                             ProvinceDAO provinceDAO = provinceDAOProvider.get();
                             Province target = provinceDAO.getProvince(event.getProvinceId());
                             if (target == null) throw new IllegalStateException("Could not find the province");
@@ -158,8 +160,8 @@ class NewSpellsOpsListener implements EventListener {
                             if (spellType.getSpellCharacter().isInstant()) {
                                 InstantSpell instantSpell = target.registerInstantSpell(user, spellType, event.getResult());
                                 provinceDAO.save(target);
-                                if (event.getResult() > 0) user.incrementStat(spellType.getName() + " damage", event.getResult());
-                                user.incrementStat(spellType.getName(), 1);
+                                if (event.getResult() > 0) botUserDAO.incrementStat(user, spellType.getName() + " damage", event.getResult());
+                                botUserDAO.incrementStat(user, spellType.getName(), 1);
                                 return new Pair<>(instantSpell, null);
                             } else {
                                 UtopiaTime currentTime = utopiaTimeFactory.newUtopiaTime(System.currentTimeMillis());
@@ -167,7 +169,7 @@ class NewSpellsOpsListener implements EventListener {
                                 DurationSpell durationSpell = target
                                         .addDurationSpell(new DurationSpell(user, target, new Date(expires.getTime()), spellType));
                                 if (spellType.getSpellCharacter() != SpellOpCharacter.SELF_SPELLOP)
-                                    user.incrementStat(spellType.getName(), 1);
+                                    botUserDAO.incrementStat(user, spellType.getName(), 1);
                                 return new Pair<>(null, durationSpell);
                             }
                         }
@@ -28,16 +28,17 @@
 package listeners;
 
 import api.commands.Command;
+import api.commands.CommandHandlingException;
 import api.commands.CommandParser;
+import api.commands.CommandResponse;
 import api.commands.ParamParsingSpecification;
+import api.events.DelayedEventPoster;
 import api.events.DirectoryChangeEventObserver;
 import api.events.bot.CommandRemovedEvent;
-import api.runtime.ThreadingManager;
-import api.tools.files.FileUtil;
+import api.runtime.IRCContext;
+import api.settings.PropertiesCollection;
+import api.tools.collections.Params;
 import api.tools.files.JavaFileFilter;
-import com.google.common.base.Charsets;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import lombok.extern.log4j.Log4j;
@@ -46,28 +47,41 @@ import spi.commands.ParameterizedScriptCommandHandler;
 import spi.commands.ScriptCommandHandler;
 import spi.events.EventListener;
 import spi.events.ScriptEventListener;
+import spi.filters.Filter;
+import tools.scripts.ScriptCall;
+import tools.scripts.ScriptExecutor;
+import tools.scripts.ScriptInstance;
+import tools.scripts.ScriptPool;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.script.Invocable;
-import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.WatchEvent;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
 
-import static api.tools.text.StringUtil.merge;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static tools.UtopiaPropertiesConfig.SCRIPTS_INSTANCES;
 
+/**
+ * Finds the scripts in the scripts directory and keeps track of which commands and events they handle.
+ * <p/>
+ * Every script is read and evaluated when it's found or modified, into a pool of engines that are reused between calls, so
+ * concurrent calls never share an engine that isn't thread safe. The calls are made through the {@link ScriptExecutor},
+ * which limits how long they may run.
+ */
 @Singleton
 @Log4j
 public class ScriptManager implements DirectoryChangeEventObserver, EventListener {
@@ -75,21 +89,23 @@ public class ScriptManager implements DirectoryChangeEventObserver, EventListene
     private static final Path SCRIPTENGINES_DIR = Paths.get("scriptengines");
 
     private final EventBus eventBus;
-    private final ThreadingManager threadingManager;
+    private final ScriptExecutor scriptExecutor;
+    private final int instancesPerScript;
 
+    private final ConcurrentMap<Path, ScriptPool> fileToPoolMapping = new ConcurrentHashMap<>();
     private final ConcurrentMap<Command, Path> commandHandledToFileMapping = new ConcurrentHashMap<>();
     private final ConcurrentMap<Command, List<CommandParser>> commandParserMapping = new ConcurrentHashMap<>();
-    private final Cache<Command, ScriptCommandHandler> cache = CacheBuilder.newBuilder().expireAfterAccess(6, TimeUnit.HOURS).build();
 
     private final Collection<ListenerTuple> eventListenerToEventTypeMapping = new CopyOnWriteArrayList<>();
-    private final ConcurrentMap<Path, ScriptEventListener> fileNameToEventListenerMapping = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, ListenerTuple> fileNameToEventListenerMapping = new ConcurrentHashMap<>();
 
     private ScriptEngineManager manager;
 
     @Inject
-    public ScriptManager(final EventBus eventBus, final ThreadingManager threadingManager) {
+    public ScriptManager(final EventBus eventBus, final ScriptExecutor scriptExecutor, final PropertiesCollection properties) {
         this.eventBus = eventBus;
-        this.threadingManager = threadingManager;
+        this.scriptExecutor = scriptExecutor;
+        this.instancesPerScript = properties.getInteger(SCRIPTS_INSTANCES);
     }
 
     @Inject
@@ -128,27 +144,17 @@ public class ScriptManager implements DirectoryChangeEventObserver, EventListene
     public void handleUpdatedDirectory(final Map<Path, WatchEvent.Kind<?>> files) {
         for (Map.Entry<Path, WatchEvent.Kind<?>> entry : files.entrySet()) {
             Path file = entry.getKey();
-            if (entry.getValue().equals(ENTRY_MODIFY)) {
-                Command handledCommand = getCommandForFile(file);
-                if (handledCommand != null) cache.invalidate(handledCommand);
-                else {
-                    ScriptEventListener eventListener = fileNameToEventListenerMapping.remove(file);
-                    if (eventListener != null) {
-                        eventListenerToEventTypeMapping.remove(eventListener);
-                    }
-                }
+            if (entry.getValue().equals(ENTRY_CREATE) || entry.getValue().equals(ENTRY_MODIFY)) {
+                removeEventListener(file);
                 identifyScript(file);
             } else if (entry.getValue().equals(ENTRY_DELETE)) {
+                fileToPoolMapping.remove(file);
                 Command handledCommand = getCommandForFile(file);
                 if (handledCommand != null) {
-                    cache.invalidate(handledCommand);
+                    commandHandledToFileMapping.remove(handledCommand);
+                    commandParserMapping.remove(handledCommand);
                     eventBus.post(new CommandRemovedEvent(handledCommand));
-                } else {
-                    ScriptEventListener eventListener = fileNameToEventListenerMapping.remove(file);
-                    if (eventListener != null) {
-                        eventListenerToEventTypeMapping.remove(eventListener);
-                    }
-                }
+                } else removeEventListener(file);
             }
         }
     }
@@ -165,66 +171,67 @@ public class ScriptManager implements DirectoryChangeEventObserver, EventListene
         return null;
     }
 
+    private void removeEventListener(final Path file) {
+        ListenerTuple eventListener = fileNameToEventListenerMapping.remove(file);
+        if (eventListener != null) eventListenerToEventTypeMapping.remove(eventListener);
+    }
+
     private void identifyScript(final Path file) {
         try {
-            Invocable invocable = getInvocable(file);
-            boolean commandHandlerWasRegistered = registerCommandHandler(file, invocable);
-            if (!commandHandlerWasRegistered) registerEventListener(file, invocable);
+            ScriptPool pool = ScriptPool.load(manager, file, instancesPerScript);
+            fileToPoolMapping.put(file, pool);
+            boolean commandHandlerWasRegistered = registerCommandHandler(pool);
+            if (!commandHandlerWasRegistered) registerEventListener(pool);
         } catch (ScriptException e) {
             ScriptManager.log.error("Could not identify the script: " + file.getFileName().toString(), e);
         }
     }
 
-
-    private Invocable getInvocable(final Path scriptFile) throws ScriptException {
-        try {
-            String extension = FileUtil.getFileExtension(scriptFile);
-            ScriptEngine scriptEngine = manager.getEngineByExtension(extension);
-            if (scriptEngine != null) {
-                List<String> allLinesInFile = Files.readAllLines(scriptFile, Charsets.UTF_8);
-                String content = merge(allLinesInFile, '\n');
-                scriptEngine.eval(content);
-                return (Invocable) scriptEngine;
-            } else throw new IllegalStateException("Unknown script extension (no ScriptEngine exists): " + extension);
-        } catch (Exception e) {
-            throw new ScriptException(e);
-        }
-    }
-
-    private boolean registerCommandHandler(final Path file, final Invocable scriptEngine) {
+    private boolean registerCommandHandler(final ScriptPool pool) {
         try {
-            ScriptCommandHandler commandHandler = scriptEngine.getInterface(ParameterizedScriptCommandHandler.class);
-            List<CommandParser> parsers = new ArrayList<>();
-            if (commandHandler == null) {
-                commandHandler = scriptEngine.getInterface(ScriptCommandHandler.class);
-                if (commandHandler == null) return false;
+            return scriptExecutor.call(pool, new ScriptCall<Boolean>() {
+                @Override
+                public Boolean call(final ScriptInstance instance) throws Throwable {
+                    ScriptCommandHandler commandHandler = instance.getInterface(ParameterizedScriptCommandHandler.class);
+                    List<CommandParser> parsers = new ArrayList<>();
+                    if (commandHandler == null) {
+                        commandHandler = instance.getInterface(ScriptCommandHandler.class);
+                        if (commandHandler == null) return false;
 
-                parsers.add(new CommandParser(new ParamParsingSpecification("params", ".*")));
-                parsers.add(CommandParser.getEmptyParser());
-            } else {
-                Collections.addAll(parsers, ((ParameterizedScriptCommandHandler) commandHandler).getParsers());
-            }
-            Command handler = commandHandler.handles();
-            commandHandledToFileMapping.put(handler, file);
-            commandParserMapping.put(handler, parsers);
-            return true;
+                        parsers.add(new CommandParser(new ParamParsingSpecification("params", ".*")));
+                        parsers.add(CommandParser.getEmptyParser());
+                    } else {
+                        Collections.addAll(parsers, ((ParameterizedScriptCommandHandler) commandHandler).getParsers());
+                    }
+                    Command handler = commandHandler.handles();
+                    commandHandledToFileMapping.put(handler, pool.getFile());
+                    commandParserMapping.put(handler, parsers);
+                    return true;
+                }
+            });
         } catch (Throwable throwable) {
             if (!(throwable instanceof NoSuchMethodException))
-                ScriptManager.log.error("Caught throwable from script " + file.toAbsolutePath(), throwable);
+                ScriptManager.log.error("Caught throwable from script " + pool.getFile().toAbsolutePath(), throwable);
         }
         return false;
     }
 
-    private boolean registerEventListener(final Path file, final Invocable scriptEngine) {
-        ScriptEventListener listener = scriptEngine.getInterface(ScriptEventListener.class);
-        if (listener == null) return false;
-
+    private boolean registerEventListener(final ScriptPool pool) {
         try {
-            fileNameToEventListenerMapping.put(file, listener);
-            eventListenerToEventTypeMapping.add(new ListenerTuple(listener, listener.handles()));
-            return true;
+            return scriptExecutor.call(pool, new ScriptCall<Boolean>() {
+                @Override
+                public Boolean call(final ScriptInstance instance) throws Throwable {
+                    ScriptEventListener listener = instance.getInterface(ScriptEventListener.class);
+                    if (listener == null) return false;
+
+                    ListenerTuple tuple = new ListenerTuple(pool.getFile(), listener.handles());
+                    fileNameToEventListenerMapping.put(pool.getFile(), tuple);
+                    eventListenerToEventTypeMapping.add(tuple);
+                    return true;
+                }
+            });
         } catch (Throwable throwable) {
-            ScriptManager.log.error("Event handling script " + file.toAbsolutePath() + " threw exception", throwable);
+            ScriptManager.log.error("Event handling script " + pool.getFile().toAbsolutePath() + " threw exception", throwable);
         }
         return false;
     }
@@ -232,17 +239,7 @@ public class ScriptManager implements DirectoryChangeEventObserver, EventListene
     public CommandHandler getHandlerForCommand(final Command command) {
         final Path file = commandHandledToFileMapping.get(command);
         if (file == null) throw new IllegalStateException("Could not find the script file that handles the command: " + command.getName());
-        try {
-            return cache.get(command, new Callable<ScriptCommandHandler>() {
-                @Override
-                public ScriptCommandHandler call() throws Exception {
-                    Invocable invocable = getInvocable(file);
-                    return invocable.getInterface(ScriptCommandHandler.class);
-                }
-            });
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
-        }
+        return new PooledScriptCommandHandler(file);
     }
 
     public Map<Command, List<CommandParser>> getAllHandledCommands() {
@@ -258,40 +255,62 @@ public class ScriptManager implements DirectoryChangeEventObserver, EventListene
     public void onEvent(final Object event) {
         for (final ListenerTuple entry : eventListenerToEventTypeMapping) {
             if (entry.handles.equals(event.getClass())) {
-                threadingManager.execute(new Runnable() {
+                ScriptPool pool = fileToPoolMapping.get(entry.file);
+                if (pool == null) continue;
+                scriptExecutor.submit(pool, new ScriptCall<Void>() {
                     @Override
-                    public void run() {
-                        try {
-                            entry.eventListener.handleEvent(event);
-                        } catch (Throwable throwable) {
-                            ScriptManager.log.error("Event handling script threw exception", throwable);
-                        }
+                    public Void call(final ScriptInstance instance) throws Throwable {
+                        ScriptEventListener listener = instance.getInterface(ScriptEventListener.class);
+                        if (listener != null) listener.handleEvent(event);
+                        return null;
                     }
                 });
             }
         }
     }
 
+    /**
+     * Handles the command with whichever instance of the script is available. The pool is looked up for every call, so
+     * modifications to the script are picked up right away.
+     */
+    private class PooledScriptCommandHandler implements CommandHandler {
+        private final Path file;
+
+        private PooledScriptCommandHandler(final Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public CommandResponse handleCommand(final IRCContext context, final Params params, final Collection<Filter<?>> filters,
+                                             final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
+            ScriptPool pool = fileToPoolMapping.get(file);
+            if (pool == null) throw new CommandHandlingException("The script " + file.getFileName() + " is no longer available");
+            try {
+                return scriptExecutor.call(pool, new ScriptCall<CommandResponse>() {
+                    @Override
+                    public CommandResponse call(final ScriptInstance instance) throws Throwable {
+                        ScriptCommandHandler handler = instance.getInterface(ScriptCommandHandler.class);
+                        if (handler == null) throw new CommandHandlingException("The script " + file.getFileName() + " no longer handles commands");
+                        return handler.handleCommand(context, params, filters, delayedEventPoster);
+                    }
+                });
+            } catch (CommandHandlingException e) {
+                throw e;
+            } catch (TimeoutException e) {
+                throw new CommandHandlingException(e.getMessage(), e);
+            } catch (Throwable throwable) {
+                throw new CommandHandlingException(throwable);
+            }
+        }
+    }
+
     private static class ListenerTuple {
-        private final ScriptEventListener eventListener;
+        private final Path file;
         private final Class<?> handles;
 
-        private ListenerTuple(final ScriptEventListener eventListener, final Class<?> handles) {
-            this.eventListener = eventListener;
+        private ListenerTuple(final Path file, final Class<?> handles) {
+            this.file = file;
             this.handles = handles;
         }
     }
-
-    /*public static void main(String[] args) {
-        ScriptManager scriptManager = new ScriptManager(new EventBus(), new ThreadingManager(5));
-        scriptManager.init();
-        System.out.println(Paths.get(".").toAbsolutePath());
-        Map<Command, List<CommandParser>> allHandledCommands = scriptManager.getAllHandledCommands();
-        for (Map.Entry<Command, List<CommandParser>> handledCommand : allHandledCommands.entrySet()) {
-            System.out.println(handledCommand.getKey().getName());
-            for (CommandParser commandParser : handledCommand.getValue()) {
-                System.out.println("!"+handledCommand.getKey().getName()+" "+commandParser.getSyntaxDescription());
-            }
-        }
-    }*/
 }
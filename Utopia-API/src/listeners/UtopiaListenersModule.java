@@ -57,6 +57,7 @@ public class UtopiaListenersModule extends AbstractModule {
         bind(UserLoginListener.class).in(Singleton.class);
         bind(UserWelcomeListener.class).in(Singleton.class);
         bind(UserReminderListener.class).in(Singleton.class);
+        bind(ForumPostCountListener.class).in(Singleton.class);
 
         bind(AidManager.class).in(Singleton.class);
         bind(AlarmManager.class).in(Singleton.class);
@@ -87,6 +88,7 @@ public class UtopiaListenersModule extends AbstractModule {
         multibinder.addBinding().to(UserLoginListener.class);
         multibinder.addBinding().to(UserWelcomeListener.class);
         multibinder.addBinding().to(UserReminderListener.class);
+        multibinder.addBinding().to(ForumPostCountListener.class);
 
         multibinder.addBinding().to(AidManager.class);
         multibinder.addBinding().to(AlarmManager.class);
@@ -48,6 +48,12 @@ public class UtopiaPropertiesConfig implements PropertiesSpecification {
     public static final String TIMERS_ANNOUNCE_ENEMY_ARMIES = "Core.Timers.AnnounceEnemyArmies";
     public static final String CACHE_UPDATE_INTERVAL = "Core.CommonEntities.UpdateInterval";
     public static final String FINDER_MAX_RESULTS = "Intel.Finder.MaxResults";
+    public static final String RESULT_CACHE_MAX_AGE = "Core.ResultCache.MaxAgeSeconds";
+    public static final String RESULT_CACHE_MAX_ENTRIES = "Core.ResultCache.MaxEntries";
+    public static final String SCRIPTS_THREADS = "Core.Scripts.Threads";
+    public static final String SCRIPTS_QUEUE_SIZE = "Core.Scripts.QueueSize";
+    public static final String SCRIPTS_TIMEOUT = "Core.Scripts.TimeoutSeconds";
+    public static final String SCRIPTS_INSTANCES = "Core.Scripts.InstancesPerScript";
     public static final String ACTIVE_REMINDERS = "Reminders.Enabled";
     public static final String REMINDER_INTERVAL = "Reminders.Interval";
     public static final String SPELL_OP_MATRIX_COLUMNS = "SpellsOps.AllActiveMatrix.Columns";
@@ -83,6 +89,12 @@ public class UtopiaPropertiesConfig implements PropertiesSpecification {
         defaults.put(TIMERS_ANNOUNCE_ENEMY_ARMIES, "true");
         defaults.put(CACHE_UPDATE_INTERVAL, "10");
         defaults.put(FINDER_MAX_RESULTS, "50");
+        defaults.put(RESULT_CACHE_MAX_AGE, "60");
+        defaults.put(RESULT_CACHE_MAX_ENTRIES, "500");
+        defaults.put(SCRIPTS_THREADS, "4");
+        defaults.put(SCRIPTS_QUEUE_SIZE, "100");
+        defaults.put(SCRIPTS_TIMEOUT, "30");
+        defaults.put(SCRIPTS_INSTANCES, "4");
         defaults.put(ACTIVE_REMINDERS, "orders");
         defaults.put(REMINDER_INTERVAL, "5");
         defaults.put(SPELL_OP_MATRIX_COLUMNS, "Riots:ri,Storms:st,Vermin:ve,Greed:gr,Pitfalls:pf,Meteor Shower:ms");
@@ -29,7 +29,11 @@ package tools;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.multibindings.Multibinder;
+import database.CommonEntitiesWarmupTask;
 import spi.events.EventListener;
+import spi.runtime.StartupTask;
+import tools.cache.ResultCache;
+import tools.news.NewsSummaryAggregates;
 import tools.parsing.AidParser;
 import tools.parsing.AttackParser;
 import tools.parsing.DragonParser;
@@ -47,11 +51,17 @@ public class UtopiaToolsModule extends AbstractModule {
         bind(AttackParser.class).in(Singleton.class);
         bind(DragonParser.class).in(Singleton.class);
         bind(SpellsOpsParser.class).in(Singleton.class);
+        bind(NewsSummaryAggregates.class).in(Singleton.class);
+        bind(ResultCache.class).in(Singleton.class);
 
         Multibinder<EventListener> multibinder = Multibinder.newSetBinder(binder(), EventListener.class);
         multibinder.addBinding().to(AidParser.class);
         multibinder.addBinding().to(AttackParser.class);
         multibinder.addBinding().to(DragonParser.class);
         multibinder.addBinding().to(SpellsOpsParser.class);
+        multibinder.addBinding().to(NewsSummaryAggregates.class);
+        multibinder.addBinding().to(ResultCache.class);
+
+        Multibinder.newSetBinder(binder(), StartupTask.class).addBinding().to(CommonEntitiesWarmupTask.class);
     }
 }
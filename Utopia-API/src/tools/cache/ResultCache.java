@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.cache;
+
+import api.common.HasNumericId;
+import api.events.bot.EntitiesChangedEvent;
+import api.settings.PropertiesCollection;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import spi.events.EventListener;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static tools.UtopiaPropertiesConfig.RESULT_CACHE_MAX_AGE;
+import static tools.UtopiaPropertiesConfig.RESULT_CACHE_MAX_ENTRIES;
+
+/**
+ * Caches the results of commands and web service calls that are requested often but are expensive to put together, like the
+ * kingdom overview.
+ * <p/>
+ * Each result is registered with the entities it depends on while it's loaded, and is removed as soon as a transaction that
+ * changed one of those entities is committed. Changes made with bulk statements (like the cleanup of old intel) aren't seen
+ * that way, so results are also never kept longer than the configured max age.
+ * <p/>
+ * The cached results are shared between threads and sessions, so they must not rely on anything being lazy loaded after
+ * they've been loaded, and they must not be modified. Anything that depends on the current time should be worked out when the
+ * result is used rather than be part of the cached result.
+ */
+@Singleton
+@ParametersAreNonnullByDefault
+public class ResultCache implements EventListener {
+    private final Cache<String, Entry> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final ConcurrentMap<String, Usage> usages = new ConcurrentHashMap<>();
+
+    @Inject
+    public ResultCache(final PropertiesCollection properties) {
+        cache = CacheBuilder.newBuilder().maximumSize(properties.getInteger(RESULT_CACHE_MAX_ENTRIES))
+                            .expireAfterWrite(properties.getInteger(RESULT_CACHE_MAX_AGE), TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Returns the cached result for the specified key, or loads it if it's not cached. If several threads ask for the same
+     * result at the same time, only one of them loads it.
+     *
+     * @param name   the name of what's being cached, like the command name, which the usage statistics are grouped by
+     * @param key    the normalized parameters that, together with the name, decide what the result is
+     * @param loader loads the result and registers what it depends on
+     * @param <T>    the type of result
+     * @return the result, never null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String name, final String key, final Loader<T> loader) {
+        final Usage usage = getUsage(name);
+        String fullKey = name + ' ' + key;
+        final boolean[] loaded = new boolean[1];
+        try {
+            Entry entry = cache.get(fullKey, new Callable<Entry>() {
+                @Override
+                public Entry call() {
+                    loaded[0] = true;
+                    long invalidationsBefore = invalidations.get();
+                    Dependencies dependencies = new Dependencies();
+                    Object value = loader.load(dependencies);
+                    return new Entry(value, dependencies, invalidationsBefore);
+                }
+            });
+            if (loaded[0]) {
+                usage.misses.incrementAndGet();
+                //Something was committed while loading, so the result may already be out of date
+                if (entry.invalidationsBefore != invalidations.get()) cache.asMap().remove(fullKey, entry);
+            } else usage.hits.incrementAndGet();
+            return (T) entry.value;
+        } catch (UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Usage getUsage(final String name) {
+        Usage usage = usages.get(name);
+        if (usage == null) {
+            Usage created = new Usage(name);
+            usage = usages.putIfAbsent(name, created);
+            if (usage == null) usage = created;
+        }
+        return usage;
+    }
+
+    @Subscribe
+    public void onEntitiesChanged(final EntitiesChangedEvent event) {
+        invalidations.incrementAndGet();
+        for (Iterator<Entry> iter = cache.asMap().values().iterator(); iter.hasNext(); ) {
+            if (iter.next().dependencies.isAffectedBy(event)) iter.remove();
+        }
+    }
+
+    /**
+     * Removes all the cached results
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the amount of currently cached results
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return how often the cached results have been used, per name
+     */
+    public List<Usage> getUsages() {
+        List<Usage> out = new ArrayList<>(usages.values());
+        Collections.sort(out);
+        return out;
+    }
+
+    /**
+     * Loads a result that isn't cached
+     *
+     * @param <T> the type of result
+     */
+    public interface Loader<T> {
+        /**
+         * @param dependencies the dependencies to register the entities the result is based on with
+         * @return the result, not null
+         */
+        T load(Dependencies dependencies);
+    }
+
+    /**
+     * The entities a cached result depends on
+     */
+    public static final class Dependencies {
+        private final Set<Class<?>> types = new HashSet<>();
+        private final SetMultimap<Class<?>, Object> entities = HashMultimap.create();
+
+        private Dependencies() {
+        }
+
+        /**
+         * The result depends on the specified entity. Inserts and deletes of other entities of the same type invalidate the result as
+         * well, since they may change which entities the result would have been based on.
+         *
+         * @param type the entity type
+         * @param id   the entity's id
+         * @return this
+         */
+        public Dependencies on(final Class<?> type, final Object id) {
+            entities.put(type, id);
+            return this;
+        }
+
+        /**
+         * The result depends on the specified entities
+         *
+         * @param type     the entity type
+         * @param entities the entities
+         * @return this
+         * @see #on(Class, Object)
+         */
+        public Dependencies on(final Class<?> type, final Collection<? extends HasNumericId> entities) {
+            for (HasNumericId entity : entities) {
+                this.entities.put(type, entity.getId());
+            }
+            return this;
+        }
+
+        /**
+         * The result depends on all entities of the specified type, so any change to any of them invalidates it
+         *
+         * @param types the entity types
+         * @return this
+         */
+        public Dependencies onAny(final Class<?>... types) {
+            Collections.addAll(this.types, types);
+            return this;
+        }
+
+        boolean isAffectedBy(final EntitiesChangedEvent event) {
+            for (Class<?> type : event.getChangedTypes()) {
+                if (types.contains(type)) return true;
+                if (!entities.containsKey(type)) continue;
+                if (event.isInsertedOrDeleted(type)) return true;
+                for (Object id : event.getChangedIds(type)) {
+                    if (entities.containsEntry(type, id)) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * How often the cached results for one name have been used
+     */
+    public static final class Usage implements Comparable<Usage> {
+        private final String name;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        private Usage(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        /**
+         * @return the share of the requests that were served from the cache, between 0 and 1
+         */
+        public double getHitRate() {
+            long hits = getHits();
+            long total = hits + getMisses();
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public int compareTo(final Usage o) {
+            return name.compareTo(o.name);
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + Math.round(getHitRate() * 100) + "% of " + (getHits() + getMisses());
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final Dependencies dependencies;
+        private final long invalidationsBefore;
+
+        private Entry(final Object value, final Dependencies dependencies, final long invalidationsBefore) {
+            this.value = value;
+            this.dependencies = dependencies;
+            this.invalidationsBefore = invalidationsBefore;
+        }
+    }
+}
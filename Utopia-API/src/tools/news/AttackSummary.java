@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.news;
+
+import database.models.AttackType;
+
+/**
+ * The summed up results of one or more attacks of the same type from one province onto another.
+ * <p/>
+ * The gains are precalculated for every combination of war status and hit direction, since whether the attack happened during
+ * war depends on which news items are included when summarizing, and whether it's an incoming hit depends on the location
+ * of the self kd.
+ */
+public final class AttackSummary {
+    private final AttackType attackType;
+    private final String source;
+    private final String target;
+    private final String attackingKd;
+    private final String attacker;
+    private final String defendingKd;
+    private final String defender;
+
+    private int hits;
+    private final int[] gains = new int[4];
+    private final int[] damages = new int[4];
+    private final int[] nonLandDamages = new int[4];
+
+    AttackSummary(final AttackType attackType, final String source, final String target, final String attackingKd,
+                  final String defendingKd) {
+        this.attackType = attackType;
+        this.source = source;
+        this.target = target;
+        this.attackingKd = attackingKd;
+        this.attacker = source.replace(attackingKd, "").trim();
+        this.defendingKd = defendingKd;
+        this.defender = target.replace(defendingKd, "").trim();
+    }
+
+    void addHit(final int value) {
+        ++hits;
+        for (int i = 0; i < 4; ++i) {
+            AttackType.GainVsDamage gain = attackType.calcGain(value, isWar(i), isIncomingHit(i));
+            gains[i] += gain.getGain();
+            damages[i] += gain.getDamage();
+            nonLandDamages[i] += gain.getNonLandDamage();
+        }
+    }
+
+    void addHitWithoutGains() {
+        ++hits;
+    }
+
+    void add(final AttackSummary other) {
+        hits += other.hits;
+        for (int i = 0; i < 4; ++i) {
+            gains[i] += other.gains[i];
+            damages[i] += other.damages[i];
+            nonLandDamages[i] += other.nonLandDamages[i];
+        }
+    }
+
+    public AttackType getAttackType() {
+        return attackType;
+    }
+
+    /**
+     * @return the source of the news items, meaning the attacking province including its kd location
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the target of the news items, meaning the defending province including its kd location
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public String getAttackingKd() {
+        return attackingKd;
+    }
+
+    public String getAttacker() {
+        return attacker;
+    }
+
+    public String getDefendingKd() {
+        return defendingKd;
+    }
+
+    public String getDefender() {
+        return defender;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getGain(final boolean isWar, final boolean isIncomingHit) {
+        return gains[index(isWar, isIncomingHit)];
+    }
+
+    public int getDamage(final boolean isWar, final boolean isIncomingHit) {
+        return damages[index(isWar, isIncomingHit)];
+    }
+
+    public int getNonLandDamage(final boolean isWar, final boolean isIncomingHit) {
+        return nonLandDamages[index(isWar, isIncomingHit)];
+    }
+
+    private static int index(final boolean isWar, final boolean isIncomingHit) {
+        return (isWar ? 2 : 0) + (isIncomingHit ? 1 : 0);
+    }
+
+    private static boolean isWar(final int index) {
+        return index >= 2;
+    }
+
+    private static boolean isIncomingHit(final int index) {
+        return index % 2 == 1;
+    }
+}
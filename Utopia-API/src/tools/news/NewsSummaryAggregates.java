@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.news;
+
+import api.database.transactions.SimpleTransactionTask;
+import api.database.transactions.TransactionManager;
+import api.events.DelayedEventPoster;
+import api.events.bot.StartupEvent;
+import api.tools.numbers.NumberUtil;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Provider;
+import database.daos.NewsItemDAO;
+import database.models.AttackType;
+import database.models.GainsSpecification;
+import database.models.NewsItem;
+import lombok.extern.log4j.Log4j;
+import org.hibernate.HibernateException;
+import spi.events.EventListener;
+import tools.parsing.UtopiaValidationType;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static api.database.transactions.Transactions.inTransaction;
+import static tools.parsing.NonAttackNewsTypes.*;
+
+/**
+ * Keeps the news summed up in memory, so summaries don't have to load and go through every news item in the requested range
+ * each time they're asked for.
+ * <p/>
+ * The news are kept in one bucket per tick. Each bucket is split up into segments at the war declarations and peace
+ * agreements, and within each segment the attacks are summed up per attack type and pair of provinces. A summary of a range
+ * then only has to combine the buckets in that range. The aggregates are loaded from the database at startup and kept up to
+ * date through NewsItemDAO, which reports saved and deleted news once the transaction has been committed.
+ */
+@Log4j
+@Singleton
+@ParametersAreNonnullByDefault
+public final class NewsSummaryAggregates implements EventListener {
+    private static final Collection<String> WAR_TYPE_SET = Sets.newHashSet(INCOMING_WAR_DECLARED, OUTGOING_WAR_DECLARED,
+            MAX_HOSTILITY_AUTO_WAR_DECLARATION, INCOMING_WITHDRAWAL,
+            INCOMING_MUTUAL_PEACE_ACCEPTED, OUTGOING_MUTUAL_PEACE_ACCEPTED, OUTGOING_WITHDRAWAL);
+    private static final Pattern KD_LOC_PATTERN = Pattern.compile(UtopiaValidationType.KDLOC.getPatternString());
+
+    private final NavigableMap<Date, TickBucket> buckets = new TreeMap<>();
+    private final Set<Date> staleTicks = new HashSet<>();
+    private final Provider<NewsItemDAO> newsItemDAOProvider;
+    private boolean loaded;
+
+    @Inject
+    public NewsSummaryAggregates(final Provider<NewsItemDAO> newsItemDAOProvider) {
+        this.newsItemDAOProvider = newsItemDAOProvider;
+    }
+
+    @Subscribe
+    public void onStartup(final StartupEvent startupEvent) {
+        try {
+            inTransaction(new SimpleTransactionTask() {
+                @Override
+                public void run(final DelayedEventPoster delayedEventBus) {
+                    rebuild(newsItemDAOProvider.get().getNewsBetween(null, null));
+                }
+            });
+        } catch (HibernateException e) {
+            log.error("Could not load the news summary aggregates", e);
+        }
+    }
+
+    /**
+     * Adds the specified news once the current transaction has been committed
+     *
+     * @param news the saved news
+     */
+    public void newsSaved(final Collection<NewsItem> news) {
+        final List<NewsItem> saved = new ArrayList<>(news);
+        TransactionManager.addAfterCommitAction(new Runnable() {
+            @Override
+            public void run() {
+                add(saved);
+            }
+        });
+    }
+
+    /**
+     * Makes sure the ticks of the specified news are reloaded once the current transaction has been committed
+     *
+     * @param news the deleted news
+     */
+    public void newsDeleted(final Collection<NewsItem> news) {
+        final List<Date> ticks = new ArrayList<>(news.size());
+        for (NewsItem item : news) {
+            if (item.getRealDate() != null) ticks.add(item.getRealDate());
+        }
+        TransactionManager.addAfterCommitAction(new Runnable() {
+            @Override
+            public void run() {
+                markStale(ticks);
+            }
+        });
+    }
+
+    /**
+     * Throws away the current aggregates and builds new ones from the specified news. Ticks that were marked as out of date
+     * are still reloaded later on, since they may have changed after the specified news were loaded.
+     *
+     * @param news all the news
+     */
+    public synchronized void rebuild(final Collection<NewsItem> news) {
+        buckets.clear();
+        loaded = true;
+        List<NewsItem> sorted = new ArrayList<>(news);
+        Collections.sort(sorted);
+        add(sorted);
+    }
+
+    /**
+     * Adds the specified news to the aggregates. News that are older than news already added for the same tick cause that
+     * tick to be reloaded instead, since the order matters for the war status.
+     *
+     * @param news the news to add
+     */
+    public synchronized void add(final Collection<NewsItem> news) {
+        for (NewsItem item : news) {
+            Date tick = item.getRealDate();
+            if (tick == null || item.getId() == null) continue;
+            if (!loaded || staleTicks.contains(tick)) {
+                staleTicks.add(tick);
+                continue;
+            }
+            TickBucket bucket = buckets.get(tick);
+            if (bucket == null) {
+                bucket = new TickBucket();
+                buckets.put(tick, bucket);
+            } else if (item.getId() < bucket.lastId) {
+                staleTicks.add(tick);
+                continue;
+            }
+            bucket.add(item);
+        }
+    }
+
+    private synchronized void markStale(final Collection<Date> ticks) {
+        staleTicks.addAll(ticks);
+    }
+
+    /**
+     * Sums up the news between the specified dates. Any ticks that are out of date are reloaded from the database first, so this
+     * should be called from within a transaction.
+     *
+     * @param start    the earliest date to include news from, or null for no lower limit
+     * @param end      the latest date to include news from, or null for no upper limit
+     * @param kingdoms the kingdom locations to limit the news to, or null/empty for all news
+     * @param visitor  the visitor that receives the summed up attacks
+     * @return the id of the latest news item that was included in the summary, or null if there were no such news
+     */
+    @Nullable
+    public synchronized Long summarize(@Nullable final Date start, @Nullable final Date end,
+                                       @Nullable final Collection<String> kingdoms, final NewsSummaryVisitor visitor) {
+        if (!loaded) rebuild(newsItemDAOProvider.get().getNewsBetween(null, null));
+        if (!staleTicks.isEmpty()) reloadStaleTicks();
+
+        NavigableMap<Date, TickBucket> range = buckets;
+        if (start != null && end != null) {
+            if (start.after(end)) return null;
+            range = range.subMap(start, true, end, true);
+        } else if (start != null) range = range.tailMap(start, true);
+        else if (end != null) range = range.headMap(end, true);
+
+        String atWarWith = null;
+        Long lastIncluded = null;
+        for (TickBucket bucket : range.values()) {
+            for (Segment segment : bucket.segments) {
+                if (segment.opener != null && isIncluded(kingdoms, segment.opener.source, segment.opener.target)) {
+                    atWarWith = segment.opener.warWith;
+                }
+                for (AttackSummary attacks : segment.attacks.values()) {
+                    if (isIncluded(kingdoms, attacks.getSource(), attacks.getTarget()))
+                        visitor.visitAttacks(attacks, isWar(atWarWith, attacks));
+                }
+            }
+            Long lastInBucket = bucket.getLastId(kingdoms);
+            if (lastInBucket != null) lastIncluded = lastInBucket;
+        }
+        return lastIncluded;
+    }
+
+    private void reloadStaleTicks() {
+        NewsItemDAO newsItemDAO = newsItemDAOProvider.get();
+        for (Date tick : staleTicks) {
+            List<NewsItem> news = new ArrayList<>(newsItemDAO.getNewsBetween(tick, tick));
+            Collections.sort(news);
+            if (news.isEmpty()) buckets.remove(tick);
+            else {
+                TickBucket bucket = new TickBucket();
+                for (NewsItem item : news) {
+                    bucket.add(item);
+                }
+                buckets.put(tick, bucket);
+            }
+        }
+        staleTicks.clear();
+    }
+
+    /**
+     * Sums up the specified news one by one, in the order they're specified. This is the way the summaries were calculated
+     * before the aggregates were introduced, so it's useful for news that aren't saved and for verifying the aggregates.
+     *
+     * @param news     the news
+     * @param kingdoms the kingdom locations to limit the news to, or null/empty for all news
+     * @param visitor  the visitor that receives the attacks
+     */
+    public static void summarizeFully(final Iterable<NewsItem> news, @Nullable final Collection<String> kingdoms,
+                                 final NewsSummaryVisitor visitor) {
+        String atWarWith = null;
+        for (NewsItem item : news) {
+            if (!isIncluded(kingdoms, item.getSource(), item.getTarget())) continue;
+            if (isWarStatusChange(item)) {
+                atWarWith = deriveWarStatus(item);
+            } else {
+                AttackSummary attack = summarizeAttack(item);
+                if (attack != null) visitor.visitAttacks(attack, isWar(atWarWith, attack));
+            }
+        }
+    }
+
+    private static boolean isIncluded(@Nullable final Collection<String> kingdoms, @Nullable final String source,
+                                      @Nullable final String target) {
+        if (kingdoms == null || kingdoms.isEmpty()) return true;
+        for (String kd : kingdoms) {
+            if (source != null && source.endsWith(kd) || target != null && target.endsWith(kd)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isWarStatusChange(final NewsItem item) {
+        return item.getNewsType() != null && WAR_TYPE_SET.contains(item.getNewsType());
+    }
+
+    private static boolean isWar(@Nullable final String atWarWith, final AttackSummary attack) {
+        return atWarWith != null && (atWarWith.equals(attack.getAttackingKd()) || atWarWith.equals(attack.getDefendingKd()));
+    }
+
+    private static String deriveWarStatus(final NewsItem newsItem) {
+        switch (newsItem.getNewsType()) {
+            case INCOMING_WAR_DECLARED:
+                return newsItem.getSource();
+            case OUTGOING_WAR_DECLARED:
+            case MAX_HOSTILITY_AUTO_WAR_DECLARATION:
+                return newsItem.getTarget();
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static AttackSummary summarizeAttack(final NewsItem item) {
+        if (item.getNewsType() == null) return null;
+        AttackType attackType = AttackType.fromName(item.getNewsType().replace("Outgoing ", "").replace("Incoming ", ""));
+        if (attackType == null) {
+            log.debug("Unknown news type: " + item.getNewsType() + ", expected attack type");
+            return null;
+        }
+        if (item.getSource() == null || item.getTarget() == null) {
+            log.debug("Attack news item without source or target: " + item.getId());
+            return null;
+        }
+
+        AttackSummary attack = new AttackSummary(attackType, item.getSource(), item.getTarget(), extractKdLoc(item.getSource()),
+                extractKdLoc(item.getTarget()));
+        if (attackType.getGainsSpecification() == GainsSpecification.NON_LAND) attack.addHitWithoutGains();
+        else {
+            try {
+                attack.addHit(NumberUtil.parseInt(item.getItemValue()));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                log.warn("Attack news item has an invalid value and is left out: " + item.getId(), e);
+                return null;
+            }
+        }
+        return attack;
+    }
+
+    private static String extractKdLoc(final String provinceWithKd) {
+        Matcher matcher = KD_LOC_PATTERN.matcher(provinceWithKd);
+        return matcher.find() ? matcher.group() : "";
+    }
+
+    private static class TickBucket {
+        private final List<Segment> segments = new ArrayList<>(1);
+        /**
+         * The id of the latest news item per kingdom location (or source/target, for the ones without a location) in this tick
+         */
+        private final Map<String, Long> lastIdByKingdom = new HashMap<>();
+        private long lastId = Long.MIN_VALUE;
+
+        private void add(final NewsItem item) {
+            lastId = item.getId();
+            addLastId(item.getSource());
+            addLastId(item.getTarget());
+            if (isWarStatusChange(item)) {
+                segments.add(new Segment(new WarStatusChange(item)));
+                return;
+            }
+            AttackSummary attack = summarizeAttack(item);
+            if (attack == null) return;
+
+            if (segments.isEmpty()) segments.add(new Segment(null));
+            Map<String, AttackSummary> attacks = segments.get(segments.size() - 1).attacks;
+            String key = attack.getAttackType().name() + '\n' + attack.getSource() + '\n' + attack.getTarget();
+            AttackSummary existing = attacks.get(key);
+            if (existing == null) attacks.put(key, attack);
+            else existing.add(attack);
+        }
+
+        private void addLastId(@Nullable final String sourceOrTarget) {
+            if (sourceOrTarget == null) return;
+            String kdLoc = extractKdLoc(sourceOrTarget);
+            //News are added in id order, so the latest one is always the last one added
+            lastIdByKingdom.put(kdLoc.isEmpty() || !sourceOrTarget.endsWith(kdLoc) ? sourceOrTarget : kdLoc, lastId);
+        }
+
+        @Nullable
+        private Long getLastId(@Nullable final Collection<String> kingdoms) {
+            if (kingdoms == null || kingdoms.isEmpty()) return lastId;
+            Long last = null;
+            for (Map.Entry<String, Long> entry : lastIdByKingdom.entrySet()) {
+                if (isIncluded(kingdoms, entry.getKey(), null) && (last == null || entry.getValue() > last)) last = entry.getValue();
+            }
+            return last;
+        }
+    }
+
+    private static class Segment {
+        private final WarStatusChange opener;
+        private final Map<String, AttackSummary> attacks = new LinkedHashMap<>();
+
+        private Segment(@Nullable final WarStatusChange opener) {
+            this.opener = opener;
+        }
+    }
+
+    /**
+     * The parts of a war declaration or peace agreement the aggregates need to hold on to, so the entities themselves (with the
+     * original messages) aren't kept in memory
+     */
+    private static class WarStatusChange {
+        private final String source;
+        private final String target;
+        private final String warWith;
+
+        private WarStatusChange(final NewsItem item) {
+            this.source = item.getSource();
+            this.target = item.getTarget();
+            this.warWith = deriveWarStatus(item);
+        }
+    }
+}
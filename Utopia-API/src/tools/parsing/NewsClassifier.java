@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.parsing;
+
+import database.models.AttackType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds out which type of news a line of news is, without running every news pattern against it.
+ * <p/>
+ * Each pattern is registered together with the literal texts it requires, which are extracted from the regex itself. A line
+ * is only matched against the patterns whose literals it contains, so usually only one or two regexes are run per line. The
+ * patterns are tried in the same order as they're registered, so the result is the same as trying them all in that order.
+ */
+class NewsClassifier {
+    private static final int MIN_KEYWORD_LENGTH = 4;
+    private static final String CHARACTER_CLASS_ESCAPES = "dDsSwWhHvVbBAGZzR";
+
+    private final List<Candidate> candidates = new ArrayList<>();
+
+    /**
+     * @param nonAttackNewsTypes the non attack news types, which are tried after the attack types
+     * @return a classifier for all the attack types (incoming before outgoing, in the enum order) and the non attack news types
+     */
+    static NewsClassifier forAllNewsTypes(final NonAttackNewsTypes nonAttackNewsTypes) {
+        NewsClassifier classifier = new NewsClassifier();
+        for (AttackType attackType : AttackType.values()) {
+            classifier.register("Incoming " + attackType.getName(), attackType.getIncomingAttackNewsPattern());
+            classifier.register("Outgoing " + attackType.getName(), attackType.getOutgoingAttackNewsPattern());
+        }
+        for (Map.Entry<String, Pattern> entry : nonAttackNewsTypes.getAll().entrySet()) {
+            classifier.register(entry.getKey(), entry.getValue());
+        }
+        return classifier;
+    }
+
+    /**
+     * Registers the pattern for the specified news type. Patterns are tried in the order they're registered.
+     *
+     * @param newsType the news type
+     * @param pattern  the pattern, or null if there isn't one
+     */
+    void register(final String newsType, final Pattern pattern) {
+        if (pattern != null) candidates.add(new Candidate(newsType, pattern, extractKeywords(pattern)));
+    }
+
+    /**
+     * @param line the line of news
+     * @return the classified line, or null if it didn't match any of the patterns
+     */
+    Classified classify(final String line) {
+        for (Candidate candidate : candidates) {
+            if (!candidate.mayMatch(line)) continue;
+            Matcher matcher = candidate.pattern.matcher(line);
+            if (matcher.find()) return new Classified(candidate.newsType, matcher);
+        }
+        return null;
+    }
+
+    List<String> getKeywords(final String newsType) {
+        for (Candidate candidate : candidates) {
+            if (candidate.newsType.equals(newsType)) return Collections.unmodifiableList(candidate.keywords);
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the literal texts that have to be present in anything the pattern finds. Only the parts of the regex outside of
+     * groups and character classes are looked at, and anything that's unclear (like alternations and inline flags) means no
+     * keywords at all, in which case the pattern is always tried.
+     *
+     * @param pattern the pattern
+     * @return the keywords, longest first
+     */
+    static List<String> extractKeywords(final Pattern pattern) {
+        List<String> keywords = new ArrayList<>();
+        if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL)) != 0) return keywords;
+
+        String regex = pattern.pattern();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); ++i) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) return Collections.emptyList();
+                char escaped = regex.charAt(++i);
+                if (depth == 0) {
+                    if (CHARACTER_CLASS_ESCAPES.indexOf(escaped) >= 0) addKeyword(keywords, current);
+                    else if (Character.isLetterOrDigit(escaped)) return Collections.emptyList();
+                    else current.append(escaped);
+                }
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) return Collections.emptyList();
+                if (depth == 0) addKeyword(keywords, current);
+            } else if (c == '(') {
+                if (depth == 0) {
+                    if (regex.startsWith("(?", i) && i + 2 < regex.length() && "<:=!>".indexOf(regex.charAt(i + 2)) == -1)
+                        return Collections.emptyList();
+                    addKeyword(keywords, current);
+                }
+                ++depth;
+            } else if (c == ')') {
+                --depth;
+            } else if (depth == 0) {
+                if (c == '|') return Collections.emptyList();
+                if (c == '?' || c == '*' || c == '+' || c == '{') {
+                    if (current.length() > 0) current.setLength(current.length() - 1);
+                    addKeyword(keywords, current);
+                    if (c == '{') {
+                        i = regex.indexOf('}', i);
+                        if (i < 0) return Collections.emptyList();
+                    }
+                } else if (c == '.' || c == '^' || c == '$') {
+                    addKeyword(keywords, current);
+                } else current.append(c);
+            }
+        }
+        addKeyword(keywords, current);
+        Collections.sort(keywords, new KeywordComparator());
+        return keywords;
+    }
+
+    private static int skipCharacterClass(final String regex, final int start) {
+        int nested = 0;
+        for (int i = start; i < regex.length(); ++i) {
+            char c = regex.charAt(i);
+            if (c == '\\') ++i;
+            else if (c == '[') ++nested;
+            else if (c == ']' && i > start + 1 && --nested == 0) return i;
+        }
+        return -1;
+    }
+
+    private static void addKeyword(final List<String> keywords, final StringBuilder current) {
+        if (current.length() >= MIN_KEYWORD_LENGTH) keywords.add(current.toString());
+        current.setLength(0);
+    }
+
+    private static class KeywordComparator implements Comparator<String> {
+        @Override
+        public int compare(final String o1, final String o2) {
+            return Integer.compare(o2.length(), o1.length());
+        }
+    }
+
+    private static class Candidate {
+        private final String newsType;
+        private final Pattern pattern;
+        private final List<String> keywords;
+
+        private Candidate(final String newsType, final Pattern pattern, final List<String> keywords) {
+            this.newsType = newsType;
+            this.pattern = pattern;
+            this.keywords = keywords;
+        }
+
+        private boolean mayMatch(final String line) {
+            for (String keyword : keywords) {
+                if (!line.contains(keyword)) return false;
+            }
+            return true;
+        }
+    }
+
+    static class Classified {
+        private final String newsType;
+        private final Matcher matcher;
+
+        private Classified(final String newsType, final Matcher matcher) {
+            this.newsType = newsType;
+            this.matcher = matcher;
+        }
+
+        String getNewsType() {
+            return newsType;
+        }
+
+        Matcher getMatcher() {
+            return matcher;
+        }
+    }
+}
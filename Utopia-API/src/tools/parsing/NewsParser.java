@@ -28,21 +28,23 @@
 package tools.parsing;
 
 import api.irc.ValidationType;
-import database.models.AttackType;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
 import database.models.NewsItem;
+import lombok.extern.log4j.Log4j;
 import tools.time.UtopiaTime;
 import tools.time.UtopiaTimeFactory;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Class for parsing news from inside utopia
  */
+@Log4j
 public class NewsParser {
     public static final String DATE = "(?<date>" + UtopiaValidationType.UTODATE.getPatternString() + ')';
     public static final String KD = "(?:" + UtopiaValidationType.KDLOC.getPatternString() + ')';
@@ -50,12 +52,12 @@ public class NewsParser {
     private static final Pattern NEWS_ITEM_PATTERN = Pattern
             .compile(DATE + "\\s+.+?\\s*(?=" + UtopiaValidationType.UTODATE.getPatternString() + "|$)", Pattern.MULTILINE);
 
-    private final NonAttackNewsTypes nonAttackNewsTypes;
+    private final NewsClassifier classifier;
     private final UtopiaTimeFactory utopiaTimeFactory;
 
     @Inject
     public NewsParser(final NonAttackNewsTypes nonAttackNewsTypes, final UtopiaTimeFactory utopiaTimeFactory) {
-        this.nonAttackNewsTypes = nonAttackNewsTypes;
+        this.classifier = NewsClassifier.forAllNewsTypes(nonAttackNewsTypes);
         this.utopiaTimeFactory = utopiaTimeFactory;
     }
 
@@ -66,42 +68,37 @@ public class NewsParser {
      * @return List of NewsItems parsed from the news String
      */
     public List<NewsItem> parseNews(final String news) {
+        Multiset<String> unrecognized = HashMultiset.create();
+        List<NewsItem> out = parseNews(news, unrecognized);
+        if (!unrecognized.isEmpty()) {
+            log.info(unrecognized.size() + " news lines were not recognized");
+            if (log.isDebugEnabled()) {
+                for (Multiset.Entry<String> entry : unrecognized.entrySet()) {
+                    log.debug("Unrecognized news (" + entry.getCount() + "x): " + entry.getElement());
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Parses the specified String and returns a List of the NewsItems that were found. The lines that weren't recognized as any
+     * type of news are added to the specified multiset, without their dates so that identical lines are counted together.
+     *
+     * @param news         the news
+     * @param unrecognized the multiset to add unrecognized lines to
+     * @return List of NewsItems parsed from the news String
+     */
+    public List<NewsItem> parseNews(final String news, final Multiset<String> unrecognized) {
         List<NewsItem> out = new ArrayList<>(100);
         Matcher matcher = NEWS_ITEM_PATTERN.matcher(news);
-        String potentialMatch;
-        Matcher itemMatcher;
         while (matcher.find()) {
-            potentialMatch = matcher.group(0).trim();
-            boolean matchFound = false;
-            for (AttackType attackType : AttackType.values()) {
-                Pattern incomingAttackNewsPattern = attackType.getIncomingAttackNewsPattern();
-                if (incomingAttackNewsPattern != null) {
-                    itemMatcher = incomingAttackNewsPattern.matcher(potentialMatch);
-                    if (itemMatcher.find()) {
-                        out.add(getNewsItemFromMatched(itemMatcher, "Incoming " + attackType.getName()));
-                        matchFound = true;
-                        break;
-                    }
-                }
-
-                Pattern outgoingAttackNewsPattern = attackType.getOutgoingAttackNewsPattern();
-                if (outgoingAttackNewsPattern != null) {
-                    itemMatcher = outgoingAttackNewsPattern.matcher(potentialMatch);
-                    if (itemMatcher.find()) {
-                        out.add(getNewsItemFromMatched(itemMatcher, "Outgoing " + attackType.getName()));
-                        matchFound = true;
-                        break;
-                    }
-                }
-            }
-            if (!matchFound) {
-                for (Map.Entry<String, Pattern> type : nonAttackNewsTypes.getAll().entrySet()) {
-                    itemMatcher = type.getValue().matcher(potentialMatch);
-                    if (itemMatcher.find()) {
-                        out.add(getNewsItemFromMatched(itemMatcher, type.getKey()));
-                        break;
-                    }
-                }
+            String potentialMatch = matcher.group(0).trim();
+            NewsClassifier.Classified classified = classifier.classify(potentialMatch);
+            if (classified == null) {
+                unrecognized.add(potentialMatch.substring(matcher.group("date").length()).trim());
+            } else {
+                out.add(getNewsItemFromMatched(classified.getMatcher(), classified.getNewsType()));
             }
         }
         return out;
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.scripts;
+
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j;
+import spi.runtime.RequiresShutdown;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static tools.UtopiaPropertiesConfig.*;
+
+/**
+ * Runs scripts with a time limit per invocation, and keeps statistics about how long they take and how often they fail.
+ * <p/>
+ * Scripts can either be called on the current thread, which is what commands do since they have to run in the command's
+ * transaction, or be submitted to a dedicated pool with a bounded queue, which is what event listeners do so that the
+ * scripts can't hog the threads the rest of the bot uses. Either way the thread running the script is interrupted once the
+ * time limit is reached, and the instance of the script it used is thrown away, since there's no telling what state it was
+ * left in. A script that ignores the interrupt keeps its thread busy until it's done, but nobody waits for it meanwhile.
+ */
+@Singleton
+@Log4j
+@ParametersAreNonnullByDefault
+public class ScriptExecutor implements RequiresShutdown {
+    private final ThreadingManager threadingManager;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, ScriptStatistics> statistics = new ConcurrentHashMap<>();
+
+    @Inject
+    public ScriptExecutor(final ThreadingManager threadingManager, final PropertiesCollection properties) {
+        this(threadingManager, properties.getInteger(SCRIPTS_THREADS), properties.getInteger(SCRIPTS_QUEUE_SIZE),
+                TimeUnit.SECONDS.toMillis(properties.getInteger(SCRIPTS_TIMEOUT)));
+    }
+
+    public ScriptExecutor(final ThreadingManager threadingManager, final int threads, final int queueSize, final long timeoutMillis) {
+        checkArgument(threads > 0 && queueSize > 0 && timeoutMillis > 0, "The threads, queue size and timeout must be positive");
+        this.threadingManager = threadingManager;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("Script-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Calls the script on the current thread, and waits for it to finish
+     *
+     * @param pool the script
+     * @param call what to do with it
+     * @return the result of the call
+     * @throws TimeoutException if no instance of the script became available in time, or the call took too long
+     * @throws Throwable        anything the call throws
+     */
+    public <T> T call(final ScriptPool pool, final ScriptCall<T> call) throws Throwable {
+        return invoke(pool, call);
+    }
+
+    /**
+     * Calls the script on the script pool without waiting for it. Failures are logged.
+     *
+     * @param pool the script
+     * @param call what to do with it
+     */
+    public void submit(final ScriptPool pool, final ScriptCall<?> call) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        invoke(pool, call);
+                    } catch (TimeoutException e) {
+                        ScriptExecutor.log.warn(e.getMessage());
+                    } catch (Throwable throwable) {
+                        ScriptExecutor.log.error("Script " + pool.getName() + " threw exception", throwable);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            getStatistics(pool.getName()).addRejection();
+            ScriptExecutor.log.warn("Too many scripts waiting to run, skipped a call to " + pool.getName());
+        }
+    }
+
+    /**
+     * @return the statistics for every script that has been invoked, the most time consuming first
+     */
+    public List<ScriptStatistics> getStatistics() {
+        List<ScriptStatistics> out = new ArrayList<>(statistics.size());
+        for (ScriptStatistics scriptStatistics : statistics.values()) {
+            out.add(scriptStatistics.copy());
+        }
+        Collections.sort(out, new Comparator<ScriptStatistics>() {
+            @Override
+            public int compare(final ScriptStatistics o1, final ScriptStatistics o2) {
+                return Long.compare(o2.getMillis(), o1.getMillis());
+            }
+        });
+        return out;
+    }
+
+    public void resetStatistics() {
+        statistics.clear();
+    }
+
+    private ScriptStatistics getStatistics(final String script) {
+        ScriptStatistics scriptStatistics = statistics.get(script);
+        if (scriptStatistics == null) {
+            ScriptStatistics newStatistics = new ScriptStatistics(script);
+            scriptStatistics = statistics.putIfAbsent(script, newStatistics);
+            if (scriptStatistics == null) scriptStatistics = newStatistics;
+        }
+        return scriptStatistics;
+    }
+
+    private <T> T invoke(final ScriptPool pool, final ScriptCall<T> call) throws Throwable {
+        ScriptStatistics scriptStatistics = getStatistics(pool.getName());
+        long start = System.nanoTime();
+        ScriptInstance instance;
+        try {
+            instance = pool.borrow(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            scriptStatistics.addRejection();
+            throw e;
+        }
+
+        long remainingMillis = Math.max(1, timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        Watchdog watchdog = new Watchdog(Thread.currentThread(), pool, instance);
+        ScheduledFuture<?> watchdogFuture = threadingManager.schedule(watchdog, remainingMillis, TimeUnit.MILLISECONDS);
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = call.call(instance);
+        } catch (Throwable throwable) {
+            failure = throwable;
+        }
+        watchdogFuture.cancel(false);
+        boolean timedOut = watchdog.stop();
+        long nanos = System.nanoTime() - start;
+
+        if (timedOut) {
+            scriptStatistics.addTimeout(nanos);
+            throw new TimeoutException("Script " + pool.getName() + " was stopped after running for " + timeoutMillis + " ms");
+        }
+        pool.release(instance);
+        scriptStatistics.addInvocation(nanos, failure != null);
+        if (failure != null) throw failure;
+        return result;
+    }
+
+    @Override
+    public Runnable getShutdownRunner() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executor.shutdownNow();
+            }
+        };
+    }
+
+    /**
+     * Interrupts a script that's taking too long
+     */
+    private static class Watchdog implements Runnable {
+        private final Thread thread;
+        private final ScriptPool pool;
+        private final ScriptInstance instance;
+        private boolean running = true;
+        private boolean fired;
+
+        private Watchdog(final Thread thread, final ScriptPool pool, final ScriptInstance instance) {
+            this.thread = thread;
+            this.pool = pool;
+            this.instance = instance;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!running) return;
+            fired = true;
+            pool.discard(instance);
+            thread.interrupt();
+        }
+
+        /**
+         * Must be called from the thread running the script once it's done
+         *
+         * @return true if the script took too long
+         */
+        private synchronized boolean stop() {
+            running = false;
+            //Don't let the interrupt leak into whatever the thread does next
+            if (fired) Thread.interrupted();
+            return fired;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.scripts;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One engine that a script has been evaluated in
+ */
+@ParametersAreNonnullByDefault
+public final class ScriptInstance {
+    private final ScriptEngine engine;
+    private final Map<Class<?>, Object> interfaces = new HashMap<>();
+    private volatile boolean discarded;
+
+    ScriptInstance(final ScriptEngine engine) {
+        this.engine = engine;
+    }
+
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @param type the interface
+     * @return an implementation of the interface backed by the functions in the script, or null if the script doesn't
+     *         implement it
+     */
+    @Nullable
+    public synchronized <T> T getInterface(final Class<T> type) {
+        if (!(engine instanceof Invocable)) return null;
+        if (!interfaces.containsKey(type)) interfaces.put(type, ((Invocable) engine).getInterface(type));
+        return type.cast(interfaces.get(type));
+    }
+
+    boolean isDiscarded() {
+        return discarded;
+    }
+
+    void setDiscarded() {
+        discarded = true;
+    }
+}
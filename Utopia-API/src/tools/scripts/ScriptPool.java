@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.scripts;
+
+import api.tools.files.FileUtil;
+import com.google.common.base.Charsets;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.script.Compilable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static api.tools.text.StringUtil.merge;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The evaluated instances of one script file.
+ * <p/>
+ * The file is read once, and each instance is a separate engine that the script has been compiled (if the engine supports
+ * it) and evaluated in once. An instance is only used by one invocation at a time, unless the engine says it's thread safe,
+ * in which case one instance is shared by everyone. Instances are created as they're needed, up to the max.
+ */
+@ParametersAreNonnullByDefault
+public final class ScriptPool {
+    private final Path file;
+    private final String source;
+    private final ScriptEngineManager manager;
+    private final String extension;
+    private final int maxInstances;
+    private final BlockingQueue<ScriptInstance> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger instances = new AtomicInteger();
+    private final ScriptInstance sharedInstance;
+
+    private ScriptPool(final Path file, final String source, final ScriptEngineManager manager, final String extension,
+                       final int maxInstances) throws ScriptException {
+        this.file = file;
+        this.source = source;
+        this.manager = manager;
+        this.extension = extension;
+        this.maxInstances = maxInstances;
+
+        //Creating the first instance right away makes sure the script actually compiles
+        ScriptInstance first = createInstance();
+        instances.incrementAndGet();
+        if (first.getEngine().getFactory().getParameter("THREADING") == null) {
+            sharedInstance = null;
+            idle.add(first);
+        } else sharedInstance = first;
+    }
+
+    /**
+     * Reads the script file and evaluates it once
+     *
+     * @param manager      the manager to get script engines from
+     * @param file         the script file, whose extension decides which engine is used
+     * @param maxInstances the max amount of instances of the script
+     * @return a new pool
+     * @throws ScriptException if the file can't be read or evaluated, or there's no engine for it
+     */
+    public static ScriptPool load(final ScriptEngineManager manager, final Path file, final int maxInstances) throws ScriptException {
+        checkArgument(maxInstances > 0, "There must be room for at least one instance");
+        String extension = FileUtil.getFileExtension(file);
+        try {
+            String source = merge(Files.readAllLines(file, Charsets.UTF_8), '\n');
+            return new ScriptPool(file, source, manager, extension, maxInstances);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getName() {
+        return file.getFileName().toString();
+    }
+
+    /**
+     * Gets an instance for exclusive use, which has to be handed back through either release or discard afterwards
+     *
+     * @param timeout how long to wait at most for an instance to become available
+     * @param unit    the unit of the timeout
+     * @return an instance
+     * @throws ScriptException      if a new instance had to be created, but the script could not be evaluated
+     * @throws TimeoutException     if all the instances were in use for the entire timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    ScriptInstance borrow(final long timeout, final TimeUnit unit) throws ScriptException, TimeoutException, InterruptedException {
+        if (sharedInstance != null) return sharedInstance;
+
+        ScriptInstance instance = idle.poll();
+        if (instance != null) return instance;
+
+        if (instances.incrementAndGet() <= maxInstances) {
+            try {
+                return createInstance();
+            } catch (ScriptException | RuntimeException e) {
+                instances.decrementAndGet();
+                throw e;
+            }
+        }
+        instances.decrementAndGet();
+
+        instance = idle.poll(timeout, unit);
+        if (instance == null) throw new TimeoutException("All " + maxInstances + " instances of " + getName() + " were busy");
+        return instance;
+    }
+
+    /**
+     * Hands back an instance so that it can be used again
+     */
+    void release(final ScriptInstance instance) {
+        if (instance != sharedInstance && !instance.isDiscarded()) idle.add(instance);
+    }
+
+    /**
+     * Throws away an instance that may no longer be in a usable state, making room for a new one
+     */
+    void discard(final ScriptInstance instance) {
+        if (instance == sharedInstance || instance.isDiscarded()) return;
+        instance.setDiscarded();
+        instances.decrementAndGet();
+    }
+
+    private ScriptInstance createInstance() throws ScriptException {
+        ScriptEngine engine = manager.getEngineByExtension(extension);
+        if (engine == null) throw new ScriptException("Unknown script extension (no ScriptEngine exists): " + extension);
+        if (engine instanceof Compilable) ((Compilable) engine).compile(source).eval();
+        else engine.eval(source);
+        return new ScriptInstance(engine);
+    }
+}
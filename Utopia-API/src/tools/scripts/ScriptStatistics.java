@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.scripts;
+
+/**
+ * Statistics about the invocations of one script
+ */
+public final class ScriptStatistics {
+    private final String script;
+    private long invocations;
+    private long failures;
+    private long timeouts;
+    private long rejections;
+    private long nanos;
+    private long maxNanos;
+
+    ScriptStatistics(final String script) {
+        this.script = script;
+    }
+
+    private ScriptStatistics(final ScriptStatistics other) {
+        this.script = other.script;
+        this.invocations = other.invocations;
+        this.failures = other.failures;
+        this.timeouts = other.timeouts;
+        this.rejections = other.rejections;
+        this.nanos = other.nanos;
+        this.maxNanos = other.maxNanos;
+    }
+
+    synchronized void addInvocation(final long nanos, final boolean failed) {
+        ++invocations;
+        this.nanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (failed) ++failures;
+    }
+
+    synchronized void addTimeout(final long nanos) {
+        addInvocation(nanos, true);
+        ++timeouts;
+    }
+
+    synchronized void addRejection() {
+        ++rejections;
+    }
+
+    synchronized ScriptStatistics copy() {
+        return new ScriptStatistics(this);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * @return the amount of invocations that threw an exception or timed out
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * @return the amount of invocations that never ran, because the queue was full or no instance became available in time
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    public double getAverageMillis() {
+        return invocations == 0 ? 0 : nanos / 1_000_000.0 / invocations;
+    }
+
+    public long getMaxMillis() {
+        return maxNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.time;
+
+import api.tools.time.DateUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import tools.parsing.UtopiaValidationType;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Date;
+import java.util.regex.Matcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A precomputed tick calendar for one age. Every tick of the age is mapped to its UtopiaTime up front,
+ * so converting between tick index, real life time and utopian date is a constant time lookup.
+ * <p/>
+ * A calendar is immutable and only valid for the age start and tick length it was created with.
+ */
+@ParametersAreNonnullByDefault
+public final class UtopiaCalendar {
+    public static final int DAYS_PER_MONTH = 24;
+    public static final int TICKS_PER_YEAR = DAYS_PER_MONTH * UtopiaMonth.values().length;
+    /**
+     * The amount of years that are precomputed. Ages are far shorter than this, but times beyond it still work,
+     * they're just calculated on demand
+     */
+    static final int PRECOMPUTED_YEARS = 20;
+
+    private static final Cache<String, Integer> PARSED_DATES = CacheBuilder.newBuilder().maximumSize(2048).build();
+
+    private final long ageStart;
+    private final int tickLength;
+    private final long tickLengthInMillis;
+    private final UtopiaTime[] ticks;
+
+    UtopiaCalendar(final Date ageStart, final int tickLength) {
+        if (tickLength <= 0) throw new IllegalArgumentException("Tick length must be positive: " + tickLength);
+        this.ageStart = checkNotNull(ageStart).getTime();
+        this.tickLength = tickLength;
+        this.tickLengthInMillis = DateUtil.minutesToMillis((long) tickLength);
+        this.ticks = new UtopiaTime[PRECOMPUTED_YEARS * TICKS_PER_YEAR];
+        for (int i = 0; i < ticks.length; ++i) {
+            ticks[i] = new UtopiaTime(this, i);
+        }
+    }
+
+    /**
+     * @param tick the tick index, counted from the start of the age (YR0 January 1st is tick 0)
+     * @return the UtopiaTime for the specified tick. Negative ticks are treated as the start of the age
+     */
+    public UtopiaTime fromTick(final int tick) {
+        if (tick <= 0) return ticks[0];
+        if (tick < ticks.length) return ticks[tick];
+        return new UtopiaTime(this, tick);
+    }
+
+    /**
+     * @param time the real life time
+     * @return the UtopiaTime covering the specified time. Times before the age start are treated as the start of the age
+     */
+    public UtopiaTime fromTime(final long time) {
+        return fromTick(tickOf(time));
+    }
+
+    /**
+     * @param utopiaDate a utopian date, such as "May 5 of YR2" or "May 5, YR2"
+     * @return the UtopiaTime for the specified date
+     * @throws IllegalArgumentException if the date isn't correctly formatted
+     */
+    public UtopiaTime fromUtopiaDate(final String utopiaDate) {
+        return fromTick(parseTick(utopiaDate));
+    }
+
+    /**
+     * @param time the real life time
+     * @return the index of the tick covering the specified time
+     */
+    public int tickOf(final long time) {
+        if (time <= ageStart) return 0;
+        long tick = (time - ageStart) / tickLengthInMillis;
+        return tick > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) tick;
+    }
+
+    /**
+     * @param tick the tick index
+     * @return the real life time at which the specified tick starts
+     */
+    public long timeOf(final int tick) {
+        return ageStart + tick * tickLengthInMillis;
+    }
+
+    /**
+     * @return the start of the age this calendar represents
+     */
+    public Date getAgeStart() {
+        return new Date(ageStart);
+    }
+
+    /**
+     * @return the tick length in minutes
+     */
+    public int getTickLength() {
+        return tickLength;
+    }
+
+    /**
+     * @return the tick length in milliseconds
+     */
+    public long getTickLengthInMillis() {
+        return tickLengthInMillis;
+    }
+
+    /**
+     * Parses a utopian date into a tick index. Tick indexes don't depend on the age start or tick length, so the
+     * results are cached and shared between calendars.
+     *
+     * @param utopiaDate a utopian date, such as "May 5 of YR2" or "May 5, YR2"
+     * @return the tick index of the specified date
+     * @throws IllegalArgumentException if the date isn't correctly formatted
+     */
+    public static int parseTick(final String utopiaDate) {
+        Integer cached = PARSED_DATES.getIfPresent(checkNotNull(utopiaDate));
+        if (cached != null) return cached;
+
+        Matcher matcher = UtopiaValidationType.UTODATE_WITH_GROUPS.getPattern().matcher(utopiaDate);
+        if (!matcher.matches()) throw new IllegalArgumentException("Utodate not correctly formatted: " + utopiaDate);
+
+        int year = Integer.parseInt(matcher.group("year"));
+        UtopiaMonth month = UtopiaMonth.fromName(matcher.group("month"));
+        int day = Integer.parseInt(matcher.group("day"));
+        int tick = Math.max(year * TICKS_PER_YEAR + month.getId() * DAYS_PER_MONTH + day - 1, 0);
+
+        PARSED_DATES.put(utopiaDate, tick);
+        return tick;
+    }
+}
@@ -27,69 +27,34 @@
 
 package tools.time;
 
-import api.tools.time.DateUtil;
-import tools.parsing.UtopiaValidationType;
-
 import java.util.Date;
-import java.util.regex.Matcher;
 
 /**
  * A class that represents time, meaning both utopia time and the corresponding real life time
  */
 public class UtopiaTime implements Comparable<UtopiaTime> {
-    private final int tickLength;
-    private final Date ageStart;
+    private final UtopiaCalendar calendar;
+    private final int tick;
     private final int utyear;
     private final UtopiaMonth utmonth;
     private final int utday;
     private final long time;
 
-    UtopiaTime(final Long time, final Date ageStart, final int tickLength) {
-        this.tickLength = tickLength;
-        this.ageStart = ageStart;
-
-        long ageStartTime = ageStart.getTime();
-        long timeDifferenceInSeconds = Math.max((time - ageStartTime) / 1000L, 0);
-
-        long utoYearLength = 7L * 24 * tickLength * 60;
-        long utoMonthLength = 24L * tickLength * 60;
-        long utoDayLength = 60L * tickLength;
-
-        this.utyear = (int) (timeDifferenceInSeconds / utoYearLength);
-        this.utmonth = UtopiaMonth.fromId((int) (timeDifferenceInSeconds % utoYearLength / utoMonthLength));
-        this.utday = (int) (timeDifferenceInSeconds % utoYearLength % utoMonthLength / utoDayLength + 1);
-
-        this.time = ageStartTime +
-                DateUtil.minutesToMillis(utyear * 7 * 24 * tickLength + utmonth.getId() * 24 * tickLength + (utday - 1) * tickLength);
-    }
-
-    UtopiaTime(final String utdate, final Date ageStart, final int tickLength) {
-        this.tickLength = tickLength;
-        this.ageStart = ageStart;
+    UtopiaTime(final UtopiaCalendar calendar, final int tick) {
+        this.calendar = calendar;
+        this.tick = tick;
 
-        Matcher matcher = UtopiaValidationType.UTODATE_WITH_GROUPS.getPattern().matcher(utdate);
-        if (!matcher.matches()) throw new IllegalArgumentException("Utodate not correctly formatted: " + utdate);
+        this.utyear = tick / UtopiaCalendar.TICKS_PER_YEAR;
+        this.utmonth = UtopiaMonth.fromId(tick % UtopiaCalendar.TICKS_PER_YEAR / UtopiaCalendar.DAYS_PER_MONTH);
+        this.utday = tick % UtopiaCalendar.DAYS_PER_MONTH + 1;
 
-        this.utyear = Integer.parseInt(matcher.group("year"));
-        this.utmonth = UtopiaMonth.fromName(matcher.group("month"));
-        this.utday = Integer.parseInt(matcher.group("day"));
-
-        this.time = ageStart.getTime() +
-                DateUtil.minutesToMillis(utyear * 7 * 24 * tickLength + utmonth.getId() * 24 * tickLength + (utday - 1) * tickLength);
+        this.time = calendar.timeOf(tick);
     }
 
     public static Date calculateAgeStart(final String newCurrentUtoDate, final UtopiaTime currentUtoDate) {
-        Matcher matcher = UtopiaValidationType.UTODATE_WITH_GROUPS.getPattern().matcher(newCurrentUtoDate);
-        if (!matcher.matches()) throw new IllegalArgumentException("Unparsable uto date: " + newCurrentUtoDate);
-        int utyearDiff = Integer.parseInt(matcher.group("year")) - currentUtoDate.getYear();
-        int utmonthDiff = UtopiaMonth.fromName(matcher.group("month")).getId() - currentUtoDate.getMonth().getId();
-        int utdayDiff = Integer.parseInt(matcher.group("day")) - currentUtoDate.getDay();
-
-        int tickLength = currentUtoDate.tickLength;
-        long totalDiff = DateUtil
-                .minutesToMillis(utyearDiff * 7 * 24 * tickLength + utmonthDiff * 24 * tickLength + utdayDiff * tickLength);
-
-        return new Date(currentUtoDate.ageStart.getTime() - totalDiff);
+        int tickDiff = UtopiaCalendar.parseTick(newCurrentUtoDate) - currentUtoDate.tick;
+        UtopiaCalendar calendar = currentUtoDate.calendar;
+        return new Date(calendar.getAgeStart().getTime() - tickDiff * calendar.getTickLengthInMillis());
     }
 
     /**
@@ -139,6 +104,13 @@ public class UtopiaTime implements Comparable<UtopiaTime> {
         return utyear;
     }
 
+    /**
+     * @return the index of the tick this object represents, counted from the start of the age
+     */
+    public int getTick() {
+        return tick;
+    }
+
     /**
      * @return the real life time represented by this object
      */
@@ -190,6 +162,6 @@ public class UtopiaTime implements Comparable<UtopiaTime> {
      * @return a new UtopiaTime instance with the amount of ticks added.
      */
     public UtopiaTime increment(final int ticks) {
-        return new UtopiaTime(DateUtil.minutesToMillis(ticks * 1L * tickLength) + time, ageStart, tickLength);
+        return calendar.fromTick(tick + ticks);
     }
 }
@@ -28,23 +28,46 @@
 package tools.time;
 
 import api.settings.PropertiesCollection;
+import api.tools.numbers.NumberUtil;
+import api.tools.time.DateFactory;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 
 import static tools.UtopiaPropertiesConfig.AGE_START;
 import static tools.UtopiaPropertiesConfig.TICK_LENGTH;
 
 /**
- * A factory for creating UtopiaTime objects
+ * A factory for creating UtopiaTime objects.
+ * <p/>
+ * The calendar for the current age is built once and then reused until the age start or tick length settings change.
  */
+@Singleton
 public class UtopiaTimeFactory {
     private final PropertiesCollection properties;
+    private volatile CalendarHolder calendarHolder;
 
     @Inject
     public UtopiaTimeFactory(final PropertiesCollection properties) {
         this.properties = properties;
     }
 
+    /**
+     * @return the calendar for the current age
+     */
+    public UtopiaCalendar getCalendar() {
+        String ageStart = properties.get(AGE_START);
+        String tickLength = properties.get(TICK_LENGTH);
+
+        CalendarHolder holder = calendarHolder;
+        if (holder == null || !holder.isFor(ageStart, tickLength)) {
+            holder = new CalendarHolder(ageStart, tickLength,
+                    new UtopiaCalendar(DateFactory.newGMTDate(ageStart), NumberUtil.parseInt(tickLength)));
+            calendarHolder = holder;
+        }
+        return holder.calendar;
+    }
+
     /**
      * Creates a new UtopiaTime based on the real life time provided
      *
@@ -52,7 +75,7 @@ public class UtopiaTimeFactory {
      * @return a new UtopiaTime object
      */
     public UtopiaTime newUtopiaTime(final Long time) {
-        return new UtopiaTime(time, properties.getDate(AGE_START), properties.getInteger(TICK_LENGTH));
+        return getCalendar().fromTime(time);
     }
 
     /**
@@ -62,6 +85,22 @@ public class UtopiaTimeFactory {
      * @return a new UtopiaTime object
      */
     public UtopiaTime newUtopiaTime(final String time) {
-        return new UtopiaTime(time, properties.getDate(AGE_START), properties.getInteger(TICK_LENGTH));
+        return getCalendar().fromUtopiaDate(time);
+    }
+
+    private static class CalendarHolder {
+        private final String ageStart;
+        private final String tickLength;
+        private final UtopiaCalendar calendar;
+
+        private CalendarHolder(final String ageStart, final String tickLength, final UtopiaCalendar calendar) {
+            this.ageStart = ageStart;
+            this.tickLength = tickLength;
+            this.calendar = calendar;
+        }
+
+        private boolean isFor(final String ageStart, final String tickLength) {
+            return this.ageStart.equals(ageStart) && this.tickLength.equals(tickLength);
+        }
     }
 }
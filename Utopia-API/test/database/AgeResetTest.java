@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.JDBCWorkExecutor;
+import api.database.models.AccessLevel;
+import api.database.models.BotUser;
+import api.database.models.UserStatistic;
+import api.runtime.ThreadingManager;
+import api.timers.TimerManager;
+import com.google.inject.util.Providers;
+import database.daos.IntelDAO;
+import database.daos.KingdomDAO;
+import database.daos.ProvinceDAO;
+import database.models.*;
+import org.hibernate.Session;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+import static org.testng.Assert.*;
+
+/**
+ * Makes sure the age reset removes the same things as deleting the kingdoms and provinces through Hibernate did, and that it
+ * can be started again after being interrupted.
+ */
+@Test
+public class AgeResetTest {
+    private static final int KINGDOMS = 4;
+    private static final int PROVINCES_PER_KINGDOM = 5;
+    private static final int USERS = 3;
+
+    private final List<InMemoryDatabase> databases = new ArrayList<>();
+
+    @AfterMethod
+    public void tearDown() {
+        for (InMemoryDatabase database : databases) {
+            database.close();
+        }
+        databases.clear();
+    }
+
+    public void testSameResultAsDeletingEntities() throws SQLException {
+        InMemoryDatabase oldWay = createSeededDatabase("age_reset_old", false);
+        InMemoryDatabase newWay = createSeededDatabase("age_reset_new", false);
+        Map<String, Long> countsBefore = countRows(newWay);
+
+        resetTheOldWay(oldWay);
+        reset(newWay, 7, null);
+
+        Map<String, Long> expected = countRows(oldWay);
+        assertEquals(countRows(newWay), expected);
+        for (String table : AgeReset.getTablesInDeleteOrder()) {
+            assertEquals(expected.get(table).longValue(), 0L, table + " wasn't emptied");
+        }
+        //Make sure the comparison isn't trivial
+        for (String table : Arrays.asList("province", "kingdom", "sot", "som", "army", "target", "user_statistic")) {
+            assertTrue(countsBefore.get(table) > 0, "Nothing was seeded for " + table);
+        }
+        assertEquals(expected.get("bot_user").longValue(), USERS);
+        assertEquals(expected.get("forum_post").longValue(), 1L);
+    }
+
+    public void testResumesAfterBeingInterrupted() throws SQLException {
+        InMemoryDatabase database = createSeededDatabase("age_reset_resume", true);
+        Map<String, Long> countsBefore = countRows(database);
+        assertTrue(countsBefore.get("bindings") > 0);
+
+        final int interruptAfter = 10;
+        AgeReset.ProgressListener interruptingListener = new AgeReset.ProgressListener() {
+            private int calls;
+
+            @Override
+            public void onProgress(final String table, final long removed, final long total) {
+                if (++calls > interruptAfter) throw new IllegalStateException("Interrupted");
+            }
+        };
+        try {
+            reset(database, 3, interruptingListener);
+            fail("The reset should have been interrupted");
+        } catch (IllegalStateException ignore) {
+        }
+        Map<String, Long> countsInBetween = countRows(database);
+        assertTrue(countsInBetween.get("army") < countsBefore.get("army"), "Nothing was removed before the interruption");
+        assertTrue(countsInBetween.get("province") > 0, "The reset wasn't interrupted");
+
+        reset(database, 3, null);
+
+        Map<String, Long> countsAfter = countRows(database);
+        for (String table : AgeReset.getTablesInDeleteOrder()) {
+            assertEquals(countsAfter.get(table).longValue(), 0L, table + " wasn't emptied");
+        }
+        //The bindings belonged to the targets, while the users, races and forum aren't age specific
+        assertEquals(countsAfter.get("bindings").longValue(), 0L);
+        assertEquals(countsAfter.get("botuser_binding").longValue(), 0L);
+        assertEquals(countsAfter.get("bot_user"), countsBefore.get("bot_user"));
+        assertEquals(countsAfter.get("race"), countsBefore.get("race"));
+        assertEquals(countsAfter.get("forum_post"), countsBefore.get("forum_post"));
+    }
+
+    /**
+     * What DatabaseCleaner used to do, in one transaction
+     */
+    private static void resetTheOldWay(final InMemoryDatabase database) throws SQLException {
+        KingdomDAO kingdomDAO = new KingdomDAO(database, null);
+        ThreadingManager threadingManager = new ThreadingManager(1);
+        ProvinceDAO provinceDAO = new ProvinceDAO(database, null, Providers.of(new TimerManager(threadingManager)));
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            new IntelDAO(database, kingdomDAO, null).clearIntel(new Date(), new JDBCWorkExecutor(database));
+            for (Kingdom kingdom : kingdomDAO.getAllKingdoms()) {
+                provinceDAO.delete(kingdom.getProvinces());
+                kingdomDAO.delete(kingdom);
+            }
+            for (Object user : session.createCriteria(BotUser.class).list()) {
+                ((BotUser) user).getStats().clear();
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            session.getTransaction().rollback();
+            throw e;
+        } finally {
+            threadingManager.getShutdownRunner().run();
+        }
+    }
+
+    private static void reset(final InMemoryDatabase database, final int chunkSize, final AgeReset.ProgressListener listener)
+            throws SQLException {
+        final List<Long> progress = new ArrayList<>();
+        Connection connection = database.getConnectionProvider().getConnection();
+        try {
+            new AgeReset(chunkSize).reset(connection, new AgeReset.ProgressListener() {
+                @Override
+                public void onProgress(final String table, final long removed, final long total) {
+                    if (!progress.isEmpty()) assertTrue(removed >= progress.get(progress.size() - 1));
+                    progress.add(removed);
+                    if (listener != null) listener.onProgress(table, removed, total);
+                }
+            });
+        } finally {
+            database.getConnectionProvider().closeConnection(connection);
+        }
+    }
+
+    private InMemoryDatabase createSeededDatabase(final String name, final boolean includeUnsupportedByOldWay) {
+        InMemoryDatabase database = new InMemoryDatabase(name, null);
+        databases.add(database);
+
+        Session session = database.get();
+        session.beginTransaction();
+        Date past = new Date(System.currentTimeMillis() - 60 * 60 * 1000L);
+        Date future = new Date(System.currentTimeMillis() + 60 * 60 * 1000L);
+
+        List<BotUser> users = new ArrayList<>();
+        for (int i = 0; i < USERS; ++i) {
+            BotUser user = new BotUser("User" + i, false, false);
+            user.getStats().add(new UserStatistic(user, "Attacks", i + 1));
+            user.getStats().add(new UserStatistic(user, "Ops", i + 2));
+            session.save(user);
+            users.add(user);
+        }
+        session.save(new Race("Race", "RA", "", "", ""));
+        ForumSection section = new ForumSection("Section", AccessLevel.USER);
+        session.save(section);
+        ForumThread thread = new ForumThread(section, "Thread", "User0");
+        session.save(thread);
+        session.save(new ForumPost(users.get(0), thread, "Post"));
+        SpellType spellType = new SpellType("Spell", "SP", "Effects", null, null, SpellOpCharacter.FADING_SPELLOP_WITH_PROVINCE,
+                new HashSet<Bonus>());
+        session.save(spellType);
+        OpType opType = new OpType("Op", "OP", "Effects", null, null, SpellOpCharacter.FADING_SPELLOP_WITH_PROVINCE, new HashSet<Bonus>());
+        session.save(opType);
+
+        Province previous = null;
+        for (int k = 0; k < KINGDOMS; ++k) {
+            Kingdom kingdom = new Kingdom("(" + k + ":1)");
+            session.save(kingdom);
+            for (int p = 0; p < PROVINCES_PER_KINGDOM; ++p) {
+                BotUser user = users.get(p % USERS);
+                Province province = new Province("Province " + k + '_' + p, kingdom);
+                session.save(province);
+
+                session.save(new SoT(province, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 100, 0, false, "normal", false, past, "", "User0", 100));
+                Army army = new Army(province, 1, Army.ArmyType.ARMY_OUT, past, 10);
+                SoM som = new SoM(province, 100, 200, past, "", "User0", Collections.singletonList(army), 100);
+                army.setSom(som);
+                session.save(som);
+                session.save(army);
+                session.save(new SoS(province, new ArrayList<SoSEntry>(), past, "", "User0", 100));
+                session.save(new Survey(province, new ArrayList<SurveyEntry>(), past, "", "User0", 100));
+                session.save(new Aid(province, AidType.FOOD, AidImportanceType.OFFERING_AID, 1000));
+                session.save(new DurationSpell(user, province, future, spellType));
+                session.save(new InstantSpell(user, province, 10, spellType));
+                session.save(new DurationOp(user, province, future, opType));
+                session.save(new InstantOp(user, province, 10, opType));
+                if (k == 0 && p < USERS) {
+                    //Users only have one of each
+                    session.save(new UserCheckIn(user, province, "Checked in"));
+                    session.save(new UserSpellOpTarget(user, province));
+                }
+                if (previous != null) session.save(new Attack(previous, province, "10 acres", 100, 1000, AttackType.TM, past));
+
+                if (includeUnsupportedByOldWay) {
+                    //Hitters and armies that aren't from a SoM can't be removed through the old cascades, and bindings were left behind
+                    Bindings bindings = new Bindings();
+                    bindings.addUser(user);
+                    Target target = new Target(province, Target.TargetType.FARM, "Details", bindings);
+                    target.insertHitter(user, 1);
+                    session.save(target);
+                    session.save(new Army(province, 2, Army.ArmyType.IRC_ARMY_OUT, future, 20));
+                } else session.save(new Target(province, Target.TargetType.FARM, "Details", null));
+                previous = province;
+            }
+        }
+        session.getTransaction().commit();
+        return database;
+    }
+
+    private static Map<String, Long> countRows(final InMemoryDatabase database) throws SQLException {
+        Map<String, Long> counts = new TreeMap<>();
+        Connection connection = database.getConnectionProvider().getConnection();
+        try (Statement statement = connection.createStatement()) {
+            List<String> tables = new ArrayList<>();
+            try (ResultSet resultSet = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[]{"TABLE"})) {
+                while (resultSet.next()) {
+                    tables.add(resultSet.getString("TABLE_NAME").toLowerCase());
+                }
+            }
+            for (String table : tables) {
+                try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    resultSet.next();
+                    counts.put(table, resultSet.getLong(1));
+                }
+            }
+        } finally {
+            database.getConnectionProvider().closeConnection(connection);
+        }
+        return counts;
+    }
+}
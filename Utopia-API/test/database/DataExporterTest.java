@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.BotUser;
+import database.export.DataExporter;
+import database.export.ExportCriteria;
+import database.export.ExportFormat;
+import database.export.ExportType;
+import database.models.*;
+import org.hibernate.Session;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test
+public class DataExporterTest {
+    private static final int NEWS_ITEMS = 100_000;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private InMemoryDatabase database;
+    private DataExporter exporter;
+    private long newsStart;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        database = new InMemoryDatabase("data_export", null);
+        exporter = new DataExporter(database);
+
+        Session session = database.get();
+        session.beginTransaction();
+        Kingdom ours = new Kingdom("(1:1)");
+        session.save(ours);
+        Kingdom theirs = new Kingdom("(2:2)");
+        session.save(theirs);
+        Kingdom others = new Kingdom("(3:3)");
+        session.save(others);
+        Province attacker = new Province("Attacker, the first", ours);
+        session.save(attacker);
+        Province target = new Province("Target \"quoted\"", theirs);
+        session.save(target);
+        Province bystander = new Province("Bystander", others);
+        session.save(bystander);
+        Date now = new Date();
+        session.save(new Attack(attacker, target, "100 acres", 500, 30000, AttackType.TM, new Date(now.getTime() - HOUR)));
+        session.save(new Attack(target, attacker, "50 acres", 300, 20000, AttackType.TM, now));
+        session.save(new Attack(bystander, bystander, "Nothing", 0, 1000, AttackType.BOUNCE, now));
+        BotUser user = new BotUser("Thief", false, false);
+        session.save(user);
+        OpType opType = new OpType("Rob the Vaults", "RtV", "Steals gold", "", "", SpellOpCharacter.INSTANT_SPELLOP_WITH_PROVINCE,
+                Collections.<Bonus>emptySet());
+        session.save(opType);
+        session.save(new InstantOp(user, target, 12000, 3, opType));
+        session.getTransaction().commit();
+
+        newsStart = now.getTime() - NEWS_ITEMS * 1000L;
+        Connection connection = database.getConnectionProvider().getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO news_item (source, target, news_type, item_value, uto_date, real_date, original_message, content_hash) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < NEWS_ITEMS; ++i) {
+                statement.setString(1, "Province " + i + " (1:1)");
+                statement.setString(2, "Province " + i + (i % 2 == 0 ? " (2:2)" : " (3:3)"));
+                statement.setString(3, "TRADITIONAL_MARCH");
+                statement.setString(4, String.valueOf(i));
+                statement.setString(5, "January 1 of YR1");
+                statement.setTimestamp(6, new Timestamp(newsStart + i * 1000L));
+                statement.setString(7, "Province " + i + " captured " + i + " acres of land, \"news\"\nfrom Province " + i);
+                statement.setString(8, String.format("%040d", i));
+                statement.addBatch();
+                if (i % 1000 == 999) statement.executeBatch();
+            }
+            statement.executeBatch();
+            if (!connection.getAutoCommit()) connection.commit();
+        } finally {
+            database.getConnectionProvider().closeConnection(connection);
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testCsvIsQuotedAndLimitedToKingdom() throws Exception {
+        String csv = export(ExportType.ATTACKS, ExportFormat.CSV, new ExportCriteria(null, null, "(1:1)"));
+        String[] lines = csv.split("\r\n");
+
+        assertEquals(lines.length, 3);
+        assertTrue(lines[0].startsWith("id,date,attacker,attackerKingdom,target,"));
+        assertTrue(lines[1].contains(",\"Attacker, the first\",(1:1),\"Target \"\"quoted\"\"\",(2:2),TM,100 acres,500,30000,"));
+        assertTrue(lines[2].contains(",\"Target \"\"quoted\"\"\",(2:2),\"Attacker, the first\",(1:1),"));
+    }
+
+    public void testJsonHasOneObjectPerLine() throws Exception {
+        String json = export(ExportType.OPS, ExportFormat.NDJSON, ExportCriteria.all());
+
+        assertEquals(json, "{\"id\":1,\"province\":\"Target \\\"quoted\\\"\",\"kingdom\":\"(2:2)\",\"op\":\"Rob the Vaults\"," +
+                "\"committer\":\"Thief\",\"amount\":3,\"damage\":12000}\n");
+    }
+
+    public void testDateRangeAndKingdom() throws Exception {
+        Date from = new Date(newsStart + 1000 * 1000L);
+        Date to = new Date(newsStart + 2000 * 1000L);
+        String json = export(ExportType.NEWS, ExportFormat.NDJSON, new ExportCriteria(from, to, "(2:2)"));
+        String[] lines = json.split("\n");
+
+        //Only every other news item involves (2:2)
+        assertEquals(lines.length, 500);
+        assertTrue(lines[0].startsWith("{\"id\":1001,"));
+        assertTrue(lines[0].contains("\"message\":\"Province 1000 captured 1000 acres of land, \\\"news\\\"\\nfrom Province 1000\"}"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUndatedTypeCanNotBeLimitedByDate() throws Exception {
+        export(ExportType.OPS, ExportFormat.CSV, new ExportCriteria(new Date(), null, null));
+    }
+
+    public void testThroughputAndSessionStaysEmpty() throws Exception {
+        //The first run warms up the query plan and the JIT
+        export(ExportType.NEWS, ExportFormat.CSV, new ExportCriteria(null, null, "(3:3)"));
+
+        CountingWriter writer = new CountingWriter();
+        Session session = database.get();
+        session.beginTransaction();
+        long rows;
+        long nanos;
+        try {
+            long start = System.nanoTime();
+            rows = exporter.export(ExportType.NEWS, ExportFormat.NDJSON, ExportCriteria.all(), writer);
+            nanos = System.nanoTime() - start;
+            assertEquals(session.getStatistics().getEntityCount(), 0);
+        } finally {
+            session.getTransaction().rollback();
+        }
+
+        assertEquals(rows, NEWS_ITEMS);
+        assertEquals(writer.lines, NEWS_ITEMS);
+        long rowsPerSecond = rows * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+        assertTrue(rowsPerSecond >= 10_000, "Only exported " + rowsPerSecond + " rows per second");
+    }
+
+    private String export(final ExportType type, final ExportFormat format, final ExportCriteria criteria) throws IOException {
+        StringWriter writer = new StringWriter();
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            exporter.export(type, format, criteria, writer);
+        } finally {
+            session.getTransaction().rollback();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Throws away what's written, but counts the lines
+     */
+    private static class CountingWriter extends Writer {
+        private long lines;
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) {
+            for (int i = offset; i < offset + length; ++i) {
+                if (buffer[i] == '\n') ++lines;
+            }
+        }
+
+        @Override
+        public void write(final String string, final int offset, final int length) {
+            for (int i = offset; i < offset + length; ++i) {
+                if (string.charAt(i) == '\n') ++lines;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
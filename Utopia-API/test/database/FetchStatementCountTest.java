@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.BotUser;
+import database.daos.KingdomDAO;
+import database.daos.TargetDAO;
+import database.models.*;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Counts the statements sent when loading the entities for the most common commands, and makes sure that the count stays the
+ * same no matter how many provinces are involved, i.e. that nothing is loaded one province at a time.
+ */
+@Test
+public class FetchStatementCountTest {
+    private static final String SMALL_KD = "(1:1)";
+    private static final String FULL_KD = "(2:2)";
+    private static final int MAX_STATEMENTS = 8;
+    private static final int SMALL_KD_PROVINCES = 5;
+    private static final int ARMIES_PER_SOM = 3;
+
+    private InMemoryDatabase database;
+    private KingdomDAO kingdomDAO;
+    private TargetDAO targetDAO;
+
+    @BeforeClass
+    public void setUp() {
+        database = new InMemoryDatabase("fetch_statement_count", null);
+        kingdomDAO = new KingdomDAO(database, null);
+        targetDAO = new TargetDAO(database);
+        addKingdom(SMALL_KD, SMALL_KD_PROVINCES);
+        addKingdom(FULL_KD, FetchPlans.BATCH_SIZE);
+        addTargets(SMALL_KD, Target.TargetType.MANUAL_TARGET);
+        addTargets(FULL_KD, Target.TargetType.GENERATED_TARGET);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testKingdomOverview() {
+        assertBounded(countStatements(new KingdomOverview(SMALL_KD)), countStatements(new KingdomOverview(FULL_KD)));
+    }
+
+    public void testKingdomIntel() {
+        assertBounded(countStatements(new KingdomIntel(SMALL_KD, SMALL_KD_PROVINCES)),
+                countStatements(new KingdomIntel(FULL_KD, FetchPlans.BATCH_SIZE)));
+    }
+
+    public void testTargetListing() {
+        assertBounded(countStatements(new TargetListing(Target.TargetType.MANUAL_TARGET)),
+                countStatements(new TargetListing(Target.TargetType.GENERATED_TARGET)));
+    }
+
+    private static void assertBounded(final long small, final long large) {
+        assertEquals(large, small, "The amount of statements grows with the amount of provinces");
+        assertTrue(large <= MAX_STATEMENTS, large + " statements is more than the max of " + MAX_STATEMENTS);
+    }
+
+    private long countStatements(final Runnable runnable) {
+        Statistics statistics = database.getSessionFactory().getStatistics();
+        statistics.clear();
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            runnable.run();
+        } finally {
+            session.getTransaction().rollback();
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * What !kd and the kingdom REST resource use
+     */
+    private class KingdomOverview implements Runnable {
+        private final String location;
+
+        private KingdomOverview(final String location) {
+            this.location = location;
+        }
+
+        @Override
+        public void run() {
+            Kingdom kingdom = kingdomDAO.getKingdom(location, FetchPlans.KINGDOM_OVERVIEW);
+            kingdom.getSetupInfo();
+            for (Province province : kingdom.getSortedProvinces()) {
+                province.getHonorTitle().getName();
+                province.getProvinceOwner().getMainNick();
+                if (province.getSot() != null) province.getSot().getPeasants();
+            }
+        }
+    }
+
+    /**
+     * What commands that go through all the intel of a kingdom, like !missing, use
+     */
+    private class KingdomIntel implements Runnable {
+        private final String location;
+        private final int provinces;
+
+        private KingdomIntel(final String location, final int provinces) {
+            this.location = location;
+            this.provinces = provinces;
+        }
+
+        @Override
+        public void run() {
+            Kingdom kingdom = kingdomDAO.getKingdom(location, FetchPlans.KINGDOM_OVERVIEW);
+            //Joining more than one collection would repeat the provinces once per row of the other collection
+            assertEquals(kingdom.getProvinces().size(), provinces);
+            for (Province province : kingdom.getSortedProvinces()) {
+                province.getSot().getPeasants();
+                assertEquals(province.getSom().getArmies().size(), ARMIES_PER_SOM);
+                province.getSos().getSciences().size();
+                province.getArmies().size();
+                province.getDurationSpells().size();
+                province.getDurationOps().size();
+                province.getAid().size();
+            }
+        }
+    }
+
+    /**
+     * What !targets and the other target listing commands use
+     */
+    private class TargetListing implements Runnable {
+        private final Target.TargetType type;
+
+        private TargetListing(final Target.TargetType type) {
+            this.type = type;
+        }
+
+        @Override
+        public void run() {
+            for (Target target : targetDAO.getTargetsOfType(type)) {
+                target.getProvince().getKingdom().getLocation();
+                target.getHitters().size();
+            }
+        }
+    }
+
+    private void addKingdom(final String location, final int provinces) {
+        Session session = database.get();
+        session.beginTransaction();
+        Kingdom kingdom = new Kingdom(location);
+        session.save(kingdom);
+        Race race = new Race("Race " + location, location.substring(1, 3), "", "", "");
+        session.save(race);
+        Personality personality = new Personality("Personality " + location, "p" + location);
+        session.save(personality);
+        HonorTitle honorTitle = new HonorTitle("Title " + location, "t" + location);
+        session.save(honorTitle);
+        SpellType spellType = new SpellType("Spell " + location, "s" + location);
+        spellType.setSpellCharacter(SpellOpCharacter.FADING_SPELLOP_WITH_PROVINCE);
+        session.save(spellType);
+        for (int i = 0; i < provinces; ++i) {
+            BotUser user = new BotUser("User " + location + i, false, false);
+            session.save(user);
+            Province province = new Province("Province " + location + i, kingdom, race, personality, user);
+            province.setHonorTitle(honorTitle);
+            session.save(province);
+
+            SoT sot = new SoT();
+            sot.setProvince(province);
+            sot.setLastUpdated(new Date());
+            sot.setSavedBy(user.getMainNick());
+            session.save(sot);
+            SoM som = new SoM(province, 1, 1, new Date(), null, user.getMainNick(), Collections.<Army>emptyList(), 100);
+            session.save(som);
+            for (int armyNumber = 1; armyNumber <= ARMIES_PER_SOM; ++armyNumber) {
+                Army army = new Army(province, armyNumber, Army.ArmyType.ARMY_OUT, new Date(), 10);
+                army.setSom(som);
+                session.save(army);
+            }
+            session.save(new SoS(province, Collections.<SoSEntry>emptyList(), new Date(), null, user.getMainNick(), 100));
+            session.save(new DurationSpell(user, province, new Date(), spellType));
+        }
+        session.getTransaction().commit();
+    }
+
+    private void addTargets(final String location, final Target.TargetType type) {
+        Session session = database.get();
+        session.beginTransaction();
+        for (Province province : kingdomDAO.getKingdom(location).getProvinces()) {
+            Target target = new Target(province, type, "", null);
+            target.insertHitter(province.getProvinceOwner(), 1);
+            session.save(target);
+        }
+        session.getTransaction().commit();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.AccessLevel;
+import api.database.models.BotUser;
+import database.daos.ForumPostDAO;
+import database.daos.ForumThreadDAO;
+import database.daos.QuoteDAO;
+import database.models.ForumPost;
+import database.models.ForumSection;
+import database.models.ForumThread;
+import database.models.Quote;
+import org.hibernate.Session;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Makes sure reading a thread a page at a time returns every post exactly once and in order, even when several posts were
+ * made at the same time, and that the post counts and random quotes don't need to load everything.
+ */
+@Test
+public class ForumPagingTest {
+    private static final int USERS = 3;
+    private static final int POSTS = 20;
+    private static final int PAGE_SIZE = 4;
+
+    private InMemoryDatabase database;
+    private ForumPostDAO postDAO;
+    private ForumThreadDAO threadDAO;
+    private QuoteDAO quoteDAO;
+    private long threadId;
+    private List<Long> postIds = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() {
+        database = new InMemoryDatabase("forum_paging", null);
+        postDAO = new ForumPostDAO(database);
+        threadDAO = new ForumThreadDAO(database);
+        quoteDAO = new QuoteDAO(database);
+
+        Session session = database.get();
+        session.beginTransaction();
+        List<BotUser> users = new ArrayList<>();
+        for (int i = 0; i < USERS; ++i) {
+            BotUser user = new BotUser("Poster" + i, false, false);
+            session.save(user);
+            users.add(user);
+        }
+        ForumSection section = new ForumSection("Section", AccessLevel.USER);
+        session.save(section);
+        ForumThread thread = new ForumThread(section, "Thread", "Poster0");
+        session.save(thread);
+        threadId = thread.getId();
+
+        //Each user posts at the same times, so the post time alone doesn't decide the order
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < POSTS; ++i) {
+            ForumPost post = new ForumPost(users.get(i % USERS), thread, "Post " + i);
+            post.setPosted(new Date(start + i / USERS * 1000L));
+            postDAO.save(post);
+            postIds.add(post.getId());
+        }
+        session.getTransaction().commit();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testPagesContainEveryPostOnce() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            ForumThread thread = threadDAO.getForumThread(threadId);
+            List<Long> readIds = new ArrayList<>();
+            ForumPost after = null;
+            List<ForumPost> page;
+            do {
+                page = postDAO.getPosts(thread, after, PAGE_SIZE);
+                assertTrue(page.size() <= PAGE_SIZE);
+                for (ForumPost post : page) {
+                    readIds.add(post.getId());
+                    after = post;
+                }
+            } while (page.size() == PAGE_SIZE);
+
+            assertEquals(readIds, postIds);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    public void testPostCountIsMaintained() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            ForumThread thread = threadDAO.getForumThread(threadId);
+            assertEquals(thread.getPostCount(), POSTS);
+
+            ForumPost post = postDAO.save(new ForumPost(thread.getPosts().get(0).getUser(), thread, "Another post"));
+            assertEquals(getPostCount(session), POSTS + 1);
+
+            //Updates don't count as new posts
+            post.setPost("Edited post");
+            postDAO.save(post);
+            assertEquals(getPostCount(session), POSTS + 1);
+
+            postDAO.delete(postDAO.getForumPost(postIds.get(0)));
+            assertEquals(getPostCount(session), POSTS);
+
+            session.createSQLQuery("DELETE FROM forum_post WHERE id = " + postIds.get(1)).executeUpdate();
+            threadDAO.recountPosts();
+            assertEquals(getPostCount(session), POSTS - 1);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    public void testRandomQuote() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            assertNull(quoteDAO.getRandomQuote());
+
+            Quote onlyQuote = quoteDAO.save(new Quote("Quoter", "The only quote"));
+            assertEquals(quoteDAO.getRandomQuote(), onlyQuote);
+
+            Set<Quote> quotes = new HashSet<>();
+            quotes.add(onlyQuote);
+            for (int i = 0; i < 10; ++i) {
+                quotes.add(quoteDAO.save(new Quote("Quoter", "Quote " + i)));
+            }
+            Set<Quote> picked = new HashSet<>();
+            for (int i = 0; i < 200; ++i) {
+                Quote quote = quoteDAO.getRandomQuote();
+                assertTrue(quotes.contains(quote));
+                picked.add(quote);
+            }
+            assertTrue(picked.size() > 1, "Always picked the same quote");
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    //The counts are updated with update statements, so they're read with a query rather than from the thread in the session
+    private int getPostCount(final Session session) {
+        return (Integer) session.createQuery("select postCount from ForumThread where id = :id").setLong("id", threadId).uniqueResult();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.QueryPlanAdvisor;
+import api.database.models.AccessLevel;
+import api.database.models.BotUser;
+import com.google.common.base.Joiner;
+import com.google.common.collect.SetMultimap;
+import database.daos.*;
+import database.models.ForumPost;
+import database.models.ForumSection;
+import database.models.ForumThread;
+import database.models.Province;
+import org.hibernate.Session;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import tools.news.NewsSummaryAggregates;
+
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Runs the queries that are sent most often, or against the largest tables, and makes sure none of them scan an entire table.
+ * <p/>
+ * The queries are captured while running the DAO methods against an empty schema, and then explained once the schema has
+ * been filled with generated rows and analyzed, so that the plans are based on realistic statistics.
+ */
+@Test
+public class IndexCoverageTest {
+    private static final int ROWS_PER_TABLE = 2000;
+
+    private InMemoryDatabase database;
+    private QueryPlanAdvisor queryPlanAdvisor;
+
+    @BeforeClass
+    public void setUp() {
+        queryPlanAdvisor = new QueryPlanAdvisor();
+        database = new InMemoryDatabase("index_coverage", queryPlanAdvisor);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testHotQueriesUseIndexes() throws Exception {
+        runHotQueries();
+        SetMultimap<String, String> capturedQueries = queryPlanAdvisor.getCapturedQueries();
+        assertTrue(capturedQueries.size() >= 10, "Expected the DAO methods to send queries, but got " + capturedQueries);
+
+        List<String> problems = new ArrayList<>();
+        Connection connection = database.getConnectionProvider().getConnection();
+        try {
+            fillAllTables(connection);
+            for (Map.Entry<String, String> entry : capturedQueries.entries()) {
+                for (String table : QueryPlanAdvisor.findTableScans(connection, entry.getValue())) {
+                    problems.add(entry.getKey() + " scans " + table + ": " + entry.getValue());
+                }
+            }
+        } finally {
+            database.getConnectionProvider().closeConnection(connection);
+        }
+        if (!problems.isEmpty()) fail("Queries without a usable index:\n" + Joiner.on('\n').join(problems));
+    }
+
+    private void runHotQueries() {
+        AttackDAO attackDAO = new AttackDAO(database);
+        NewsItemDAO newsItemDAO = new NewsItemDAO(database, new NewsSummaryAggregates(null));
+        ArmyDAO armyDAO = new ArmyDAO(database, null, null, null);
+        SpellDAO spellDAO = new SpellDAO(database);
+        OpDAO opDAO = new OpDAO(database);
+        KingdomDAO kingdomDAO = new KingdomDAO(database, null);
+        ProvinceDAO provinceDAO = new ProvinceDAO(database, null, null);
+        UserActivitiesDAO userActivitiesDAO = new UserActivitiesDAO(database);
+        ForumPostDAO forumPostDAO = new ForumPostDAO(database);
+        QuoteDAO quoteDAO = new QuoteDAO(database);
+        Date now = new Date();
+        Date later = new Date(now.getTime() + 60 * 60 * 1000L);
+
+        //Everything is rolled back, so the table contents are entirely up to fillAllTables
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            Province province = (Province) session.load(Province.class, 1L);
+            BotUser user = new BotUser("IndexCoverage", false, false);
+            session.save(user);
+            ForumSection section = new ForumSection("IndexCoverage", AccessLevel.USER);
+            session.save(section);
+            ForumThread thread = new ForumThread(section, "IndexCoverage", user.getMainNick());
+            session.save(thread);
+            ForumPost post = new ForumPost(user, thread, "IndexCoverage");
+            session.save(post);
+
+            attackDAO.getLastHitsMade(province, 5);
+            attackDAO.getLastHitsReceived(province, 5);
+            newsItemDAO.getNewsBetween(now, later);
+            newsItemDAO.getNewsBetween(now, 1L, later, 100L);
+            armyDAO.getReturningArmies(later);
+            armyDAO.clearReturnedArmies();
+            spellDAO.deleteDurationSpells(now);
+            opDAO.deleteDurationOps(now);
+            kingdomDAO.getKingdom("(1:1)");
+            provinceDAO.getProvinceForUser(user);
+            userActivitiesDAO.getUserActivities(user);
+            forumPostDAO.getPosts(thread, post, 10);
+            quoteDAO.getRandomQuote();
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * Fills every table with generated rows. Each column gets a distinct value per row, and foreign keys aren't checked, so
+     * the rows don't make sense as entities but are good enough for the database to base its plans on.
+     */
+    private static void fillAllTables(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            for (String table : getTables(connection)) {
+                statement.execute(createInsert(connection, table));
+            }
+            statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static List<String> getTables(final Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (ResultSet resultSet = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[]{"TABLE"})) {
+            while (resultSet.next()) {
+                tables.add(resultSet.getString("TABLE_NAME"));
+            }
+        }
+        return tables;
+    }
+
+    private static String createInsert(final Connection connection, final String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        long rows = ROWS_PER_TABLE;
+        try (ResultSet resultSet = connection.getMetaData().getColumns(null, "PUBLIC", table, "%")) {
+            while (resultSet.next()) {
+                int sqlType = resultSet.getInt("DATA_TYPE");
+                int size = resultSet.getInt("COLUMN_SIZE");
+                columns.add(resultSet.getString("COLUMN_NAME"));
+                values.add(generatedValue(sqlType, size));
+                //Short text columns can only hold so many distinct values, which matters if they're unique
+                if (isText(sqlType) && size < 6) rows = Math.min(rows, (long) Math.pow(10, size) - 1);
+            }
+        }
+        return "INSERT INTO " + table + " (" + Joiner.on(", ").join(columns) + ") SELECT " + Joiner.on(", ").join(values) +
+                " FROM SYSTEM_RANGE(1, " + rows + ')';
+    }
+
+    private static boolean isText(final int sqlType) {
+        return sqlType == Types.CHAR || sqlType == Types.VARCHAR || sqlType == Types.LONGVARCHAR || sqlType == Types.CLOB;
+    }
+
+    private static String generatedValue(final int sqlType, final int size) {
+        if (isText(sqlType)) return "CAST(X AS VARCHAR(" + size + "))";
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return "MOD(X, 100)";
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return "X";
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return "MOD(X, 2) = 0";
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return "DATEADD('MINUTE', X, CURRENT_TIMESTAMP())";
+            default:
+                return "NULL";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.BotUser;
+import database.daos.KingdomDAO;
+import database.daos.UserActivitiesDAO;
+import database.models.*;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Makes sure the row listings contain the same data as the entities they're based on, and that they don't leave anything
+ * behind in the session.
+ */
+@Test
+public class ListingRowsTest {
+    private static final int KINGDOMS = 50;
+    private static final int PROVINCES_PER_KINGDOM = 10;
+
+    private InMemoryDatabase database;
+    private KingdomDAO kingdomDAO;
+    private UserActivitiesDAO userActivitiesDAO;
+
+    @BeforeClass
+    public void setUp() {
+        database = new InMemoryDatabase("listing_rows", null);
+        kingdomDAO = new KingdomDAO(database, null);
+        userActivitiesDAO = new UserActivitiesDAO(database);
+
+        Session session = database.get();
+        session.beginTransaction();
+        Race race = new Race("Race", "RA", "", "", "");
+        session.save(race);
+        Personality personality = new Personality("Personality", "P");
+        session.save(personality);
+        for (int i = 0; i < KINGDOMS; ++i) {
+            Kingdom kingdom = new Kingdom("(" + i + ":1)");
+            kingdom.setName("Kingdom " + i);
+            kingdom.setKdComment(i % 2 == 0 ? "even" : "odd");
+            session.save(kingdom);
+            for (int j = 0; j < PROVINCES_PER_KINGDOM; ++j) {
+                BotUser user = new BotUser("User" + i + '_' + j, false, false);
+                session.save(user);
+                UserActivities activities = new UserActivities(user);
+                activities.setLastActivity(new Date(activities.getLastActivity().getTime() - (i * PROVINCES_PER_KINGDOM + j) * 1000L));
+                session.save(activities);
+                session.save(new Province("Province " + i + '_' + j, kingdom, race, personality, user));
+            }
+        }
+        session.getTransaction().commit();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testKingdomRows() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            Statistics statistics = database.getSessionFactory().getStatistics();
+            statistics.clear();
+            List<KingdomRow> rows = kingdomDAO.getKingdomRowsByNameOrComment("odd");
+
+            assertEquals(statistics.getPrepareStatementCount(), 1);
+            assertEquals(session.getStatistics().getEntityCount(), 0);
+            assertEquals(rows.size(), KINGDOMS / 2);
+
+            List<Kingdom> kingdoms = kingdomDAO.getKingdomsByNameOrComment("odd");
+            for (KingdomRow row : rows) {
+                Kingdom kingdom = (Kingdom) session.get(Kingdom.class, row.getId());
+                assertEquals(row.getLocation(), kingdom.getLocation());
+                assertEquals(row.getName(), kingdom.getName());
+                assertEquals(row.getKdComment(), kingdom.getKdComment());
+                kingdoms.remove(kingdom);
+            }
+            assertEquals(kingdoms.size(), 0);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    public void testUserActivitiesRows() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            Statistics statistics = database.getSessionFactory().getStatistics();
+            statistics.clear();
+            List<UserActivitiesRow> rows = userActivitiesDAO.getAllUserActivitiesRows();
+
+            assertEquals(statistics.getPrepareStatementCount(), 1);
+            assertEquals(session.getStatistics().getEntityCount(), 0);
+            assertEquals(rows.size(), KINGDOMS * PROVINCES_PER_KINGDOM);
+
+            Date previous = null;
+            for (UserActivitiesRow row : rows) {
+                UserActivities activities = (UserActivities) session.get(UserActivities.class, row.getId());
+                assertEquals(row.getUser().getId(), activities.getUser().getId());
+                assertEquals(row.getUser().getMainNick(), activities.getUser().getMainNick());
+                assertEquals(row.getLastActivity(), activities.getLastActivity());
+                assertEquals(row.getLastSeen(), activities.getLastSeen());
+                if (previous != null) assertEquals(previous.compareTo(row.getLastActivity()) >= 0, true, "Not sorted by last activity");
+                previous = row.getLastActivity();
+            }
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+}
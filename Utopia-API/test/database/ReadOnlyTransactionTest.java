@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.BotUser;
+import api.database.transactions.ReadOnlyTransactionException;
+import api.database.transactions.TransactionManager;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Makes sure read only transactions never write anything, and that writes in them are rejected
+ */
+@Test
+public class ReadOnlyTransactionTest {
+    private InMemoryDatabase database;
+    private Injector injector;
+    private long userId;
+
+    @BeforeClass
+    public void setUp() {
+        database = new InMemoryDatabase("read_only_transaction", null);
+        injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Session.class).toProvider(database);
+            }
+        });
+
+        TransactionManager transactionManager = newTransactionManager(false);
+        transactionManager.beginTransaction();
+        BotUser user = new BotUser("ReadOnly", false, false);
+        database.get().save(user);
+        transactionManager.endTransaction();
+        userId = user.getId();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    public void testChangesAreNotWritten() {
+        TransactionManager transactionManager = newTransactionManager(true);
+        transactionManager.beginTransaction();
+        BotUser user = (BotUser) database.get().get(BotUser.class, userId);
+        user.setMainNick("Changed");
+        try {
+            transactionManager.endTransaction();
+            fail("The update should have been rejected");
+        } catch (ReadOnlyTransactionException ignore) {
+        }
+        assertEquals(loadUser().getMainNick(), "ReadOnly");
+    }
+
+    public void testUnchangedEntitiesAreAccepted() {
+        TransactionManager transactionManager = newTransactionManager(true);
+        transactionManager.beginTransaction();
+        BotUser user = (BotUser) database.get().get(BotUser.class, userId);
+        user.setMainNick(user.getMainNick());
+        transactionManager.endTransaction();
+    }
+
+    public void testInsertIsRejected() {
+        TransactionManager transactionManager = newTransactionManager(true);
+        transactionManager.beginTransaction();
+        try {
+            database.get().save(new BotUser("Inserted", false, false));
+            fail("The insert should have been rejected");
+        } catch (ReadOnlyTransactionException e) {
+            transactionManager.setEncounteredException(true);
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertNull(findUser("Inserted"));
+    }
+
+    public void testDeleteIsRejected() {
+        TransactionManager transactionManager = newTransactionManager(true);
+        transactionManager.beginTransaction();
+        database.get().delete(database.get().get(BotUser.class, userId));
+        try {
+            transactionManager.endTransaction();
+            fail("The delete should have been rejected");
+        } catch (ReadOnlyTransactionException ignore) {
+        }
+        assertNotNull(loadUser());
+    }
+
+    public void testWritesWorkAfterReadOnlyTransaction() {
+        TransactionManager readOnly = newTransactionManager(true);
+        readOnly.beginTransaction();
+        database.get().get(BotUser.class, userId);
+        readOnly.endTransaction();
+
+        TransactionManager readWrite = newTransactionManager(false);
+        readWrite.beginTransaction();
+        database.get().save(new BotUser("Writable", false, false));
+        readWrite.endTransaction();
+        assertNotNull(findUser("Writable"));
+    }
+
+    private TransactionManager newTransactionManager(final boolean readOnly) {
+        TransactionManager transactionManager = injector.getInstance(TransactionManager.class);
+        transactionManager.setReadOnly(readOnly);
+        return transactionManager;
+    }
+
+    private BotUser loadUser() {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            return (BotUser) session.get(BotUser.class, userId);
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+
+    private BotUser findUser(final String mainNick) {
+        Session session = database.get();
+        session.beginTransaction();
+        try {
+            return (BotUser) session.createCriteria(BotUser.class).add(Restrictions.eq("mainNick", mainNick)).uniqueResult();
+        } finally {
+            session.getTransaction().rollback();
+        }
+    }
+}
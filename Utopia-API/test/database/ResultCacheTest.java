@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package database;
+
+import api.database.models.BotUser;
+import api.database.transactions.EntityChangeTracker;
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.eventbus.EventBus;
+import internal.settings.Properties;
+import org.hibernate.Session;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import tools.cache.ResultCache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static tools.UtopiaPropertiesConfig.RESULT_CACHE_MAX_AGE;
+import static tools.UtopiaPropertiesConfig.RESULT_CACHE_MAX_ENTRIES;
+
+/**
+ * Makes sure cached results are reused until a transaction that changed what they depend on is committed
+ */
+@Test
+public class ResultCacheTest {
+    private InMemoryDatabase database;
+    private ResultCache resultCache;
+    private long firstUserId;
+    private long secondUserId;
+
+    @BeforeClass
+    public void setUp() {
+        database = new InMemoryDatabase("result_cache", null);
+        EventBus eventBus = new EventBus();
+        EntityChangeTracker.install(database.getSessionFactory(), eventBus);
+
+        Map<String, String> settings = new HashMap<>();
+        settings.put(RESULT_CACHE_MAX_AGE, "600");
+        settings.put(RESULT_CACHE_MAX_ENTRIES, "100");
+        resultCache = new ResultCache(new PropertiesCollection(Collections.<Properties>emptyList(), settings, new ThreadingManager(1)));
+        eventBus.register(resultCache);
+
+        Session session = database.get();
+        session.beginTransaction();
+        BotUser first = new BotUser("First", false, false);
+        BotUser second = new BotUser("Second", false, false);
+        first.setRealName("First");
+        second.setRealName("Second");
+        session.save(first);
+        session.save(second);
+        session.getTransaction().commit();
+        firstUserId = first.getId();
+        secondUserId = second.getId();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (database != null) database.close();
+    }
+
+    @BeforeMethod
+    public void clearCache() {
+        resultCache.clear();
+    }
+
+    public void testResultIsReused() {
+        CountingLoader loader = new CountingLoader();
+        String result = resultCache.get("test", "first", loader);
+        assertEquals(resultCache.get("test", "first", loader), result);
+        assertEquals(loader.loads.get(), 1);
+        resultCache.get("test", "second", loader);
+        assertEquals(loader.loads.get(), 2, "Different keys should be cached separately");
+    }
+
+    public void testCommittedChangeOfDependencyInvalidates() {
+        CountingLoader loader = new CountingLoader();
+        resultCache.get("test", "first", loader);
+
+        rename(secondUserId, "SecondRenamed", true);
+        resultCache.get("test", "first", loader);
+        assertEquals(loader.loads.get(), 1, "Changes to other entities shouldn't invalidate the result");
+
+        rename(firstUserId, "FirstRenamed", true);
+        assertEquals(resultCache.get("test", "first", loader), "FirstRenamed");
+        assertEquals(loader.loads.get(), 2);
+    }
+
+    public void testRolledBackChangeDoesNotInvalidate() {
+        CountingLoader loader = new CountingLoader();
+        resultCache.get("test", "first", loader);
+
+        rename(firstUserId, "NotSaved", false);
+        resultCache.get("test", "first", loader);
+        assertEquals(loader.loads.get(), 1);
+    }
+
+    public void testInsertInvalidatesResultsDependingOnTheType() {
+        CountingLoader loader = new CountingLoader();
+        resultCache.get("test", "first", loader);
+
+        Session session = database.get();
+        session.beginTransaction();
+        session.save(new BotUser("Third", false, false));
+        session.getTransaction().commit();
+
+        resultCache.get("test", "first", loader);
+        assertEquals(loader.loads.get(), 2);
+    }
+
+    private void rename(final long userId, final String name, final boolean commit) {
+        Session session = database.get();
+        session.beginTransaction();
+        ((BotUser) session.get(BotUser.class, userId)).setRealName(name);
+        if (commit) session.getTransaction().commit();
+        else session.getTransaction().rollback();
+    }
+
+    private class CountingLoader implements ResultCache.Loader<String> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public String load(final ResultCache.Dependencies dependencies) {
+            loads.incrementAndGet();
+            dependencies.on(BotUser.class, firstUserId);
+            Session session = database.get();
+            session.beginTransaction();
+            try {
+                return ((BotUser) session.get(BotUser.class, firstUserId)).getRealName();
+            } finally {
+                session.getTransaction().rollback();
+            }
+        }
+    }
+}
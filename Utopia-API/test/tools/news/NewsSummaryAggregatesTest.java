@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.news;
+
+import com.google.inject.Provider;
+import database.daos.NewsItemDAO;
+import database.models.AttackType;
+import database.models.GainsSpecification;
+import database.models.NewsItem;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+import static tools.parsing.NonAttackNewsTypes.*;
+
+@Test
+public class NewsSummaryAggregatesTest {
+    private static final String SELF_KD = "(1:1)";
+    private static final String[] KINGDOMS = {SELF_KD, "(2:2)", "(3:3)", "(4:4)"};
+    private static final String[] WAR_TYPES = {INCOMING_WAR_DECLARED, OUTGOING_WAR_DECLARED, MAX_HOSTILITY_AUTO_WAR_DECLARATION,
+            INCOMING_WITHDRAWAL, OUTGOING_WITHDRAWAL, INCOMING_MUTUAL_PEACE_ACCEPTED, OUTGOING_MUTUAL_PEACE_ACCEPTED};
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    public void testIncrementalAggregatesMatchFullRecomputation() throws Exception {
+        Random random = new Random(42);
+        final List<NewsItem> corpus = generateCorpus(random, 6000, 300);
+
+        final NewsItemDAO newsItemDAO = mock(NewsItemDAO.class);
+        when(newsItemDAO.getNewsBetween(any(Date.class), any(Date.class))).thenAnswer(new Answer<List<NewsItem>>() {
+            @Override
+            public List<NewsItem> answer(final InvocationOnMock invocation) {
+                Date start = (Date) invocation.getArguments()[0];
+                Date end = (Date) invocation.getArguments()[1];
+                return between(corpus, start, end);
+            }
+        });
+        NewsSummaryAggregates aggregates = new NewsSummaryAggregates(new Provider<NewsItemDAO>() {
+            @Override
+            public NewsItemDAO get() {
+                return newsItemDAO;
+            }
+        });
+        aggregates.rebuild(Collections.<NewsItem>emptyList());
+
+        //Feed the news in small batches in id order, except for a few batches that arrive late
+        List<NewsItem> late = new ArrayList<>();
+        List<NewsItem> batch = new ArrayList<>();
+        for (NewsItem item : byId(corpus)) {
+            if (random.nextInt(50) == 0) late.add(item);
+            else batch.add(item);
+            if (batch.size() == 7) {
+                aggregates.add(batch);
+                batch.clear();
+            }
+        }
+        aggregates.add(batch);
+        aggregates.add(late);
+
+        List<NewsItem> sorted = new ArrayList<>(corpus);
+        Collections.sort(sorted);
+        Date first = sorted.get(0).getRealDate();
+        Date last = sorted.get(sorted.size() - 1).getRealDate();
+
+        for (int i = 0; i < 200; ++i) {
+            Date start = random.nextInt(5) == 0 ? null : new Date(first.getTime() + random.nextInt(300) * HOUR);
+            Date end = random.nextInt(5) == 0 ? null : new Date(last.getTime() - random.nextInt(300) * HOUR);
+            List<String> kingdoms = null;
+            if (random.nextBoolean()) {
+                kingdoms = new ArrayList<>();
+                for (String kd : KINGDOMS) {
+                    if (random.nextBoolean()) kingdoms.add(kd);
+                }
+            }
+
+            Totals incremental = new Totals();
+            Long lastIncluded = aggregates.summarize(start, end, kingdoms, incremental);
+
+            List<NewsItem> included = filter(between(sorted, start, end), kingdoms);
+            Totals full = new Totals();
+            NewsSummaryAggregates.summarizeFully(included, kingdoms, full);
+
+            assertEquals(incremental.totals, full.totals);
+            assertEquals(incremental.totals, recompute(included));
+            if (included.isEmpty()) assertNull(lastIncluded);
+            else assertEquals(lastIncluded, included.get(included.size() - 1).getId());
+        }
+    }
+
+    public void testWarStatusFollowsDeclarations() throws Exception {
+        Date tick = new Date(0);
+        List<NewsItem> news = new ArrayList<>();
+        news.add(newsItem(1, tick, "prov (2:2)", "other (1:1)", "Incoming Conquest", "100"));
+        news.add(newsItem(2, tick, "(2:2)", SELF_KD, INCOMING_WAR_DECLARED, null));
+        news.add(newsItem(3, tick, "prov (2:2)", "other (1:1)", "Incoming Conquest", "100"));
+        news.add(newsItem(4, tick, SELF_KD, "(2:2)", OUTGOING_WITHDRAWAL, null));
+        news.add(newsItem(5, tick, "prov (2:2)", "other (1:1)", "Incoming Conquest", "100"));
+
+        NewsSummaryAggregates aggregates = new NewsSummaryAggregates(null);
+        aggregates.rebuild(news);
+        Totals totals = new Totals();
+        assertEquals(aggregates.summarize(null, null, null, totals), Long.valueOf(5));
+        assertEquals(totals.totals.get("Conquest prov other false"), Arrays.asList(2, 200, 200));
+        assertEquals(totals.totals.get("Conquest prov other true"), Arrays.asList(1, 110, 100));
+    }
+
+    private static List<NewsItem> generateCorpus(final Random random, final int amount, final int ticks) throws Exception {
+        List<NewsItem> out = new ArrayList<>(amount);
+        AttackType[] attackTypes = AttackType.values();
+        for (int i = 0; i < amount; ++i) {
+            Date tick = new Date(random.nextInt(ticks) * HOUR);
+            String sourceKd = KINGDOMS[random.nextInt(KINGDOMS.length)];
+            String targetKd = KINGDOMS[random.nextInt(KINGDOMS.length)];
+            int roll = random.nextInt(100);
+            if (roll < 3) {
+                out.add(newsItem(i + 1, tick, sourceKd, targetKd, WAR_TYPES[random.nextInt(WAR_TYPES.length)], null));
+            } else if (roll < 8) {
+                out.add(newsItem(i + 1, tick, "prov" + random.nextInt(5) + ' ' + sourceKd, null, PLAYER_JOINING, null));
+            } else {
+                AttackType type = attackTypes[random.nextInt(attackTypes.length)];
+                String newsType = (targetKd.equals(SELF_KD) ? "Incoming " : "Outgoing ") + type.getName();
+                out.add(newsItem(i + 1, tick, "prov" + random.nextInt(5) + ' ' + sourceKd, "prov" + random.nextInt(5) + ' ' + targetKd,
+                        newsType, String.valueOf(random.nextInt(500))));
+            }
+        }
+        return out;
+    }
+
+    private static NewsItem newsItem(final long id, final Date realDate, final String source, final String target,
+                                     final String newsType, final String value) throws Exception {
+        NewsItem item = new NewsItem(source, target, newsType, value, "", "");
+        item.setRealDate(realDate);
+        Field idField = NewsItem.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        idField.set(item, id);
+        return item;
+    }
+
+    private static List<NewsItem> byId(final Collection<NewsItem> news) {
+        List<NewsItem> out = new ArrayList<>(news);
+        Collections.sort(out, new Comparator<NewsItem>() {
+            @Override
+            public int compare(final NewsItem o1, final NewsItem o2) {
+                return o1.getId().compareTo(o2.getId());
+            }
+        });
+        return out;
+    }
+
+    private static List<NewsItem> between(final Collection<NewsItem> news, final Date start, final Date end) {
+        List<NewsItem> out = new ArrayList<>();
+        for (NewsItem item : news) {
+            if ((start == null || !item.getRealDate().before(start)) && (end == null || !item.getRealDate().after(end))) out.add(item);
+        }
+        return out;
+    }
+
+    private static List<NewsItem> filter(final List<NewsItem> news, final List<String> kingdoms) {
+        if (kingdoms == null || kingdoms.isEmpty()) return news;
+        List<NewsItem> out = new ArrayList<>();
+        for (NewsItem item : news) {
+            for (String kd : kingdoms) {
+                if (item.getSource() != null && item.getSource().endsWith(kd) || item.getTarget() != null && item.getTarget().endsWith(kd)) {
+                    out.add(item);
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Straightforward recalculation of the totals, one news item at a time
+     */
+    private static Map<String, List<Integer>> recompute(final List<NewsItem> news) {
+        Map<String, List<Integer>> out = new TreeMap<>();
+        String atWarWith = null;
+        for (NewsItem item : news) {
+            String type = item.getNewsType();
+            if (Arrays.asList(WAR_TYPES).contains(type)) {
+                atWarWith = INCOMING_WAR_DECLARED.equals(type) ? item.getSource()
+                        : OUTGOING_WAR_DECLARED.equals(type) || MAX_HOSTILITY_AUTO_WAR_DECLARATION.equals(type) ? item.getTarget() : null;
+                continue;
+            }
+            AttackType attackType = AttackType.fromName(type.replace("Outgoing ", "").replace("Incoming ", ""));
+            if (attackType == null) continue;
+            String attackingKd = item.getSource().substring(item.getSource().indexOf('('));
+            String defendingKd = item.getTarget().substring(item.getTarget().indexOf('('));
+            boolean isWar = atWarWith != null && (atWarWith.equals(attackingKd) || atWarWith.equals(defendingKd));
+            AttackType.GainVsDamage gain = attackType.getGainsSpecification() == GainsSpecification.NON_LAND ? AttackType.GainVsDamage.ZERO
+                    : attackType.calcGain(Integer.parseInt(item.getItemValue()), isWar, defendingKd.equals(SELF_KD));
+            add(out, attackType.getName() + ' ' + item.getSource().replace(attackingKd, "").trim() + ' ' +
+                    item.getTarget().replace(defendingKd, "").trim() + ' ' + isWar, 1, gain.getGain(), gain.getDamage());
+        }
+        return out;
+    }
+
+    private static void add(final Map<String, List<Integer>> totals, final String key, final int hits, final int gain,
+                            final int damage) {
+        List<Integer> current = totals.get(key);
+        if (current == null) totals.put(key, Arrays.asList(hits, gain, damage));
+        else totals.put(key, Arrays.asList(current.get(0) + hits, current.get(1) + gain, current.get(2) + damage));
+    }
+
+    private static class Totals implements NewsSummaryVisitor {
+        private final Map<String, List<Integer>> totals = new TreeMap<>();
+
+        @Override
+        public void visitAttacks(final AttackSummary attacks, final boolean isWar) {
+            boolean isIncomingHit = attacks.getDefendingKd().equals(SELF_KD);
+            add(totals, attacks.getAttackType().getName() + ' ' + attacks.getAttacker() + ' ' + attacks.getDefender() + ' ' + isWar,
+                    attacks.getHits(), attacks.getGain(isWar, isIncomingHit), attacks.getDamage(isWar, isIncomingHit));
+        }
+    }
+}
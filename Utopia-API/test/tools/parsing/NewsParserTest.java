@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.parsing;
+
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import database.daos.DragonDAO;
+import database.models.AttackType;
+import database.models.NewsItem;
+import internal.settings.Properties;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import tools.time.UtopiaMonth;
+import tools.time.UtopiaTime;
+import tools.time.UtopiaTimeFactory;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+import static tools.UtopiaPropertiesConfig.AGE_START;
+import static tools.UtopiaPropertiesConfig.TICK_LENGTH;
+
+@Test
+public class NewsParserTest {
+    /**
+     * One template per news type, where P is a province with its kd, K a kingdom, N a number and D a dragon
+     */
+    private static final String[] TEMPLATES = {
+            "{P} ambushed armies from {P} and took {N} acres of land.",
+            "{P} recaptured {N} acres of land from {P}.",
+            "{P} attempted to invade {P}.",
+            "{P} attempted an invasion of {P}, but was repelled.",
+            "{P}, captured {N} acres of land from {P}.",
+            "In local kingdom strife {P} invaded {P} and razed {N} acres of land.",
+            "In local kingdom strife, {P} invaded {P} and captured {N} acres of land.",
+            "{P} attacked and stole from {P}.",
+            "{P} invaded and stole from {P}.",
+            "{P} invaded {P} and killed {N} people.",
+            "{P} killed {N} people within {P}.",
+            "{P} attacked and pillaged the lands of {P}.",
+            "{P} invaded and pillaged {P}.",
+            "{P} razed {N} acres of {P}.",
+            "{P} invaded {P} and razed {N} acres of land.",
+            "{P} invaded {P} and captured {N} acres of land.",
+            "{P} captured {N} acres of land from {P}.",
+            "{P} has sent an aid shipment to {P}.",
+            "{K} has begun a {D} Dragon project against us!",
+            "Our kingdom has begun a {D} Dragon project targetted at {K}.",
+            "{K} has cancelled their dragon project targetted at us.",
+            "Our kingdom has cancelled the dragon project to {K}.",
+            "A {D} Dragon from {K} has begun ravaging our lands!",
+            "An {D} Dragon from {K} has begun ravaging our lands!",
+            "Our dragon has set flight to ravage {P}",
+            "{P} has slain the dragon ravaging our lands!",
+            "The province of {P} has defected to us from {P}.",
+            "{P} has defected to {P}",
+            "Alas, the truant Lord Bob has lead {P} into a state of neglect. The province has now collapsed and lies in ruins.",
+            "Alas, the once proud province of {P} has collapsed and lies in ruins.",
+            "Staying in the darkest shadows, Lord Bob slips out of {P} unnoticed, never to be seen again.",
+            "The leader of {P} has chosen to join {K}. All in castle black gather their possessions and depart this kingdom forever.",
+            "As the ultimate betrayal, Lord Bob destroys all in the land of {P} before leaving for a new kingdom.",
+            "The leader of {P} has wisely chosen to join us from {K}.",
+            "{K} has proposed a formal ceasefire with our kingdom.",
+            "We have proposed a ceasefire offer to {K}.",
+            "We have entered into a formal ceasefire with {K}.",
+            "{K} has accepted our ceasefire proposal!",
+            "{K} has broken their ceasefire agreement with us!",
+            "We have cancelled our ceasefire with {K}!",
+            "We have rejected a ceasefire offer from {K}.",
+            "{K} has declined our ceasefire proposal!",
+            "{K} has withdrawn their ceasefire proposal.",
+            "{K} has declared WAR with our kingdom!",
+            "We have declared WAR on {K}!",
+            "Our prolonged hostility with {K} has forced us into a WAR",
+            "{K} has withdrawn from war. Our people rejoice at our victory!",
+            "Unable to achieve victory, our Kingdom has withdrawn from war with {K}. Our failed war has finally ended!",
+            "We have accepted an offer of Peace by {K}. The people celebrate the end of our War!",
+            "{K} has accepted our offer of Peace. The people celebrate the end of our War!",
+            "We have ordered an early end to the post-war period with {K}.",
+            "Our people are celebrating the harvest festival.",
+            "A great storm has passed over {P}."
+    };
+    private static final String[] PROVINCE_NAMES = {"Dark Tower", "invaded and stole from", "Has sent an aid shipment",
+            "The Leader of Doom", "O'Malley's Pub", "captured 50 acres", "We have declared WAR on", "x"};
+    private static final String[] DRAGONS = {"Sapphire", "Gold", "Ruby", "Emerald"};
+
+    private NonAttackNewsTypes nonAttackNewsTypes;
+    private UtopiaTimeFactory utopiaTimeFactory;
+
+    @BeforeClass
+    public void setUp() {
+        DragonDAO dragonDAO = mock(DragonDAO.class);
+        when(dragonDAO.getDragonGroup()).thenReturn("Sapphire|Gold|Ruby|Emerald");
+        nonAttackNewsTypes = new NonAttackNewsTypes(dragonDAO);
+
+        Map<String, String> settings = new HashMap<>();
+        settings.put(AGE_START, "2012-11-16 18:00");
+        settings.put(TICK_LENGTH, "60");
+        utopiaTimeFactory = new UtopiaTimeFactory(
+                new PropertiesCollection(Collections.<Properties>emptyList(), settings, new ThreadingManager(1)));
+    }
+
+    public void testSameNewsItemsAsTryingEveryPattern() {
+        String news = generateMonthOfNews(new Random(1234));
+        NewsParser parser = new NewsParser(nonAttackNewsTypes, utopiaTimeFactory);
+
+        Multiset<String> unrecognized = HashMultiset.create();
+        List<NewsItem> parsed = parser.parseNews(news, unrecognized);
+        List<NewsItem> expected = parseTryingEveryPattern(news);
+
+        assertEquals(parsed.size(), expected.size());
+        for (int i = 0; i < parsed.size(); ++i) {
+            assertEquals(describe(parsed.get(i)), describe(expected.get(i)));
+        }
+        assertFalse(unrecognized.isEmpty());
+        assertEquals(unrecognized.count("Our people are celebrating the harvest festival."),
+                countOccurrences(news, "Our people are celebrating the harvest festival."));
+    }
+
+    public void testEveryNewsTypeHasKeywords() {
+        NewsClassifier classifier = NewsClassifier.forAllNewsTypes(nonAttackNewsTypes);
+        for (AttackType attackType : AttackType.values()) {
+            if (attackType.getIncomingAttackNewsPattern() != null)
+                assertFalse(classifier.getKeywords("Incoming " + attackType.getName()).isEmpty(), attackType.getName());
+            if (attackType.getOutgoingAttackNewsPattern() != null)
+                assertFalse(classifier.getKeywords("Outgoing " + attackType.getName()).isEmpty(), attackType.getName());
+        }
+        for (String type : nonAttackNewsTypes.getAll().keySet()) {
+            assertFalse(classifier.getKeywords(type).isEmpty(), type);
+        }
+    }
+
+    public void testKeywordExtraction() {
+        assertEquals(NewsClassifier.extractKeywords(Pattern.compile("(?<date>a b) invaded (?<target>[^(]+) and razed\\.")),
+                Arrays.asList(" and razed.", " invaded "));
+        assertEquals(NewsClassifier.extractKeywords(Pattern.compile("abcdef?g{1,2} hijk")), Arrays.asList("abcde", " hijk"));
+        assertTrue(NewsClassifier.extractKeywords(Pattern.compile("invaded|razed")).isEmpty());
+        assertTrue(NewsClassifier.extractKeywords(Pattern.compile("(?i)invaded")).isEmpty());
+        assertTrue(NewsClassifier.extractKeywords(Pattern.compile("invaded", Pattern.CASE_INSENSITIVE)).isEmpty());
+        assertTrue(NewsClassifier.extractKeywords(Pattern.compile("\\x41invaded")).isEmpty());
+    }
+
+    private String generateMonthOfNews(final Random random) {
+        StringBuilder builder = new StringBuilder();
+        UtopiaMonth month = UtopiaMonth.values()[random.nextInt(UtopiaMonth.values().length)];
+        for (int day = 1; day <= 24; ++day) {
+            for (int i = 0; i < 150; ++i) {
+                String line = TEMPLATES[random.nextInt(TEMPLATES.length)];
+                line = replaceAll(line, "{P}", random, new Generator() {
+                    @Override
+                    public String generate(final Random random) {
+                        return PROVINCE_NAMES[random.nextInt(PROVINCE_NAMES.length)] + ' ' + kdLoc(random);
+                    }
+                });
+                line = replaceAll(line, "{K}", random, new Generator() {
+                    @Override
+                    public String generate(final Random random) {
+                        return "Kingdom of " + PROVINCE_NAMES[random.nextInt(PROVINCE_NAMES.length)] + ' ' + kdLoc(random);
+                    }
+                });
+                line = replaceAll(line, "{N}", random, new Generator() {
+                    @Override
+                    public String generate(final Random random) {
+                        return String.valueOf(random.nextInt(2000));
+                    }
+                });
+                line = replaceAll(line, "{D}", random, new Generator() {
+                    @Override
+                    public String generate(final Random random) {
+                        return DRAGONS[random.nextInt(DRAGONS.length)];
+                    }
+                });
+                builder.append(month.getName()).append(' ').append(day).append(" of YR2").append(random.nextBoolean() ? "\t" : " ")
+                        .append(line).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String kdLoc(final Random random) {
+        return "(" + (random.nextInt(10) + 1) + ':' + (random.nextInt(10) + 1) + ')';
+    }
+
+    private static String replaceAll(final String line, final String placeholder, final Random random, final Generator generator) {
+        String out = line;
+        while (out.contains(placeholder)) {
+            out = out.replaceFirst(Pattern.quote(placeholder), Matcher.quoteReplacement(generator.generate(random)));
+        }
+        return out;
+    }
+
+    private static int countOccurrences(final String text, final String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * The way the news were parsed before the classifier, trying every pattern in order until one matches
+     */
+    private List<NewsItem> parseTryingEveryPattern(final String news) {
+        Pattern newsItemPattern = Pattern.compile(NewsParser.DATE + "\\s+.+?\\s*(?=" + UtopiaValidationType.UTODATE.getPatternString() +
+                "|$)", Pattern.MULTILINE);
+        List<NewsItem> out = new ArrayList<>();
+        Matcher matcher = newsItemPattern.matcher(news);
+        while (matcher.find()) {
+            String potentialMatch = matcher.group(0).trim();
+            boolean matchFound = false;
+            for (AttackType attackType : AttackType.values()) {
+                Pattern incoming = attackType.getIncomingAttackNewsPattern();
+                if (incoming != null) {
+                    Matcher itemMatcher = incoming.matcher(potentialMatch);
+                    if (itemMatcher.find()) {
+                        out.add(toNewsItem(itemMatcher, "Incoming " + attackType.getName()));
+                        matchFound = true;
+                        break;
+                    }
+                }
+                Pattern outgoing = attackType.getOutgoingAttackNewsPattern();
+                if (outgoing != null) {
+                    Matcher itemMatcher = outgoing.matcher(potentialMatch);
+                    if (itemMatcher.find()) {
+                        out.add(toNewsItem(itemMatcher, "Outgoing " + attackType.getName()));
+                        matchFound = true;
+                        break;
+                    }
+                }
+            }
+            if (!matchFound) {
+                for (Map.Entry<String, Pattern> type : nonAttackNewsTypes.getAll().entrySet()) {
+                    Matcher itemMatcher = type.getValue().matcher(potentialMatch);
+                    if (itemMatcher.find()) {
+                        out.add(toNewsItem(itemMatcher, type.getKey()));
+                        break;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private NewsItem toNewsItem(final Matcher matched, final String type) {
+        NewsItem newsItem = new NewsItem();
+        newsItem.setSource(group(matched, "source"));
+        newsItem.setTarget(group(matched, "target"));
+        newsItem.setItemValue(group(matched, "value"));
+        newsItem.setUtoDate(matched.group("date"));
+        UtopiaTime utopiaTime = utopiaTimeFactory.newUtopiaTime(newsItem.getUtoDate());
+        newsItem.setRealDate(utopiaTime.getDate());
+        newsItem.setNewsType(type);
+        newsItem.setOriginalMessage(matched.group(0).replaceAll("(\n|\r)", ""));
+        return newsItem;
+    }
+
+    private static String group(final Matcher matcher, final String name) {
+        try {
+            return matcher.group(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String describe(final NewsItem item) {
+        return item.getNewsType() + '|' + item.getSource() + '|' + item.getTarget() + '|' + item.getItemValue() + '|' +
+                item.getUtoDate() + '|' + item.getRealDate() + '|' + item.getOriginalMessage();
+    }
+
+    private interface Generator {
+        String generate(Random random);
+    }
+}
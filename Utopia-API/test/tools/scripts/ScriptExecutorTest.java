@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.scripts;
+
+import api.runtime.ThreadingManager;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngineManager;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+@Test
+public class ScriptExecutorTest {
+    public static final AtomicInteger EVALUATIONS = new AtomicInteger();
+
+    private static final String COUNTING_SCRIPT = "Packages.tools.scripts.ScriptExecutorTest.EVALUATIONS.incrementAndGet();\n" +
+            "var busy = false;\n" +
+            "function work(millis) {\n" +
+            "    if (busy) throw 'Used by two threads at once';\n" +
+            "    busy = true;\n" +
+            "    java.lang.Thread.sleep(millis);\n" +
+            "    busy = false;\n" +
+            "    return millis;\n" +
+            '}';
+
+    private Path directory;
+    private ThreadingManager threadingManager;
+    private ScriptEngineManager manager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        manager = new ScriptEngineManager();
+        if (manager.getEngineByExtension("js") == null) throw new SkipException("No JavaScript engine available");
+        directory = Files.createTempDirectory("scripts");
+        threadingManager = new ThreadingManager(1);
+        EVALUATIONS.set(0);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        if (directory == null) return;
+        threadingManager.getShutdownRunner().run();
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    public void testScriptIsEvaluatedOnceAndReused() throws Throwable {
+        ScriptPool pool = ScriptPool.load(manager, writeScript("counting.js", COUNTING_SCRIPT), 4);
+        ScriptExecutor executor = new ScriptExecutor(threadingManager, 2, 10, 5000);
+
+        for (int i = 0; i < 20; ++i) {
+            assertEquals(executor.call(pool, work(0)).intValue(), 0);
+        }
+
+        assertEquals(EVALUATIONS.get(), 1);
+        ScriptStatistics statistics = executor.getStatistics().get(0);
+        assertEquals(statistics.getScript(), "counting.js");
+        assertEquals(statistics.getInvocations(), 20);
+        assertEquals(statistics.getFailures(), 0);
+    }
+
+    public void testConcurrentCallsNeverShareAnInstance() throws Throwable {
+        final ScriptPool pool = ScriptPool.load(manager, writeScript("counting.js", COUNTING_SCRIPT), 3);
+        final ScriptExecutor executor = new ScriptExecutor(threadingManager, 6, 50, 5000);
+        final int calls = 30;
+        final CountDownLatch done = new CountDownLatch(calls);
+        for (int i = 0; i < calls; ++i) {
+            executor.submit(pool, new ScriptCall<Object>() {
+                @Override
+                public Object call(final ScriptInstance instance) throws Throwable {
+                    try {
+                        return work(20).call(instance);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        //The last calls are counted right after they count down
+        ScriptStatistics statistics = executor.getStatistics().get(0);
+        for (int i = 0; i < 100 && statistics.getInvocations() < calls; ++i) {
+            Thread.sleep(20);
+            statistics = executor.getStatistics().get(0);
+        }
+        executor.getShutdownRunner().run();
+
+        assertEquals(statistics.getInvocations(), calls);
+        assertEquals(statistics.getFailures(), 0, "Some calls shared an instance");
+        assertTrue(EVALUATIONS.get() <= 3, "Created more instances than allowed: " + EVALUATIONS.get());
+    }
+
+    public void testRunawayScriptIsInterrupted() throws Throwable {
+        ScriptPool pool = ScriptPool.load(manager, writeScript("counting.js", COUNTING_SCRIPT), 1);
+        ScriptExecutor executor = new ScriptExecutor(threadingManager, 1, 10, 200);
+
+        long start = System.nanoTime();
+        try {
+            executor.call(pool, work(60000));
+            fail("The script should have timed out");
+        } catch (TimeoutException expected) {
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        //The interrupted instance was left busy, so a fresh one has to be used
+        assertEquals(executor.call(pool, work(0)).intValue(), 0);
+        assertEquals(EVALUATIONS.get(), 2);
+
+        ScriptStatistics statistics = executor.getStatistics().get(0);
+        assertEquals(statistics.getInvocations(), 2);
+        assertEquals(statistics.getTimeouts(), 1);
+        assertEquals(statistics.getFailures(), 1);
+    }
+
+    public void testFullQueueIsRejected() throws Throwable {
+        ScriptPool pool = ScriptPool.load(manager, writeScript("counting.js", COUNTING_SCRIPT), 1);
+        ScriptExecutor executor = new ScriptExecutor(threadingManager, 1, 1, 5000);
+        for (int i = 0; i < 5; ++i) {
+            executor.submit(pool, work(200));
+        }
+        executor.getShutdownRunner().run();
+
+        List<ScriptStatistics> statistics = executor.getStatistics();
+        assertEquals(statistics.get(0).getRejections(), 3);
+    }
+
+    private Path writeScript(final String name, final String content) throws Exception {
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScriptCall<Integer> work(final int millis) {
+        return new ScriptCall<Integer>() {
+            @Override
+            public Integer call(final ScriptInstance instance) throws Throwable {
+                Object result = ((Invocable) instance.getEngine()).invokeFunction("work", millis);
+                return ((Number) result).intValue();
+            }
+        };
+    }
+}
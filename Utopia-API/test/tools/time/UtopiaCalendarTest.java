@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tools.time;
+
+import api.tools.time.DateFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+@Test
+public class UtopiaCalendarTest {
+    private static final Date AGE_START = DateFactory.newGMTDate("2012-11-16 18:00");
+    private static final int AGE_LENGTH_IN_TICKS = UtopiaCalendar.PRECOMPUTED_YEARS * UtopiaCalendar.TICKS_PER_YEAR + 500;
+
+    public void testRoundTripsOverWholeAge() {
+        for (int tickLength : new int[]{60, 30, 1}) {
+            UtopiaCalendar calendar = new UtopiaCalendar(AGE_START, tickLength);
+            long tickLengthInMillis = tickLength * 60_000L;
+
+            for (int tick = 0; tick < AGE_LENGTH_IN_TICKS; ++tick) {
+                UtopiaTime utopiaTime = calendar.fromTick(tick);
+                long expectedTime = AGE_START.getTime() + tick * tickLengthInMillis;
+
+                Assert.assertEquals(utopiaTime.getTick(), tick);
+                Assert.assertEquals(utopiaTime.getTime(), expectedTime);
+                Assert.assertEquals(utopiaTime.getYear(), tick / (7 * 24));
+                Assert.assertEquals(utopiaTime.getMonth().getId(), tick % (7 * 24) / 24);
+                Assert.assertEquals(utopiaTime.getDay(), tick % 24 + 1);
+
+                Assert.assertEquals(calendar.tickOf(expectedTime), tick);
+                Assert.assertEquals(calendar.fromTime(expectedTime), utopiaTime);
+                Assert.assertEquals(calendar.fromTime(expectedTime + tickLengthInMillis - 1), utopiaTime);
+                Assert.assertEquals(calendar.timeOf(tick), expectedTime);
+
+                Assert.assertEquals(calendar.fromUtopiaDate(utopiaTime.formattedUT()), utopiaTime);
+                String ofFormat = utopiaTime.getMonth().getName() + ' ' + utopiaTime.getDay() + " of YR" + utopiaTime.getYear();
+                Assert.assertEquals(calendar.fromUtopiaDate(ofFormat), utopiaTime);
+                String suffixFormat = utopiaTime.getMonth().getName() + ' ' + utopiaTime.getDayWithSuffix() + ", YR" +
+                        utopiaTime.getYear();
+                Assert.assertEquals(calendar.fromUtopiaDate(suffixFormat).getTime(), expectedTime);
+
+                Assert.assertEquals(utopiaTime.increment(1).getTick(), tick + 1);
+            }
+        }
+    }
+
+    public void testTimesBeforeAgeStart() {
+        UtopiaCalendar calendar = new UtopiaCalendar(AGE_START, 60);
+        UtopiaTime start = calendar.fromTime(AGE_START.getTime() - 1000000L);
+        Assert.assertEquals(start.getTick(), 0);
+        Assert.assertEquals(start.formattedUT(), "January 1, YR0");
+        Assert.assertEquals(start.increment(-5), start);
+    }
+
+    public void testParsing() {
+        UtopiaCalendar calendar = new UtopiaCalendar(AGE_START, 60);
+        UtopiaTime time = calendar.fromUtopiaDate("May 5 of YR2");
+        Assert.assertEquals(time.getYear(), 2);
+        Assert.assertEquals(time.getMonth(), UtopiaMonth.MAY);
+        Assert.assertEquals(time.getDay(), 5);
+        Assert.assertEquals(calendar.fromUtopiaDate("may 5 of yr2"), time);
+        Assert.assertEquals(calendar.fromUtopiaDate("May 5th, YR2"), time);
+        Assert.assertEquals(UtopiaCalendar.parseTick("May 5 of YR2"), time.getTick());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnparsableDate() {
+        new UtopiaCalendar(AGE_START, 60).fromUtopiaDate("Maybe 5 of YR2");
+    }
+
+    public void testCalculateAgeStart() {
+        UtopiaCalendar calendar = new UtopiaCalendar(AGE_START, 60);
+        UtopiaTime current = calendar.fromUtopiaDate("March 10, YR1");
+        Date newAgeStart = UtopiaTime.calculateAgeStart("March 12, YR1", current);
+
+        UtopiaCalendar moved = new UtopiaCalendar(newAgeStart, 60);
+        Assert.assertEquals(moved.fromTime(current.getTime()).formattedUT(), "March 12, YR1");
+    }
+}
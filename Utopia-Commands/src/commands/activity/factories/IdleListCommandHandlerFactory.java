@@ -42,7 +42,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class IdleListCommandHandlerFactory implements CommandHandlerFactory {
-    private final Command handledCommand = CommandBuilder.forCommand("idlelist").ofType(CommandTypes.ACTIVITY).build();
+    private final Command handledCommand = CommandBuilder.forCommand("idlelist").ofType(CommandTypes.ACTIVITY).readOnly().build();
     private final List<CommandParser> parsers = new ArrayList<>();
 
     private final Provider<IdleListCommandHandler> handlerProvider;
@@ -34,14 +34,12 @@ import api.events.DelayedEventPoster;
 import api.runtime.IRCContext;
 import api.tools.collections.Params;
 import database.daos.UserActivitiesDAO;
-import database.models.UserActivities;
+import database.models.UserActivitiesRow;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
 
 import javax.inject.Inject;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 public class IdleListCommandHandler implements CommandHandler {
@@ -56,21 +54,10 @@ public class IdleListCommandHandler implements CommandHandler {
     public CommandResponse handleCommand(final IRCContext context, final Params params, final Collection<Filter<?>> filters,
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
         try {
-            List<UserActivities> activitiesList = userActivitiesDAO.getAllUserActivities();
-            Collections.sort(activitiesList, new LastActivityComparator());
+            List<UserActivitiesRow> activitiesList = userActivitiesDAO.getAllUserActivitiesRows();
             return CommandResponse.resultResponse("activities", activitiesList);
         } catch (DBException e) {
             throw new CommandHandlingException(e);
         }
     }
-
-    /**
-     * Using this to sort will cause the users with the most current activity to be first in the list
-     */
-    private static class LastActivityComparator implements Comparator<UserActivities> {
-        @Override
-        public int compare(final UserActivities o1, final UserActivities o2) {
-            return o2.getLastActivity().compareTo(o1.getLastActivity());
-        }
-    }
 }
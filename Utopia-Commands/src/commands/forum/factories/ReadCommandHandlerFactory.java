@@ -27,10 +27,7 @@
 
 package commands.forum.factories;
 
-import api.commands.Command;
-import api.commands.CommandBuilder;
-import api.commands.CommandParser;
-import api.commands.ParamParsingSpecification;
+import api.commands.*;
 import api.irc.ValidationType;
 import com.google.inject.Provider;
 import commands.CommandTypes;
@@ -55,10 +52,13 @@ public class ReadCommandHandlerFactory implements CommandHandlerFactory {
     public ReadCommandHandlerFactory(final Provider<ReadCommandHandler> handlerProvider) {
         this.handlerProvider = handlerProvider;
 
-        handledCommand.setHelpText("Displays the current posts in the thread with the specified id");
+        handledCommand.setHelpText("Displays the posts in the thread with the specified id, a page at a time. Specify the id of " +
+                "the last post you've read to see the posts after it");
 
         ParamParsingSpecification id = new ParamParsingSpecification("id", ValidationType.INT.getPattern());
-        parsers.add(new CommandParser(id));
+        ParamParsingSpecification after = new ParamParsingSpecification("after", ValidationType.INT.getPattern(),
+                CommandParamGroupingSpecification.OPTIONAL);
+        parsers.add(new CommandParser(id, after));
     }
 
     @Override
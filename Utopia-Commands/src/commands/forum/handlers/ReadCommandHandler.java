@@ -33,20 +33,27 @@ import api.database.DBException;
 import api.events.DelayedEventPoster;
 import api.runtime.IRCContext;
 import api.tools.collections.Params;
+import database.daos.ForumPostDAO;
 import database.daos.ForumThreadDAO;
+import database.models.ForumPost;
 import database.models.ForumThread;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
 
 import javax.inject.Inject;
 import java.util.Collection;
+import java.util.List;
 
 public class ReadCommandHandler implements CommandHandler {
+    private static final int POSTS_PER_PAGE = 5;
+
     private final ForumThreadDAO threadDAO;
+    private final ForumPostDAO postDAO;
 
     @Inject
-    public ReadCommandHandler(final ForumThreadDAO threadDAO) {
+    public ReadCommandHandler(final ForumThreadDAO threadDAO, final ForumPostDAO postDAO) {
         this.threadDAO = threadDAO;
+        this.postDAO = postDAO;
     }
 
     @Override
@@ -55,9 +62,23 @@ public class ReadCommandHandler implements CommandHandler {
         try {
             ForumThread thread = threadDAO.getForumThread(params.getLongParameter("id"));
             if (thread == null) return CommandResponse.errorResponse("No thread with that ID could be found");
-            if (thread.getSection().getMinimumAccessLevel().allows(context.getUser(), context.getChannel()))
-                return CommandResponse.resultResponse("posts", thread.getPosts(), "user", context.getBotUser());
-            else return CommandResponse.errorResponse("You don't have access to that thread");
+            if (!thread.getSection().getMinimumAccessLevel().allows(context.getUser(), context.getChannel()))
+                return CommandResponse.errorResponse("You don't have access to that thread");
+
+            ForumPost after = null;
+            if (params.containsKey("after")) {
+                after = postDAO.getForumPost(params.getLongParameter("after"));
+                if (after == null || !after.getThread().equals(thread))
+                    return CommandResponse.errorResponse("No post with that ID could be found in the thread");
+            }
+            //Fetch one extra post to find out whether there's another page
+            List<ForumPost> posts = postDAO.getPosts(thread, after, POSTS_PER_PAGE + 1);
+            ForumPost lastPost = null;
+            if (posts.size() > POSTS_PER_PAGE) {
+                posts = posts.subList(0, POSTS_PER_PAGE);
+                lastPost = posts.get(POSTS_PER_PAGE - 1);
+            }
+            return CommandResponse.resultResponse("thread", thread, "posts", posts, "lastPost", lastPost, "user", context.getBotUser());
         } catch (DBException e) {
             throw new CommandHandlingException(e);
         }
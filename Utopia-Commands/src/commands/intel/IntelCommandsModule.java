@@ -37,6 +37,7 @@ public class IntelCommandsModule extends AbstractModule {
     protected void configure() {
         Multibinder<CommandHandlerFactory> binder = Multibinder.newSetBinder(binder(), CommandHandlerFactory.class);
         binder.addBinding().to(ClearIntelCommandHandlerFactory.class);
+        binder.addBinding().to(ExportCommandHandlerFactory.class);
         binder.addBinding().to(IntelCommandHandlerFactory.class);
         binder.addBinding().to(KdCommandHandlerFactory.class);
         binder.addBinding().to(MissingCommandHandlerFactory.class);
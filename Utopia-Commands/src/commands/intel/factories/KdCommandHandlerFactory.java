@@ -46,7 +46,7 @@ import java.util.List;
 
 @Singleton
 public class KdCommandHandlerFactory implements CommandHandlerFactory {
-    private final Command handledCommand = CommandBuilder.forCommand("kd").ofType(CommandTypes.INTEL).build();
+    private final Command handledCommand = CommandBuilder.forCommand("kd").ofType(CommandTypes.INTEL).readOnly().build();
     private final List<CommandParser> parsers = new ArrayList<>();
 
     private final Provider<KdCommandHandler> handlerProvider;
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package commands.intel.handlers;
+
+import api.commands.CommandHandlingException;
+import api.commands.CommandResponse;
+import api.events.DelayedEventPoster;
+import api.runtime.IRCContext;
+import api.tools.collections.Params;
+import api.tools.time.DateUtil;
+import com.google.common.base.Charsets;
+import com.google.inject.Provider;
+import database.export.DataExporter;
+import database.export.ExportCriteria;
+import database.export.ExportFormat;
+import database.export.ExportType;
+import spi.commands.CommandHandler;
+import spi.filters.Filter;
+
+import javax.inject.Inject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Date;
+
+public class ExportCommandHandler implements CommandHandler {
+    private static final Path EXPORTS_DIR = Paths.get("exports");
+
+    private final Provider<DataExporter> dataExporterProvider;
+
+    @Inject
+    public ExportCommandHandler(final Provider<DataExporter> dataExporterProvider) {
+        this.dataExporterProvider = dataExporterProvider;
+    }
+
+    @Override
+    public CommandResponse handleCommand(IRCContext context, Params params, Collection<Filter<?>> filters,
+                                         final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
+        ExportType type = ExportType.fromName(params.getParameter("type"));
+        ExportFormat format = params.containsKey("format") ? ExportFormat.fromName(params.getParameter("format")) : ExportFormat.CSV;
+        Date from = params.containsKey("hours") ?
+                new Date(System.currentTimeMillis() - DateUtil.hoursToMillis(params.getDoubleParameter("hours"))) : null;
+        if (from != null && !type.isDated()) return CommandResponse.errorResponse(type.getFileName() + " can't be limited by date");
+        ExportCriteria criteria = new ExportCriteria(from, null, params.containsKey("kingdom") ? params.getParameter("kingdom") : null);
+
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path file = EXPORTS_DIR.resolve(type.getFileName() + '-' + timestamp + '.' + format.getFileExtension());
+        try {
+            Files.createDirectories(EXPORTS_DIR);
+            long rows;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, Charsets.UTF_8)) {
+                rows = dataExporterProvider.get().export(type, format, criteria, writer);
+            }
+            return CommandResponse.resultResponse("rows", rows, "file", file.toAbsolutePath().toString());
+        } catch (IOException e) {
+            throw new CommandHandlingException(e);
+        }
+    }
+}
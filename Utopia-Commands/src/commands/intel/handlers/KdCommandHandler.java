@@ -34,28 +34,45 @@ import api.events.DelayedEventPoster;
 import api.runtime.IRCContext;
 import api.tools.collections.Params;
 import database.daos.KingdomDAO;
-import database.models.Kingdom;
+import database.models.*;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
+import tools.cache.ResultCache;
 
 import javax.inject.Inject;
 import java.util.Collection;
 
 public class KdCommandHandler implements CommandHandler {
     private final KingdomDAO kingdomDAO;
+    private final ResultCache resultCache;
 
     @Inject
-    public KdCommandHandler(final KingdomDAO kingdomDAO) {
+    public KdCommandHandler(final KingdomDAO kingdomDAO, final ResultCache resultCache) {
         this.kingdomDAO = kingdomDAO;
+        this.resultCache = resultCache;
     }
 
     @Override
-    public CommandResponse handleCommand(IRCContext context, Params params, Collection<Filter<?>> filters,
+    public CommandResponse handleCommand(IRCContext context, final Params params, Collection<Filter<?>> filters,
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
         try {
-            Kingdom kd = params.containsKey("loc") ? kingdomDAO.getKingdom(params.getParameter("loc")) : kingdomDAO.getSelfKD();
-            if (kd == null) return CommandResponse.errorResponse("Kingdom hasn't been added yet");
-            return CommandResponse.resultResponse("kingdom", kd);
+            String key = params.containsKey("loc") ? params.getParameter("loc") : "self";
+            return resultCache.get("kd", key, new ResultCache.Loader<CommandResponse>() {
+                @Override
+                public CommandResponse load(final ResultCache.Dependencies dependencies) {
+                    dependencies.onAny(Race.class, Personality.class, HonorTitle.class);
+                    Kingdom kd = params.containsKey("loc") ? kingdomDAO.getKingdom(params.getParameter("loc"), FetchPlans.KINGDOM_OVERVIEW)
+                                                           : kingdomDAO.getSelfKD(FetchPlans.KINGDOM_OVERVIEW);
+                    if (kd == null) {
+                        dependencies.onAny(Kingdom.class);
+                        return CommandResponse.errorResponse("Kingdom hasn't been added yet");
+                    }
+                    dependencies.on(Kingdom.class, kd.getId()).on(Province.class, kd.getProvinces());
+                    //Loads the races etc. of the provinces, so the template doesn't have to
+                    kd.getSetupInfo();
+                    return CommandResponse.resultResponse("kingdom", kd);
+                }
+            }).copy();
         } catch (DBException e) {
             throw new CommandHandlingException(e);
         }
@@ -35,6 +35,7 @@ import api.runtime.IRCContext;
 import api.tools.collections.Params;
 import api.tools.files.FilterUtil;
 import database.daos.KingdomDAO;
+import database.models.FetchPlans;
 import database.models.Kingdom;
 import database.models.Province;
 import spi.commands.CommandHandler;
@@ -58,7 +59,8 @@ public class MissingCommandHandler implements CommandHandler {
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
         try {
             Kingdom kingdom =
-                    params.containsKey("location") ? kingdomDAO.getKingdom(params.getParameter("location")) : kingdomDAO.getSelfKD();
+                    params.containsKey("location") ? kingdomDAO.getKingdom(params.getParameter("location"), FetchPlans.KINGDOM_OVERVIEW) :
+                                                     kingdomDAO.getSelfKD(FetchPlans.KINGDOM_OVERVIEW);
             if (kingdom == null) return CommandResponse.errorResponse("Could not find KD");
 
             Set<Province> missing = new HashSet<>(kingdom.getProvinces());
@@ -60,13 +60,21 @@ public class AttackingActivities {
     }
 
     public void addHitMade(final int gain, final int damageMade) {
-        ++hitsMade;
+        addHitsMade(1, gain, damageMade);
+    }
+
+    public void addHitsMade(final int hits, final int gain, final int damageMade) {
+        hitsMade += hits;
         damageDone += damageMade;
         landTaken += gain;
     }
 
     public void addHitReceived(final int loss, final int damageReceived) {
-        ++hitsReceived;
+        addHitsReceived(1, loss, damageReceived);
+    }
+
+    public void addHitsReceived(final int hits, final int loss, final int damageReceived) {
+        hitsReceived += hits;
         damageTaken += damageReceived;
         landLost += loss;
     }
@@ -27,26 +27,16 @@
 
 package commands.news;
 
-import api.tools.numbers.NumberUtil;
-import api.tools.text.StringUtil;
-import com.google.common.collect.Sets;
 import database.models.AttackType;
-import database.models.GainsSpecification;
 import database.models.Kingdom;
 import database.models.NewsItem;
-import lombok.extern.log4j.Log4j;
-import tools.parsing.UtopiaValidationType;
+import tools.news.AttackSummary;
+import tools.news.NewsSummaryAggregates;
+import tools.news.NewsSummaryVisitor;
 
 import java.util.*;
 
-import static tools.parsing.NonAttackNewsTypes.*;
-
-@Log4j
 public class SummaryView {
-    private static final Collection<String> WAR_TYPE_SET = Sets.newHashSet(INCOMING_WAR_DECLARED, OUTGOING_WAR_DECLARED,
-            MAX_HOSTILITY_AUTO_WAR_DECLARATION, INCOMING_WITHDRAWAL,
-            INCOMING_MUTUAL_PEACE_ACCEPTED, OUTGOING_MUTUAL_PEACE_ACCEPTED, OUTGOING_WITHDRAWAL);
-
     private final AttackingActivities selfGains;
     private final AttackingActivities enemyGains;
     private final List<TypeToDualActivities> kdStats;
@@ -79,55 +69,55 @@ public class SummaryView {
     }
 
     public static SummaryView constructFromNews(final List<NewsItem> news, final Kingdom selfKd) {
-        AttackingActivities selfGains = new AttackingActivities();
-        AttackingActivities enemyGains = new AttackingActivities();
-        Map<AttackType, AttackingActivities> selfStats = newStatsMap();
-        Map<AttackType, AttackingActivities> enemyStats = newStatsMap();
-        Map<String, Map<AttackType, AttackingActivities>> provinceStats = new HashMap<>();
-
-        String atWarWith = null;
-        for (NewsItem newsItem : news) {
-            String newsType = newsItem.getNewsType();
-            if (newsType != null && WAR_TYPE_SET.contains(newsType)) {
-                atWarWith = deriveWarStatus(newsItem, newsType);
-            } else if (newsType == null) {
-                //Don't care about these atm
+        Builder builder = new Builder(selfKd);
+        NewsSummaryAggregates.summarizeFully(news, null, builder);
+        return builder.build();
+    }
+
+    /**
+     * Builds a SummaryView from the attacks it's given as a visitor, for example by the news summary aggregates
+     */
+    public static class Builder implements NewsSummaryVisitor {
+        private final Kingdom selfKd;
+        private final AttackingActivities selfGains = new AttackingActivities();
+        private final AttackingActivities enemyGains = new AttackingActivities();
+        private final Map<AttackType, AttackingActivities> selfStats = newStatsMap();
+        private final Map<AttackType, AttackingActivities> enemyStats = newStatsMap();
+        private final Map<String, Map<AttackType, AttackingActivities>> provinceStats = new HashMap<>();
+
+        public Builder(final Kingdom selfKd) {
+            this.selfKd = selfKd;
+        }
+
+        @Override
+        public void visitAttacks(final AttackSummary attacks, final boolean isWar) {
+            AttackType attackType = attacks.getAttackType();
+            if (!provinceStats.containsKey(attacks.getAttacker())) provinceStats.put(attacks.getAttacker(), newStatsMap());
+            if (!provinceStats.containsKey(attacks.getDefender())) provinceStats.put(attacks.getDefender(), newStatsMap());
+
+            boolean isIncomingHit = attacks.getDefendingKd().equals(selfKd.getLocation());
+            int hits = attacks.getHits();
+            int gain = attacks.getGain(isWar, isIncomingHit);
+            int damage = attacks.getDamage(isWar, isIncomingHit);
+            int nonLandDamage = attacks.getNonLandDamage(isWar, isIncomingHit);
+            if (attacks.getAttackingKd().equals(selfKd.getLocation())) {
+                selfGains.addHitsMade(hits, gain, 0);
+                enemyGains.addHitsReceived(hits, damage, 0);
+                selfStats.get(attackType).addHitsMade(hits, gain, nonLandDamage);
+                enemyStats.get(attackType).addHitsReceived(hits, damage, nonLandDamage);
             } else {
-                AttackType attackType = AttackType.fromName(newsItem.getNewsType().replace("Outgoing ", "").replace("Incoming ", ""));
-                if (attackType == null) {
-                    SummaryView.log.debug("Unknown news type: " + newsItem.getNewsType() + ", expected attack type");
-                    continue;
-                }
-                String attackingKd = StringUtil.extractPartialString(UtopiaValidationType.KDLOC.getPatternString(), newsItem.getSource());
-                String attacker = newsItem.getSource().replace(attackingKd, "").trim();
-                if (!provinceStats.containsKey(attacker)) provinceStats.put(attacker, newStatsMap());
-
-                String defendingKd = StringUtil.extractPartialString(UtopiaValidationType.KDLOC.getPatternString(), newsItem.getTarget());
-                String defender = newsItem.getTarget().replace(defendingKd, "").trim();
-                if (!provinceStats.containsKey(defender)) provinceStats.put(defender, newStatsMap());
-
-                boolean isWar = atWarWith != null && (atWarWith.equals(attackingKd) || atWarWith.equals(defendingKd));
-                boolean isIncomingHit = defendingKd.equals(selfKd.getLocation());
-
-                AttackType.GainVsDamage gain =
-                        attackType.getGainsSpecification() == GainsSpecification.NON_LAND ? AttackType.GainVsDamage.ZERO : attackType
-                                .calcGain(NumberUtil.parseInt(newsItem.getItemValue()), isWar, isIncomingHit);
-                if (attackingKd.equals(selfKd.getLocation())) {
-                    selfGains.addHitMade(gain.getGain(), 0);
-                    enemyGains.addHitReceived(gain.getDamage(), 0);
-                    selfStats.get(attackType).addHitMade(gain.getGain(), gain.getNonLandDamage());
-                    enemyStats.get(attackType).addHitReceived(gain.getDamage(), gain.getNonLandDamage());
-                } else {
-                    enemyGains.addHitMade(gain.getGain(), 0);
-                    selfGains.addHitReceived(gain.getDamage(), 0);
-                    enemyStats.get(attackType).addHitMade(gain.getGain(), gain.getNonLandDamage());
-                    selfStats.get(attackType).addHitReceived(gain.getDamage(), gain.getNonLandDamage());
-                }
-                provinceStats.get(attacker).get(attackType).addHitMade(gain.getGain(), gain.getNonLandDamage());
-                provinceStats.get(defender).get(attackType).addHitReceived(gain.getDamage(), gain.getNonLandDamage());
+                enemyGains.addHitsMade(hits, gain, 0);
+                selfGains.addHitsReceived(hits, damage, 0);
+                enemyStats.get(attackType).addHitsMade(hits, gain, nonLandDamage);
+                selfStats.get(attackType).addHitsReceived(hits, damage, nonLandDamage);
             }
+            provinceStats.get(attacks.getAttacker()).get(attackType).addHitsMade(hits, gain, nonLandDamage);
+            provinceStats.get(attacks.getDefender()).get(attackType).addHitsReceived(hits, damage, nonLandDamage);
+        }
+
+        public SummaryView build() {
+            return new SummaryView(selfGains, enemyGains, mapDualActivitiesToList(selfStats, enemyStats), mapConversion(provinceStats));
         }
-        return new SummaryView(selfGains, enemyGains, mapDualActivitiesToList(selfStats, enemyStats), mapConversion(provinceStats));
     }
 
     private static Map<AttackType, AttackingActivities> newStatsMap() {
@@ -162,16 +152,4 @@ public class SummaryView {
         }
         return out;
     }
-
-    private static String deriveWarStatus(NewsItem newsItem, String newsType) {
-        switch (newsType) {
-            case INCOMING_WAR_DECLARED:
-                return newsItem.getSource();
-            case OUTGOING_WAR_DECLARED:
-            case MAX_HOSTILITY_AUTO_WAR_DECLARATION:
-                return newsItem.getTarget();
-            default:
-                return null;
-        }
-    }
 }
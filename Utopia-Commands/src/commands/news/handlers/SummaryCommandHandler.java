@@ -42,21 +42,28 @@ import database.models.Kingdom;
 import database.models.NewsItem;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
+import tools.news.NewsSummaryAggregates;
 import tools.time.UtopiaTimeFactory;
 
 import javax.inject.Inject;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public class SummaryCommandHandler implements CommandHandler {
     private final UtopiaTimeFactory utopiaTimeFactory;
     private final NewsItemDAO newsItemDAO;
     private final KingdomDAO kingdomDAO;
+    private final NewsSummaryAggregates summaryAggregates;
 
     @Inject
-    public SummaryCommandHandler(final KingdomDAO kingdomDAO, final NewsItemDAO newsItemDAO, final UtopiaTimeFactory utopiaTimeFactory) {
+    public SummaryCommandHandler(final KingdomDAO kingdomDAO, final NewsItemDAO newsItemDAO, final UtopiaTimeFactory utopiaTimeFactory,
+                                 final NewsSummaryAggregates summaryAggregates) {
         this.kingdomDAO = kingdomDAO;
         this.newsItemDAO = newsItemDAO;
         this.utopiaTimeFactory = utopiaTimeFactory;
+        this.summaryAggregates = summaryAggregates;
     }
 
     @Override
@@ -67,15 +74,16 @@ public class SummaryCommandHandler implements CommandHandler {
                     params.containsKey("from") ? utopiaTimeFactory.newUtopiaTime(params.getParameter("from").substring(5)).getDate() : null;
             Date end = params.containsKey("to") ? utopiaTimeFactory.newUtopiaTime(params.getParameter("to").substring(3)).getDate() : null;
 
-            List<NewsItem> news = new LinkedList<>(newsItemDAO.getNewsBetween(start, end));
-            if (params.containsKey("kingdom"))
-                removeNonMatchingItems(news, StringUtil.splitOnSpace(params.getParameter("kingdom")));
-            if (news.isEmpty()) return CommandResponse.errorResponse("No news added that match the criteria");
-            Collections.sort(news);
-            NewsItem lastAddedNewsItem = news.get(news.size() - 1);
+            List<String> kingdoms = params.containsKey("kingdom") ? Arrays.asList(StringUtil.splitOnSpace(params.getParameter("kingdom")))
+                    : null;
 
             Kingdom kingdom = kingdomDAO.getSelfKD();
-            SummaryView view = SummaryView.constructFromNews(news, kingdom);
+            SummaryView.Builder builder = new SummaryView.Builder(kingdom);
+            Long lastAddedNewsItemId = summaryAggregates.summarize(start, end, kingdoms, builder);
+            NewsItem lastAddedNewsItem = lastAddedNewsItemId == null ? null : newsItemDAO.getNewsItem(lastAddedNewsItemId);
+            if (lastAddedNewsItem == null) return CommandResponse.errorResponse("No news added that match the criteria");
+
+            SummaryView view = builder.build();
             if (params.containsKey("province")) {
                 String province = params.getParameter("province").substring(4).trim();
                 List<TypeToActivities> provinceStats = view.getProvinceStats(province);
@@ -97,20 +105,4 @@ public class SummaryCommandHandler implements CommandHandler {
             throw new CommandHandlingException(e);
         }
     }
-
-    private static void removeNonMatchingItems(List<NewsItem> news, String... enemyKds) {
-        Iterator<NewsItem> iterator = news.iterator();
-        while (iterator.hasNext()) {
-            NewsItem next = iterator.next();
-            boolean removeItem = true;
-            for (String kd : enemyKds) {
-                if (next.getSource() != null && next.getSource().endsWith(kd) ||
-                        next.getTarget() != null && next.getTarget().endsWith(kd)) {
-                    removeItem = false;
-                    break;
-                }
-            }
-            if (removeItem) iterator.remove();
-        }
-    }
 }
@@ -29,6 +29,7 @@ package commands.spells_ops;
 
 import api.commands.Command;
 import api.commands.CommandBuilder;
+import api.database.daos.BotUserDAO;
 import com.google.inject.Provider;
 import commands.CommandTypes;
 import commands.spells_ops.factories.SpellsOpsCommandHandlerFactory;
@@ -56,13 +57,15 @@ public class SpellsOpsFactoryGenerator implements DynamicCommandHandlerFactoryGe
     private final CommonEntitiesAccess commonEntitiesAccess;
     private final Provider<ProvinceDAO> provinceDAOProvider;
     private final UtopiaTimeFactory utopiaTimeFactory;
+    private final Provider<BotUserDAO> botUserDAOProvider;
 
     @Inject
     public SpellsOpsFactoryGenerator(final CommonEntitiesAccess commonEntitiesAccess, final Provider<ProvinceDAO> provinceDAOProvider,
-                                     final UtopiaTimeFactory utopiaTimeFactory) {
+                                     final UtopiaTimeFactory utopiaTimeFactory, final Provider<BotUserDAO> botUserDAOProvider) {
         this.commonEntitiesAccess = commonEntitiesAccess;
         this.provinceDAOProvider = provinceDAOProvider;
         this.utopiaTimeFactory = utopiaTimeFactory;
+        this.botUserDAOProvider = botUserDAOProvider;
 
         Command command;
         for (OpType opType : commonEntitiesAccess
@@ -86,7 +89,7 @@ public class SpellsOpsFactoryGenerator implements DynamicCommandHandlerFactoryGe
         List<CommandHandlerFactory> out = new ArrayList<>(handledCommands.size());
         SpellsOpsCommandHandler handler;
         for (Command command : handledCommands) {
-            handler = new SpellsOpsCommandHandler(commonEntitiesAccess, provinceDAOProvider, utopiaTimeFactory);
+            handler = new SpellsOpsCommandHandler(commonEntitiesAccess, provinceDAOProvider, utopiaTimeFactory, botUserDAOProvider);
             out.add(new SpellsOpsCommandHandlerFactory(command, handler));
         }
         return out;
@@ -29,6 +29,7 @@ package commands.spells_ops.handlers;
 
 import api.commands.CommandHandlingException;
 import api.commands.CommandResponse;
+import api.database.daos.BotUserDAO;
 import api.database.models.BotUser;
 import api.events.DelayedEventPoster;
 import api.runtime.IRCContext;
@@ -52,13 +53,15 @@ public class SpellsOpsCommandHandler implements CommandHandler {
     private final Provider<ProvinceDAO> provinceDAOProvider;
     private final CommonEntitiesAccess commonEntitiesAccess;
     private final UtopiaTimeFactory utopiaTimeFactory;
+    private final Provider<BotUserDAO> botUserDAOProvider;
 
     @Inject
     public SpellsOpsCommandHandler(final CommonEntitiesAccess commonEntitiesAccess, final Provider<ProvinceDAO> provinceDAOProvider,
-                                   final UtopiaTimeFactory utopiaTimeFactory) {
+                                   final UtopiaTimeFactory utopiaTimeFactory, final Provider<BotUserDAO> botUserDAOProvider) {
         this.commonEntitiesAccess = commonEntitiesAccess;
         this.provinceDAOProvider = provinceDAOProvider;
         this.utopiaTimeFactory = utopiaTimeFactory;
+        this.botUserDAOProvider = botUserDAOProvider;
     }
 
     @Override
@@ -70,6 +73,7 @@ public class SpellsOpsCommandHandler implements CommandHandler {
 
             String name = context.getCommand().getName();
             BotUser user = context.getBotUser();
+            BotUserDAO botUserDAO = botUserDAOProvider.get();
             OpType opType = commonEntitiesAccess.getOpType(name);
             boolean isDuration = false;
             int amount = params.getIntParameter("amount");
@@ -79,7 +83,7 @@ public class SpellsOpsCommandHandler implements CommandHandler {
 
                 if (spellType.getSpellCharacter().isInstant()) {
                     province.registerInstantSpell(user, spellType, amount);
-                    if (amount > 0) user.incrementStat(spellType.getName() + " damage", amount);
+                    if (amount > 0) botUserDAO.incrementStat(user, spellType.getName() + " damage", amount);
                 } else {
                     UtopiaTime currentTime = utopiaTimeFactory.newUtopiaTime(System.currentTimeMillis());
                     UtopiaTime expires = currentTime.increment(amount + 1);
@@ -89,14 +93,14 @@ public class SpellsOpsCommandHandler implements CommandHandler {
                     delayedEventPoster.enqueue(new DurationSpellRegisteredEvent(durationSpell.getId(), context));
                     isDuration = true;
                 }
-                if (spellType.getSpellCharacter() != SpellOpCharacter.SELF_SPELLOP) user.incrementStat(spellType.getName(), 1);
+                if (spellType.getSpellCharacter() != SpellOpCharacter.SELF_SPELLOP) botUserDAO.incrementStat(user, spellType.getName(), 1);
                 return CommandResponse
                         .resultResponse("province", province, "result", params.getParameter("amount"), "type", spellType.getName(),
                                 "isDuration", isDuration);
             } else {
                 if (opType.getOpCharacter().isInstant()) {
                     province.registerInstantOp(user, opType, amount);
-                    if (amount > 0) user.incrementStat(opType.getName() + " damage", amount);
+                    if (amount > 0) botUserDAO.incrementStat(user, opType.getName() + " damage", amount);
                 } else {
                     UtopiaTime currentTime = utopiaTimeFactory.newUtopiaTime(System.currentTimeMillis());
                     UtopiaTime expires = currentTime.increment(amount + 1);
@@ -105,7 +109,7 @@ public class SpellsOpsCommandHandler implements CommandHandler {
                     delayedEventPoster.enqueue(new DurationOpRegisteredEvent(durationOp.getId(), context));
                     isDuration = true;
                 }
-                if (opType.getOpCharacter() != SpellOpCharacter.SELF_SPELLOP) user.incrementStat(opType.getName(), 1);
+                if (opType.getOpCharacter() != SpellOpCharacter.SELF_SPELLOP) botUserDAO.incrementStat(user, opType.getName(), 1);
                 return CommandResponse
                         .resultResponse("province", province, "result", params.getParameter("amount"), "type", opType.getName(),
                                 "isDuration", isDuration);
@@ -45,7 +45,7 @@ import java.util.List;
 
 @Singleton
 public class HofCommandHandlerFactory implements CommandHandlerFactory {
-    private final Command handledCommand = CommandBuilder.forCommand("hof").ofType(CommandTypes.STATS).build();
+    private final Command handledCommand = CommandBuilder.forCommand("hof").ofType(CommandTypes.STATS).readOnly().build();
     private final List<CommandParser> parsers = new ArrayList<>();
 
     private final Provider<HofCommandHandler> handlerProvider;
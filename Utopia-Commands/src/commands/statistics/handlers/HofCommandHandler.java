@@ -29,14 +29,11 @@ package commands.statistics.handlers;
 
 import api.commands.CommandHandlingException;
 import api.commands.CommandResponse;
-import api.database.DBException;
-import api.database.daos.BotUserDAO;
-import api.database.models.BotUser;
-import api.database.models.UserStatistic;
+import api.database.UserStatisticsLeaderboards;
 import api.events.DelayedEventPoster;
 import api.runtime.IRCContext;
+import api.tools.collections.Leaderboard;
 import api.tools.collections.Params;
-import com.google.common.collect.Lists;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
 
@@ -44,38 +41,33 @@ import javax.inject.Inject;
 import java.util.*;
 
 public class HofCommandHandler implements CommandHandler {
-    private final BotUserDAO userDAO;
+    private static final int ENTRIES_PER_TYPE = 6;
+
+    private final UserStatisticsLeaderboards leaderboards;
 
     @Inject
-    public HofCommandHandler(final BotUserDAO userDAO) {
-        this.userDAO = userDAO;
+    public HofCommandHandler(final UserStatisticsLeaderboards leaderboards) {
+        this.leaderboards = leaderboards;
     }
 
     @Override
     public CommandResponse handleCommand(IRCContext context, Params params, Collection<Filter<?>> filters,
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
-        try {
-            SortedMap<String, List<NickWithNumber>> map = new TreeMap<>();
-            String wantedType = params.getParameter("type");
-            for (BotUser user : userDAO.getAllUsers()) {
-                for (UserStatistic stat : user.getStats()) {
-                    if (wantedType != null && !stat.getType().equalsIgnoreCase(wantedType)) {
-                        //do nothing
-                    } else if (map.containsKey(stat.getType())) {
-                        map.get(stat.getType()).add(new NickWithNumber(user.getMainNick(), stat.getAmount()));
-                    } else {
-                        map.put(stat.getType(), Lists.newArrayList(new NickWithNumber(user.getMainNick(), stat.getAmount())));
-                    }
-                }
-            }
-            Comparator<NickWithNumber> comparator = new NickWithNumberComparator();
-            for (List<NickWithNumber> nickWithNumbers : map.values()) {
-                Collections.sort(nickWithNumbers, comparator);
+        SortedMap<String, List<NickWithNumber>> map = new TreeMap<>();
+        String wantedType = params.getParameter("type");
+        for (String type : leaderboards.getTypes()) {
+            if (wantedType != null && !type.equalsIgnoreCase(wantedType)) continue;
+
+            List<Leaderboard.Entry<String>> top = leaderboards.getTop(type, ENTRIES_PER_TYPE);
+            if (top.isEmpty()) continue;
+
+            List<NickWithNumber> nickWithNumbers = new ArrayList<>(top.size());
+            for (Leaderboard.Entry<String> entry : top) {
+                nickWithNumbers.add(new NickWithNumber(entry.getKey(), entry.getScore()));
             }
-            return CommandResponse.resultResponse("hof", map);
-        } catch (DBException e) {
-            throw new CommandHandlingException(e);
+            map.put(type, nickWithNumbers);
         }
+        return CommandResponse.resultResponse("hof", map);
     }
 
     public static class NickWithNumber {
@@ -95,11 +87,4 @@ public class HofCommandHandler implements CommandHandler {
             return number;
         }
     }
-
-    private static class NickWithNumberComparator implements Comparator<NickWithNumber> {
-        @Override
-        public int compare(NickWithNumber o1, NickWithNumber o2) {
-            return o2.number - o1.number;
-        }
-    }
 }
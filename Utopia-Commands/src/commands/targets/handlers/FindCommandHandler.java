@@ -38,11 +38,12 @@ import api.tools.compare.DynamicComparator;
 import api.tools.numbers.NumberUtil;
 import api.tools.time.TimeUtil;
 import database.daos.ProvinceDAO;
-import database.models.Province;
+import database.models.*;
 import filtering.filters.KingdomLocationFilter;
 import lombok.extern.log4j.Log4j;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
+import tools.cache.ResultCache;
 
 import javax.inject.Inject;
 import java.lang.reflect.InvocationTargetException;
@@ -50,78 +51,100 @@ import java.lang.reflect.Method;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.regex.Pattern;
 
+import static api.tools.text.StringUtil.lowerCase;
 import static api.tools.text.StringUtil.splitOnSpace;
 import static tools.UtopiaPropertiesConfig.FINDER_MAX_RESULTS;
 import static tools.UtopiaPropertiesConfig.INTRA_KD_LOC;
 
 @Log4j
 public class FindCommandHandler implements CommandHandler {
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
     private final ProvinceDAO provinceDAO;
     private final PropertiesCollection properties;
+    private final ResultCache resultCache;
 
     @Inject
-    public FindCommandHandler(final ProvinceDAO provinceDAO, final PropertiesCollection properties) {
+    public FindCommandHandler(final ProvinceDAO provinceDAO, final PropertiesCollection properties, final ResultCache resultCache) {
         this.provinceDAO = provinceDAO;
         this.properties = properties;
+        this.resultCache = resultCache;
     }
 
     @Override
-    public CommandResponse handleCommand(IRCContext context, Params params, Collection<Filter<?>> filters,
+    public CommandResponse handleCommand(IRCContext context, final Params params, final Collection<Filter<?>> filters,
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
         try {
             if (filters.isEmpty()) return CommandResponse.errorResponse("Syntax error, no valid filters found");
 
-            //0. Filter away self kd unless it's already handled in the filters list
-            Filter<?> selfKDRemovalFilter = new KingdomLocationFilter.Builder().parseAndBuild('!' + properties.get(INTRA_KD_LOC));
-            if (!filters.contains(selfKDRemovalFilter)) filters.add(selfKDRemovalFilter);
-
-            //1. Get all provinces that pass the filters
-            List<Province> provinces = provinceDAO.getProvincesPassingFilters(filters);
-            if (provinces.isEmpty())
-                return CommandResponse.errorResponse("No provinces matched the specified criteria");
-
-            //2. Apply any sorting specified
-            List<ProvinceWithResource> provinceWithResources = new ArrayList<>(provinces.size());
-            boolean hasSortingSpecified = params.containsKey("sorting");
-            if (hasSortingSpecified) {
-                initLazyCollections(provinceWithResources);
-                String sorting = splitOnSpace(params.getParameter("sorting"))[1];
-                Method sortingMethod = getSortingMethod(sorting);
-                if (sortingMethod == null)
-                    return CommandResponse.errorResponse("Syntax error, sorting option not recognized");
-                Collections.sort(provinces, new DynamicComparator<Province>(sortingMethod));
-                if ("desc".equalsIgnoreCase(params.getParameter("sortingSpec"))) Collections.reverse(provinces);
-                try {
-                    for (Province province : provinces) {
-                        Object value = sortingMethod.invoke(province);
-                        if (value != null)
-                            provinceWithResources.add(new ProvinceWithResource(province, formatSortValue(value)));
-                    }
-                } catch (InvocationTargetException | IllegalArgumentException | IllegalAccessException e) {
-                    FindCommandHandler.log.error("Couldn't get sorting values to display in the find command", e);
+            //The filters and the sorting are part of the input, so the input decides what the result is
+            String key = lowerCase(WHITESPACE_PATTERN.matcher(context.getInput().trim()).replaceAll(" "));
+            return resultCache.get("find", key, new ResultCache.Loader<CommandResponse>() {
+                @Override
+                public CommandResponse load(final ResultCache.Dependencies dependencies) {
+                    dependencies.onAny(Province.class, Kingdom.class, SoT.class, SoM.class, SoS.class, Survey.class, Army.class,
+                            Race.class, Personality.class);
+                    return find(params, filters);
                 }
-            }
+            }).copy();
+        } catch (SecurityException e) {
+            throw new CommandHandlingException(e);
+        }
+    }
 
-            //3. Cut off the list if there are too many results
-            int maxResults = properties.getInteger(FINDER_MAX_RESULTS);
-            if (params.containsKey("limit")) {
-                String limitSpec = params.getParameter("limit");
-                maxResults = Math.min(maxResults, NumberUtil.parseInt(splitOnSpace(limitSpec)[1]));
-            }
-            if (!hasSortingSpecified && maxResults < provinces.size()) {
-                provinces = new ArrayList<>(provinces.subList(0, maxResults));
-            }
-            if (hasSortingSpecified && maxResults < provinceWithResources.size()) {
-                provinceWithResources = new ArrayList<>(provinceWithResources.subList(0, maxResults));
+    private CommandResponse find(final Params params, final Collection<Filter<?>> filters) {
+        //0. Filter away self kd unless it's already handled in the filters list
+        Filter<?> selfKDRemovalFilter = new KingdomLocationFilter.Builder().parseAndBuild('!' + properties.get(INTRA_KD_LOC));
+        if (!filters.contains(selfKDRemovalFilter)) filters.add(selfKDRemovalFilter);
+
+        //1. Get all provinces that pass the filters
+        List<Province> provinces = provinceDAO.getProvincesPassingFilters(filters);
+        if (provinces.isEmpty())
+            return CommandResponse.errorResponse("No provinces matched the specified criteria");
+
+        //2. Apply any sorting specified
+        List<ProvinceWithResource> provinceWithResources = new ArrayList<>(provinces.size());
+        boolean hasSortingSpecified = params.containsKey("sorting");
+        if (hasSortingSpecified) {
+            initLazyCollections(provinceWithResources);
+            String sorting = splitOnSpace(params.getParameter("sorting"))[1];
+            Method sortingMethod = getSortingMethod(sorting);
+            if (sortingMethod == null)
+                return CommandResponse.errorResponse("Syntax error, sorting option not recognized");
+            Collections.sort(provinces, new DynamicComparator<Province>(sortingMethod));
+            if ("desc".equalsIgnoreCase(params.getParameter("sortingSpec"))) Collections.reverse(provinces);
+            try {
+                for (Province province : provinces) {
+                    Object value = sortingMethod.invoke(province);
+                    if (value != null) provinceWithResources.add(new ProvinceWithResource(province, value));
+                }
+            } catch (InvocationTargetException | IllegalArgumentException | IllegalAccessException e) {
+                FindCommandHandler.log.error("Couldn't get sorting values to display in the find command", e);
             }
+        }
 
+        //3. Cut off the list if there are too many results
+        int maxResults = properties.getInteger(FINDER_MAX_RESULTS);
+        if (params.containsKey("limit")) {
+            String limitSpec = params.getParameter("limit");
+            maxResults = Math.min(maxResults, NumberUtil.parseInt(splitOnSpace(limitSpec)[1]));
+        }
+        if (!hasSortingSpecified && maxResults < provinces.size()) {
+            provinces = new ArrayList<>(provinces.subList(0, maxResults));
+        }
+        if (hasSortingSpecified && maxResults < provinceWithResources.size()) {
+            provinceWithResources = new ArrayList<>(provinceWithResources.subList(0, maxResults));
+        }
 
-            return CommandResponse.resultResponse("found", hasSortingSpecified ? provinceWithResources : provinces, "hasSortingSpecified",
-                    hasSortingSpecified);
-        } catch (SecurityException e) {
-            throw new CommandHandlingException(e);
+        //4. Load what the template uses, since the result is cached
+        for (Province province : provinces) {
+            province.getKingdom().getLocation();
         }
+
+        return CommandResponse.resultResponse("found", hasSortingSpecified ? provinceWithResources : provinces, "hasSortingSpecified",
+                hasSortingSpecified);
     }
 
     private static void initLazyCollections(final List<ProvinceWithResource> provinceWithResources) {
@@ -164,9 +187,9 @@ public class FindCommandHandler implements CommandHandler {
 
     public static class ProvinceWithResource {
         private final Province province;
-        private final String resource;
+        private final Object resource;
 
-        public ProvinceWithResource(final Province province, final String resource) {
+        public ProvinceWithResource(final Province province, final Object resource) {
             this.province = province;
             this.resource = resource;
         }
@@ -175,8 +198,11 @@ public class FindCommandHandler implements CommandHandler {
             return province;
         }
 
+        /**
+         * @return the formatted resource, which is formatted when asked for since dates are shown relative to the current time
+         */
         public String getResource() {
-            return resource;
+            return formatSortValue(resource);
         }
     }
 }
@@ -36,6 +36,7 @@ import api.tools.collections.Params;
 import api.tools.files.FilterUtil;
 import database.daos.KingdomDAO;
 import database.models.Kingdom;
+import database.models.KingdomRow;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
 
@@ -43,6 +44,8 @@ import javax.inject.Inject;
 import java.util.Collection;
 import java.util.List;
 
+import static api.tools.collections.CollectionUtil.isEmpty;
+
 public class FindKDCommandHandler implements CommandHandler {
     private final KingdomDAO kingdomDAO;
 
@@ -55,9 +58,15 @@ public class FindKDCommandHandler implements CommandHandler {
     public CommandResponse handleCommand(IRCContext context, Params params, Collection<Filter<?>> filters,
                                          final DelayedEventPoster delayedEventPoster) throws CommandHandlingException {
         try {
-            List<Kingdom> kingdoms =
-                    params.containsKey("nameOrComment") ? kingdomDAO.getKingdomsByNameOrComment(params.getParameter("nameOrComment"))
-                            : kingdomDAO.getAllKingdoms();
+            String nameOrComment = params.getParameter("nameOrComment");
+            if (isEmpty(filters)) {
+                //Rows are enough when nothing has to be calculated from the provinces
+                List<KingdomRow> kingdoms = nameOrComment == null ? kingdomDAO.getAllKingdomRows()
+                                                                  : kingdomDAO.getKingdomRowsByNameOrComment(nameOrComment);
+                return CommandResponse.resultResponse("kingdoms", kingdoms);
+            }
+
+            List<Kingdom> kingdoms = nameOrComment == null ? kingdomDAO.getAllKingdoms() : kingdomDAO.getKingdomsByNameOrComment(nameOrComment);
             FilterUtil.applyFilters(kingdoms, filters);
             return CommandResponse.resultResponse("kingdoms", kingdoms);
         } catch (DBException e) {
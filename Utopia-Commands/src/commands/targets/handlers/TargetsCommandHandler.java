@@ -37,15 +37,16 @@ import api.runtime.IRCContext;
 import api.tools.collections.Params;
 import database.daos.TargetDAO;
 import database.daos.UserActivitiesDAO;
-import database.models.Target;
-import database.models.UserActivities;
+import database.models.*;
 import spi.commands.CommandHandler;
 import spi.filters.Filter;
 import tools.BindingsManager;
+import tools.cache.ResultCache;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -56,16 +57,19 @@ public class TargetsCommandHandler implements CommandHandler {
     private final BotUserDAO userDAO;
     private final UserActivitiesDAO userActivitiesDAO;
     private final BindingsManager bindingsManager;
+    private final ResultCache resultCache;
 
     @Inject
     public TargetsCommandHandler(final BotUserDAO userDAO,
                                  final TargetDAO targetDAO,
                                  final BindingsManager bindingsManager,
-                                 final UserActivitiesDAO userActivitiesDAO) {
+                                 final UserActivitiesDAO userActivitiesDAO,
+                                 final ResultCache resultCache) {
         this.userDAO = userDAO;
         this.targetDAO = targetDAO;
         this.bindingsManager = bindingsManager;
         this.userActivitiesDAO = userActivitiesDAO;
+        this.resultCache = resultCache;
     }
 
     @Override
@@ -75,7 +79,13 @@ public class TargetsCommandHandler implements CommandHandler {
             UserActivities userActivities = userActivitiesDAO.getUserActivities(context.getBotUser());
             userActivities.setLastTargetsCheck(new Date());
 
-            List<Target> targets = targetDAO.getTargetsOfType(Target.TargetType.GENERATED_TARGET, Target.TargetType.MANUAL_TARGET);
+            //The bindings depend on the user and the current time, so only the targets themselves are cached
+            List<Target> targets = resultCache.get("targets", "all", new ResultCache.Loader<List<Target>>() {
+                @Override
+                public List<Target> load(final ResultCache.Dependencies dependencies) {
+                    return loadTargets(dependencies);
+                }
+            });
             if (targets.isEmpty()) return CommandResponse.errorResponse("No targets have been added");
 
             if (params.isEmpty()) targets = filterTargetsByBindings(targets, context.getBotUser());
@@ -94,6 +104,28 @@ public class TargetsCommandHandler implements CommandHandler {
         }
     }
 
+    private List<Target> loadTargets(final ResultCache.Dependencies dependencies) {
+        dependencies.onAny(Target.class, TargetHitter.class, Bindings.class, BotUserBinding.class, RaceBinding.class,
+                PersonalityBinding.class);
+        List<Target> targets = targetDAO.getTargetsOfType(Target.TargetType.GENERATED_TARGET, Target.TargetType.MANUAL_TARGET);
+        //Loads everything the template and the bindings check use
+        for (Target target : targets) {
+            Province province = target.getProvince();
+            dependencies.on(Province.class, province.getId()).on(Kingdom.class, province.getKingdom().getId());
+            province.getKingdom().getLocation();
+            for (BotUser hitter : target.getHitters()) {
+                dependencies.on(BotUser.class, hitter.getId());
+            }
+            Bindings bindings = target.getBindings();
+            if (bindings != null) {
+                bindings.getUsers();
+                bindings.getRaces();
+                bindings.getPersonalities();
+            }
+        }
+        return Collections.unmodifiableList(targets);
+    }
+
     private List<Target> filterTargetsByBindings(Iterable<Target> targets, BotUser user) {
         List<Target> out = new ArrayList<>();
         for (Target target : targets) {
@@ -0,0 +1,3 @@
+<@ircmessage type="reply_notice">
+${rows} rows were exported to ${file}
+</@ircmessage>
\ No newline at end of file
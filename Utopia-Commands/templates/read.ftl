@@ -1,8 +1,11 @@
 <@ircmessage type="reply_notice">
-${DARK_GREEN}Posts in that thread: ${NORMAL}
+${DARK_GREEN}Posts in that thread (${thread.postCount} in total): ${NORMAL}
     <#list posts as post>
     Posted by ${BLUE+post.user.mainNick+NORMAL} (id: ${post.id}) @ ${OLIVE+user.getDateInUsersLocalTime(post.posted)+NORMAL} <#if post.lastEdited??>(edited: ${user.getDateInUsersLocalTime(post.lastEdited)})</#if>:
     ${post.post}
     ---------------------
     </#list>
-</@ircmessage>
\ No newline at end of file
+    <#if lastPost??>
+    ${DARK_GREEN}There are more posts, read ${thread.id} ${lastPost.id} shows the next ones${NORMAL}
+    </#if>
+</@ircmessage>
@@ -42,6 +42,7 @@ import java.util.List;
 import java.util.Set;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class Buildings implements EntitySetup {
     public final Building homes = new Building("Homes", "homes", "amount percent be", Lists.newArrayList(
@@ -117,17 +118,17 @@ public class Buildings implements EntitySetup {
             public void run(final DelayedEventPoster delayedEventBus) {
                 BuildingDAO buildingDAO = buildingDAOProvider.get();
                 BonusDAO bonusDAO = bonusDAOProvider.get();
-                if (!buildingDAO.getAllBuildings().isEmpty()) return;
+                List<Building> missing = missingDefaults(buildingDAO.getAllBuildings(), objects);
 
                 Set<Bonus> bonuses = new HashSet<>();
-                for (Building building : objects) {
+                for (Building building : missing) {
                     for (BuildingFormula buildingFormula : building.getFormulas()) {
                         buildingFormula.setBuilding(building);
                         if (buildingFormula.getBonus() != null) bonuses.add(buildingFormula.getBonus());
                     }
                 }
                 bonusDAO.save(bonuses);
-                buildingDAO.save(objects);
+                buildingDAO.save(missing);
             }
         });
     }
@@ -27,64 +27,70 @@
 
 package setup.tools;
 
-import api.database.JDBCWorkExecutor;
-import api.database.daos.BotUserDAO;
-import api.database.models.BotUser;
-import api.database.transactions.SimpleTransactionTask;
-import api.events.DelayedEventPoster;
-import com.google.inject.Provider;
-import database.daos.IntelDAO;
-import database.daos.KingdomDAO;
-import database.daos.ProvinceDAO;
-import database.models.Kingdom;
-import lombok.extern.log4j.Log4j;
+import api.database.UserStatisticsLeaderboards;
+import api.timers.TimerManager;
+import database.AgeReset;
+import database.models.Aid;
+import database.models.Army;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+import tools.cache.ResultCache;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Date;
+import java.util.ArrayList;
 
-import static api.database.transactions.Transactions.inTransaction;
-
-@Log4j
+/**
+ * Resets the database for a new age. The work is done by {@link AgeReset}, a chunk at a time, so the bot keeps running
+ * meanwhile, and a reset that fails halfway can be started again to finish it.
+ */
+@Singleton
 public class DatabaseCleaner {
-    private final Provider<IntelDAO> intelDAOProvider;
-    private final Provider<JDBCWorkExecutor> jdbcWorkExecutorProvider;
-    private final Provider<ProvinceDAO> provinceDAOProvider;
-    private final Provider<KingdomDAO> kingdomDAOProvider;
-    private final Provider<BotUserDAO> userDAOProvider;
+    private static final int CHUNK_SIZE = 500;
+
+    private final Provider<SessionFactory> sessionFactoryProvider;
+    private final UserStatisticsLeaderboards leaderboards;
+    private final ResultCache resultCache;
+    private final TimerManager timerManager;
 
     @Inject
-    public DatabaseCleaner(final Provider<IntelDAO> intelDAOProvider, final Provider<JDBCWorkExecutor> jdbcWorkExecutorProvider,
-                           final Provider<ProvinceDAO> provinceDAOProvider, final Provider<KingdomDAO> kingdomDAOProvider,
-                           final Provider<BotUserDAO> userDAOProvider) {
-        this.intelDAOProvider = intelDAOProvider;
-        this.provinceDAOProvider = provinceDAOProvider;
-        this.kingdomDAOProvider = kingdomDAOProvider;
-        this.userDAOProvider = userDAOProvider;
-        this.jdbcWorkExecutorProvider = jdbcWorkExecutorProvider;
+    public DatabaseCleaner(final Provider<SessionFactory> sessionFactoryProvider, final UserStatisticsLeaderboards leaderboards,
+                           final ResultCache resultCache, final TimerManager timerManager) {
+        this.sessionFactoryProvider = sessionFactoryProvider;
+        this.leaderboards = leaderboards;
+        this.resultCache = resultCache;
+        this.timerManager = timerManager;
     }
 
-    public void clean() {
-        inTransaction(new SimpleTransactionTask() {
-            @Override
-            public void run(final DelayedEventPoster delayedEventBus) {
-                try {
-                    intelDAOProvider.get().clearIntel(new Date(), jdbcWorkExecutorProvider.get());
-                } catch (SQLException e) {
-                    DatabaseCleaner.log.error("", e);
-                }
-
-                KingdomDAO kingdomDAO = kingdomDAOProvider.get();
-                ProvinceDAO provinceDAO = provinceDAOProvider.get();
-                for (Kingdom kingdom : kingdomDAO.getAllKingdoms()) {
-                    provinceDAO.delete(kingdom.getProvinces());
-                    kingdomDAO.delete(kingdom);
-                }
+    /**
+     * @param progressListener gets told about the progress after every chunk
+     * @return the amount of rows that were removed
+     * @throws SQLException if the reset fails, in which case it may be started again to remove what's left
+     */
+    public synchronized long clean(final AgeReset.ProgressListener progressListener) throws SQLException {
+        ConnectionProvider connectionProvider = ((SessionFactoryImplementor) sessionFactoryProvider.get()).getServiceRegistry()
+                                                                                                        .getService(ConnectionProvider.class);
+        Connection connection = connectionProvider.getConnection();
+        try {
+            return new AgeReset(CHUNK_SIZE).reset(connection, progressListener);
+        } finally {
+            connectionProvider.closeConnection(connection);
+            //The rows are removed with plain delete statements, so anything kept in memory has to be thrown away separately
+            leaderboards.clear();
+            resultCache.clear();
+            cancelTimers(Army.class, Aid.class);
+        }
+    }
 
-                for (BotUser user : userDAOProvider.get().getAllUsers()) {
-                    user.getStats().clear();
-                }
+    private void cancelTimers(final Class<?>... itemTypes) {
+        for (String timerId : new ArrayList<>(timerManager.getCurrentTimers())) {
+            for (Class<?> itemType : itemTypes) {
+                if (timerId.startsWith(itemType.getSimpleName() + ' ')) timerManager.cancelTimer(timerId);
             }
-        });
+        }
     }
 }
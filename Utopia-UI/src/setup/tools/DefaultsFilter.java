@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package setup.tools;
+
+import api.common.HasName;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks out the defaults that aren't in the database yet, so that loading the defaults can be repeated without creating
+ * duplicates or touching anything that was already there (and possibly changed by an admin).
+ */
+final class DefaultsFilter {
+    private DefaultsFilter() {
+    }
+
+    /**
+     * @param existing the entities already in the database
+     * @param defaults the defaults
+     * @param <E>      the type of entity
+     * @return the defaults that don't share their name with any of the existing entities, in the same order as they were
+     *         specified and without duplicates
+     */
+    static <E extends HasName> List<E> missingDefaults(final Collection<? extends HasName> existing, final Collection<E> defaults) {
+        Set<String> names = new HashSet<>();
+        for (HasName entity : existing) {
+            names.add(entity.getName().toLowerCase());
+        }
+        List<E> missing = new ArrayList<>();
+        for (E entity : defaults) {
+            if (names.add(entity.getName().toLowerCase())) missing.add(entity);
+        }
+        return missing;
+    }
+}
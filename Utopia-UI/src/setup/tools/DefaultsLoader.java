@@ -27,8 +27,21 @@
 
 package setup.tools;
 
+import api.database.transactions.SimpleTransactionTask;
+import api.events.DelayedEventPoster;
+import com.google.common.base.Stopwatch;
+import lombok.extern.log4j.Log4j;
+
 import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+import static api.database.transactions.Transactions.inTransaction;
 
+/**
+ * Loads all the defaults in one go. Everything is done in a single transaction which is only flushed on commit, and only the
+ * defaults that aren't already in the database are added, so it's safe to run it again (after adding new defaults for example).
+ */
+@Log4j
 public class DefaultsLoader {
     private final Buildings buildings;
     private final Dragons dragons;
@@ -53,14 +66,26 @@ public class DefaultsLoader {
         this.spellTypes = spellTypes;
     }
 
-    public void loadAllDefaults() {
-        buildings.loadIntoDatabase();
-        dragons.loadIntoDatabase();
-        honorTitles.loadIntoDatabase();
-        opTypes.loadIntoDatabase();
-        personalities.loadIntoDatabase();
-        races.loadIntoDatabase();
-        scienceTypes.loadIntoDatabase();
-        spellTypes.loadIntoDatabase();
+    /**
+     * @return the time it took to load the defaults, in milliseconds
+     */
+    public long loadAllDefaults() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        inTransaction(new SimpleTransactionTask() {
+            @Override
+            public void run(final DelayedEventPoster delayedEventBus) {
+                buildings.loadIntoDatabase();
+                dragons.loadIntoDatabase();
+                honorTitles.loadIntoDatabase();
+                opTypes.loadIntoDatabase();
+                personalities.loadIntoDatabase();
+                races.loadIntoDatabase();
+                scienceTypes.loadIntoDatabase();
+                spellTypes.loadIntoDatabase();
+            }
+        }, true);
+        long elapsed = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        DefaultsLoader.log.info("Loaded the defaults in " + elapsed + " ms");
+        return elapsed;
     }
 }
@@ -42,6 +42,7 @@ import spi.settings.EntitySetup;
 import javax.inject.Inject;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class Dragons implements EntitySetup {
     private final Dragon ruby = new Dragon("Ruby", Sets.<Bonus>newHashSet());
@@ -63,8 +64,7 @@ public class Dragons implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 DragonDAO dragonDAO = dragonDAOProvider.get();
-                if (!dragonDAO.getAllDragons().isEmpty()) return;
-                dragonDAO.save(Lists.newArrayList(emerald, gold, ruby, sapphire));
+                dragonDAO.save(missingDefaults(dragonDAO.getAllDragons(), Lists.newArrayList(emerald, gold, ruby, sapphire)));
             }
         });
     }
@@ -42,6 +42,7 @@ import spi.settings.EntitySetup;
 import javax.inject.Inject;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class HonorTitles implements EntitySetup {
     public final HonorTitle peasant = new HonorTitle("Peasant", "Mr.|Mrs.", 0, 800, Sets.<Bonus>newHashSet());
@@ -82,8 +83,8 @@ public class HonorTitles implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 HonorTitleDAO honorTitleDAO = honorTitleDAOProvider.get();
-                if (!honorTitleDAO.getAllHonorTitles().isEmpty()) return;
-                honorTitleDAO.save(Lists.newArrayList(baron, count, duke, knight, lord, marquis, monarch, peasant, prince, viscount));
+                honorTitleDAO.save(missingDefaults(honorTitleDAO.getAllHonorTitles(),
+                        Lists.newArrayList(baron, count, duke, knight, lord, marquis, monarch, peasant, prince, viscount)));
             }
         });
     }
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package setup.tools;
+
+import api.database.transactions.SimpleTransactionTask;
+import api.events.DelayedEventPoster;
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.AbstractContainer;
+import com.vaadin.data.util.ObjectProperty;
+import com.vaadin.data.util.PropertysetItem;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.*;
+
+import static api.database.transactions.Transactions.inTransaction;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A read only container for tables that list database entities, which only loads the pages of entities the table actually
+ * shows instead of every entity up front. Sorting and filtering is left to the database.
+ * <p/>
+ * Rows are identified by the ids of the entities. A limited amount of loaded rows is kept around, so scrolling back and forth
+ * doesn't hit the database every time. After an entity has been edited, {@link #refreshEntity(Object)} updates its row in
+ * place, while adding or removing entities requires a {@link #refresh()}, which makes the table reload whatever it shows.
+ *
+ * @param <E> the type of entity
+ */
+@ParametersAreNonnullByDefault
+public abstract class LazyEntityContainer<E> extends AbstractContainer implements Container.Indexed, Container.Sortable,
+        Container.ItemSetChangeNotifier {
+    private final int pageSize;
+    private final Map<Object, Class<?>> propertyTypes = new LinkedHashMap<>();
+    private final Map<Object, String> sortProperties = new HashMap<>();
+    private final Map<Integer, Object> idsByIndex = new HashMap<>();
+    private final Map<Object, Row<E>> rows;
+
+    private Integer size;
+    private String sortProperty;
+    private boolean ascending = true;
+    private String filter;
+
+    protected LazyEntityContainer(final int pageSize) {
+        checkArgument(pageSize > 0, "The page size must be positive");
+        this.pageSize = pageSize;
+        this.rows = new LinkedHashMap<Object, Row<E>>(pageSize * 4, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, Row<E>> eldest) {
+                if (size() <= LazyEntityContainer.this.pageSize * 3) return false;
+                idsByIndex.remove(eldest.getValue().index);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param filter the filter
+     * @return the amount of entities matching the filter
+     */
+    protected abstract int count(@Nullable String filter);
+
+    /**
+     * @param first        the index of the first entity to load
+     * @param max          the max amount of entities to load
+     * @param sortProperty the entity property to sort by, or null for the default order
+     * @param ascending    whether to sort ascending
+     * @param filter       the filter
+     * @return the entities on the page
+     */
+    protected abstract List<E> loadPage(int first, int max, @Nullable String sortProperty, boolean ascending, @Nullable String filter);
+
+    /**
+     * @param entity the entity
+     * @return the id of the entity, which is used as the item id
+     */
+    protected abstract Object getEntityId(E entity);
+
+    /**
+     * Sets the values of the properties of the row for the entity. Called inside the transaction that loaded the entity.
+     *
+     * @param entity the entity
+     * @param item   the row
+     */
+    protected abstract void fillItem(E entity, Item item);
+
+    /**
+     * Adds a property to the rows
+     *
+     * @param propertyId   the id of the property
+     * @param type         the type of the property
+     * @param sortProperty the entity property the database sorts by when the table is sorted by this property, or null if it
+     *                     can't be sorted by
+     */
+    protected void addProperty(final Object propertyId, final Class<?> type, @Nullable final String sortProperty) {
+        propertyTypes.put(propertyId, type);
+        if (sortProperty != null) sortProperties.put(propertyId, sortProperty);
+    }
+
+    /**
+     * @param itemId the id of a row that has been loaded
+     * @return the entity of the row, or null if it hasn't been loaded or has been dropped since
+     */
+    @Nullable
+    public E getEntity(final Object itemId) {
+        Row<E> row = rows.get(itemId);
+        return row == null ? null : row.entity;
+    }
+
+    /**
+     * Updates the row of an entity that has been edited, if it's loaded
+     *
+     * @param entity the entity
+     */
+    public void refreshEntity(final E entity) {
+        Row<E> row = rows.get(getEntityId(entity));
+        if (row == null) return;
+        row.entity = entity;
+        fillItem(entity, row.item);
+    }
+
+    /**
+     * Drops all loaded rows, so that everything is reloaded when the table asks for it. Use this when entities have been added
+     * or removed.
+     */
+    public void refresh() {
+        size = null;
+        rows.clear();
+        idsByIndex.clear();
+        fireItemSetChange();
+    }
+
+    /**
+     * @param filter the new filter, or null to show everything
+     */
+    public void setFilter(@Nullable final String filter) {
+        if (Objects.equals(this.filter, filter)) return;
+        this.filter = filter;
+        refresh();
+    }
+
+    @Override
+    public void sort(final Object[] propertyId, final boolean[] ascending) {
+        String newSortProperty = propertyId.length == 0 ? null : sortProperties.get(propertyId[0]);
+        boolean newAscending = ascending.length == 0 || ascending[0];
+        if (Objects.equals(sortProperty, newSortProperty) && this.ascending == newAscending) return;
+        sortProperty = newSortProperty;
+        this.ascending = newAscending;
+        refresh();
+    }
+
+    @Override
+    public Collection<?> getSortableContainerPropertyIds() {
+        return Collections.unmodifiableSet(sortProperties.keySet());
+    }
+
+    @Override
+    public int size() {
+        if (size == null) {
+            inTransaction(new SimpleTransactionTask() {
+                @Override
+                public void run(final DelayedEventPoster delayedEventPoster) {
+                    size = count(filter);
+                }
+            });
+        }
+        return size;
+    }
+
+    @Override
+    public Object getIdByIndex(final int index) {
+        if (index < 0 || index >= size()) return null;
+        Object itemId = idsByIndex.get(index);
+        if (itemId == null) {
+            loadPageContaining(index);
+            itemId = idsByIndex.get(index);
+        }
+        return itemId;
+    }
+
+    private void loadPageContaining(final int index) {
+        final int first = index / pageSize * pageSize;
+        inTransaction(new SimpleTransactionTask() {
+            @Override
+            public void run(final DelayedEventPoster delayedEventPoster) {
+                List<E> entities = loadPage(first, pageSize, sortProperty, ascending, filter);
+                for (int i = 0; i < entities.size(); ++i) {
+                    E entity = entities.get(i);
+                    Row<E> row = new Row<>(first + i, entity, createItem());
+                    fillItem(entity, row.item);
+                    Object itemId = getEntityId(entity);
+                    Row<E> previous = rows.put(itemId, row);
+                    if (previous != null) idsByIndex.remove(previous.index);
+                    idsByIndex.put(row.index, itemId);
+                }
+                //The page came up short, so something was removed since the size was counted
+                if (entities.size() < pageSize && first + entities.size() < size) size = first + entities.size();
+            }
+        });
+    }
+
+    private Item createItem() {
+        PropertysetItem item = new PropertysetItem();
+        for (Map.Entry<Object, Class<?>> entry : propertyTypes.entrySet()) {
+            item.addItemProperty(entry.getKey(), newProperty(entry.getValue()));
+        }
+        return item;
+    }
+
+    private static <T> Property newProperty(final Class<T> type) {
+        return new ObjectProperty<>(null, type);
+    }
+
+    @Override
+    public int indexOfId(final Object itemId) {
+        Row<E> row = rows.get(itemId);
+        return row == null ? -1 : row.index;
+    }
+
+    @Override
+    public Item getItem(final Object itemId) {
+        Row<E> row = rows.get(itemId);
+        return row == null ? null : row.item;
+    }
+
+    @Override
+    public boolean containsId(final Object itemId) {
+        return rows.containsKey(itemId);
+    }
+
+    @Override
+    public Collection<?> getContainerPropertyIds() {
+        return Collections.unmodifiableSet(propertyTypes.keySet());
+    }
+
+    @Override
+    public Collection<?> getItemIds() {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(final int index) {
+                return getIdByIndex(index);
+            }
+
+            @Override
+            public int size() {
+                return LazyEntityContainer.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Property getContainerProperty(final Object itemId, final Object propertyId) {
+        Item item = getItem(itemId);
+        return item == null ? null : item.getItemProperty(propertyId);
+    }
+
+    @Override
+    public Class<?> getType(final Object propertyId) {
+        return propertyTypes.get(propertyId);
+    }
+
+    @Override
+    public Object nextItemId(final Object itemId) {
+        int index = indexOfId(itemId);
+        return index < 0 ? null : getIdByIndex(index + 1);
+    }
+
+    @Override
+    public Object prevItemId(final Object itemId) {
+        int index = indexOfId(itemId);
+        return index < 1 ? null : getIdByIndex(index - 1);
+    }
+
+    @Override
+    public Object firstItemId() {
+        return getIdByIndex(0);
+    }
+
+    @Override
+    public Object lastItemId() {
+        return getIdByIndex(size() - 1);
+    }
+
+    @Override
+    public boolean isFirstId(final Object itemId) {
+        return itemId != null && indexOfId(itemId) == 0;
+    }
+
+    @Override
+    public boolean isLastId(final Object itemId) {
+        return itemId != null && indexOfId(itemId) == size() - 1;
+    }
+
+    @Override
+    public void addListener(final ItemSetChangeListener listener) {
+        super.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(final ItemSetChangeListener listener) {
+        super.removeListener(listener);
+    }
+
+    @Override
+    public Item addItem(final Object itemId) {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public Object addItem() {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public Object addItemAt(final int index) {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public Item addItemAt(final int index, final Object newItemId) {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public Object addItemAfter(final Object previousItemId) {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public Item addItemAfter(final Object previousItemId, final Object newItemId) {
+        throw new UnsupportedOperationException("Entities are added through the database");
+    }
+
+    @Override
+    public boolean removeItem(final Object itemId) {
+        throw new UnsupportedOperationException("Entities are removed through the database");
+    }
+
+    @Override
+    public boolean removeAllItems() {
+        throw new UnsupportedOperationException("Entities are removed through the database");
+    }
+
+    @Override
+    public boolean addContainerProperty(final Object propertyId, final Class<?> type, final Object defaultValue) {
+        throw new UnsupportedOperationException("The properties are set up by the subclass");
+    }
+
+    @Override
+    public boolean removeContainerProperty(final Object propertyId) {
+        throw new UnsupportedOperationException("The properties are set up by the subclass");
+    }
+
+    private static class Row<E> {
+        private final int index;
+        private final Item item;
+        private E entity;
+
+        private Row(final int index, final E entity, final Item item) {
+            this.index = index;
+            this.entity = entity;
+            this.item = item;
+        }
+    }
+}
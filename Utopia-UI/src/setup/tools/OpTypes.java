@@ -42,6 +42,7 @@ import javax.inject.Inject;
 import java.util.Collections;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class OpTypes implements EntitySetup {
     private static final String RESULT = "(?<result>" + ValidationType.INT.getPattern() + ')';
@@ -120,10 +121,9 @@ public class OpTypes implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 OpDAO opDAO = opDAOProvider.get();
-                if (!opDAO.getAllOpTypes().isEmpty()) return;
-                opDAO.save(
+                opDAO.save(missingDefaults(opDAO.getAllOpTypes(),
                         Lists.newArrayList(arson, assassinateWizards, bribeGenerals, bribeThieves, freePrisoners, kidnapping, nightStrike,
-                                propaganda, riots, robGranaries, robTowers, robVaults, sabotageWizards, stealHorses));
+                                propaganda, riots, robGranaries, robTowers, robVaults, sabotageWizards, stealHorses)));
             }
         });
     }
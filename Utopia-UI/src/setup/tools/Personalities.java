@@ -41,6 +41,7 @@ import spi.settings.EntitySetup;
 import javax.inject.Inject;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class Personalities implements EntitySetup {
     public final Personality merchant = new Personality("Merchant", "Wealthy", IntelAccuracySpecification.NEVER, false, null, null,
@@ -72,8 +73,8 @@ public class Personalities implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 PersonalityDAO personalityDAO = personalityDAOProvider.get();
-                if (!personalityDAO.getAllPersonalities().isEmpty()) return;
-                personalityDAO.save(Lists.newArrayList(cleric, merchant, mystic, rogue, sage, tactician, warHero, warrior));
+                personalityDAO.save(missingDefaults(personalityDAO.getAllPersonalities(),
+                        Lists.newArrayList(cleric, merchant, mystic, rogue, sage, tactician, warHero, warrior)));
             }
         });
     }
@@ -39,6 +39,7 @@ import spi.settings.EntitySetup;
 import javax.inject.Inject;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class Races implements EntitySetup {
     public final Race avian = new Race("Avian", "AV", 1, 1.5, "Griffins", 4, "Harpies", 4, "Drakes", 6, 2, 5, 100,
@@ -81,8 +82,7 @@ public class Races implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 RaceDAO raceDAO = raceDAOProvider.get();
-                if (!raceDAO.getAllRaces().isEmpty()) return;
-                raceDAO.save(Lists.newArrayList(avian, dwarf, elf, faery, halfling, human, orc, undead));
+                raceDAO.save(missingDefaults(raceDAO.getAllRaces(), Lists.newArrayList(avian, dwarf, elf, faery, halfling, human, orc, undead)));
             }
         });
     }
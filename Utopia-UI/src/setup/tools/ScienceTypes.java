@@ -42,6 +42,7 @@ import spi.settings.EntitySetup;
 import javax.inject.Inject;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class ScienceTypes implements EntitySetup {
     public final ScienceType alchemy = new ScienceType("Alchemy", "Income", "", 1.4, Sets.<Bonus>newHashSet());
@@ -68,8 +69,8 @@ public class ScienceTypes implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 ScienceTypeDAO scienceTypeDAO = scienceTypeDAOProvider.get();
-                if (!scienceTypeDAO.getAllScienceTypes().isEmpty()) return;
-                scienceTypeDAO.save(Lists.newArrayList(alchemy, tools, housing, food, military, crime, channeling));
+                scienceTypeDAO.save(missingDefaults(scienceTypeDAO.getAllScienceTypes(),
+                        Lists.newArrayList(alchemy, tools, housing, food, military, crime, channeling)));
             }
         });
     }
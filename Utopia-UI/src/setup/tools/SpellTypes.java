@@ -42,6 +42,7 @@ import javax.inject.Inject;
 import java.util.Collections;
 
 import static api.database.transactions.Transactions.inTransaction;
+import static setup.tools.DefaultsFilter.missingDefaults;
 
 public class SpellTypes implements EntitySetup {
     private static final String RESULT = "(?<result>" + ValidationType.INT.getPattern() + ')';
@@ -231,14 +232,13 @@ public class SpellTypes implements EntitySetup {
             @Override
             public void run(final DelayedEventPoster delayedEventBus) {
                 SpellDAO spellDAO = spellDAOProvider.get();
-                if (!spellDAO.getAllSpellTypes().isEmpty()) return;
-                spellDAO.save(Lists.newArrayList(aggression, amnesia, animateDead, anonymity, bloodlust, buildersBoon, chastity, clearSight,
+                spellDAO.save(missingDefaults(spellDAO.getAllSpellTypes(), Lists.newArrayList(aggression, amnesia, animateDead, anonymity, bloodlust, buildersBoon, chastity, clearSight,
                         droughts, explosions, exposeThieves, fanaticism, fertileLands, fireball, foolsGold,
                         fountainOfKnowledge, greaterProtection, greed, inspireArmy, invisibility, landLust,
                         lightningStrike, loveAndPeace, magesFury, magesFury, magicShield, meteorShowers,
                         minorProtection, mysticAura, mysticVortex, naturesBlessing, nightmares, paradise,
                         patriotism, pitfalls, quickFeet, reflectMagic, shadowlight, storms, tornadoes, townWatch,
-                        treeOfGold, vermin, warSpoils));
+                        treeOfGold, vermin, warSpoils)));
             }
         });
     }
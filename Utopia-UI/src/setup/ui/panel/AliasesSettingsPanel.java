@@ -29,30 +29,27 @@ package setup.ui.panel;
 
 import api.database.daos.AliasDAO;
 import api.database.models.Alias;
-import api.database.transactions.SimpleTransactionTask;
-import api.events.DelayedEventPoster;
 import api.events.bot.AliasRemovedEvent;
 import api.events.bot.AliasUpdateEvent;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.Provider;
-import com.vaadin.data.Container;
 import com.vaadin.data.Item;
 import com.vaadin.data.Validator;
-import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.data.validator.StringLengthValidator;
+import com.vaadin.event.FieldEvents;
 import com.vaadin.ui.*;
+import setup.tools.LazyEntityContainer;
 import setup.tools.VaadinUtil;
 
 import javax.inject.Inject;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
-import static api.database.transactions.Transactions.inTransaction;
 import static setup.tools.VaadinUtil.validate;
 
 public class AliasesSettingsPanel extends VerticalLayout {
     private static final String POPUP_HEIGHT = "800px";
     private static final String POPUP_WIDTH = "400px";
+    private static final int PAGE_SIZE = 50;
 
     private final Provider<AliasDAO> aliasDAOProvider;
     private final EventBus eventBus;
@@ -60,9 +57,9 @@ public class AliasesSettingsPanel extends VerticalLayout {
     private final Label description;
     private final Button addButton;
 
+    private final TextField filterField;
     private final Table aliasesTable;
-
-    private final Map<Object, Alias> aliasMap = new HashMap<>();
+    private final AliasContainer aliasContainer;
 
     @Inject
     public AliasesSettingsPanel(final Provider<AliasDAO> aliasDAOProvider, final EventBus eventBus) {
@@ -81,67 +78,78 @@ public class AliasesSettingsPanel extends VerticalLayout {
             }
         });
 
+        aliasContainer = new AliasContainer();
+
+        filterField = new TextField("Filter by alias");
+        filterField.addListener(new FieldEvents.TextChangeListener() {
+            @Override
+            public void textChange(final FieldEvents.TextChangeEvent event) {
+                aliasContainer.setFilter(event.getText());
+            }
+        });
+
         aliasesTable = new Table();
-        aliasesTable.setContainerDataSource(getBonusContainer());
+        aliasesTable.setContainerDataSource(aliasContainer);
         aliasesTable.setColumnHeaders(new String[]{"Alias", "Transform", "Description", "Edit", "Delete"});
         aliasesTable.setHeight("100%");
         aliasesTable.setWidth("700px");
 
         addComponent(description);
         addComponent(addButton);
+        addComponent(filterField);
         addComponent(aliasesTable);
     }
 
-    private IndexedContainer getBonusContainer() {
-        final IndexedContainer container = new IndexedContainer();
+    private class AliasContainer extends LazyEntityContainer<Alias> {
+        private AliasContainer() {
+            super(PAGE_SIZE);
+            addProperty("alias", String.class, "alias");
+            addProperty("transform", String.class, "transform");
+            addProperty("description", String.class, "description");
+            addProperty("edit", Button.class, null);
+            addProperty("delete", Button.class, null);
+        }
 
-        container.addContainerProperty("alias", String.class, null);
-        container.addContainerProperty("transform", String.class, null);
-        container.addContainerProperty("description", String.class, null);
-        container.addContainerProperty("edit", Button.class, null);
-        container.addContainerProperty("delete", Button.class, null);
+        @Override
+        protected int count(final String filter) {
+            return aliasDAOProvider.get().countAliases(filter);
+        }
 
-        inTransaction(new SimpleTransactionTask() {
-            @Override
-            public void run(final DelayedEventPoster delayedEventPoster) {
-                for (Alias alias : aliasDAOProvider.get().getAllAliases()) {
-                    addAlias(alias, container);
-                }
-            }
-        });
+        @Override
+        protected List<Alias> loadPage(final int first, final int max, final String sortProperty, final boolean ascending,
+                                       final String filter) {
+            return aliasDAOProvider.get().getAliases(first, max, sortProperty, ascending, filter);
+        }
 
-        return container;
-    }
+        @Override
+        protected Object getEntityId(final Alias entity) {
+            return entity.getId();
+        }
 
-    private void addAlias(final Alias alias, final Container container) {
-        final Object itemId = container.addItem();
-        aliasMap.put(itemId, alias);
-        final Item item = container.getItem(itemId);
-        item.getItemProperty("alias").setValue(alias.getAlias());
-        item.getItemProperty("transform").setValue(alias.getTransform());
-        item.getItemProperty("description").setValue(alias.getDescription());
-        item.getItemProperty("edit").setValue(new Button("Edit", new Button.ClickListener() {
-            @Override
-            public void buttonClick(final Button.ClickEvent event) {
-                getWindow().addWindow(VaadinUtil.createPopupWindow(new EditPopupContent(itemId), POPUP_HEIGHT, POPUP_WIDTH));
-            }
-        }));
-        item.getItemProperty("delete").setValue(new Button("Delete", new Button.ClickListener() {
-            @Override
-            public void buttonClick(final Button.ClickEvent event) {
-                try {
-                    Alias remove = aliasMap.get(itemId);
-                    if (remove.getId() != null) {
-                        aliasDAOProvider.get().delete(remove);
-                        aliasMap.remove(itemId);
-                        container.removeItem(itemId);
-                        eventBus.post(new AliasRemovedEvent(remove.getId()));
+        @Override
+        protected void fillItem(final Alias alias, final Item item) {
+            item.getItemProperty("alias").setValue(alias.getAlias());
+            item.getItemProperty("transform").setValue(alias.getTransform());
+            item.getItemProperty("description").setValue(alias.getDescription());
+            item.getItemProperty("edit").setValue(new Button("Edit", new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    getWindow().addWindow(VaadinUtil.createPopupWindow(new EditPopupContent(alias), POPUP_HEIGHT, POPUP_WIDTH));
+                }
+            }));
+            item.getItemProperty("delete").setValue(new Button("Delete", new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    try {
+                        aliasDAOProvider.get().delete(alias);
+                        refresh();
+                        eventBus.post(new AliasRemovedEvent(alias.getId()));
+                    } catch (final Exception e) {
+                        getWindow().showNotification(e.getMessage(), Window.Notification.TYPE_ERROR_MESSAGE);
                     }
-                } catch (final Exception e) {
-                    getWindow().showNotification(e.getMessage(), Window.Notification.TYPE_ERROR_MESSAGE);
                 }
-            }
-        }));
+            }));
+        }
     }
 
     private class EditPopupContent extends VerticalLayout {
@@ -151,17 +159,12 @@ public class AliasesSettingsPanel extends VerticalLayout {
         private final Button saveButton;
         private final Button cancelButton;
 
-        private EditPopupContent(final Object itemId) {
+        private EditPopupContent(final Alias alias) {
             setSizeUndefined();
             setSpacing(true);
             setMargin(true);
             setWidth("100%");
 
-            Alias alias = null;
-            if (itemId != null) {
-                alias = aliasMap.get(itemId);
-            }
-
             aliasField = new TextArea("Alias");
             aliasField.setRequired(true);
             aliasField.setWidth("100%");
@@ -195,27 +198,22 @@ public class AliasesSettingsPanel extends VerticalLayout {
                 @Override
                 public void buttonClick(final Button.ClickEvent event) {
                     try {
-                        String alias = validate(aliasField, String.class);
+                        String aliasText = validate(aliasField, String.class);
                         String transform = validate(transformField, String.class);
                         String description = validate(descriptionField, String.class);
 
                         Alias aliasObj;
-                        if (itemId == null) {
-                            aliasObj = new Alias(alias, transform, description);
+                        if (alias == null) {
+                            aliasObj = new Alias(aliasText, transform, description);
                             aliasDAOProvider.get().save(aliasObj);
-                            addAlias(aliasObj, aliasesTable.getContainerDataSource());
+                            aliasContainer.refresh();
                         } else {
-                            aliasObj = aliasMap.get(itemId);
-                            aliasObj.setAlias(alias);
+                            aliasObj = alias;
+                            aliasObj.setAlias(aliasText);
                             aliasObj.setTransform(transform);
                             aliasObj.setDescription(description);
-
-                            Container container = aliasesTable.getContainerDataSource();
-                            Item item = container.getItem(itemId);
-                            item.getItemProperty("alias").setValue(alias);
-                            item.getItemProperty("transform").setValue(transform);
-                            item.getItemProperty("description").setValue(description);
                             aliasDAOProvider.get().save(aliasObj);
+                            aliasContainer.refreshEntity(aliasObj);
                         }
                         removePopup(event);
                         eventBus.post(new AliasUpdateEvent(aliasObj.getId()));
@@ -27,18 +27,26 @@
 
 package setup.ui.panel;
 
+import api.database.migration.DatabaseMigration;
+import api.database.migration.MigrationReport;
+import api.runtime.ThreadingManager;
 import api.settings.PropertiesCollection;
 import api.tools.time.DateFactory;
+import com.vaadin.Application;
 import com.vaadin.data.Item;
 import com.vaadin.data.util.BeanItem;
 import com.vaadin.data.validator.RegexpValidator;
 import com.vaadin.ui.*;
+import database.AgeReset;
+import internal.database.MySQLMigrator;
+import lombok.extern.log4j.Log4j;
 import setup.tools.DatabaseCleaner;
 import setup.tools.DefaultsLoader;
 import tools.UtopiaPropertiesConfig;
 
 import javax.inject.Inject;
 import java.io.Serializable;
+import java.sql.SQLException;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.HashMap;
@@ -47,6 +55,7 @@ import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+@Log4j
 public class BasicSettingsPanel extends VerticalLayout {
     private static final Pattern KD_LOC_PATTERN = Pattern.compile("\\((\\d{1,2}):(\\d{1,2})\\)");
     private static final DateFormat AGE_START_FORMAT = DateFactory.getISOWithoutSecondsDateTimeFormat();
@@ -61,7 +70,8 @@ public class BasicSettingsPanel extends VerticalLayout {
     private final Basics basics = new Basics();
 
     @Inject
-    public BasicSettingsPanel(final PropertiesCollection properties, final DefaultsLoader defaultsLoader, final DatabaseCleaner cleaner) {
+    public BasicSettingsPanel(final PropertiesCollection properties, final DefaultsLoader defaultsLoader, final DatabaseCleaner cleaner,
+                              final MySQLMigrator mySQLMigrator, final ThreadingManager threadingManager) {
         Label description = new Label("Here you may set some basic settings for the bot. These settings are what's referred to as " +
                 "properties and may also be edited in the .properties files in the bot folder. Note that the " +
                 "bot will not reload the file contents automatically (at this time), so if you do edit one of " +
@@ -110,24 +120,9 @@ public class BasicSettingsPanel extends VerticalLayout {
         loadDefaults.addListener(new Button.ClickListener() {
             @Override
             public void buttonClick(final Button.ClickEvent clickEvent) {
-                defaultsLoader.loadAllDefaults();
-                getApplication().getMainWindow().showNotification("Defaults loaded!", Window.Notification.TYPE_HUMANIZED_MESSAGE);
-            }
-        });
-
-        Label resetAgeDescription = new Label("Click the button below if you want to clear all the age specific information from the bot." +
-                " This includes provinces, kingdoms, intel, user statistics, spells, ops etc. Basically " +
-                "everything that changes each age. The next step after this would be to go through " +
-                "the races and personalities and such and update any bonuses that were changed for the " +
-                "new age.");
-        Button resetAge = new Button("Reset for a new age");
-        resetAge.setSizeUndefined();
-        resetAge.addListener(new Button.ClickListener() {
-            @Override
-            public void buttonClick(final Button.ClickEvent clickEvent) {
-                cleaner.clean();
+                long elapsed = defaultsLoader.loadAllDefaults();
                 getApplication().getMainWindow()
-                        .showNotification("The database was reset successfully!", Window.Notification.TYPE_HUMANIZED_MESSAGE);
+                        .showNotification("Defaults loaded in " + elapsed + " ms!", Window.Notification.TYPE_HUMANIZED_MESSAGE);
             }
         });
 
@@ -136,14 +131,194 @@ public class BasicSettingsPanel extends VerticalLayout {
         addComponent(buttons);
         addComponent(loadDefaultsDescription);
         addComponent(loadDefaults);
-        addComponent(resetAgeDescription);
-        addComponent(resetAge);
+        addComponent(new AgeResetPanel(cleaner, threadingManager));
+        addComponent(new MigrationPanel(mySQLMigrator, threadingManager));
         setWidth("600px");
         setHeight("100%");
         setSpacing(true);
         setMargin(true);
     }
 
+    private static class AgeResetPanel extends VerticalLayout {
+        private AgeResetPanel(final DatabaseCleaner cleaner, final ThreadingManager threadingManager) {
+            Label description = new Label("Click the button below if you want to clear all the age specific information from the bot." +
+                    " This includes provinces, kingdoms, intel, user statistics, spells, ops etc. Basically " +
+                    "everything that changes each age. The next step after this would be to go through " +
+                    "the races and personalities and such and update any bonuses that were changed for the " +
+                    "new age. The bot keeps running while the information is removed, and if it's interrupted, " +
+                    "just click the button again to remove what's left.");
+            final ProgressIndicator progress = new ProgressIndicator(0f);
+            progress.setPollingInterval(500);
+            progress.setWidth("100%");
+            progress.setVisible(false);
+            final Button resetAge = new Button("Reset for a new age");
+            resetAge.setSizeUndefined();
+            resetAge.addListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent clickEvent) {
+                    resetAge.setEnabled(false);
+                    progress.setValue(0f);
+                    progress.setCaption("Counting the rows to remove");
+                    progress.setVisible(true);
+                    threadingManager.execute(new AgeResetTask(cleaner, getApplication(), resetAge, progress));
+                }
+            });
+
+            addComponent(description);
+            addComponent(resetAge);
+            addComponent(progress);
+            setSpacing(true);
+        }
+    }
+
+    /**
+     * Runs the reset outside of the request, so the progress can be shown while it's running. Anything that touches the
+     * components has to synchronize on the application, since the requests do.
+     */
+    private static class AgeResetTask implements Runnable, AgeReset.ProgressListener {
+        private final DatabaseCleaner cleaner;
+        private final Application application;
+        private final Button resetAge;
+        private final ProgressIndicator progress;
+
+        private AgeResetTask(final DatabaseCleaner cleaner, final Application application, final Button resetAge,
+                             final ProgressIndicator progress) {
+            this.cleaner = cleaner;
+            this.application = application;
+            this.resetAge = resetAge;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            String message;
+            int messageType;
+            try {
+                long removed = cleaner.clean(this);
+                message = "The database was reset successfully! " + removed + " rows were removed";
+                messageType = Window.Notification.TYPE_HUMANIZED_MESSAGE;
+            } catch (final SQLException | RuntimeException e) {
+                BasicSettingsPanel.log.error("Resetting the database for a new age failed", e);
+                message = "The reset failed. Please check the logs for more information about the error, and try again to " +
+                        "remove what's left.";
+                messageType = Window.Notification.TYPE_ERROR_MESSAGE;
+            }
+            synchronized (application) {
+                progress.setVisible(false);
+                resetAge.setEnabled(true);
+                application.getMainWindow().showNotification(message, messageType);
+            }
+        }
+
+        @Override
+        public void onProgress(final String table, final long removed, final long total) {
+            synchronized (application) {
+                progress.setValue(total == 0 ? 1f : Math.min(1f, (float) removed / total));
+                progress.setCaption("Removing " + table + " (" + removed + " of " + total + " rows removed)");
+            }
+        }
+    }
+
+    private static class MigrationPanel extends VerticalLayout {
+        private MigrationPanel(final MySQLMigrator mySQLMigrator, final ThreadingManager threadingManager) {
+            Label description = new Label("Copies all the data in the current database to a MySQL database. The bot keeps running " +
+                    "meanwhile, so preferably do it when it's quiet. If it's interrupted, or if data was added afterwards, " +
+                    "just run it again to continue. Once it's done, change the database settings in the .properties file " +
+                    "and restart the bot.");
+            final TextField host = new TextField("Host", "127.0.0.1");
+            final TextField name = new TextField("Database name", "lucidbot");
+            final TextField username = new TextField("Username", "root");
+            final PasswordField password = new PasswordField("Password");
+            final ProgressIndicator progress = new ProgressIndicator(0f);
+            progress.setPollingInterval(500);
+            progress.setWidth("100%");
+            progress.setVisible(false);
+            final Button migrate = new Button("Migrate to MySQL");
+            migrate.setSizeUndefined();
+            migrate.addListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent clickEvent) {
+                    migrate.setEnabled(false);
+                    progress.setValue(0f);
+                    progress.setCaption("Connecting to MySQL");
+                    progress.setVisible(true);
+                    threadingManager.execute(new MigrationTask(mySQLMigrator, getApplication(), migrate, progress, (String) host.getValue(),
+                            (String) name.getValue(), (String) username.getValue(), (String) password.getValue()));
+                }
+            });
+
+            addComponent(description);
+            addComponent(host);
+            addComponent(name);
+            addComponent(username);
+            addComponent(password);
+            addComponent(migrate);
+            addComponent(progress);
+            setSpacing(true);
+        }
+    }
+
+    /**
+     * Runs the migration outside of the request, the same way as the age reset
+     */
+    private static class MigrationTask implements Runnable, DatabaseMigration.ProgressListener {
+        private final MySQLMigrator mySQLMigrator;
+        private final Application application;
+        private final Button migrate;
+        private final ProgressIndicator progress;
+        private final String host;
+        private final String name;
+        private final String username;
+        private final String password;
+
+        private MigrationTask(final MySQLMigrator mySQLMigrator, final Application application, final Button migrate,
+                              final ProgressIndicator progress, final String host, final String name, final String username,
+                              final String password) {
+            this.mySQLMigrator = mySQLMigrator;
+            this.application = application;
+            this.migrate = migrate;
+            this.progress = progress;
+            this.host = host;
+            this.name = name;
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public void run() {
+            String message;
+            int messageType;
+            try {
+                MigrationReport report = mySQLMigrator.migrate(host, name, username, password, this);
+                if (report.isVerified()) {
+                    message = "The migration is complete!";
+                    messageType = Window.Notification.TYPE_HUMANIZED_MESSAGE;
+                } else {
+                    message = "The row counts don't match for: " + report.getMismatchedTables() +
+                            ". Run the migration again to copy what's missing";
+                    messageType = Window.Notification.TYPE_WARNING_MESSAGE;
+                }
+            } catch (final SQLException | RuntimeException e) {
+                BasicSettingsPanel.log.error("Migration to MySQL failed", e);
+                message = "The migration failed. Please check the logs for more information about the error.";
+                messageType = Window.Notification.TYPE_ERROR_MESSAGE;
+            }
+            synchronized (application) {
+                progress.setVisible(false);
+                migrate.setEnabled(true);
+                application.getMainWindow().showNotification(message, messageType);
+            }
+        }
+
+        @Override
+        public void onProgress(final String table, final int tablesCopied, final int totalTables) {
+            synchronized (application) {
+                progress.setValue(totalTables == 0 ? 1f : (float) tablesCopied / totalTables);
+                progress.setCaption("Copying " + table + " (" + tablesCopied + " of " + totalTables + " tables copied)");
+            }
+        }
+    }
+
     public static class ComplexForm extends Form {
         private final HorizontalLayout kdAndIslandLayout = new HorizontalLayout();
         private final HorizontalLayout ageStartLayout = new HorizontalLayout();
@@ -27,52 +27,60 @@
 
 package setup.ui.panel;
 
+import api.database.UserStatisticsLeaderboards;
 import api.database.daos.BotUserDAO;
 import api.database.models.BotUser;
 import api.database.models.Nickname;
-import api.database.transactions.SimpleTransactionTask;
-import api.events.DelayedEventPoster;
+import api.events.bot.UserRemovedEvent;
 import api.irc.ValidationType;
+import com.google.common.eventbus.EventBus;
 import com.google.inject.Provider;
-import com.vaadin.data.Container;
 import com.vaadin.data.Item;
 import com.vaadin.data.Validator;
-import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.data.validator.EmailValidator;
 import com.vaadin.data.validator.RegexpValidator;
+import com.vaadin.event.FieldEvents;
 import com.vaadin.ui.*;
 import database.daos.ProvinceDAO;
 import database.daos.UserActivitiesDAO;
 import database.models.UserActivities;
+import setup.tools.LazyEntityContainer;
 import setup.tools.VaadinUtil;
 import tools.parsing.UtopiaValidationType;
 
 import javax.inject.Inject;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
-import static api.database.transactions.Transactions.inTransaction;
 import static setup.tools.VaadinUtil.validate;
 
 public class BotUsersSettingsPanel extends VerticalLayout {
     private static final String POPUP_HEIGHT = "600px";
     private static final String POPUP_WIDTH = "300px";
+    private static final int PAGE_SIZE = 50;
 
     private final Provider<BotUserDAO> botUserDAOProvider;
     private final Provider<ProvinceDAO> provinceDAOProvider;
     private final Provider<UserActivitiesDAO> userActivitiesDAOProvider;
+    private final UserStatisticsLeaderboards leaderboards;
+    private final EventBus eventBus;
 
     private final Label description;
     private final Button addButton;
+    private final TextField filterField;
     private final Table userTable;
-
-    private final Map<Object, BotUser> userMap = new HashMap<>();
+    private final UserContainer userContainer;
 
     @Inject
     public BotUsersSettingsPanel(final Provider<BotUserDAO> botUserDAOProvider, final Provider<ProvinceDAO> provinceDAOProvider,
-                                 final Provider<UserActivitiesDAO> userActivitiesDAOProvider) {
+                                 final Provider<UserActivitiesDAO> userActivitiesDAOProvider,
+                                 final UserStatisticsLeaderboards leaderboards, final EventBus eventBus) {
         this.botUserDAOProvider = botUserDAOProvider;
         this.provinceDAOProvider = provinceDAOProvider;
         this.userActivitiesDAOProvider = userActivitiesDAOProvider;
+        this.leaderboards = leaderboards;
+        this.eventBus = eventBus;
 
         setSpacing(true);
         setMargin(true);
@@ -86,8 +94,18 @@ public class BotUsersSettingsPanel extends VerticalLayout {
             }
         });
 
+        userContainer = new UserContainer();
+
+        filterField = new TextField("Filter by nick");
+        filterField.addListener(new FieldEvents.TextChangeListener() {
+            @Override
+            public void textChange(final FieldEvents.TextChangeEvent event) {
+                userContainer.setFilter(event.getText());
+            }
+        });
+
         userTable = new Table();
-        userTable.setContainerDataSource(getBotContainer());
+        userTable.setContainerDataSource(userContainer);
         userTable.setColumnHeaders(new String[]{
                 "Main Nick", "Nicks", "Admin", "Owner", "TZ", "DST", "Country", "Name", "Email", "SMS", "SMS Works", "Edit",
                 "Delete"
@@ -103,75 +121,77 @@ public class BotUsersSettingsPanel extends VerticalLayout {
 
         addComponent(description);
         addComponent(addButton);
+        addComponent(filterField);
         addComponent(userTable);
     }
 
-    private IndexedContainer getBotContainer() {
-        final IndexedContainer container = new IndexedContainer();
-
-        container.addContainerProperty("mainNick", String.class, null);
-        container.addContainerProperty("nicks", VerticalLayout.class, null);
-        container.addContainerProperty("isAdmin", Boolean.class, null);
-        container.addContainerProperty("isOwner", Boolean.class, null);
-        container.addContainerProperty("timeZone", String.class, null);
-        container.addContainerProperty("dst", Boolean.class, null);
-        container.addContainerProperty("country", String.class, null);
-        container.addContainerProperty("realName", String.class, null);
-        container.addContainerProperty("email", String.class, null);
-        container.addContainerProperty("sms", String.class, null);
-        container.addContainerProperty("smsWorks", Boolean.class, null);
-        container.addContainerProperty("edit", Button.class, null);
-        container.addContainerProperty("delete", Button.class, null);
-
-        inTransaction(new SimpleTransactionTask() {
-            @Override
-            public void run(final DelayedEventPoster delayedEventPoster) {
-                for (BotUser user : botUserDAOProvider.get().getAllUsers()) {
-                    addUser(user, container);
-                }
-            }
-        });
+    private class UserContainer extends LazyEntityContainer<BotUser> {
+        private UserContainer() {
+            super(PAGE_SIZE);
+            addProperty("mainNick", String.class, "mainNick");
+            addProperty("nicks", VerticalLayout.class, null);
+            addProperty("isAdmin", Boolean.class, "isAdmin");
+            addProperty("isOwner", Boolean.class, "isOwner");
+            addProperty("timeZone", String.class, null);
+            addProperty("dst", Boolean.class, "dst");
+            addProperty("country", String.class, "country");
+            addProperty("realName", String.class, "realName");
+            addProperty("email", String.class, "email");
+            addProperty("sms", String.class, "sms");
+            addProperty("smsWorks", Boolean.class, "smsConfirmed");
+            addProperty("edit", Button.class, null);
+            addProperty("delete", Button.class, null);
+        }
 
-        return container;
-    }
+        @Override
+        protected int count(final String filter) {
+            return botUserDAOProvider.get().countUsers(filter);
+        }
 
-    private void addUser(final BotUser user, final Container container) {
-        final Object itemId = container.addItem();
-        userMap.put(itemId, user);
-        final Item item = container.getItem(itemId);
-        item.getItemProperty("mainNick").setValue(user.getMainNick());
-        item.getItemProperty("nicks").setValue(createNickList(user));
-        item.getItemProperty("isAdmin").setValue(user.isAdmin());
-        item.getItemProperty("isOwner").setValue(user.isOwner());
-        item.getItemProperty("timeZone").setValue(user.getTimeZone().replace("+", ""));
-        item.getItemProperty("dst").setValue(user.getDst() == 1);
-        item.getItemProperty("country").setValue(user.getCountry());
-        item.getItemProperty("realName").setValue(user.getRealName());
-        item.getItemProperty("email").setValue(user.getEmail());
-        item.getItemProperty("sms").setValue(user.getSms());
-        item.getItemProperty("smsWorks").setValue(user.isSmsConfirmed());
-        item.getItemProperty("edit").setValue(new Button("Edit", new Button.ClickListener() {
-            @Override
-            public void buttonClick(final Button.ClickEvent event) {
-                getWindow().addWindow(VaadinUtil.createPopupWindow(new EditPopupContent(itemId), POPUP_HEIGHT, POPUP_WIDTH));
-            }
-        }));
-        item.getItemProperty("delete").setValue(new Button("Delete", new Button.ClickListener() {
-            @Override
-            public void buttonClick(final Button.ClickEvent event) {
-                try {
-                    BotUser remove = userMap.get(itemId);
-                    if (remove.getId() != null) {
-                        provinceDAOProvider.get().removeProvinceForUser(remove);
-                        botUserDAOProvider.get().delete(remove);
-                        userMap.remove(itemId);
-                        container.removeItem(itemId);
+        @Override
+        protected List<BotUser> loadPage(final int first, final int max, final String sortProperty, final boolean ascending,
+                                         final String filter) {
+            return botUserDAOProvider.get().getUsers(first, max, sortProperty, ascending, filter);
+        }
+
+        @Override
+        protected Object getEntityId(final BotUser entity) {
+            return entity.getId();
+        }
+
+        @Override
+        protected void fillItem(final BotUser user, final Item item) {
+            item.getItemProperty("mainNick").setValue(user.getMainNick());
+            item.getItemProperty("nicks").setValue(createNickList(user));
+            item.getItemProperty("isAdmin").setValue(user.isAdmin());
+            item.getItemProperty("isOwner").setValue(user.isOwner());
+            item.getItemProperty("timeZone").setValue(user.getTimeZone().replace("+", ""));
+            item.getItemProperty("dst").setValue(user.getDst() == 1);
+            item.getItemProperty("country").setValue(user.getCountry());
+            item.getItemProperty("realName").setValue(user.getRealName());
+            item.getItemProperty("email").setValue(user.getEmail());
+            item.getItemProperty("sms").setValue(user.getSms());
+            item.getItemProperty("smsWorks").setValue(user.isSmsConfirmed());
+            item.getItemProperty("edit").setValue(new Button("Edit", new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    getWindow().addWindow(VaadinUtil.createPopupWindow(new EditPopupContent(user), POPUP_HEIGHT, POPUP_WIDTH));
+                }
+            }));
+            item.getItemProperty("delete").setValue(new Button("Delete", new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    try {
+                        provinceDAOProvider.get().removeProvinceForUser(user);
+                        botUserDAOProvider.get().delete(user);
+                        refresh();
+                        eventBus.post(new UserRemovedEvent(user.getMainNick()));
+                    } catch (final Exception e) {
+                        getWindow().showNotification(e.getMessage(), Window.Notification.TYPE_ERROR_MESSAGE);
                     }
-                } catch (final Exception e) {
-                    getWindow().showNotification(e.getMessage(), Window.Notification.TYPE_ERROR_MESSAGE);
                 }
-            }
-        }));
+            }));
+        }
     }
 
     private static VerticalLayout createNickList(final BotUser user) {
@@ -196,17 +216,12 @@ public class BotUsersSettingsPanel extends VerticalLayout {
         private final Button saveButton;
         private final Button cancelButton;
 
-        private EditPopupContent(final Object itemId) {
+        private EditPopupContent(final BotUser user) {
             setSizeUndefined();
             setSpacing(true);
             setMargin(true);
             setWidth("100%");
 
-            BotUser user = null;
-            if (itemId != null) {
-                user = userMap.get(itemId);
-            }
-
             mainNickField = new TextField("Main nick");
             mainNickField.setRequired(true);
             mainNickField.addValidator(new RegexpValidator(ValidationType.NICKNAME.getPattern(), "Invalid nick format"));
@@ -270,39 +285,27 @@ public class BotUsersSettingsPanel extends VerticalLayout {
                         String sms = validate(smsField, String.class);
                         boolean smsWorks = smsWorksCheckBox.booleanValue();
 
-                        BotUser botUser;
-                        if (itemId == null) {
-                            botUser = new BotUser(mainNick, isAdmin, isOwner, timeZone, dst, country, realName, email, sms,
-                                    smsWorks);
+                        if (user == null) {
+                            BotUser botUser = new BotUser(mainNick, isAdmin, isOwner, timeZone, dst, country, realName, email,
+                                    sms, smsWorks);
                             botUser.setPassword("password");
                             botUserDAOProvider.get().save(botUser);
-                            addUser(botUser, userTable.getContainerDataSource());
                             userActivitiesDAOProvider.get().save(new UserActivities(botUser));
+                            userContainer.refresh();
                         } else {
-                            botUser = userMap.get(itemId);
-                            botUser.setAdmin(isAdmin);
-                            botUser.setOwner(isOwner);
-                            botUser.setTimeZone(timeZone);
-                            botUser.setDst(dst);
-                            botUser.setCountry(country);
-                            botUser.setRealName(realName);
-                            botUser.setEmail(email);
-                            botUser.setSms(sms);
-                            botUser.setSmsConfirmed(smsWorks);
-                            botUserDAOProvider.get().save(botUser);
-
-                            Container container = userTable.getContainerDataSource();
-                            Item item = container.getItem(itemId);
-                            item.getItemProperty("mainNick").setValue(mainNick);
-                            item.getItemProperty("isAdmin").setValue(isAdmin);
-                            item.getItemProperty("isOwner").setValue(isOwner);
-                            item.getItemProperty("timeZone").setValue(timeZone);
-                            item.getItemProperty("dst").setValue(dst == 1);
-                            item.getItemProperty("country").setValue(country);
-                            item.getItemProperty("realName").setValue(realName);
-                            item.getItemProperty("email").setValue(email);
-                            item.getItemProperty("sms").setValue(sms);
-                            item.getItemProperty("smsWorks").setValue(smsWorks);
+                            String previousMainNick = user.getMainNick();
+                            user.setAdmin(isAdmin);
+                            user.setOwner(isOwner);
+                            user.setTimeZone(timeZone);
+                            user.setDst(dst);
+                            user.setCountry(country);
+                            user.setRealName(realName);
+                            user.setEmail(email);
+                            user.setSms(sms);
+                            user.setSmsConfirmed(smsWorks);
+                            botUserDAOProvider.get().save(user);
+                            userContainer.refreshEntity(user);
+                            if (!previousMainNick.equals(mainNick)) leaderboards.userRenamed(previousMainNick, mainNick);
                         }
                         removePopup(event);
                     } catch (Validator.InvalidValueException e) {
@@ -27,54 +27,156 @@
 
 package setup.ui.panel;
 
+import api.database.maintenance.MaintenanceReport;
+import api.database.maintenance.MaintenanceScheduler;
+import api.database.statistics.SqlStatistics;
+import api.database.statistics.TagStatistics;
 import api.irc.BotIRCInstance;
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
+import api.runtime.StartupReport;
 import api.runtime.ThreadingManager;
 import api.timers.TimerManager;
 import api.tools.time.TimeUtil;
+import com.google.common.base.Joiner;
+import com.google.common.html.HtmlEscapers;
+import com.vaadin.Application;
 import com.vaadin.data.Container;
 import com.vaadin.data.Item;
+import com.vaadin.data.Property;
 import com.vaadin.data.util.IndexedContainer;
 import com.vaadin.ui.*;
 import database.CommonEntitiesAccess;
 import internal.main.Main;
 import lombok.extern.log4j.Log4j;
+import tools.cache.ResultCache;
+import tools.scripts.ScriptExecutor;
+import tools.scripts.ScriptStatistics;
 
 import javax.inject.Inject;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 @Log4j
 public class StatusPanel extends VerticalLayout {
+    private static final int AUTO_REFRESH_SECONDS = 5;
+
+    private final ThreadingManager threadingManager;
+
     private final Button refresh;
+    private final CheckBox autoRefresh;
+    private final ProgressIndicator autoRefreshPoller;
     private final Panel ircPanel;
     private final Panel botPanel;
     private final Panel systemPanel;
+    private final Panel metricsPanel;
+    private final Panel databasePanel;
+    private final Panel scriptsPanel;
+
+    private ScheduledFuture<?> autoRefreshFuture;
 
     @Inject
     public StatusPanel(final TimerManager timerManager, final ThreadingManager threadingManager, final CommonEntitiesAccess cache,
-                       final Main main) {
+                       final Main main, final MaintenanceScheduler maintenanceScheduler, final ResultCache resultCache,
+                       final MetricsRegistry metricsRegistry, final ScriptExecutor scriptExecutor) {
+        this.threadingManager = threadingManager;
+
         refresh = new Button("Refresh");
         refresh.addListener(new Button.ClickListener() {
             @Override
             public void buttonClick(final Button.ClickEvent event) {
-                ((Refreshable) ircPanel).refresh();
-                ((Refreshable) botPanel).refresh();
-                ((Refreshable) systemPanel).refresh();
+                refreshAll();
             }
         });
-        ircPanel = new IRCPanel(main);
-        botPanel = new BotPanel(timerManager, cache);
-        systemPanel = new SystemPanel(threadingManager);
+        autoRefresh = new CheckBox("Refresh every " + AUTO_REFRESH_SECONDS + " seconds");
+        autoRefresh.setImmediate(true);
+        autoRefresh.addListener(new Property.ValueChangeListener() {
+            @Override
+            public void valueChange(final Property.ValueChangeEvent event) {
+                if (autoRefresh.booleanValue()) startAutoRefresh();
+                else stopAutoRefresh();
+            }
+        });
+        //Only there to make the browser ask for the changes made by the auto refresh
+        autoRefreshPoller = new ProgressIndicator();
+        autoRefreshPoller.setIndeterminate(true);
+        autoRefreshPoller.setPollingInterval((int) TimeUnit.SECONDS.toMillis(AUTO_REFRESH_SECONDS));
+        autoRefreshPoller.setVisible(false);
 
-        addComponent(refresh);
+        ircPanel = new IRCPanel(main);
+        botPanel = new BotPanel(timerManager, cache, resultCache);
+        systemPanel = new SystemPanel(main, threadingManager, maintenanceScheduler);
+        metricsPanel = new MetricsPanel(metricsRegistry);
+        databasePanel = new DatabasePanel();
+        scriptsPanel = new ScriptsPanel(scriptExecutor);
+
+        HorizontalLayout refreshLayout = new HorizontalLayout();
+        refreshLayout.setSpacing(true);
+        refreshLayout.addComponent(refresh);
+        refreshLayout.addComponent(autoRefresh);
+        refreshLayout.addComponent(autoRefreshPoller);
+        refreshLayout.setComponentAlignment(autoRefresh, Alignment.MIDDLE_LEFT);
+
+        addComponent(refreshLayout);
         addComponent(ircPanel);
         addComponent(botPanel);
         addComponent(systemPanel);
+        addComponent(metricsPanel);
+        addComponent(databasePanel);
+        addComponent(scriptsPanel);
         setSizeUndefined();
         setSpacing(true);
         setMargin(true);
     }
 
+    private void refreshAll() {
+        ((Refreshable) ircPanel).refresh();
+        ((Refreshable) botPanel).refresh();
+        ((Refreshable) systemPanel).refresh();
+        ((Refreshable) metricsPanel).refresh();
+        ((Refreshable) databasePanel).refresh();
+        ((Refreshable) scriptsPanel).refresh();
+    }
+
+    /**
+     * Refreshes outside of the requests, since Vaadin 6 has no server push. The changes reach the browser the next time the
+     * poller asks for them, and anything that touches the components has to synchronize on the application, like the requests do.
+     */
+    private void startAutoRefresh() {
+        stopAutoRefresh();
+        final Application application = getApplication();
+        autoRefreshFuture = threadingManager.scheduleRecurring(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (application) {
+                    try {
+                        refreshAll();
+                    } catch (RuntimeException e) {
+                        StatusPanel.log.warn("Could not refresh the status", e);
+                    }
+                }
+            }
+        }, AUTO_REFRESH_SECONDS, AUTO_REFRESH_SECONDS, TimeUnit.SECONDS);
+        autoRefreshPoller.setVisible(true);
+    }
+
+    private void stopAutoRefresh() {
+        if (autoRefreshFuture != null) {
+            autoRefreshFuture.cancel(false);
+            autoRefreshFuture = null;
+        }
+        autoRefreshPoller.setVisible(false);
+    }
+
+    @Override
+    public void detach() {
+        stopAutoRefresh();
+        super.detach();
+    }
+
     private interface Refreshable {
         void refresh();
     }
@@ -182,13 +284,16 @@ public class StatusPanel extends VerticalLayout {
 
     private static class BotPanel extends Panel implements Refreshable {
         private final TimerManager timerManager;
+        private final ResultCache resultCache;
 
         private final VerticalLayout root = new VerticalLayout();
         private final Button refreshCacheButton;
+        private final Label resultCacheUsage;
         private final Table timerTable;
 
-        private BotPanel(final TimerManager timerManager, final CommonEntitiesAccess cache) {
+        private BotPanel(final TimerManager timerManager, final CommonEntitiesAccess cache, final ResultCache resultCache) {
             this.timerManager = timerManager;
+            this.resultCache = resultCache;
 
             setCaption("Bot Status");
             setWidth("650px");
@@ -203,6 +308,10 @@ public class StatusPanel extends VerticalLayout {
             });
             cache.reloadAll();
 
+            resultCacheUsage = new Label();
+            resultCacheUsage.setCaption("Cached Results");
+            resultCacheUsage.setValue(getResultCacheUsage());
+
             timerTable = new Table();
             timerTable.setContainerDataSource(getBotInstanceContainer());
             timerTable.setHeight("300px");
@@ -213,6 +322,7 @@ public class StatusPanel extends VerticalLayout {
             timerTable.setCaption("Current Timers");
 
             root.addComponent(refreshCacheButton);
+            root.addComponent(resultCacheUsage);
             root.addComponent(timerTable);
             root.setSpacing(true);
         }
@@ -250,27 +360,39 @@ public class StatusPanel extends VerticalLayout {
             return timeLeft <= 0 ? "Expired" : TimeUtil.formatTimeDifference(timeLeft);
         }
 
+        private String getResultCacheUsage() {
+            List<ResultCache.Usage> usages = resultCache.getUsages();
+            return resultCache.size() + " results cached" + (usages.isEmpty() ? "" : ". Hit rates: " + Joiner.on(", ").join(usages));
+        }
+
         @Override
         public void refresh() {
             timerTable.setContainerDataSource(getBotInstanceContainer());
+            resultCacheUsage.setValue(getResultCacheUsage());
         }
     }
 
     private static class SystemPanel extends Panel implements Refreshable {
         private static final int MILLION = 1_000_000;
 
+        private final Main main;
         private final ThreadingManager threadingManager;
+        private final MaintenanceScheduler maintenanceScheduler;
 
-        private final GridLayout root = new GridLayout(2, 6);
+        private final GridLayout root = new GridLayout(2, 8);
         private final Label os;
         private final Label memoryUsage;
         private final Label threadUsage;
         private final Label uptime;
         private final Label javaVersion;
         private final Label botVersion;
+        private final Label databaseMaintenance;
+        private final Label startup;
 
-        private SystemPanel(final ThreadingManager threadingManager) {
+        private SystemPanel(final Main main, final ThreadingManager threadingManager, final MaintenanceScheduler maintenanceScheduler) {
+            this.main = main;
             this.threadingManager = threadingManager;
+            this.maintenanceScheduler = maintenanceScheduler;
 
             setCaption("System Status");
             setWidth("650px");
@@ -283,6 +405,8 @@ public class StatusPanel extends VerticalLayout {
             uptime = new Label();
             javaVersion = new Label(System.getProperty("java.version") + " (" + System.getProperty("java.vendor") + ')');
             botVersion = new Label(Main.VERSION);
+            databaseMaintenance = new Label();
+            startup = new Label();
 
             addWithDescription(os, "Running On", 0);
             addWithDescription(memoryUsage, "Memory Usage", 1);
@@ -290,6 +414,8 @@ public class StatusPanel extends VerticalLayout {
             addWithDescription(uptime, "Uptime", 3);
             addWithDescription(javaVersion, "Java Version", 4);
             addWithDescription(botVersion, "LucidBot Version", 5);
+            addWithDescription(databaseMaintenance, "Database Maintenance", 6);
+            addWithDescription(startup, "Startup", 7);
             refresh();
         }
 
@@ -310,6 +436,240 @@ public class StatusPanel extends VerticalLayout {
             threadUsage.setValue("Using: " + threadingManager.threadsUsed() + " out of total: " + threadingManager.totalThreads());
 
             uptime.setValue(TimeUtil.formatTimeDifference(System.currentTimeMillis() - Main.STARTUP_TIME));
+
+            databaseMaintenance.setValue(getMaintenanceStatus());
+
+            StartupReport startupReport = main.getStartupReport();
+            startup.setValue(startupReport == null ? "Not done yet" : startupReport.getSummary());
+            startup.setDescription(startupReport == null ? null : "<pre>" + HtmlEscapers.htmlEscaper().escape(startupReport.toString()) + "</pre>");
+        }
+
+        private String getMaintenanceStatus() {
+            if (!maintenanceScheduler.isEnabled()) return "Not enabled";
+            MaintenanceReport report = maintenanceScheduler.getLastReport();
+            if (report == null) return "Not run yet, runs daily at " + maintenanceScheduler.getMaintenanceHour() + ":00";
+            return "Last run " + TimeUtil.formatTimeDifference(System.currentTimeMillis() - report.getStarted().getTime()) + " ago. " +
+                    report;
+        }
+    }
+
+    private static class MetricsPanel extends Panel implements Refreshable {
+        private final MetricsRegistry metricsRegistry;
+
+        private final VerticalLayout root = new VerticalLayout();
+        private final Button resetButton;
+        private final Table metricsTable;
+
+        private MetricsPanel(final MetricsRegistry metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
+
+            setCaption("Metrics");
+            setWidth("650px");
+            addComponent(root);
+
+            resetButton = new Button("Reset");
+            resetButton.addListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    metricsRegistry.reset();
+                    refresh();
+                }
+            });
+
+            metricsTable = new Table();
+            metricsTable.setContainerDataSource(getMetricsContainer());
+            metricsTable.setHeight("300px");
+            metricsTable.setWidth("600px");
+            metricsTable.setColumnHeaders(new String[]{"Metric", "Value/Count", "Mean", "p50", "p90", "p99", "Max"});
+            metricsTable.setColumnWidth("name", 200);
+            metricsTable.setCaption("Durations are in microseconds");
+
+            root.addComponent(resetButton);
+            root.addComponent(metricsTable);
+            root.setSpacing(true);
+        }
+
+        private IndexedContainer getMetricsContainer() {
+            final IndexedContainer container = new IndexedContainer();
+
+            container.addContainerProperty("name", String.class, null);
+            container.addContainerProperty("value", Long.class, null);
+            container.addContainerProperty("mean", String.class, null);
+            container.addContainerProperty("p50", Long.class, null);
+            container.addContainerProperty("p90", Long.class, null);
+            container.addContainerProperty("p99", Long.class, null);
+            container.addContainerProperty("max", Long.class, null);
+
+            for (Map.Entry<String, Long> entry : metricsRegistry.getCounters().entrySet()) {
+                addValue(entry.getKey(), entry.getValue(), container);
+            }
+            for (Map.Entry<String, Long> entry : metricsRegistry.getGauges().entrySet()) {
+                addValue(entry.getKey(), entry.getValue(), container);
+            }
+            for (Map.Entry<String, Histogram.Snapshot> entry : metricsRegistry.getHistograms().entrySet()) {
+                Histogram.Snapshot snapshot = entry.getValue();
+                Item item = addValue(entry.getKey(), snapshot.getCount(), container);
+                item.getItemProperty("mean").setValue(String.format("%.1f", snapshot.getMean()));
+                item.getItemProperty("p50").setValue(snapshot.getValueAtPercentile(50));
+                item.getItemProperty("p90").setValue(snapshot.getValueAtPercentile(90));
+                item.getItemProperty("p99").setValue(snapshot.getValueAtPercentile(99));
+                item.getItemProperty("max").setValue(snapshot.getMax());
+            }
+
+            return container;
+        }
+
+        private static Item addValue(final String name, final long value, final Container container) {
+            Item item = container.getItem(container.addItem());
+            item.getItemProperty("name").setValue(name);
+            item.getItemProperty("value").setValue(value);
+            return item;
+        }
+
+        @Override
+        public void refresh() {
+            metricsTable.setContainerDataSource(getMetricsContainer());
+        }
+    }
+
+    private static class DatabasePanel extends Panel implements Refreshable {
+        private final VerticalLayout root = new VerticalLayout();
+        private final Button resetButton;
+        private final Table statisticsTable;
+
+        private DatabasePanel() {
+            setCaption("Database Statistics");
+            setWidth("650px");
+            addComponent(root);
+
+            resetButton = new Button("Reset");
+            resetButton.addListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    SqlStatistics.reset();
+                    refresh();
+                }
+            });
+
+            statisticsTable = new Table();
+            statisticsTable.setContainerDataSource(getStatisticsContainer());
+            statisticsTable.setHeight("300px");
+            statisticsTable.setWidth("600px");
+            statisticsTable.setColumnHeaders(
+                    new String[]{"Command", "Transactions", "Statements", "Avg/Tx", "Max/Tx", "SQL ms", "Slowest ms", "Wait ms", "Slow",
+                            "Over Budget"});
+            statisticsTable.setColumnWidth("tag", 150);
+            statisticsTable.setCaption("SQL per command or web service method, slowest first");
+
+            root.addComponent(resetButton);
+            root.addComponent(statisticsTable);
+            root.setSpacing(true);
+        }
+
+        private static IndexedContainer getStatisticsContainer() {
+            final IndexedContainer container = new IndexedContainer();
+
+            container.addContainerProperty("tag", String.class, null);
+            container.addContainerProperty("transactions", Long.class, null);
+            container.addContainerProperty("statements", Long.class, null);
+            container.addContainerProperty("average", String.class, null);
+            container.addContainerProperty("max", Long.class, null);
+            container.addContainerProperty("sqlTime", Long.class, null);
+            container.addContainerProperty("slowest", Long.class, null);
+            container.addContainerProperty("wait", Long.class, null);
+            container.addContainerProperty("slow", Long.class, null);
+            container.addContainerProperty("overBudget", Long.class, null);
+
+            for (TagStatistics statistics : SqlStatistics.getStatistics()) {
+                Item item = container.getItem(container.addItem());
+                item.getItemProperty("tag").setValue(statistics.getTag());
+                item.getItemProperty("transactions").setValue(statistics.getTransactions());
+                item.getItemProperty("statements").setValue(statistics.getStatements());
+                item.getItemProperty("average").setValue(String.format("%.1f", statistics.getAverageStatementsPerTransaction()));
+                item.getItemProperty("max").setValue(statistics.getMaxStatementsPerTransaction());
+                item.getItemProperty("sqlTime").setValue(statistics.getStatementMillis());
+                item.getItemProperty("slowest").setValue(statistics.getMaxStatementMillis());
+                item.getItemProperty("wait").setValue(statistics.getConnectionWaitMillis());
+                item.getItemProperty("slow").setValue(statistics.getSlowStatements());
+                item.getItemProperty("overBudget").setValue(statistics.getBudgetOverruns());
+            }
+
+            return container;
+        }
+
+        @Override
+        public void refresh() {
+            statisticsTable.setContainerDataSource(getStatisticsContainer());
+        }
+    }
+
+    private static class ScriptsPanel extends Panel implements Refreshable {
+        private final ScriptExecutor scriptExecutor;
+
+        private final VerticalLayout root = new VerticalLayout();
+        private final Button resetButton;
+        private final Table statisticsTable;
+
+        private ScriptsPanel(final ScriptExecutor scriptExecutor) {
+            this.scriptExecutor = scriptExecutor;
+
+            setCaption("Script Statistics");
+            setWidth("650px");
+            addComponent(root);
+
+            resetButton = new Button("Reset");
+            resetButton.addListener(new Button.ClickListener() {
+                @Override
+                public void buttonClick(final Button.ClickEvent event) {
+                    scriptExecutor.resetStatistics();
+                    refresh();
+                }
+            });
+
+            statisticsTable = new Table();
+            statisticsTable.setContainerDataSource(getStatisticsContainer());
+            statisticsTable.setHeight("300px");
+            statisticsTable.setWidth("600px");
+            statisticsTable.setColumnHeaders(
+                    new String[]{"Script", "Invocations", "Failures", "Timeouts", "Rejected", "Total ms", "Avg ms", "Max ms"});
+            statisticsTable.setColumnWidth("script", 150);
+            statisticsTable.setCaption("Script invocations, most time consuming first");
+
+            root.addComponent(resetButton);
+            root.addComponent(statisticsTable);
+            root.setSpacing(true);
+        }
+
+        private IndexedContainer getStatisticsContainer() {
+            final IndexedContainer container = new IndexedContainer();
+
+            container.addContainerProperty("script", String.class, null);
+            container.addContainerProperty("invocations", Long.class, null);
+            container.addContainerProperty("failures", Long.class, null);
+            container.addContainerProperty("timeouts", Long.class, null);
+            container.addContainerProperty("rejections", Long.class, null);
+            container.addContainerProperty("total", Long.class, null);
+            container.addContainerProperty("average", String.class, null);
+            container.addContainerProperty("max", Long.class, null);
+
+            for (ScriptStatistics statistics : scriptExecutor.getStatistics()) {
+                Item item = container.getItem(container.addItem());
+                item.getItemProperty("script").setValue(statistics.getScript());
+                item.getItemProperty("invocations").setValue(statistics.getInvocations());
+                item.getItemProperty("failures").setValue(statistics.getFailures());
+                item.getItemProperty("timeouts").setValue(statistics.getTimeouts());
+                item.getItemProperty("rejections").setValue(statistics.getRejections());
+                item.getItemProperty("total").setValue(statistics.getMillis());
+                item.getItemProperty("average").setValue(String.format("%.1f", statistics.getAverageMillis()));
+                item.getItemProperty("max").setValue(statistics.getMaxMillis());
+            }
+
+            return container;
+        }
+
+        @Override
+        public void refresh() {
+            statisticsTable.setContainerDataSource(getStatisticsContainer());
         }
     }
 }
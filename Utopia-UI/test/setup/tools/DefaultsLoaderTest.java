@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package setup.tools;
+
+import api.database.transactions.Transactions;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.hibernate.Session;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import spi.settings.EntitySetup;
+
+import java.sql.*;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Makes sure loading all the defaults in one transaction seeds exactly the same rows as loading them type by type in separate
+ * transactions did, and that loading them again doesn't add anything.
+ */
+@Test
+public class DefaultsLoaderTest {
+    private final List<InMemoryDatabase> databases = new ArrayList<>();
+
+    @AfterMethod
+    public void tearDown() {
+        for (InMemoryDatabase database : databases) {
+            database.close();
+        }
+        databases.clear();
+    }
+
+    public void testSameRowsAsLoadingTypeByType() throws SQLException {
+        InMemoryDatabase oldWay = createDatabase("defaults_old");
+        loadTheOldWay(createInjector(oldWay));
+        Map<String, List<String>> expected = dumpRows(oldWay);
+        assertFalse(expected.get("race").isEmpty());
+        assertFalse(expected.get("building").isEmpty());
+
+        InMemoryDatabase newWay = createDatabase("defaults_new");
+        createInjector(newWay).getInstance(DefaultsLoader.class).loadAllDefaults();
+
+        assertEquals(dumpRows(newWay), expected);
+    }
+
+    public void testLoadingAgainAddsNothing() throws SQLException {
+        InMemoryDatabase database = createDatabase("defaults_again");
+        DefaultsLoader defaultsLoader = createInjector(database).getInstance(DefaultsLoader.class);
+        defaultsLoader.loadAllDefaults();
+        Map<String, List<String>> expected = dumpRows(database);
+
+        defaultsLoader.loadAllDefaults();
+
+        assertEquals(dumpRows(database), expected);
+    }
+
+    private InMemoryDatabase createDatabase(final String name) {
+        InMemoryDatabase database = new InMemoryDatabase(name);
+        databases.add(database);
+        return database;
+    }
+
+    private static Injector createInjector(final InMemoryDatabase database) {
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Session.class).toProvider(database);
+                requestStaticInjection(Transactions.class);
+            }
+        });
+    }
+
+    /**
+     * Loads the defaults the way DefaultsLoader used to, each type in a transaction of its own
+     */
+    private static void loadTheOldWay(final Injector injector) {
+        List<Class<? extends EntitySetup>> setups = Arrays.asList(Buildings.class, Dragons.class, HonorTitles.class, OpTypes.class,
+                Personalities.class, Races.class, ScienceTypes.class, SpellTypes.class);
+        for (Class<? extends EntitySetup> setup : setups) {
+            injector.getInstance(setup).loadIntoDatabase();
+        }
+    }
+
+    private static Map<String, List<String>> dumpRows(final InMemoryDatabase database) throws SQLException {
+        Map<String, List<String>> rows = new TreeMap<>();
+        Connection connection = database.getConnectionProvider().getConnection();
+        try (Statement statement = connection.createStatement()) {
+            List<String> tables = new ArrayList<>();
+            try (ResultSet resultSet = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[]{"TABLE"})) {
+                while (resultSet.next()) {
+                    tables.add(resultSet.getString("TABLE_NAME").toLowerCase());
+                }
+            }
+            for (String table : tables) {
+                List<String> tableRows = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table)) {
+                    int columns = resultSet.getMetaData().getColumnCount();
+                    while (resultSet.next()) {
+                        StringBuilder row = new StringBuilder();
+                        for (int i = 1; i <= columns; ++i) {
+                            row.append(resultSet.getString(i)).append('|');
+                        }
+                        tableRows.add(row.toString());
+                    }
+                }
+                Collections.sort(tableRows);
+                rows.put(table, tableRows);
+            }
+        } finally {
+            database.getConnectionProvider().closeConnection(connection);
+        }
+        return rows;
+    }
+}
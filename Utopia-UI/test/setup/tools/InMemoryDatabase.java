@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012, Fredrik Yttergren
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name LucidBot nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL Fredrik Yttergren BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package setup.tools;
+
+import api.database.HibernateMapped;
+import api.database.models.*;
+import api.database.transactions.ReadOnlyTransactionGuard;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+import database.models.UtopiaModelsModule;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An in-memory H2 database with all the bot's and the Utopia API's entities mapped, for the setup tools that work on the
+ * database. Works as the session provider for DAOs, using thread bound sessions like the bot does.
+ */
+final class InMemoryDatabase implements Provider<Session> {
+    private final SessionFactory sessionFactory;
+    private final ConnectionProvider connectionProvider;
+
+    InMemoryDatabase(final String name) {
+        Configuration configuration = new Configuration();
+        for (Class<?> mappedClass : getMappedClasses()) {
+            configuration.addAnnotatedClass(mappedClass);
+        }
+        configuration.setProperty("hibernate.current_session_context_class", "thread");
+        configuration.setProperty("hibernate.dialect", H2Dialect.class.getName());
+        configuration.setProperty("hibernate.connection.driver_class", org.h2.Driver.class.getName());
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";MVCC=TRUE;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create");
+
+        ServiceRegistry serviceRegistry = new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry();
+        sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+        ReadOnlyTransactionGuard.install(sessionFactory, true);
+        connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+    }
+
+    @Override
+    public Session get() {
+        return sessionFactory.getCurrentSession();
+    }
+
+    ConnectionProvider getConnectionProvider() {
+        return connectionProvider;
+    }
+
+    void close() {
+        sessionFactory.close();
+    }
+
+    private static Set<Class<?>> getMappedClasses() {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (HibernateMapped mapped : Guice.createInjector(new UtopiaModelsModule())
+                .getInstance(Key.get(new TypeLiteral<Set<HibernateMapped>>() {}))) {
+            classes.add(mapped.getClazz());
+        }
+        Collections.addAll(classes, Alias.class, BotInstanceSettings.class, BotInstanceSettingsChannel.class, BotUser.class,
+                Channel.class, CommandDefinition.class, ContactInformation.class, Nickname.class, UserStatistic.class);
+        return classes;
+    }
+}
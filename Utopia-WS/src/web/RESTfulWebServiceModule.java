@@ -45,6 +45,8 @@ import org.eclipse.jetty.servlet.ServletHolder;
 import spi.events.EventListener;
 import spi.web.ServerContextHandler;
 import web.documentation.DocumentationResource;
+import web.events.EventStreamHub;
+import web.events.EventStreamServlet;
 import web.resources.*;
 import web.tools.*;
 
@@ -63,6 +65,7 @@ import java.lang.reflect.Type;
 public class RESTfulWebServiceModule extends JerseyServletModule {
     private static final String REQUEST_FILTERS = "com.sun.jersey.spi.container.ContainerRequestFilters";
     private static final String RESPONSE_FILTERS = "com.sun.jersey.spi.container.ContainerResponseFilters";
+    private static final String RESOURCE_FILTERS = "com.sun.jersey.spi.container.ResourceFilters";
 
     @Override
     protected void configureServlets() {
@@ -74,8 +77,17 @@ public class RESTfulWebServiceModule extends JerseyServletModule {
         Multibinder<EventListener> eventListenerMultibinder = Multibinder.newSetBinder(binder(), EventListener.class);
         eventListenerMultibinder.addBinding().to(LoginHandler.class);
 
+        bind(EventStreamHub.class).in(Singleton.class);
+        eventListenerMultibinder.addBinding().to(EventStreamHub.class);
+        bind(EventStreamServlet.class).in(Singleton.class);
+
         bind(WebContextFactory.class).in(Singleton.class);
 
+        bind(EntityVersions.class).in(Singleton.class);
+        eventListenerMultibinder.addBinding().to(EntityVersions.class);
+        bind(ConditionalGetFilterFactory.class).in(Singleton.class);
+        bind(ThresholdGZIPFilter.class).in(Singleton.class);
+
         //Exception handlers
         bind(IllegalArgumentExceptionHandler.class).in(Singleton.class);
         bind(IllegalStateExceptionHandler.class).in(Singleton.class);
@@ -97,6 +109,7 @@ public class RESTfulWebServiceModule extends JerseyServletModule {
         bind(BuildResource.class);
         bind(DragonResource.class);
         bind(EventResource.class);
+        bind(ExportResource.class);
         bind(ForumPostResource.class);
         bind(ForumSectionResource.class);
         bind(ForumThreadResource.class);
@@ -105,6 +118,7 @@ public class RESTfulWebServiceModule extends JerseyServletModule {
         bind(HonorTitleResource.class);
         bind(IntelResource.class);
         bind(KingdomResource.class);
+        bind(MetricsResource.class);
         bind(NewsResource.class);
         bind(NicknamesResource.class);
         bind(NoteResource.class);
@@ -137,7 +151,8 @@ public class RESTfulWebServiceModule extends JerseyServletModule {
         @Inject
         public WebServiceAPIContextHandler(final PropertiesCollection properties,
                                            final SecurityHandler securityHandler,
-                                           final GuiceContainer container) {
+                                           final GuiceContainer container,
+                                           final EventStreamServlet eventStreamServlet) {
             this.properties = properties;
             contextHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
             contextHandler.setContextPath("/api");
@@ -147,9 +162,15 @@ public class RESTfulWebServiceModule extends JerseyServletModule {
             servletHolder.setInitParameter(FeaturesAndProperties.FEATURE_FORMATTED, "true");
             servletHolder.setInitParameter(FeaturesAndProperties.FEATURE_XMLROOTELEMENT_PROCESSING, "true");
             servletHolder.setInitParameter(REQUEST_FILTERS, "com.sun.jersey.api.container.filter.GZIPContentEncodingFilter");
-            servletHolder.setInitParameter(RESPONSE_FILTERS, "com.sun.jersey.server.linking.LinkFilter,com.sun.jersey.api.container.filter.GZIPContentEncodingFilter");
+            servletHolder.setInitParameter(RESPONSE_FILTERS, "com.sun.jersey.server.linking.LinkFilter," + ThresholdGZIPFilter.class.getName());
+            servletHolder.setInitParameter(RESOURCE_FILTERS, ConditionalGetFilterFactory.class.getName());
             contextHandler.addServlet(servletHolder, "/*");
 
+            //Kept out of Jersey since the stream stays open, which Jersey 1 can only do by holding a thread per client
+            ServletHolder eventStreamHolder = new ServletHolder(eventStreamServlet);
+            eventStreamHolder.setAsyncSupported(true);
+            contextHandler.addServlet(eventStreamHolder, "/stream");
+
             securityHandler.setupSecurity(contextHandler);
         }
 
@@ -10,11 +10,23 @@ import java.util.Map;
 
 public class UtopiaWSPropertiesConfig implements PropertiesSpecification {
     public static final String WEB_SERVICE_API = "Core.WebServiceAPI.Enabled";
+    public static final String VALIDATOR_MAX_AGE = "Core.WebServiceAPI.ValidatorMaxAgeSeconds";
+    public static final String GZIP_THRESHOLD = "Core.WebServiceAPI.GzipThresholdBytes";
+    public static final String EVENT_STREAM_BUFFER_SIZE = "Core.WebServiceAPI.EventStream.BufferSize";
+    public static final String EVENT_STREAM_MAX_CLIENTS = "Core.WebServiceAPI.EventStream.MaxClients";
+    public static final String EVENT_STREAM_WRITERS = "Core.WebServiceAPI.EventStream.WriterThreads";
+    public static final String EVENT_STREAM_WRITE_TIMEOUT = "Core.WebServiceAPI.EventStream.WriteTimeoutMillis";
 
     private final Map<String, String> defaults = new HashMap<>();
 
     public UtopiaWSPropertiesConfig() {
         defaults.put(WEB_SERVICE_API, "false");
+        defaults.put(VALIDATOR_MAX_AGE, "300");
+        defaults.put(GZIP_THRESHOLD, "1024");
+        defaults.put(EVENT_STREAM_BUFFER_SIZE, "256");
+        defaults.put(EVENT_STREAM_MAX_CLIENTS, "5000");
+        defaults.put(EVENT_STREAM_WRITERS, "4");
+        defaults.put(EVENT_STREAM_WRITE_TIMEOUT, "10000");
     }
 
     @Override
@@ -0,0 +1,143 @@
+package web.events;
+
+import com.google.common.base.Charsets;
+import org.eclipse.jetty.server.Request;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connected event stream. Doesn't hold a thread while it's idle, the frames are written by the hub's writers when there
+ * are any, and the client is dropped if it doesn't keep up.
+ */
+@ParametersAreNonnullByDefault
+final class EventStreamClient {
+    private final AsyncContext asyncContext;
+    private final Set<String> topics;
+    private final String user;
+    private final BlockingQueue<String> buffer;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    //When the current write started, or 0 if nothing is being written
+    private volatile long writeStarted;
+
+    /**
+     * @param asyncContext the context of the request that opened the stream
+     * @param topics       the types of events the client wants, or the first parts of them (like "army" for all army events).
+     *                     Empty means everything
+     * @param user         the name of the user that opened the stream
+     * @param bufferSize   how many frames may be waiting to be written before the client is considered too slow
+     */
+    EventStreamClient(final AsyncContext asyncContext, final Set<String> topics, final String user, final int bufferSize) {
+        this.asyncContext = asyncContext;
+        this.topics = topics;
+        this.user = user;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    boolean isSubscribedTo(final String type) {
+        if (topics.isEmpty()) return true;
+        for (String topic : topics) {
+            if (type.equals(topic) || type.startsWith(topic + '.')) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param frame the frame to write
+     * @return false if the buffer is full
+     */
+    boolean offer(final String frame) {
+        return !closed.get() && buffer.offer(frame);
+    }
+
+    /**
+     * @return true if the caller should schedule a write, false if one is already scheduled
+     */
+    boolean markWriteScheduled() {
+        return writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Writes everything that's buffered
+     *
+     * @return true if more frames were buffered while writing, meaning another write should be scheduled
+     * @throws IOException if the client is gone
+     */
+    boolean writeBuffered() throws IOException {
+        List<String> frames = new ArrayList<>(buffer.size());
+        buffer.drainTo(frames);
+        if (!frames.isEmpty() && !closed.get()) {
+            writeStarted = System.currentTimeMillis();
+            try {
+                ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+                for (String frame : frames) {
+                    out.write(frame.getBytes(Charsets.UTF_8));
+                }
+                out.flush();
+            } finally {
+                writeStarted = 0;
+            }
+        }
+        writeScheduled.set(false);
+        return !buffer.isEmpty() && markWriteScheduled();
+    }
+
+    /**
+     * Ends the stream
+     *
+     * @return true if it wasn't already closed
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) return false;
+        buffer.clear();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignore) {
+            //Already completed by the container
+        }
+        return true;
+    }
+
+    /**
+     * @param now the current time in millis
+     * @return for how long the current write has been running, or 0 if nothing is being written
+     */
+    long getWriteDuration(final long now) {
+        long started = writeStarted;
+        return started == 0 ? 0 : now - started;
+    }
+
+    /**
+     * Ends the stream and closes the connection under it, which makes a write that's stuck waiting for the client fail
+     * instead of holding on to the writer thread
+     *
+     * @return true if it wasn't already closed
+     */
+    boolean abort() {
+        try {
+            ServletRequest request = asyncContext.getRequest();
+            if (request instanceof Request) ((Request) request).getHttpChannel().getEndPoint().close();
+        } catch (IllegalStateException ignore) {
+            //Already completed by the container
+        }
+        return close();
+    }
+
+    String getUser() {
+        return user;
+    }
+
+    int getBuffered() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,289 @@
+package web.events;
+
+import api.events.bot.EntitiesChangedEvent;
+import api.metrics.Counter;
+import api.metrics.MetricsRegistry;
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import api.tools.time.DateFactory;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import database.models.Target;
+import events.*;
+import lombok.extern.log4j.Log4j;
+import org.codehaus.jackson.map.ObjectMapper;
+import spi.events.EventListener;
+import spi.runtime.RequiresShutdown;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static web.UtopiaWSPropertiesConfig.*;
+
+/**
+ * Pushes domain events to the clients connected to the event stream, as Server-Sent Events with a small JSON object each.
+ * <p/>
+ * Every event is turned into a frame once, and then added to the buffer of each client that subscribed to its type. A small
+ * pool of writers sends the buffered frames, so idle clients cost no threads. A client whose buffer fills up is too slow
+ * to keep up with the events and is dropped, and it's up to the client to reconnect and fetch what it missed. The writes
+ * block, so a client that stops reading without closing the connection would hold on to a writer, and the writes are
+ * checked every second and the client dropped if one has been running for too long.
+ */
+@Log4j
+@Singleton
+@ParametersAreNonnullByDefault
+public class EventStreamHub implements EventListener, RequiresShutdown {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String KEEP_ALIVE_FRAME = ":keep-alive\n\n";
+    private static final long KEEP_ALIVE_SECONDS = 25;
+    private static final long WRITE_CHECK_SECONDS = 1;
+
+    static {
+        OBJECT_MAPPER.setDateFormat(DateFactory.getISODateTimeWithTimeZoneFormat());
+    }
+
+    private final Set<EventStreamClient> clients = Collections.newSetFromMap(new ConcurrentHashMap<EventStreamClient, Boolean>());
+    private final AtomicLong eventIds = new AtomicLong();
+    private final ThreadPoolExecutor writers;
+    private final ScheduledFuture<?> keepAlive;
+    private final ScheduledFuture<?> writeCheck;
+    private final int bufferSize;
+    private final int maxClients;
+    private final long writeTimeoutMillis;
+    private final Counter eventsPublished;
+    private final Counter clientsDropped;
+
+    @Inject
+    public EventStreamHub(final PropertiesCollection properties, final ThreadingManager threadingManager, final MetricsRegistry metricsRegistry) {
+        this.bufferSize = properties.getInteger(EVENT_STREAM_BUFFER_SIZE);
+        this.maxClients = properties.getInteger(EVENT_STREAM_MAX_CLIENTS);
+        this.writeTimeoutMillis = properties.getInteger(EVENT_STREAM_WRITE_TIMEOUT);
+        int writerThreads = properties.getInteger(EVENT_STREAM_WRITERS);
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("EventStream-%d").setDaemon(true).build());
+        this.eventsPublished = metricsRegistry.counter("ws.events.published");
+        this.clientsDropped = metricsRegistry.counter("ws.events.clients.dropped");
+        metricsRegistry.registerGauge("ws.events.clients", new api.metrics.Gauge() {
+            @Override
+            public long getValue() {
+                return clients.size();
+            }
+        });
+        this.keepAlive = threadingManager.scheduleRecurring(new Runnable() {
+            @Override
+            public void run() {
+                //Lets both ends notice dead connections, and keeps proxies from timing out idle ones
+                broadcast(null, KEEP_ALIVE_FRAME);
+            }
+        }, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        this.writeCheck = threadingManager.scheduleRecurring(new Runnable() {
+            @Override
+            public void run() {
+                dropStalledClients();
+            }
+        }, WRITE_CHECK_SECONDS, WRITE_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @param client the client to start sending events to
+     * @return false if there are too many clients already
+     */
+    boolean register(final EventStreamClient client) {
+        if (clients.size() >= maxClients) return false;
+        clients.add(client);
+        return true;
+    }
+
+    void unregister(final EventStreamClient client) {
+        clients.remove(client);
+        client.close();
+    }
+
+    /**
+     * Sends a frame to a single client, used for the first frame of a stream
+     */
+    void send(final EventStreamClient client, final String frame) {
+        if (client.offer(frame)) scheduleWrite(client);
+        else drop(client);
+    }
+
+    @Subscribe
+    public void onSoTSaved(final SoTSavedEvent event) {
+        publish("intel.sot", event.getId());
+    }
+
+    @Subscribe
+    public void onSoMSaved(final SoMSavedEvent event) {
+        publish("intel.som", event.getId());
+    }
+
+    @Subscribe
+    public void onSoSSaved(final SoSSavedEvent event) {
+        publish("intel.sos", event.getId());
+    }
+
+    @Subscribe
+    public void onSurveySaved(final SurveySavedEvent event) {
+        publish("intel.survey", event.getId());
+    }
+
+    @Subscribe
+    public void onKingdomSaved(final KingdomSavedEvent event) {
+        publish("intel.kingdom", event.getId());
+    }
+
+    @Subscribe
+    public void onArmyAdded(final ArmyAddedEvent event) {
+        publish("army.added", event.getArmyId());
+    }
+
+    @Subscribe
+    public void onArmyHome(final ArmyHomeEvent event) {
+        publish("army.home", event.getArmy().getId());
+    }
+
+    @Subscribe
+    public void onDurationSpell(final DurationSpellRegisteredEvent event) {
+        publish("spell.duration", event.getDurationSpellId());
+    }
+
+    @Subscribe
+    public void onInstantSpell(final InstantSpellRegisteredEvent event) {
+        publish("spell.instant", event.getInstantSpellId());
+    }
+
+    @Subscribe
+    public void onDurationOp(final DurationOpRegisteredEvent event) {
+        publish("op.duration", event.getDurationOpId());
+    }
+
+    @Subscribe
+    public void onInstantOp(final InstantOpRegisteredEvent event) {
+        publish("op.instant", event.getInstantOpId());
+    }
+
+    @Subscribe
+    public void onTargetAdded(final TargetAddedEvent event) {
+        publish("target.added", event.getTargetId());
+    }
+
+    @Subscribe
+    public void onEntitiesChanged(final EntitiesChangedEvent event) {
+        //Targets are also edited and removed through the web services, which have no events of their own
+        for (Object id : event.getChangedIds(Target.class)) {
+            if (id instanceof Number) publish("target.changed", ((Number) id).longValue());
+        }
+    }
+
+    @Subscribe
+    public void onOrderAdded(final OrderAddedEvent event) {
+        publish("order.added", event.getOrderId());
+    }
+
+    @Subscribe
+    public void onNoteAdded(final NoteAddedEvent event) {
+        publish("note.added", event.getNoteId());
+    }
+
+    private void publish(final String type, final long entityId) {
+        if (clients.isEmpty()) return;
+        long eventId = eventIds.incrementAndGet();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", type);
+        data.put("id", entityId);
+        data.put("time", new Date());
+        String json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsString(data);
+        } catch (IOException e) {
+            EventStreamHub.log.error("Could not serialize event " + type, e);
+            return;
+        }
+        eventsPublished.increment();
+        broadcast(type, "id: " + eventId + "\nevent: " + type + "\ndata: " + json + "\n\n");
+    }
+
+    /**
+     * @param type  the type of the event, or null to send it to every client
+     * @param frame the frame
+     */
+    private void broadcast(final String type, final String frame) {
+        for (EventStreamClient client : clients) {
+            if (type != null && !client.isSubscribedTo(type)) continue;
+            if (client.offer(frame)) scheduleWrite(client);
+            else drop(client);
+        }
+    }
+
+    private void drop(final EventStreamClient client) {
+        if (clients.remove(client) && client.close()) {
+            clientsDropped.increment();
+            EventStreamHub.log.info("Dropped the event stream of " + client.getUser() + ", it fell " + bufferSize + " events behind");
+        }
+    }
+
+    /**
+     * Drops the clients with a write that has been running for longer than the write timeout, which frees up the writers
+     * that are stuck on them
+     */
+    void dropStalledClients() {
+        long now = System.currentTimeMillis();
+        for (EventStreamClient client : clients) {
+            long writeDuration = client.getWriteDuration(now);
+            if (writeDuration > writeTimeoutMillis && clients.remove(client) && client.abort()) {
+                clientsDropped.increment();
+                EventStreamHub.log.info("Dropped the event stream of " + client.getUser() + ", a write has been stalled for " +
+                        writeDuration + " ms");
+            }
+        }
+    }
+
+    private void scheduleWrite(final EventStreamClient client) {
+        if (!client.markWriteScheduled()) return;
+        try {
+            writers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (client.writeBuffered()) {
+                            //Keep going while there's more, the flag is already set again
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        //The client went away
+                        unregister(client);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            unregister(client);
+        }
+    }
+
+    @Override
+    public Runnable getShutdownRunner() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                keepAlive.cancel(false);
+                writeCheck.cancel(false);
+                for (EventStreamClient client : clients) {
+                    unregister(client);
+                }
+                writers.shutdown();
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package web.events;
+
+import com.google.common.base.Splitter;
+import lombok.extern.log4j.Log4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Opens an event stream (text/event-stream) for the requesting user. The optional topics parameter is a comma separated list
+ * of the event types to get, where a type may be shortened to its first part, like topics=army,intel.sot
+ */
+@Log4j
+@Singleton
+public class EventStreamServlet extends HttpServlet {
+    private static final Splitter TOPIC_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    //Tells the client how long to wait before reconnecting if the stream is dropped
+    private static final String FIRST_FRAME = "retry: 5000\n\n";
+
+    private final EventStreamHub hub;
+
+    @Inject
+    public EventStreamServlet(final EventStreamHub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+        Set<String> topics = new HashSet<>();
+        String topicsParam = request.getParameter("topics");
+        if (topicsParam != null) {
+            for (String topic : TOPIC_SPLITTER.split(topicsParam)) {
+                topics.add(topic);
+            }
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        String user = request.getRemoteUser() == null ? request.getRemoteAddr() : request.getRemoteUser();
+        final EventStreamClient client = new EventStreamClient(asyncContext, topics, user, hub.getBufferSize());
+        if (!hub.register(client)) {
+            EventStreamServlet.log.warn("Refused the event stream of " + user + ", there are too many open streams already");
+            response.setContentType(null);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            asyncContext.complete();
+            return;
+        }
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(final AsyncEvent event) throws IOException {
+                hub.unregister(client);
+            }
+
+            @Override
+            public void onTimeout(final AsyncEvent event) throws IOException {
+                hub.unregister(client);
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) throws IOException {
+                hub.unregister(client);
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) throws IOException {
+            }
+        });
+        hub.send(client, FIRST_FRAME);
+    }
+}
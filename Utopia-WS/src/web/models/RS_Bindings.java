@@ -116,6 +116,26 @@ public class RS_Bindings implements BindingsContainer {
         this.adminsOnly = adminsOnly;
     }
 
+    /**
+     * @param bindings the RS_Bindings to copy
+     * @return a new RS_Bindings with copies of the users, races and personalities in the supplied one
+     */
+    static RS_Bindings copyOf(final RS_Bindings bindings) {
+        List<RS_User> userList = Lists.newArrayList();
+        for (RS_User user : toEmptyListIfNull(bindings.users)) {
+            userList.add(RS_User.minimalCopyOf(user));
+        }
+        List<RS_Race> raceList = Lists.newArrayList();
+        for (RS_Race race : toEmptyListIfNull(bindings.races)) {
+            raceList.add(RS_Race.minimalCopyOf(race));
+        }
+        List<RS_Personality> personalityList = Lists.newArrayList();
+        for (RS_Personality personality : toEmptyListIfNull(bindings.personalities)) {
+            personalityList.add(RS_Personality.minimalCopyOf(personality));
+        }
+        return new RS_Bindings(userList, raceList, personalityList, bindings.publish, bindings.expire, bindings.isAdminsOnly());
+    }
+
     public static RS_Bindings fromBindings(final Bindings bindings) {
         List<RS_User> userList = Lists.newArrayList();
         for (BotUser user : bindings.getUsers()) {
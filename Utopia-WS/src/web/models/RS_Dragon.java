@@ -102,6 +102,14 @@ public class RS_Dragon implements HasNumericId {
         return full ? new RS_Dragon(dragon) : new RS_Dragon(dragon.getId(), dragon.getName());
     }
 
+    /**
+     * @param dragon the RS_Dragon to copy
+     * @return a new RS_Dragon with the minimal amount of info from the supplied one
+     */
+    static RS_Dragon minimalCopyOf(final RS_Dragon dragon) {
+        return new RS_Dragon(dragon.id, dragon.name);
+    }
+
     @Override
     public Long getId() {
         return id;
@@ -126,7 +126,14 @@ public class RS_ForumThread implements HasNumericId {
     private Boolean stickied;
 
     /**
-     * All the posts in this thread. For display purposes, so there's no need to ever specify this, since it'll be ignored anyway.
+     * The number of posts in this thread. For display purposes, so there's no need to ever specify this, since it'll be ignored anyway.
+     */
+    @XmlElement(name = "PostCount")
+    private Integer postCount;
+
+    /**
+     * The first posts in this thread. The rest can be read a page at a time from the thread's posts resource. For display purposes,
+     * so there's no need to ever specify this, since it'll be ignored anyway.
      */
     @XmlElementWrapper(name = "Posts")
     @XmlElement(name = "ForumPost")
@@ -140,21 +147,31 @@ public class RS_ForumThread implements HasNumericId {
         this.name = name;
     }
 
-    public RS_ForumThread(final ForumThread thread) {
+    public RS_ForumThread(final ForumThread thread, final List<ForumPost> posts) {
         this(thread.getId(), thread.getName());
         this.added = thread.getCreated();
         this.addedBy = thread.getCreatedBy();
         this.section = RS_ForumSection.fromForumSection(thread.getSection(), false);
         this.locked = thread.isLocked();
         this.stickied = thread.isStickied();
+        this.postCount = thread.getPostCount();
         this.posts = Lists.newArrayList();
-        for (ForumPost post : thread.getPosts()) {
-            posts.add(RS_ForumPost.fromForumPost(post));
+        for (ForumPost post : posts) {
+            this.posts.add(RS_ForumPost.fromForumPost(post));
         }
     }
 
     public static RS_ForumThread fromForumThread(final ForumThread thread, final boolean full) {
-        return full ? new RS_ForumThread(thread) : new RS_ForumThread(thread.getId(), thread.getName());
+        return full ? new RS_ForumThread(thread, thread.getPosts()) : new RS_ForumThread(thread.getId(), thread.getName());
+    }
+
+    /**
+     * @param thread the thread
+     * @param posts  the posts to include, normally the first page of the thread
+     * @return the full thread with the specified posts
+     */
+    public static RS_ForumThread fromForumThread(final ForumThread thread, final List<ForumPost> posts) {
+        return new RS_ForumThread(thread, posts);
     }
 
     public static void toForumThread(final ForumThread thread, final RS_ForumThread updatedThread) {
@@ -191,6 +208,10 @@ public class RS_ForumThread implements HasNumericId {
         return stickied != null && stickied;
     }
 
+    public Integer getPostCount() {
+        return postCount;
+    }
+
     public List<RS_ForumPost> getPosts() {
         return toEmptyListIfNull(posts);
     }
@@ -30,6 +30,7 @@ package web.models;
 import api.common.HasNumericId;
 import com.sun.jersey.server.linking.Ref;
 import database.models.Kingdom;
+import database.models.KingdomRow;
 import database.models.Province;
 import web.tools.ISODateTimeAdapter;
 
@@ -108,6 +109,23 @@ public class RS_Kingdom implements HasNumericId {
         }
     }
 
+    private RS_Kingdom(final RS_Kingdom kingdom) {
+        this(kingdom.id, kingdom.location);
+        this.name = kingdom.name;
+        this.land = kingdom.land;
+        this.networth = kingdom.networth;
+        this.comment = kingdom.comment;
+        this.dragon = kingdom.dragon == null ? null : RS_Dragon.minimalCopyOf(kingdom.dragon);
+        this.nap = kingdom.nap;
+        this.lastUpdated = kingdom.lastUpdated;
+        if (kingdom.provinces != null) {
+            this.provinces = new ArrayList<>(kingdom.provinces.size());
+            for (RS_Province province : kingdom.provinces) {
+                this.provinces.add(RS_Province.minimalCopyOf(province));
+            }
+        }
+    }
+
     /**
      * Constructs a RS_Kingdom from the supplied Kingdom
      *
@@ -120,6 +138,29 @@ public class RS_Kingdom implements HasNumericId {
         return full ? new RS_Kingdom(kingdom) : new RS_Kingdom(kingdom.getId(), kingdom.getLocation());
     }
 
+    /**
+     * Copies a RS_Kingdom, including the dragon and provinces in it. Their links are filled in for every response, so a
+     * RS_Kingdom that is kept around between requests needs to be copied before it's returned.
+     *
+     * @param kingdom the RS_Kingdom to copy
+     * @return a new RS_Kingdom
+     */
+    public static RS_Kingdom copyOf(@Nonnull final RS_Kingdom kingdom) {
+        checkNotNull(kingdom);
+        return new RS_Kingdom(kingdom);
+    }
+
+    /**
+     * Constructs a RS_Kingdom with the minimal amount of info from the supplied row
+     *
+     * @param kingdom the kingdom row to base this RS_Kingdom on
+     * @return a new RS_Kingdom
+     */
+    public static RS_Kingdom fromKingdomRow(@Nonnull final KingdomRow kingdom) {
+        checkNotNull(kingdom);
+        return new RS_Kingdom(kingdom.getId(), kingdom.getLocation());
+    }
+
     public Long getId() {
         return id;
     }
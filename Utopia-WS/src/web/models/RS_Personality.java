@@ -92,6 +92,14 @@ public class RS_Personality implements HasNumericId {
         return full ? new RS_Personality(personality) : new RS_Personality(personality.getId(), personality.getName());
     }
 
+    /**
+     * @param personality the RS_Personality to copy
+     * @return a new RS_Personality with the minimal amount of info from the supplied one
+     */
+    static RS_Personality minimalCopyOf(final RS_Personality personality) {
+        return new RS_Personality(personality.id, personality.name);
+    }
+
     public Long getId() {
         return id;
     }
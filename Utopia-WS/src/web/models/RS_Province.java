@@ -193,6 +193,14 @@ public class RS_Province implements HasNumericId {
         return full ? new RS_Province(province) : new RS_Province(province.getId(), province.getName());
     }
 
+    /**
+     * @param province the RS_Province to copy
+     * @return a new RS_Province with the minimal amount of info from the supplied one
+     */
+    static RS_Province minimalCopyOf(final RS_Province province) {
+        return new RS_Province(province.id, province.name);
+    }
+
     public Long getId() {
         return id;
     }
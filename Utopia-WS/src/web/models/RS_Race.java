@@ -136,6 +136,14 @@ public class RS_Race implements HasNumericId {
         return full ? new RS_Race(race) : new RS_Race(race.getId(), race.getName());
     }
 
+    /**
+     * @param race the RS_Race to copy
+     * @return a new RS_Race with the minimal amount of info from the supplied one
+     */
+    static RS_Race minimalCopyOf(final RS_Race race) {
+        return new RS_Race(race.id, race.name);
+    }
+
     public Long getId() {
         return id;
     }
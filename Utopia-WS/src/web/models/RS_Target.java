@@ -155,6 +155,27 @@ public class RS_Target implements HasNumericId {
                 target.getDetails());
     }
 
+    /**
+     * Copies a RS_Target, including the province, bindings and hitters in it. Their links are filled in for every response, so a
+     * RS_Target that is kept around between requests needs to be copied before it's returned.
+     *
+     * @param target the RS_Target to copy
+     * @return a new RS_Target
+     */
+    public static RS_Target copyOf(final RS_Target target) {
+        RS_Target copy = new RS_Target(target.id, target.province == null ? null : RS_Province.minimalCopyOf(target.province), target.type,
+                target.details);
+        copy.added = target.added;
+        copy.bindings = target.bindings == null ? null : RS_Bindings.copyOf(target.bindings);
+        if (target.hitters != null) {
+            copy.hitters = Lists.newArrayList();
+            for (RS_TargetHitter hitter : target.hitters) {
+                copy.hitters.add(new RS_TargetHitter(copy, RS_User.minimalCopyOf(hitter.getUser()), hitter.getPosition()));
+            }
+        }
+        return copy;
+    }
+
     public Long getId() {
         return id;
     }
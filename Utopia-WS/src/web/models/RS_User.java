@@ -265,6 +265,14 @@ public class RS_User implements HasNumericId {
         }
     }
 
+    /**
+     * @param user the RS_User to copy
+     * @return a new RS_User with the minimal amount of info from the supplied one
+     */
+    static RS_User minimalCopyOf(final RS_User user) {
+        return new RS_User(user.id, user.name);
+    }
+
     public Long getId() {
         return id;
     }
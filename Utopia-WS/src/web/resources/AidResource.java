@@ -115,7 +115,7 @@ public class AidResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Aid getAid(@PathParam("id") final long id) {
         Aid aid = aidDAO.getAid(id);
 
@@ -127,7 +127,7 @@ public class AidResource {
     @Documentation("Returns all aid requests and offers")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Aid>> getAid() {
         List<RS_Aid> aid = new ArrayList<>();
 
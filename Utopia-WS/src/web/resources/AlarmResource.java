@@ -104,7 +104,7 @@ public class AlarmResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Alarm getAlarm(@PathParam("id") final long id,
                              @Context final WebContext webContext) {
         Alarm alarm = alarmDAO.getAlarm(id);
@@ -119,7 +119,7 @@ public class AlarmResource {
     @Documentation("Returns all existing alarms, or just the ones for the specified user")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Alarm>> getAlarms(@Documentation("The id of a user you want to get the alarms for. Optional")
                                                @QueryParam("userId") final Long userId) {
         List<RS_Alarm> alarms = new ArrayList<>();
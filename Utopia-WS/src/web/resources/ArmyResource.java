@@ -129,7 +129,7 @@ public class ArmyResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Army getArmy(@PathParam("id") final long id) {
         Army army = armyDAO.getArmy(id);
 
@@ -152,7 +152,7 @@ public class ArmyResource {
             "</ol>")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Army>> getArmies(@Documentation("The id's of the armies to return. May not contain null values")
                                               @QueryParam("armyIds")
                                               final List<Long> armyIds,
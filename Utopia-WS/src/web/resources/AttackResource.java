@@ -97,7 +97,7 @@ public class AttackResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Attack getAttack(@PathParam("id") final long id) {
         Attack attack = attackDAO.getAttack(id);
 
@@ -120,7 +120,7 @@ public class AttackResource {
             "provided you only want the received attacks of a province, you could set maxOutgoing to 0 (and vice versa).")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Attack>> getAttacks(@Documentation("The id's of the attacks to return. May not contain null values")
                                                  @QueryParam("attackIds")
                                                  final List<Long> attackIds,
@@ -127,7 +127,7 @@ public class BuildResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Build getBuild(@PathParam("id") final long id) {
         Build build = buildDAO.getBuild(id);
 
@@ -139,7 +139,7 @@ public class BuildResource {
     @Documentation("Returns builds according to the query parameters, or all builds (if no parameters are specified).")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Build>> getBuilds(@Documentation("The id's of the builds to return. May not contain nulls. Cannot be combined with other parameters")
                                                @QueryParam("buildIds")
                                                final List<Long> buildIds,
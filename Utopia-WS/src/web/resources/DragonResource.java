@@ -81,7 +81,7 @@ public class DragonResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Dragon getDragon(@PathParam("id") final long id) {
         Dragon dragon = dragonDAOProvider.get().getDragon(id);
 
@@ -93,7 +93,7 @@ public class DragonResource {
     @Documentation("Returns all dragons")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Dragon>> getDragons() {
         List<RS_Dragon> dragons = new ArrayList<>();
 
@@ -121,7 +121,7 @@ public class DragonResource {
     @Path("projects/{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_DragonProject getDragonProject(@PathParam("id") final long id) {
         DragonProject project = dragonProjectDAO.getProject(id);
         if (project == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
@@ -132,7 +132,7 @@ public class DragonResource {
     @Path("projects")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_DragonProject>> getDragonProjects() {
         List<RS_DragonProject> projects = new ArrayList<>();
         for (DragonProject project : dragonProjectDAO.getAllProjects()) {
@@ -189,7 +189,7 @@ public class DragonResource {
     private void registerDragonAction(final DragonProject project, final BotUser user, final int contribution) {
         int actualContribution = Math.min(contribution, project.getStatus());
         checkArgument(actualContribution > 0, "Impossible contribution");
-        user.incrementStat("Dragon " + prettifyEnumName(project.getType()), actualContribution);
+        userDAOProvider.get().incrementStat(user, "Dragon " + prettifyEnumName(project.getType()), actualContribution);
 
         Set<DragonAction> actions = project.getActions();
         Date now = new Date();
@@ -114,7 +114,7 @@ public class EventResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Event getEvent(@PathParam("id") final long id,
                              @Context final WebContext webContext) {
         Event event = eventDAO.getEvent(id);
@@ -129,7 +129,7 @@ public class EventResource {
     @Documentation("Returns all events the current user is allowed to see, or just the ones for the specified user (admin only)")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Event>> getEvents(@Documentation("The id of the user to list events for")
                                                @QueryParam("userId")
                                                final Long userId,
@@ -0,0 +1,82 @@
+package web.resources;
+
+import com.google.common.base.Charsets;
+import database.export.DataExporter;
+import database.export.ExportCriteria;
+import database.export.ExportFormat;
+import database.export.ExportType;
+import web.documentation.Documentation;
+import web.tools.DateParameter;
+import web.tools.WebContext;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static web.tools.SecurityHandler.ADMIN_ROLE;
+
+@Path("export")
+public class ExportResource {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Provider<DataExporter> dataExporterProvider;
+
+    @Inject
+    public ExportResource(final Provider<DataExporter> dataExporterProvider) {
+        this.dataExporterProvider = dataExporterProvider;
+    }
+
+    @Documentation("Streams all the rows of the specified type (news, attacks, sots, ops or duration-ops) as CSV or newline " +
+            "delimited JSON, for use in spreadsheets and the like. Meant for big exports, like a whole age of news. Admin only request")
+    @Path("{type}")
+    @GET
+    public Response export(@Documentation("What to export: news, attacks, sots, ops or duration-ops")
+                           @PathParam("type")
+                           final String type,
+                           @Documentation("csv (the default) or json")
+                           @QueryParam("format")
+                           @DefaultValue("csv")
+                           final String format,
+                           @Documentation("Only rows from this date and time and forward. Not supported for ops")
+                           @QueryParam("fromDate")
+                           final DateParameter fromDate,
+                           @Documentation("Only rows from before this date and time. Not supported for ops")
+                           @QueryParam("toDate")
+                           final DateParameter toDate,
+                           @Documentation("Only rows for the kingdom with this location, like (1:2)")
+                           @QueryParam("kingdom")
+                           final String kingdom,
+                           @Context final WebContext webContext) {
+        if (!webContext.isInRole(ADMIN_ROLE)) throw new WebApplicationException(Response.Status.FORBIDDEN);
+
+        final ExportType exportType = ExportType.fromName(type);
+        if (exportType == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
+        final ExportFormat exportFormat = ExportFormat.fromName(format);
+        checkArgument(exportFormat != null, "Unknown format: " + format);
+        final ExportCriteria criteria = new ExportCriteria(fromDate == null ? null : fromDate.asDate(),
+                toDate == null ? null : toDate.asDate(), kingdom);
+        checkArgument(!criteria.hasDateRange() || exportType.isDated(), exportType.getFileName() + " can't be limited by date");
+
+        //Written after this method has returned, with no content length, so it's sent chunked as the rows are read
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream outputStream) throws IOException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, Charsets.UTF_8), BUFFER_SIZE);
+                dataExporterProvider.get().export(exportType, exportFormat, criteria, writer);
+                writer.flush();
+            }
+        };
+        String fileName = exportType.getFileName() + '.' + exportFormat.getFileExtension();
+        return Response.ok(output, exportFormat.getMediaType() + "; charset=UTF-8")
+                       .header("Content-Disposition", "attachment; filename=\"" + fileName + '"').build();
+    }
+}
@@ -91,7 +91,7 @@ public class ForumPostResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_ForumPost getPost(@PathParam("id") final long id,
                                 @Context final WebContext webContext) {
         BotUser botUser = webContext.getBotUser();
@@ -91,7 +91,7 @@ public class ForumSectionResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_ForumSection getSection(@PathParam("id") final long id,
                                       @Context final WebContext webContext) {
         BotUser botUser = webContext.getBotUser();
@@ -106,7 +106,7 @@ public class ForumSectionResource {
     @Documentation("Returns all the sections the current user is allowed to see")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_ForumSection>> getSections(@Context final WebContext webContext) {
         List<RS_ForumSection> sections = new ArrayList<>();
 
@@ -124,7 +124,7 @@ public class ForumSectionResource {
     @Path("{id : \\d+}/threads")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_ForumThread>> getThreads(@PathParam("id") final long id,
                                                       @Context final WebContext webContext) {
         List<RS_ForumThread> threads = new ArrayList<>();
@@ -32,6 +32,7 @@ import api.database.transactions.Transactional;
 import api.tools.validation.ValidationEnabled;
 import com.google.inject.Provider;
 import com.sun.jersey.api.JResponse;
+import database.daos.ForumPostDAO;
 import database.daos.ForumSectionDAO;
 import database.daos.ForumThreadDAO;
 import database.models.ForumPost;
@@ -51,6 +52,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static api.tools.validation.ValidationUtil.validate;
@@ -59,15 +61,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @ValidationEnabled
 @Path("forum/threads")
 public class ForumThreadResource {
+    private static final int DEFAULT_POSTS_PER_PAGE = 50;
+    private static final int MAX_POSTS_PER_PAGE = 500;
+
     private final ForumThreadDAO threadDAO;
+    private final Provider<ForumPostDAO> postDAOProvider;
     private final Provider<ForumSectionDAO> sectionDAOProvider;
     private final Provider<Validator> validatorProvider;
 
     @Inject
     public ForumThreadResource(final ForumThreadDAO threadDAO,
+                               final Provider<ForumPostDAO> postDAOProvider,
                                final Provider<ForumSectionDAO> sectionDAOProvider,
                                final Provider<Validator> validatorProvider) {
         this.threadDAO = threadDAO;
+        this.postDAOProvider = postDAOProvider;
         this.sectionDAOProvider = sectionDAOProvider;
         this.validatorProvider = validatorProvider;
     }
@@ -87,14 +95,14 @@ public class ForumThreadResource {
 
         ForumThread thread = new ForumThread(section, newThread.getName(), user.getMainNick());
         thread = threadDAO.save(thread);
-        return RS_ForumThread.fromForumThread(thread, true);
+        return RS_ForumThread.fromForumThread(thread, Collections.<ForumPost>emptyList());
     }
 
-    @Documentation("Returns the thread with the specified id")
+    @Documentation("Returns the thread with the specified id, along with the first page of its posts")
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_ForumThread getThread(@PathParam("id") final long id,
                                     @Context final WebContext webContext) {
         BotUser botUser = webContext.getBotUser();
@@ -103,15 +111,23 @@ public class ForumThreadResource {
         if (thread == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
         if (!thread.getSection().getMinimumAccessLevel().allows(botUser)) throw new WebApplicationException(Response.Status.FORBIDDEN);
 
-        return RS_ForumThread.fromForumThread(thread, true);
+        return RS_ForumThread.fromForumThread(thread, postDAOProvider.get().getPosts(thread, null, DEFAULT_POSTS_PER_PAGE));
     }
 
-    @Documentation("Returns all the posts in the specified thread")
+    @Documentation("Returns a page of posts from the specified thread, in the order they were posted. The first page is returned unless " +
+            "the id of the last post of the previous page is specified")
     @Path("{id : \\d+}/posts")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_ForumPost>> getPosts(@PathParam("id") final long id,
+                                                  @Documentation("The id of the last post of the previous page")
+                                                  @QueryParam("after")
+                                                  final Long afterPostId,
+                                                  @Documentation("The max amount of posts to return. Defaults to " + DEFAULT_POSTS_PER_PAGE +
+                                                          " and can be at most " + MAX_POSTS_PER_PAGE)
+                                                  @QueryParam("limit")
+                                                  final Integer limit,
                                                   @Context final WebContext webContext) {
         List<RS_ForumPost> posts = new ArrayList<>();
 
@@ -120,8 +136,16 @@ public class ForumThreadResource {
         ForumThread thread = threadDAO.getForumThread(id);
         if (thread == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
         if (!thread.getSection().getMinimumAccessLevel().allows(botUser)) throw new WebApplicationException(Response.Status.FORBIDDEN);
+        if (limit != null && (limit < 1 || limit > MAX_POSTS_PER_PAGE)) throw new WebApplicationException(Response.Status.BAD_REQUEST);
+
+        ForumPostDAO postDAO = postDAOProvider.get();
+        ForumPost after = null;
+        if (afterPostId != null) {
+            after = postDAO.getForumPost(afterPostId);
+            if (after == null || !after.getThread().equals(thread)) throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
 
-        for (ForumPost post : thread.getPosts()) {
+        for (ForumPost post : postDAO.getPosts(thread, after, limit == null ? DEFAULT_POSTS_PER_PAGE : limit)) {
             posts.add(RS_ForumPost.fromForumPost(post));
         }
 
@@ -154,7 +178,7 @@ public class ForumThreadResource {
 
         RS_ForumThread.toForumThread(thread, updatedThread);
 
-        return RS_ForumThread.fromForumThread(thread, true);
+        return RS_ForumThread.fromForumThread(thread, postDAOProvider.get().getPosts(thread, null, DEFAULT_POSTS_PER_PAGE));
     }
 
     @Documentation("Deletes the specified thread and all of its posts")
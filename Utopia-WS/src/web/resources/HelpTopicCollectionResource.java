@@ -87,7 +87,7 @@ public class HelpTopicCollectionResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_HelpTopicCollection getCollection(@PathParam("id") final long id) {
         HelpTopicCollection collection = collectionDAO.getHelpTopicCollection(id);
 
@@ -99,7 +99,7 @@ public class HelpTopicCollectionResource {
     @Documentation("Returns all the help topic collections, or optionally just the top level ones")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_HelpTopicCollection>> getCollections(@Documentation("Whether to only include top level collections in the response")
                                                                   @QueryParam("topLevelOnly")
                                                                   final boolean topLevelOnly) {
@@ -92,7 +92,7 @@ public class HelpTopicResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_HelpTopic getTopic(@PathParam("id") final long id) {
         HelpTopic topic = helpTopicDAO.getHelpTopic(id);
 
@@ -104,7 +104,7 @@ public class HelpTopicResource {
     @Documentation("Returns all the help topics, or optionally just the top level ones")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_HelpTopic>> getTopics(@Documentation("Whether to only include top level topics in the response")
                                                    @QueryParam("topLevelOnly")
                                                    final boolean topLevelOnly) {
@@ -30,7 +30,7 @@ public class HonorTitleResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_HonorTitle getHonorTitle(@PathParam("id") final long id) {
         HonorTitle honorTitle = honorTitleDAO.getHonorTitle(id);
         if (honorTitle == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
@@ -41,7 +41,7 @@ public class HonorTitleResource {
     @Documentation("Returns all honor titles")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_HonorTitle>> getHonorTitles() {
         List<RS_HonorTitle> honorTitles = new ArrayList<>();
 
@@ -3,12 +3,14 @@ package web.resources;
 import api.database.transactions.Transactional;
 import api.tools.validation.ValidationEnabled;
 import com.sun.jersey.api.JResponse;
+import database.models.*;
 import org.hibernate.validator.constraints.NotEmpty;
 import web.documentation.Documentation;
 import web.models.RS_SoM;
 import web.models.RS_SoS;
 import web.models.RS_SoT;
 import web.models.RS_Survey;
+import web.tools.ConditionalGet;
 import web.tools.WebContext;
 
 import javax.inject.Inject;
@@ -69,7 +71,8 @@ public class IntelResource {
     @Path("soms/{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoM.class, Army.class, Province.class})
     public RS_SoM getSoM(@PathParam("id") final long id) {
         return soMSubResourceProvider.get().getSoM(id);
     }
@@ -78,7 +81,8 @@ public class IntelResource {
     @Path("soms")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoM.class, Army.class, Province.class})
     public JResponse<List<RS_SoM>> getSoMs(@Documentation("The id of the kingdom to limit the results to")
                                            @QueryParam("kingdomId")
                                            final Long kingdomId) {
@@ -110,7 +114,8 @@ public class IntelResource {
     @Path("soss/{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoS.class, SoSEntry.class, Province.class})
     public RS_SoS getSoS(@PathParam("id") final long id) {
         return soSSubResourceProvider.get().getSos(id);
     }
@@ -119,7 +124,8 @@ public class IntelResource {
     @Path("soss")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoS.class, SoSEntry.class, Province.class})
     public JResponse<List<RS_SoS>> getSoSs(@Documentation("The id of the kingdom to limit the results to")
                                            @QueryParam("kingdomId")
                                            final Long kingdomId) {
@@ -151,7 +157,8 @@ public class IntelResource {
     @Path("sots/{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoT.class, Province.class})
     public RS_SoT getSoT(@PathParam("id") final long id) {
         return soTSubResourceProvider.get().getSoT(id);
     }
@@ -160,7 +167,8 @@ public class IntelResource {
     @Path("sots")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({SoT.class, Province.class})
     public JResponse<List<RS_SoT>> getSoTs(@Documentation("The id of the kingdom to limit the results to")
                                            @QueryParam("kingdomId")
                                            final Long kingdomId) {
@@ -192,7 +200,8 @@ public class IntelResource {
     @Path("surveys/{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Survey.class, SurveyEntry.class, Province.class})
     public RS_Survey getSurvey(@PathParam("id") final long id) {
         return surveySubResourceProvider.get().getSurvey(id);
     }
@@ -201,7 +210,8 @@ public class IntelResource {
     @Path("surveys")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Survey.class, SurveyEntry.class, Province.class})
     public JResponse<List<RS_Survey>> getSurveys(@Documentation("The id of the kingdom to limit the results to")
                                                  @QueryParam("kingdomId")
                                                  final Long kingdomId) {
@@ -36,19 +36,20 @@ import com.sun.jersey.api.JResponse;
 import database.daos.DragonDAO;
 import database.daos.IntelDAO;
 import database.daos.KingdomDAO;
-import database.models.Dragon;
-import database.models.Kingdom;
+import database.models.*;
 import events.NapAddedEvent;
 import intel.Intel;
 import intel.IntelParser;
 import intel.IntelParserManager;
 import org.hibernate.validator.constraints.NotEmpty;
+import tools.cache.ResultCache;
 import tools.validation.ExistsInDB;
 import web.documentation.Documentation;
 import web.models.RS_Dragon;
 import web.models.RS_Kingdom;
 import web.models.RS_Nap;
 import web.tools.AfterCommitEventPoster;
+import web.tools.ConditionalGet;
 import web.tools.WebContext;
 
 import javax.inject.Inject;
@@ -69,12 +70,18 @@ import static web.tools.SecurityHandler.ADMIN_ROLE;
 @ValidationEnabled
 @Path("kingdoms")
 public class KingdomResource {
+    /**
+     * Cached in place of kingdoms that don't exist, since the cache doesn't take nulls
+     */
+    private static final RS_Kingdom NO_KINGDOM = new RS_Kingdom();
+
     private final KingdomDAO kingdomDAO;
     private final Provider<IntelDAO> intelDAOProvider;
     private final Provider<IntelParserManager> intelParserManagerProvider;
     private final Provider<AfterCommitEventPoster> afterCommitEventPosterProvider;
     private final Provider<DragonDAO> dragonDAOProvider;
     private final Provider<DelayedEventPoster> delayedEventPosterProvider;
+    private final ResultCache resultCache;
 
     @Inject
     public KingdomResource(final KingdomDAO kingdomDAO,
@@ -82,13 +89,15 @@ public class KingdomResource {
                            final Provider<IntelParserManager> intelParserManagerProvider,
                            final Provider<AfterCommitEventPoster> afterCommitEventPosterProvider,
                            final Provider<DragonDAO> dragonDAOProvider,
-                           final Provider<DelayedEventPoster> delayedEventPosterProvider) {
+                           final Provider<DelayedEventPoster> delayedEventPosterProvider,
+                           final ResultCache resultCache) {
         this.kingdomDAO = kingdomDAO;
         this.intelDAOProvider = intelDAOProvider;
         this.intelParserManagerProvider = intelParserManagerProvider;
         this.afterCommitEventPosterProvider = afterCommitEventPosterProvider;
         this.dragonDAOProvider = dragonDAOProvider;
         this.delayedEventPosterProvider = delayedEventPosterProvider;
+        this.resultCache = resultCache;
     }
 
     @Documentation("Parses the incoming text and returns the saved Kingdom")
@@ -117,37 +126,62 @@ public class KingdomResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Kingdom.class, Province.class, Race.class, Personality.class, HonorTitle.class, Dragon.class})
     public RS_Kingdom getKingdom(@PathParam("id") final long id) {
-        Kingdom kingdom = kingdomDAO.getKingdom(id);
+        RS_Kingdom kingdom = resultCache.get("KingdomResource.getKingdom", String.valueOf(id), new ResultCache.Loader<RS_Kingdom>() {
+            @Override
+            public RS_Kingdom load(final ResultCache.Dependencies dependencies) {
+                Kingdom kingdom = kingdomDAO.getKingdom(id);
+                return kingdom == null ? noKingdom(dependencies) : toCachedKingdom(kingdom, dependencies);
+            }
+        });
 
-        if (kingdom == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
+        if (kingdom == NO_KINGDOM) throw new WebApplicationException(Response.Status.NOT_FOUND);
 
-        return RS_Kingdom.fromKingdom(kingdom, true);
+        return RS_Kingdom.copyOf(kingdom);
     }
 
     @Documentation("Returns all kingdoms, or optionally just the one with the specified kingdom location")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Kingdom.class, Province.class, Race.class, Personality.class, HonorTitle.class, Dragon.class})
     public JResponse<List<RS_Kingdom>> getKingdoms(@Documentation("Optionally limits the result to only the kingdom with this location")
                                                    @QueryParam("location")
                                                    final String location) {
         List<RS_Kingdom> kingdoms = new ArrayList<>();
 
         if (location == null) {
-            for (Kingdom kingdom : kingdomDAO.getAllKingdoms()) {
-                kingdoms.add(RS_Kingdom.fromKingdom(kingdom, false));
+            for (KingdomRow kingdom : kingdomDAO.getAllKingdomRows()) {
+                kingdoms.add(RS_Kingdom.fromKingdomRow(kingdom));
             }
         } else {
-            Kingdom kingdom = kingdomDAO.getKingdom(location);
-            checkNotNull(kingdom, "No such kingdom");
-            kingdoms.add(RS_Kingdom.fromKingdom(kingdom, true));
+            RS_Kingdom kingdom = resultCache.get("KingdomResource.getKingdoms", location, new ResultCache.Loader<RS_Kingdom>() {
+                @Override
+                public RS_Kingdom load(final ResultCache.Dependencies dependencies) {
+                    Kingdom kingdom = kingdomDAO.getKingdom(location, FetchPlans.KINGDOM_OVERVIEW);
+                    return kingdom == null ? noKingdom(dependencies) : toCachedKingdom(kingdom, dependencies);
+                }
+            });
+            checkNotNull(kingdom == NO_KINGDOM ? null : kingdom, "No such kingdom");
+            kingdoms.add(RS_Kingdom.copyOf(kingdom));
         }
 
         return JResponse.ok(kingdoms).build();
     }
 
+    private static RS_Kingdom noKingdom(final ResultCache.Dependencies dependencies) {
+        dependencies.onAny(Kingdom.class);
+        return NO_KINGDOM;
+    }
+
+    private static RS_Kingdom toCachedKingdom(final Kingdom kingdom, final ResultCache.Dependencies dependencies) {
+        dependencies.onAny(Race.class, Personality.class, HonorTitle.class, Dragon.class)
+                    .on(Kingdom.class, kingdom.getId()).on(Province.class, kingdom.getProvinces());
+        return RS_Kingdom.fromKingdom(kingdom, true);
+    }
+
     @Documentation("Deletes the kingdom with the specified id, including all the provinces, intel, armies etc.. Admin only request")
     @Path("{id : \\d+}")
     @DELETE
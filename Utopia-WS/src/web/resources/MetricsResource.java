@@ -0,0 +1,65 @@
+package web.resources;
+
+import api.metrics.Histogram;
+import api.metrics.MetricsRegistry;
+import org.codehaus.jackson.map.ObjectMapper;
+import web.documentation.Documentation;
+import web.tools.WebContext;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static web.tools.SecurityHandler.ADMIN_ROLE;
+
+@Path("metrics")
+public class MetricsResource {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Inject
+    public MetricsResource(final MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Documentation("Returns the bot's metrics as JSON, meaning the counters, the gauges and the histograms with their percentiles. " +
+            "Durations are in microseconds. Admin only request")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public String getMetrics(@Context final WebContext webContext) throws IOException {
+        if (!webContext.isInRole(ADMIN_ROLE)) throw new WebApplicationException(Response.Status.FORBIDDEN);
+
+        Map<String, Object> histograms = new TreeMap<>();
+        for (Map.Entry<String, Histogram.Snapshot> entry : metricsRegistry.getHistograms().entrySet()) {
+            histograms.put(entry.getKey(), toMap(entry.getValue()));
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("counters", metricsRegistry.getCounters());
+        metrics.put("gauges", metricsRegistry.getGauges());
+        metrics.put("histograms", histograms);
+        return OBJECT_MAPPER.writeValueAsString(metrics);
+    }
+
+    private static Map<String, Object> toMap(final Histogram.Snapshot snapshot) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", snapshot.getCount());
+        out.put("mean", snapshot.getMean());
+        out.put("p50", snapshot.getValueAtPercentile(50));
+        out.put("p90", snapshot.getValueAtPercentile(90));
+        out.put("p99", snapshot.getValueAtPercentile(99));
+        out.put("p999", snapshot.getValueAtPercentile(99.9));
+        out.put("max", snapshot.getMax());
+        return out;
+    }
+}
@@ -67,7 +67,7 @@ public class NewsResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_NewsItem getNewsItem(@PathParam("id") final long id) {
         NewsItem newsItem = newsItemDAO.getNewsItem(id);
 
@@ -80,7 +80,7 @@ public class NewsResource {
             "Combining a kd id with from and to is usually a good way to zero in a specific conflict and/or war.")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_NewsItem>> getNews(@Documentation("The id's of the kingdoms to limit the news items to")
                                                 @QueryParam("kingdomIds")
                                                 final List<Long> kingdomIds,
@@ -85,7 +85,7 @@ public class NicknamesResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Nickname getNickname(@PathParam("id") final long id) {
         Nickname nickname = nicknameDAO.getNickname(id);
 
@@ -97,7 +97,7 @@ public class NicknamesResource {
     @Documentation("Returns all nicknames, or optionally just the ones for the specified user")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Nickname>> getNicknames(@Documentation("The id of the user whose nicks to get")
                                                      @QueryParam("userId")
                                                      final Long userId) {
@@ -71,7 +71,7 @@ public class NoteResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Note getNote(@PathParam("id") final long id,
                            @Context final WebContext webContext) {
         Note note = noteDAO.getNote(id);
@@ -86,7 +86,7 @@ public class NoteResource {
     @Documentation("Returns all notes the current user can see, or optionally just the ones bound to the specified user (admin only)")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Note>> getNotes(@Documentation("The id of the user to limit the response to")
                                              @QueryParam("userId")
                                              final Long userId,
@@ -63,7 +63,7 @@ public class NotificationResource {
     @Documentation("Returns all the notifications for either the logged in user, or the one specified by the query param (admin only option)")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Notification>> getNotifications(@Documentation("The id of the user to get notifications for")
                                                              @QueryParam("userId")
                                                              final Long userId,
@@ -144,7 +144,7 @@ public class OpResource {
     @Path("duration")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_DurationOp>> getDurationOps(@Documentation("Id's for the kingdoms to get ops for. Cannot be combined with other params")
                                                          @QueryParam("kingdomIds")
                                                          final List<Long> kingdomIds,
@@ -251,7 +251,7 @@ public class OpResource {
     @Path("instant")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_InstantOp>> getInstantOps(@Documentation("Id's for the kingdoms to get ops for. Cannot be combined with other params")
                                                        @QueryParam("kingdomIds")
                                                        final List<Long> kingdomIds,
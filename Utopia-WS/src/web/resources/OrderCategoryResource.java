@@ -60,7 +60,7 @@ public class OrderCategoryResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_OrderCategory getCategory(@PathParam("id") final long id) {
         OrderCategory category = orderCategoryDAO.getOrderCategory(id);
 
@@ -72,7 +72,7 @@ public class OrderCategoryResource {
     @Documentation("Returns all existing categories")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_OrderCategory>> getCategories() {
         List<RS_OrderCategory> categories = new ArrayList<>();
 
@@ -93,7 +93,7 @@ public class OrderResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Order getOrder(@PathParam("id") final long id) {
         Order order = orderDAO.getOrder(id);
 
@@ -105,7 +105,7 @@ public class OrderResource {
     @Documentation("Returns all the orders, or optionally just those specifically targetted at the specified user (including untargetted one as well)")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Order>> getOrders(@Documentation("The id of the user to get orders for")
                                                @QueryParam("userId")
                                                final Long userId) {
@@ -30,7 +30,7 @@ public class PersonalityResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Personality getPersonality(@PathParam("id") final long id) {
         Personality personality = personalityDAO.getPersonality(id);
 
@@ -42,7 +42,7 @@ public class PersonalityResource {
     @Documentation("Returns all personalities")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Personality>> getPersonalities() {
         List<RS_Personality> personalities = new ArrayList<>();
 
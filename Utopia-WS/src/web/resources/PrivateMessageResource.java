@@ -54,7 +54,7 @@ public class PrivateMessageResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_PrivateMessage getPM(@PathParam("id") final long id,
                                    @Context final WebContext webContext) {
         PrivateMessage pm = privateMessageDAO.getPrivateMessage(id);
@@ -71,7 +71,7 @@ public class PrivateMessageResource {
     @Path("received")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_PrivateMessage>> getReceivedPMs(@Context final WebContext webContext) {
         BotUser user = webContext.getBotUser();
 
@@ -88,7 +88,7 @@ public class PrivateMessageResource {
     @Path("sent")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_PrivateMessage>> getSentPMs(@Context final WebContext webContext) {
         BotUser user = webContext.getBotUser();
 
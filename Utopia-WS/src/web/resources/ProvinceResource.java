@@ -10,14 +10,12 @@ import database.daos.KingdomDAO;
 import database.daos.PersonalityDAO;
 import database.daos.ProvinceDAO;
 import database.daos.RaceDAO;
-import database.models.Kingdom;
-import database.models.Personality;
-import database.models.Province;
-import database.models.Race;
+import database.models.*;
 import tools.validation.ExistsInDB;
 import web.documentation.Documentation;
 import web.models.RS_Province;
 import web.models.RS_User;
+import web.tools.ConditionalGet;
 import web.tools.WebContext;
 
 import javax.inject.Inject;
@@ -87,7 +85,9 @@ public class ProvinceResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Province.class, Kingdom.class, Race.class, Personality.class, HonorTitle.class, BotUser.class, SoT.class, SoM.class,
+            Army.class, SoS.class, SoSEntry.class, Survey.class, SurveyEntry.class})
     public RS_Province getProvince(@PathParam("id") final long id) {
         Province province = provinceDAO.getProvince(id);
 
@@ -100,7 +100,9 @@ public class ProvinceResource {
             "parameters are used and all provinces are to be returned, they will have minimum content to keep the data size down")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
+    @ConditionalGet({Province.class, Kingdom.class, Race.class, Personality.class, HonorTitle.class, BotUser.class, SoT.class, SoM.class,
+            Army.class, SoS.class, SoSEntry.class, Survey.class, SurveyEntry.class})
     public JResponse<List<RS_Province>> getProvinces(@Documentation("The id's of the users to get provinces for")
                                                      @QueryParam("userIds")
                                                      final List<Long> userIds,
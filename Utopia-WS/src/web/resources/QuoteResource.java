@@ -47,7 +47,7 @@ public class QuoteResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Quote getQuote(@PathParam("id") final long id) {
         Quote quote = quoteDAO.getQuote(id);
 
@@ -59,7 +59,7 @@ public class QuoteResource {
     @Documentation("Returns all quotes")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Quote>> getQuotes() {
         List<RS_Quote> orders = new ArrayList<>();
 
@@ -30,7 +30,7 @@ public class RaceResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Race getRace(@PathParam("id") final long id) {
         Race race = raceDAO.getRace(id);
 
@@ -42,7 +42,7 @@ public class RaceResource {
     @Documentation("Returns all races")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Race>> getRaces() {
         List<RS_Race> races = new ArrayList<>();
 
@@ -30,7 +30,7 @@ public class ScienceTypeResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_ScienceType getScienceType(@PathParam("id") final long id) {
         ScienceType scienceType = scienceTypeDAO.getScienceType(id);
 
@@ -42,7 +42,7 @@ public class ScienceTypeResource {
     @Documentation("Returns all science types")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_ScienceType>> getScienceTypes() {
         List<RS_ScienceType> scienceTypes = new ArrayList<>();
 
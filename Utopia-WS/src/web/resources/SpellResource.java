@@ -144,7 +144,7 @@ public class SpellResource {
     @Path("duration")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_DurationSpell>> getDurationSpells(@Documentation("Id's for the kingdoms to get spells for. Cannot be combined with other params")
                                                                @QueryParam("kingdomIds")
                                                                final List<Long> kingdomIds,
@@ -251,7 +251,7 @@ public class SpellResource {
     @Path("instant")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_InstantSpell>> getInstantSpells(@Documentation("Id's for the kingdoms to get spells for. Cannot be combined with other params")
                                                              @QueryParam("kingdomIds")
                                                              final List<Long> kingdomIds,
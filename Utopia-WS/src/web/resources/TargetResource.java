@@ -8,10 +8,9 @@ import com.google.inject.Provider;
 import com.sun.jersey.api.JResponse;
 import database.daos.ProvinceDAO;
 import database.daos.TargetDAO;
-import database.models.Bindings;
-import database.models.Province;
-import database.models.Target;
+import database.models.*;
 import tools.BindingsManager;
+import tools.cache.ResultCache;
 import web.documentation.Documentation;
 import web.models.RS_Target;
 import web.models.RS_TargetHitter;
@@ -27,6 +26,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static api.tools.collections.CollectionUtil.isNotEmpty;
@@ -44,6 +44,7 @@ public class TargetResource {
     private final Provider<BindingsParser> bindingsParserProvider;
     private final Provider<BindingsManager> bindingsManagerProvider;
     private final Provider<Validator> validatorProvider;
+    private final ResultCache resultCache;
 
     @Inject
     public TargetResource(final TargetDAO targetDAO,
@@ -51,13 +52,15 @@ public class TargetResource {
                           final Provider<BotUserDAO> botUserDAOProvider,
                           final Provider<BindingsParser> bindingsParserProvider,
                           final Provider<BindingsManager> bindingsManagerProvider,
-                          final Provider<Validator> validatorProvider) {
+                          final Provider<Validator> validatorProvider,
+                          final ResultCache resultCache) {
         this.targetDAO = targetDAO;
         this.provinceDAOProvider = provinceDAOProvider;
         this.botUserDAOProvider = botUserDAOProvider;
         this.bindingsParserProvider = bindingsParserProvider;
         this.bindingsManagerProvider = bindingsManagerProvider;
         this.validatorProvider = validatorProvider;
+        this.resultCache = resultCache;
     }
 
     @Documentation("Adds a target and returns the saved object. Any hitters specified are added in the order they're received (i.e. the position element " +
@@ -98,7 +101,7 @@ public class TargetResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Target getTarget(@PathParam("id") final long id) {
         Target target = targetDAO.getTarget(id);
 
@@ -110,14 +113,27 @@ public class TargetResource {
     @Documentation("Returns all targets, or optionally just the one for the specified user")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Target>> getTargets(@Documentation("The user to get targets for")
                                                  @QueryParam("userId")
                                                  final Long userId) {
         List<RS_Target> targets = new ArrayList<>();
         if (userId == null) {
-            for (Target target : targetDAO.getAllTargets()) {
-                targets.add(RS_Target.fromTarget(target, true));
+            List<RS_Target> allTargets = resultCache.get("TargetResource.getTargets", "all", new ResultCache.Loader<List<RS_Target>>() {
+                @Override
+                public List<RS_Target> load(final ResultCache.Dependencies dependencies) {
+                    dependencies.onAny(Target.class, TargetHitter.class, Bindings.class, BotUserBinding.class, RaceBinding.class,
+                            PersonalityBinding.class);
+                    List<RS_Target> allTargets = new ArrayList<>();
+                    for (Target target : targetDAO.getAllTargets()) {
+                        dependencies.on(Province.class, target.getProvince().getId()).on(BotUser.class, target.getHitters());
+                        allTargets.add(RS_Target.fromTarget(target, true));
+                    }
+                    return Collections.unmodifiableList(allTargets);
+                }
+            });
+            for (RS_Target target : allTargets) {
+                targets.add(RS_Target.copyOf(target));
             }
         } else {
             BotUserDAO botUserDAO = botUserDAOProvider.get();
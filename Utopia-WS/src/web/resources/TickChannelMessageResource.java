@@ -67,7 +67,7 @@ public class TickChannelMessageResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_TickChannelMessage getMessage(@PathParam("id") final long id) {
         TickChannelMessage message = tickChannelMessageDAO.getTickChannelMessage(id);
 
@@ -79,7 +79,7 @@ public class TickChannelMessageResource {
     @Documentation("Returns all tick messages, or optionally just the one for the specified channel")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_TickChannelMessage>> getMessages(@Documentation("The id of the channel to get the message for")
                                                               @QueryParam("channelId")
                                                               final Long channelId) {
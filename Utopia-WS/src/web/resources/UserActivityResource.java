@@ -38,7 +38,7 @@ public class UserActivityResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_UserActivities getActivity(@PathParam("id") final long id) {
         UserActivities activities = userActivitiesDAO.getUserActivities(id);
 
@@ -77,7 +77,7 @@ public class UserCheckinResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_UserCheckin getCheckin(@PathParam("id") final long id) {
         UserCheckIn checkin = userCheckinDAO.getUserCheckIn(id);
 
@@ -89,7 +89,7 @@ public class UserCheckinResource {
     @Documentation("Returns all checkins, or optionally just the ones for the specified users")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_UserCheckin>> getCheckins(@Documentation("The ids of the users to get checkin info for")
                                                        @QueryParam("userIds")
                                                        final List<Long> userIds) {
@@ -114,7 +114,7 @@ public class UserResource {
     @Documentation("Returns all users, or optionally the user with the specified nick")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_User>> getUsers(@Documentation("The nick to get the user for")
                                              @QueryParam("nick")
                                              final String nick) {
@@ -136,7 +136,7 @@ public class UserResource {
     @Path("admins")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_User>> getAdmins() {
         Collection<BotUser> allAdmins = userDAO.getAdminUsers();
         List<RS_User> admins = new ArrayList<>(allAdmins.size());
@@ -150,7 +150,7 @@ public class UserResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_User getUser(@PathParam("id") final long id) {
         BotUser user = userDAO.getUser(id);
 
@@ -163,7 +163,7 @@ public class UserResource {
     @Path("{userId : \\d+}/statistics")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_UserStatistic>> getUserStatistics(@PathParam("userId") final long userId) {
         BotUser user = userDAO.getUser(userId);
         if (user == null) throw new WebApplicationException(Response.Status.NOT_FOUND);
@@ -65,7 +65,7 @@ public class UserSpellOpTargetResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_UserSpellOpTarget getTarget(@PathParam("id") final long id) {
         UserSpellOpTarget target = userSpellOpTargetDAO.getUserSpellOpTarget(id);
 
@@ -77,7 +77,7 @@ public class UserSpellOpTargetResource {
     @Documentation("Returns all targets, or optionally just the one for the specified user")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_UserSpellOpTarget>> getTargets(@Documentation("The id of the user to get the target for")
                                                             @QueryParam("userId")
                                                             final Long userId) {
@@ -58,7 +58,7 @@ public class WaitResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_Wait getWait(@PathParam("id") final long id,
                            @Context final WebContext webContext) {
         Wait wait = waitDAO.getWait(id);
@@ -73,7 +73,7 @@ public class WaitResource {
     @Documentation("Returns all waits for the current user")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_Wait>> getWaits(@Context final WebContext webContext) {
         List<RS_Wait> waits = new ArrayList<>();
 
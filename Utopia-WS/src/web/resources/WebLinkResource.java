@@ -56,7 +56,7 @@ public class WebLinkResource {
     @Path("{id : \\d+}")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public RS_WebLink getWebLink(@PathParam("id") final long id) {
         WebLink webLink = webLinkDAO.getWebLink(id);
 
@@ -68,7 +68,7 @@ public class WebLinkResource {
     @Documentation("Returns all web links")
     @GET
     @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
-    @Transactional
+    @Transactional(readOnly = true)
     public JResponse<List<RS_WebLink>> getWebLinks() {
         List<RS_WebLink> webLinks = new ArrayList<>();
 
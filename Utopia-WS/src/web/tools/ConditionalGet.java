@@ -0,0 +1,22 @@
+package web.tools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET resource method whose response only depends on the specified entity types. Responses get an ETag and a
+ * Last-Modified header based on the {@link EntityVersions} of those types, and requests with matching If-None-Match or
+ * If-Modified-Since headers are answered with 304 Not Modified before the resource method (and the database) is called.
+ *
+ * @see ConditionalGetFilterFactory
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConditionalGet {
+    /**
+     * @return the entity types the response is based on, including the ones of nested objects
+     */
+    Class<?>[] value();
+}
@@ -0,0 +1,162 @@
+package web.tools;
+
+import api.settings.PropertiesCollection;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.sun.jersey.api.model.AbstractMethod;
+import com.sun.jersey.core.header.HttpDateFormat;
+import com.sun.jersey.spi.container.*;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.security.Principal;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static web.UtopiaWSPropertiesConfig.VALIDATOR_MAX_AGE;
+
+/**
+ * Adds cache validators to the methods annotated with {@link ConditionalGet}, and answers conditional requests for them.
+ * <p/>
+ * The validators are worked out from the {@link EntityVersions} of the entity types the response depends on, so checking them
+ * is cheap. They're weak, since the same data may be sent as XML or JSON, compressed or not. They also change after the
+ * configured max age even if nothing was changed, which covers what the versions can't see, like bulk deletes and values
+ * that depend on the current time.
+ */
+@Singleton
+@ParametersAreNonnullByDefault
+public class ConditionalGetFilterFactory implements ResourceFilterFactory {
+    private static final String VALIDATOR_PROPERTY = ConditionalGetFilterFactory.class.getName() + ".validator";
+    private static final Splitter TAG_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final String CACHE_CONTROL = "private, no-cache";
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final EntityVersions entityVersions;
+    private final long maxAgeMillis;
+
+    @Inject
+    public ConditionalGetFilterFactory(final EntityVersions entityVersions, final PropertiesCollection properties) {
+        this.entityVersions = entityVersions;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getInteger(VALIDATOR_MAX_AGE)));
+    }
+
+    @Override
+    public List<ResourceFilter> create(final AbstractMethod am) {
+        ConditionalGet conditionalGet = am.getAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) return null;
+        return Collections.<ResourceFilter>singletonList(new ConditionalGetFilter(conditionalGet.value()));
+    }
+
+    private Validator createValidator(final Class<?>[] types, final ContainerRequest request) {
+        long now = System.currentTimeMillis();
+        long windowStart = now - now % maxAgeMillis;
+        long lastModified = Math.max(windowStart, entityVersions.getStartedAt());
+
+        Hasher hasher = Hashing.murmur3_128().newHasher().putLong(entityVersions.getStartedAt()).putLong(windowStart);
+        for (Class<?> type : types) {
+            hasher.putLong(entityVersions.getVersion(type));
+            lastModified = Math.max(lastModified, entityVersions.getLastChanged(type));
+        }
+        //Different users may see different things, and so may clients asking for different media types
+        Principal user = request.getUserPrincipal();
+        hasher.putString(user == null ? "" : user.getName(), Charsets.UTF_8).putChar('\n');
+        hasher.putString(Strings.nullToEmpty(request.getHeaderValue(HttpHeaders.ACCEPT)), Charsets.UTF_8);
+
+        return new Validator(new EntityTag(Long.toHexString(hasher.hash().asLong()), true), new Date(lastModified));
+    }
+
+    private static boolean isNotModified(final Validator validator, final ContainerRequest request) {
+        String ifNoneMatch = request.getHeaderValue(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            //Weak comparison, which is what's used for GET
+            for (String tag : TAG_SPLITTER.split(ifNoneMatch)) {
+                if ("*".equals(tag) || validator.entityTag.getValue().equals(getOpaqueTag(tag))) return true;
+            }
+            return false;
+        }
+
+        String ifModifiedSince = request.getHeaderValue(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                //The header only has whole seconds
+                long since = HttpDateFormat.readDate(ifModifiedSince).getTime();
+                return validator.lastModified.getTime() / 1000 <= since / 1000;
+            } catch (ParseException ignore) {
+                //Invalid dates are ignored, as the spec says
+            }
+        }
+        return false;
+    }
+
+    private static String getOpaqueTag(final String tag) {
+        String opaque = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (opaque.length() >= 2 && opaque.startsWith("\"") && opaque.endsWith("\"")) opaque = opaque.substring(1, opaque.length() - 1);
+        return opaque;
+    }
+
+    private class ConditionalGetFilter implements ResourceFilter, ContainerRequestFilter, ContainerResponseFilter {
+        private final Class<?>[] types;
+
+        private ConditionalGetFilter(final Class<?>[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public ContainerRequestFilter getRequestFilter() {
+            return this;
+        }
+
+        @Override
+        public ContainerResponseFilter getResponseFilter() {
+            return this;
+        }
+
+        @Override
+        public ContainerRequest filter(final ContainerRequest request) {
+            if (!"GET".equals(request.getMethod())) return request;
+
+            //Worked out before the data is loaded, so anything committed in between gives the next request a new validator
+            Validator validator = createValidator(types, request);
+            if (isNotModified(validator, request)) {
+                throw new WebApplicationException(Response.notModified(validator.entityTag).lastModified(validator.lastModified)
+                                                          .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                                                          .header(HttpHeaders.VARY, VARY).build());
+            }
+            request.getProperties().put(VALIDATOR_PROPERTY, validator);
+            return request;
+        }
+
+        @Override
+        public ContainerResponse filter(final ContainerRequest request, final ContainerResponse response) {
+            Validator validator = (Validator) request.getProperties().get(VALIDATOR_PROPERTY);
+            if (validator == null || response.getStatus() != Response.Status.OK.getStatusCode()) return response;
+
+            response.getHttpHeaders().putSingle(HttpHeaders.ETAG, validator.entityTag);
+            response.getHttpHeaders().putSingle(HttpHeaders.LAST_MODIFIED, validator.lastModified);
+            response.getHttpHeaders().putSingle(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            response.getHttpHeaders().putSingle(HttpHeaders.VARY, VARY);
+            return response;
+        }
+    }
+
+    private static class Validator {
+        private final EntityTag entityTag;
+        private final Date lastModified;
+
+        private Validator(final EntityTag entityTag, final Date lastModified) {
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package web.tools;
+
+import api.events.bot.EntitiesChangedEvent;
+import com.google.common.eventbus.Subscribe;
+import spi.events.EventListener;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a version counter per entity type, which is bumped every time a transaction that changed entities of that type is
+ * committed. Lets the web services tell whether what a client already has is still current without asking the database.
+ * <p/>
+ * Changes made with bulk statements (like the cleanup of old intel) aren't seen, just like for the result cache.
+ */
+@Singleton
+@ParametersAreNonnullByDefault
+public class EntityVersions implements EventListener {
+    private final ConcurrentMap<Class<?>, Version> versions = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    @Subscribe
+    public void onEntitiesChanged(final EntitiesChangedEvent event) {
+        long now = System.currentTimeMillis();
+        for (Class<?> type : event.getChangedTypes()) {
+            versionOf(type).bump(now);
+        }
+    }
+
+    /**
+     * @param type the entity type
+     * @return how many committed transactions have changed entities of the specified type since the bot was started
+     */
+    public long getVersion(final Class<?> type) {
+        return versionOf(type).counter.get();
+    }
+
+    /**
+     * @param type the entity type
+     * @return when entities of the specified type were last changed, or when the bot was started if they haven't been
+     */
+    public long getLastChanged(final Class<?> type) {
+        return versionOf(type).lastChanged;
+    }
+
+    /**
+     * @return when the bot was started, which is part of every validator since the counters start over with the bot
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    private Version versionOf(final Class<?> type) {
+        Version version = versions.get(type);
+        if (version == null) {
+            Version created = new Version(startedAt);
+            version = versions.putIfAbsent(type, created);
+            if (version == null) version = created;
+        }
+        return version;
+    }
+
+    private static class Version {
+        private final AtomicLong counter = new AtomicLong();
+        private volatile long lastChanged;
+
+        private Version(final long lastChanged) {
+            this.lastChanged = lastChanged;
+        }
+
+        private void bump(final long now) {
+            //Set before the counter, so anyone seeing the new counter also sees the new time
+            lastChanged = Math.max(lastChanged, now);
+            counter.incrementAndGet();
+        }
+    }
+}
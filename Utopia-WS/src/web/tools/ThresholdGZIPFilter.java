@@ -0,0 +1,137 @@
+package web.tools;
+
+import api.settings.PropertiesCollection;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static web.UtopiaWSPropertiesConfig.GZIP_THRESHOLD;
+
+/**
+ * Compresses responses with gzip when the client accepts it, but only when they're at least as big as the configured threshold.
+ * Small responses cost more to compress than they save, and the gzip header alone is about 20 bytes.
+ * <p/>
+ * Responses of unknown length are held back until they either reach the threshold, at which point they're streamed compressed,
+ * or end, at which point they're sent as they are.
+ */
+@Singleton
+@ParametersAreNonnullByDefault
+public class ThresholdGZIPFilter implements ContainerResponseFilter {
+    private static final String GZIP = "gzip";
+
+    private final int threshold;
+
+    @Inject
+    public ThresholdGZIPFilter(final PropertiesCollection properties) {
+        this.threshold = Math.max(0, properties.getInteger(GZIP_THRESHOLD));
+    }
+
+    @Override
+    public ContainerResponse filter(final ContainerRequest request, final ContainerResponse response) {
+        MultivaluedMap<String, Object> headers = response.getHttpHeaders();
+        if (response.getEntity() == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) return response;
+
+        String acceptEncoding = request.getHeaderValue(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.contains(GZIP)) return response;
+
+        if (!headers.containsKey(HttpHeaders.VARY)) headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContainerResponseWriter(new ThresholdWriter(response.getContainerResponseWriter(), threshold));
+        return response;
+    }
+
+    private static class ThresholdWriter implements ContainerResponseWriter {
+        private final ContainerResponseWriter writer;
+        private final int threshold;
+        private ContainerResponse response;
+        private ThresholdOutputStream out;
+
+        private ThresholdWriter(final ContainerResponseWriter writer, final int threshold) {
+            this.writer = writer;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public OutputStream writeStatusAndHeaders(final long contentLength, final ContainerResponse response) throws IOException {
+            if (contentLength >= 0 && contentLength < threshold) return writer.writeStatusAndHeaders(contentLength, response);
+            this.response = response;
+            out = new ThresholdOutputStream(this, contentLength >= 0 ? 0 : threshold);
+            return out;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (out != null) out.close();
+            writer.finish();
+        }
+
+        private GZIPOutputStream startCompressed() throws IOException {
+            response.getHttpHeaders().add(HttpHeaders.CONTENT_ENCODING, GZIP);
+            return new GZIPOutputStream(writer.writeStatusAndHeaders(-1, response));
+        }
+
+        private OutputStream startUncompressed(final long contentLength) throws IOException {
+            return writer.writeStatusAndHeaders(contentLength, response);
+        }
+    }
+
+    private static class ThresholdOutputStream extends OutputStream {
+        private final ThresholdWriter writer;
+        private final int threshold;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream out;
+        private boolean closed;
+
+        private ThresholdOutputStream(final ThresholdWriter writer, final int threshold) {
+            this.writer = writer;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (out == null) {
+                buffer.write(b, off, len);
+                if (buffer.size() < threshold) return;
+                out = writer.startCompressed();
+                buffer.writeTo(out);
+                buffer = null;
+            } else out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            //Flushing the buffer would mean deciding before the threshold is reached, so only flush once streaming
+            if (out != null) out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            if (out == null) {
+                if (buffer.size() >= threshold) out = writer.startCompressed();
+                else out = writer.startUncompressed(buffer.size());
+                buffer.writeTo(out);
+                buffer = null;
+            }
+            //The container closes its own stream, this only has to write what's left of the compressed data
+            if (out instanceof GZIPOutputStream) ((GZIPOutputStream) out).finish();
+            else out.flush();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package web.events;
+
+import api.metrics.MetricsRegistry;
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import internal.settings.Properties;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+import static web.UtopiaWSPropertiesConfig.*;
+
+@Test
+public class EventStreamHubTest {
+    private final ThreadingManager threadingManager = new ThreadingManager(1);
+    private MetricsRegistry metricsRegistry;
+    private EventStreamHub hub;
+
+    @AfterMethod
+    public void tearDown() {
+        if (hub != null) hub.getShutdownRunner().run();
+        hub = null;
+    }
+
+    @AfterClass
+    public void shutDown() {
+        threadingManager.getShutdownRunner().run();
+    }
+
+    public void testTopicMatching() {
+        EventStreamClient client = new EventStreamClient(mock(AsyncContext.class), Sets.newHashSet("army", "intel.sot"), "user", 1);
+        assertTrue(client.isSubscribedTo("army"));
+        assertTrue(client.isSubscribedTo("army.added"));
+        assertTrue(client.isSubscribedTo("army.home"));
+        assertTrue(client.isSubscribedTo("intel.sot"));
+        assertFalse(client.isSubscribedTo("armyx.added"));
+        assertFalse(client.isSubscribedTo("intel"));
+        assertFalse(client.isSubscribedTo("intel.som"));
+        assertFalse(client.isSubscribedTo("target.added"));
+
+        EventStreamClient everything = new EventStreamClient(mock(AsyncContext.class), Collections.<String>emptySet(), "user", 1);
+        assertTrue(everything.isSubscribedTo("intel.som"));
+        assertTrue(everything.isSubscribedTo("target.added"));
+    }
+
+    public void testClientWithFullBufferIsDropped() throws Exception {
+        hub = createHub(10000);
+        BlockingStream stream = new BlockingStream();
+        AsyncContext asyncContext = mockAsyncContext(stream);
+        EventStreamClient client = new EventStreamClient(asyncContext, Collections.<String>emptySet(), "slow", hub.getBufferSize());
+        assertTrue(hub.register(client));
+
+        hub.send(client, "first");
+        assertTrue(stream.writing.await(5, TimeUnit.SECONDS));
+        //The writer is stuck on the first frame, so the next ones stay in the buffer until it's full
+        hub.send(client, "second");
+        hub.send(client, "third");
+        verify(asyncContext, never()).complete();
+        hub.send(client, "fourth");
+
+        verify(asyncContext).complete();
+        assertEquals(metricsRegistry.getCounters().get("ws.events.clients.dropped"), Long.valueOf(1));
+        assertFalse(client.offer("fifth"));
+    }
+
+    public void testStalledWriteIsDroppedAndFreesTheWriter() throws Exception {
+        hub = createHub(50);
+        BlockingStream stalledStream = new BlockingStream();
+        AsyncContext stalledContext = mockAsyncContext(stalledStream);
+        EventStreamClient stalled = new EventStreamClient(stalledContext, Collections.<String>emptySet(), "stalled", hub.getBufferSize());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final CountDownLatch written = new CountDownLatch(1);
+        EventStreamClient other = new EventStreamClient(mockAsyncContext(new CapturingStream(received, written)),
+                Collections.<String>emptySet(), "other", hub.getBufferSize());
+        assertTrue(hub.register(stalled));
+        assertTrue(hub.register(other));
+
+        hub.send(stalled, "first");
+        assertTrue(stalledStream.writing.await(5, TimeUnit.SECONDS));
+        //With a single writer, this one has to wait for the stalled write
+        hub.send(other, "hello");
+        hub.dropStalledClients();
+        verify(stalledContext, never()).complete();
+
+        Thread.sleep(100);
+        hub.dropStalledClients();
+
+        verify(stalledContext).complete();
+        assertEquals(metricsRegistry.getCounters().get("ws.events.clients.dropped"), Long.valueOf(1));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(new String(received.toByteArray(), Charsets.UTF_8), "hello");
+    }
+
+    private EventStreamHub createHub(final long writeTimeoutMillis) {
+        metricsRegistry = new MetricsRegistry();
+        Map<String, String> settings = new HashMap<>();
+        settings.put(EVENT_STREAM_BUFFER_SIZE, "2");
+        settings.put(EVENT_STREAM_MAX_CLIENTS, "10");
+        settings.put(EVENT_STREAM_WRITERS, "1");
+        settings.put(EVENT_STREAM_WRITE_TIMEOUT, String.valueOf(writeTimeoutMillis));
+        return new EventStreamHub(new PropertiesCollection(Collections.<Properties>emptyList(), settings, threadingManager),
+                threadingManager, metricsRegistry);
+    }
+
+    /**
+     * Mocks a context where completing it closes the stream, like the container does
+     */
+    private static AsyncContext mockAsyncContext(final ServletOutputStream stream) throws IOException {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        ServletResponse response = mock(ServletResponse.class);
+        when(response.getOutputStream()).thenReturn(stream);
+        when(asyncContext.getResponse()).thenReturn(response);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws IOException {
+                stream.close();
+                return null;
+            }
+        }).when(asyncContext).complete();
+        return asyncContext;
+    }
+
+    /**
+     * A stream to a client that stopped reading, so writes block until the stream is closed
+     */
+    private static class BlockingStream extends ServletOutputStream {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void write(final int b) throws IOException {
+            writing.countDown();
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        @Override
+        public boolean isReady() {
+            return false;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+        }
+    }
+
+    private static class CapturingStream extends ServletOutputStream {
+        private final ByteArrayOutputStream out;
+        private final CountDownLatch flushed;
+
+        private CapturingStream(final ByteArrayOutputStream out, final CountDownLatch flushed) {
+            this.out = out;
+            this.flushed = flushed;
+        }
+
+        @Override
+        public void write(final int b) {
+            out.write(b);
+        }
+
+        @Override
+        public void flush() {
+            flushed.countDown();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package web.tools;
+
+import api.events.bot.EntitiesChangedEvent;
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.sun.jersey.api.model.AbstractMethod;
+import com.sun.jersey.core.header.HttpDateFormat;
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ResourceFilter;
+import internal.settings.Properties;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.util.*;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+import static web.UtopiaWSPropertiesConfig.VALIDATOR_MAX_AGE;
+
+@Test
+public class ConditionalGetFilterFactoryTest {
+    private EntityVersions entityVersions;
+
+    @BeforeMethod
+    public void setUp() {
+        entityVersions = new EntityVersions();
+    }
+
+    public void testIfNoneMatchWithMatchingTags() throws Exception {
+        ResourceFilter filter = createFilter(300);
+        String tag = getValidator(filter).getValue();
+
+        assertNotModified(filter, HttpHeaders.IF_NONE_MATCH, "W/\"" + tag + '"');
+        assertNotModified(filter, HttpHeaders.IF_NONE_MATCH, '"' + tag + '"');
+        assertNotModified(filter, HttpHeaders.IF_NONE_MATCH, "*");
+        assertNotModified(filter, HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"" + tag + '"');
+    }
+
+    public void testIfNoneMatchWithOtherTags() throws Exception {
+        ResourceFilter filter = createFilter(300);
+        String tag = getValidator(filter).getValue();
+
+        assertModified(filter, HttpHeaders.IF_NONE_MATCH, "W/\"other\"");
+        assertModified(filter, HttpHeaders.IF_NONE_MATCH, "\"" + tag + "x\", \"other\"");
+        //A matching date doesn't count when there are tags that don't match
+        assertModified(filter, HttpHeaders.IF_NONE_MATCH, "\"other\"", HttpHeaders.IF_MODIFIED_SINCE, formatDate(new Date()));
+    }
+
+    public void testIfModifiedSinceIsTruncatedToWholeSeconds() throws Exception {
+        ResourceFilter filter = createFilter(300);
+        Date lastModified = getLastModified(filter);
+
+        //The header drops the millis, so a header for the same second has to count as not modified
+        assertNotModified(filter, HttpHeaders.IF_MODIFIED_SINCE, formatDate(lastModified));
+        assertNotModified(filter, HttpHeaders.IF_MODIFIED_SINCE, formatDate(new Date(lastModified.getTime() + 1000)));
+        assertModified(filter, HttpHeaders.IF_MODIFIED_SINCE, formatDate(new Date(lastModified.getTime() - 1000)));
+        assertModified(filter, HttpHeaders.IF_MODIFIED_SINCE, "not a date");
+    }
+
+    public void testValidatorChangesWhenTheEntitiesChange() throws Exception {
+        ResourceFilter filter = createFilter(300);
+        EntityTag before = getValidator(filter);
+
+        entityVersions.onEntitiesChanged(createChangedEvent(String.class));
+        assertEquals(getValidator(filter), before);
+
+        entityVersions.onEntitiesChanged(createChangedEvent(Resource.class));
+        EntityTag after = getValidator(filter);
+        assertNotEquals(after, before);
+        assertModified(filter, HttpHeaders.IF_NONE_MATCH, before.toString());
+        assertNotModified(filter, HttpHeaders.IF_NONE_MATCH, after.toString());
+    }
+
+    public void testValidatorChangesWhenTheWindowRollsOver() throws Exception {
+        ResourceFilter filter = createFilter(1);
+        sleepUntilNextSecond();
+        EntityTag before = getValidator(filter);
+        Date lastModifiedBefore = getLastModified(filter);
+
+        sleepUntilNextSecond();
+        EntityTag after = getValidator(filter);
+
+        assertNotEquals(after, before);
+        assertTrue(getLastModified(filter).after(lastModifiedBefore));
+        assertModified(filter, HttpHeaders.IF_NONE_MATCH, before.toString());
+    }
+
+    private ResourceFilter createFilter(final int maxAgeSeconds) throws NoSuchMethodException {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(VALIDATOR_MAX_AGE, String.valueOf(maxAgeSeconds));
+        ConditionalGetFilterFactory factory = new ConditionalGetFilterFactory(entityVersions,
+                new PropertiesCollection(Collections.<Properties>emptyList(), settings, new ThreadingManager(1)));
+
+        AbstractMethod method = mock(AbstractMethod.class);
+        when(method.getAnnotation(ConditionalGet.class))
+                .thenReturn(Resource.class.getMethod("get").getAnnotation(ConditionalGet.class));
+        List<ResourceFilter> filters = factory.create(method);
+        assertEquals(filters.size(), 1);
+        return filters.get(0);
+    }
+
+    private static EntityTag getValidator(final ResourceFilter filter) {
+        return (EntityTag) respond(filter).getFirst(HttpHeaders.ETAG);
+    }
+
+    private static Date getLastModified(final ResourceFilter filter) {
+        return (Date) respond(filter).getFirst(HttpHeaders.LAST_MODIFIED);
+    }
+
+    private static MultivaluedMap<String, Object> respond(final ResourceFilter filter) {
+        ContainerRequest request = filter.getRequestFilter().filter(createRequest());
+        ContainerResponse response = mock(ContainerResponse.class);
+        OutBoundHeaders headers = new OutBoundHeaders();
+        when(response.getStatus()).thenReturn(200);
+        when(response.getHttpHeaders()).thenReturn(headers);
+        filter.getResponseFilter().filter(request, response);
+        return headers;
+    }
+
+    private static void assertNotModified(final ResourceFilter filter, final String... headers) {
+        try {
+            filter.getRequestFilter().filter(createRequest(headers));
+            fail("Expected 304 for " + Arrays.toString(headers));
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), 304);
+        }
+    }
+
+    private static void assertModified(final ResourceFilter filter, final String... headers) {
+        filter.getRequestFilter().filter(createRequest(headers));
+    }
+
+    /**
+     * @param headers header names followed by their values
+     */
+    private static ContainerRequest createRequest(final String... headers) {
+        ContainerRequest request = mock(ContainerRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getProperties()).thenReturn(new HashMap<String, Object>());
+        for (int i = 0; i < headers.length; i += 2) {
+            when(request.getHeaderValue(headers[i])).thenReturn(headers[i + 1]);
+        }
+        return request;
+    }
+
+    private static EntitiesChangedEvent createChangedEvent(final Class<?> type) {
+        SetMultimap<Class<?>, Object> changed = HashMultimap.create();
+        changed.put(type, 1L);
+        return new EntitiesChangedEvent(changed, Collections.<Class<?>>emptySet());
+    }
+
+    private static String formatDate(final Date date) {
+        return HttpDateFormat.getPreferedDateFormat().format(date);
+    }
+
+    private static void sleepUntilNextSecond() throws InterruptedException {
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 20);
+    }
+
+    public static class Resource {
+        @ConditionalGet(Resource.class)
+        public String get() {
+            return "";
+        }
+    }
+}
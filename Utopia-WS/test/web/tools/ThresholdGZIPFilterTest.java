@@ -0,0 +1,145 @@
+package web.tools;
+
+import api.runtime.ThreadingManager;
+import api.settings.PropertiesCollection;
+import com.google.common.io.ByteStreams;
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+import internal.settings.Properties;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+import static web.UtopiaWSPropertiesConfig.GZIP_THRESHOLD;
+
+@Test
+public class ThresholdGZIPFilterTest {
+    private static final int THRESHOLD = 100;
+
+    public void testKnownLengthBelowThresholdIsNotCompressed() throws IOException {
+        CapturingWriter written = send(body(THRESHOLD - 1), true, "gzip, deflate");
+
+        assertEquals(written.contentLength, THRESHOLD - 1);
+        assertFalse(written.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(written.out.toByteArray(), body(THRESHOLD - 1));
+        assertEquals(written.headers.getFirst(HttpHeaders.VARY), HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    public void testKnownLengthAtThresholdIsCompressed() throws IOException {
+        CapturingWriter written = send(body(THRESHOLD), true, "gzip");
+
+        assertEquals(written.contentLength, -1);
+        assertEquals(written.headers.getFirst(HttpHeaders.CONTENT_ENCODING), "gzip");
+        assertEquals(gunzip(written.out.toByteArray()), body(THRESHOLD));
+    }
+
+    public void testUnknownLengthBelowThresholdIsNotCompressed() throws IOException {
+        CapturingWriter written = send(body(THRESHOLD - 1), false, "gzip");
+
+        //Sent as is once it ends, and then the length is known
+        assertEquals(written.contentLength, THRESHOLD - 1);
+        assertFalse(written.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(written.out.toByteArray(), body(THRESHOLD - 1));
+    }
+
+    public void testUnknownLengthAboveThresholdIsCompressed() throws IOException {
+        CapturingWriter written = send(body(THRESHOLD * 5), false, "gzip");
+
+        assertEquals(written.contentLength, -1);
+        assertEquals(written.headers.getFirst(HttpHeaders.CONTENT_ENCODING), "gzip");
+        assertEquals(gunzip(written.out.toByteArray()), body(THRESHOLD * 5));
+    }
+
+    public void testNotCompressedWhenNotAccepted() throws IOException {
+        CapturingWriter written = send(body(THRESHOLD * 5), true, null);
+
+        assertEquals(written.contentLength, THRESHOLD * 5);
+        assertFalse(written.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertFalse(written.headers.containsKey(HttpHeaders.VARY));
+        assertEquals(written.out.toByteArray(), body(THRESHOLD * 5));
+    }
+
+    /**
+     * Runs a response through the filter, and writes the body in small chunks the way an entity provider would
+     */
+    private static CapturingWriter send(final byte[] body, final boolean lengthKnown, final String acceptEncoding) throws IOException {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(GZIP_THRESHOLD, String.valueOf(THRESHOLD));
+        ThresholdGZIPFilter filter = new ThresholdGZIPFilter(
+                new PropertiesCollection(Collections.<Properties>emptyList(), settings, new ThreadingManager(1)));
+
+        ContainerRequest request = mock(ContainerRequest.class);
+        when(request.getHeaderValue(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+        OutBoundHeaders headers = new OutBoundHeaders();
+        CapturingWriter capturingWriter = new CapturingWriter(headers);
+        ContainerResponse response = mock(ContainerResponse.class);
+        when(response.getEntity()).thenReturn(body);
+        when(response.getHttpHeaders()).thenReturn(headers);
+        when(response.getContainerResponseWriter()).thenReturn(capturingWriter);
+
+        filter.filter(request, response);
+
+        ContainerResponseWriter writer = capturingWriter;
+        if (acceptEncoding != null) {
+            ArgumentCaptor<ContainerResponseWriter> captor = ArgumentCaptor.forClass(ContainerResponseWriter.class);
+            verify(response).setContainerResponseWriter(captor.capture());
+            writer = captor.getValue();
+        } else verify(response, never()).setContainerResponseWriter(any(ContainerResponseWriter.class));
+
+        OutputStream out = writer.writeStatusAndHeaders(lengthKnown ? body.length : -1, response);
+        for (int i = 0; i < body.length; i += 30) {
+            out.write(body, i, Math.min(30, body.length - i));
+            out.flush();
+        }
+        writer.finish();
+        assertTrue(capturingWriter.finished);
+        return capturingWriter;
+    }
+
+    private static byte[] body(final int length) {
+        byte[] body = new byte[length];
+        Arrays.fill(body, (byte) 'a');
+        return body;
+    }
+
+    private static byte[] gunzip(final byte[] compressed) throws IOException {
+        return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private static class CapturingWriter implements ContainerResponseWriter {
+        private final OutBoundHeaders headers;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private long contentLength = Long.MIN_VALUE;
+        private boolean finished;
+
+        private CapturingWriter(final OutBoundHeaders headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public OutputStream writeStatusAndHeaders(final long contentLength, final ContainerResponse response) {
+            assertEquals(this.contentLength, Long.MIN_VALUE, "The status and headers were written twice");
+            this.contentLength = contentLength;
+            return out;
+        }
+
+        @Override
+        public void finish() {
+            finished = true;
+        }
+    }
+}